@@ -16,7 +16,10 @@ import science.aist.machinelearning.core.Solution;
 import science.aist.machinelearning.core.options.Descriptor;
 import science.aist.machinelearning.core.util.RandomUtil;
 
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 /**
  * CMA-ES which is essentially an evolution strategy that uses a gradient descent to move through the search space.
@@ -43,6 +46,21 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
      * Current population in the GA context
      */
     private final List<Solution<ST, PT>> population = new ArrayList<>();
+
+    /**
+     * Rows (and columns) per block of the covariance matrix update
+     */
+    private static final int COVARIANCE_BLOCK_SIZE = 64;
+
+    /**
+     * Marks the binary format of {@link #exportState(OutputStream)} ("CMAS")
+     */
+    private static final int STATE_MAGIC = 0x434D4153;
+
+    /**
+     * Version of the binary format of {@link #exportState(OutputStream)}
+     */
+    private static final int STATE_VERSION = 1;
     /**
      * Best currently known solution
      */
@@ -84,10 +102,23 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
      * algorithm when there are many decision variables.  Set to {@code 0} to always use the full covariance matrix.
      */
     private int diagonalIterations = -1;
+    /**
+     * diagonalIterations of the current run. A warm start with a full covariance matrix skips the diagonal phase
+     * without changing the configuration.
+     */
+    private int activeDiagonalIterations;
     /**
      * Size of population ;
      */
     private int populationSize = 50;
+    /**
+     * How the covariance matrix is represented
+     */
+    private CovarianceModel covarianceModel = CovarianceModel.FULL;
+    /**
+     * Amount of direction vectors in the {@link CovarianceModel#LIMITED_MEMORY} mode. -1 means 4 + 3 * ln(n)
+     */
+    private int lowRankDirections = -1;
 
     // endregion Logs
 
@@ -105,13 +136,107 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
      */
     private double[] evolutionPathNextGeneration;
     /**
-     * Coordinate system for covarianceMatrix
+     * Coordinate system for covarianceMatrix, row-major with the eigenvectors as ROWS (row k belongs to scalingFactor[k])
      */
-    private double[][] covarianceCoordinateSystem;
+    private double[] covarianceCoordinateSystem;
     /**
      * Covariance Matrix giving CMA-ES its name :D
+     * <p>
+     * Symmetric, so only the lower triangle is stored packed: row i starts at i * (i + 1) / 2
+     */
+    private double[] covarianceMatrix;
+    /**
+     * Diagonal of the covariance matrix in the {@link CovarianceModel#SEPARABLE} mode (covarianceMatrix is not
+     * allocated then)
+     */
+    private double[] covarianceDiagonal;
+    /**
+     * Direction vectors of the {@link CovarianceModel#LIMITED_MEMORY} mode, row-major with one row of variableCount per
+     * direction
+     */
+    private double[] directions;
+    /**
+     * Learning rates of the direction vectors in the {@link CovarianceModel#LIMITED_MEMORY} mode
+     */
+    private double[] directionLearningRates;
+    /**
+     * Decay of the direction vectors when they are applied in the {@link CovarianceModel#LIMITED_MEMORY} mode
+     */
+    private double[] directionDecays;
+    /**
+     * Amount of direction vectors that were imported with a warm start, they are applied from the first generation on
+     */
+    private int importedDirections;
+    /**
+     * N(0, I) samples the current population was created from, row-major (D * z in the full mode)
+     */
+    private double[] offspringNoise;
+    /**
+     * Source of the per individual random generators
+     */
+    private SplittableRandom random;
+    /**
+     * If the individuals of a generation are sampled and evaluated concurrently (requires a thread safe evaluator)
+     */
+    private boolean parallel = false;
+    /**
+     * If the eigendecomposition of the full covariance matrix runs in the background, while the generations keep
+     * sampling with the previous basis
+     */
+    private boolean asynchronousEigendecomposition = false;
+    /**
+     * Eigendecomposition running in the background, null if none is running
+     */
+    private CompletableFuture<EigenBasis> pendingEigendecomposition;
+    /**
+     * Rescaling of the covariance matrix (see performConsistencyUpdate) since the pending eigendecomposition took its
+     * snapshot
+     */
+    private double pendingScalingFactorFix = 1.0;
+    /**
+     * State imported with {@link #importState(InputStream)}, applied by the next {@link #initialize(Problem)}
+     */
+    private StrategyState warmStart;
+    /**
+     * If the current offspring were handed out by {@link #ask()} and wait for {@link #tell(double[])}
+     */
+    private boolean asked = false;
+    /**
+     * If the candidates are ranked by a {@link LinearQuadraticSurrogate} and only as many are evaluated as needed to
+     * trust its ranking
+     */
+    private boolean surrogate = false;
+    /**
+     * Kendall rank correlation of the surrogate with the real qualities at which no further candidates are evaluated
+     */
+    private double surrogateRankCorrelation = 0.85;
+    /**
+     * Maximum amount of evaluated points the surrogate learns from, -1 for twice the coefficients of its largest model
+     */
+    private int surrogateArchiveSize = -1;
+    /**
+     * Surrogate of the current run, null if the surrogate mode is off
+     */
+    private LinearQuadraticSurrogate surrogateModel;
+    /**
+     * Amount of real evaluations of the current run
+     */
+    private long evaluations;
+    /**
+     * Variables of the current population, row-major with one row of variableCount per individual. Row i belongs to
+     * population.get(i) (in the surrogate mode the population only holds the evaluated rows)
+     */
+    private double[] offspring;
+    /**
+     * Quality of the current population, index i belongs to row i of offspring. In the surrogate mode these are the
+     * predictions of the surrogate if not all rows were evaluated
      */
-    private double[][] covarianceMatrix;
+    private double[] offspringQualities;
+    /**
+     * Steps (x - oldCentroid) / standardDeviation of the selected parents. Stored transposed (one row of
+     * crossoverParentCount per variable) so the rank-mu update runs over contiguous memory
+     */
+    private double[] parentSteps;
 
     // endregion generic code
 
@@ -164,6 +289,19 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
      * if activated CMAES will ensure it stays numerically stable
      */
     private boolean checkConsistency = true;
+    /**
+     * The run is considered converged when the best qualities of the recent generations and of the current population
+     * differ less than this
+     */
+    private double functionTolerance = 1e-12;
+    /**
+     * The run is considered converged when the standard deviation in every coordinate is below this
+     */
+    private double solutionTolerance = 1e-12;
+    /**
+     * Best quality of the recent generations (ring buffer), used to detect convergence
+     */
+    private double[] bestQualityHistory;
 
     /**
      * Symmetric Householder reduction to tridiagonal form, taken from JAMA package.
@@ -380,42 +518,6 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         }
     }
 
-    /**
-     * Exhaustive test of the output of the eigendecomposition.  Needs O(n^3) operations.
-     *
-     * @return the number of detected inaccuracies
-     */
-    private static int checkEigenSystem(int variableCount, double[][] covarianceMatrix, double[] scalingFactor, double[][] covarianceCoordinateSystem) {
-
-        /* compute covarianceCoordinateSystem scalingFactor covarianceCoordinateSystem^T and covarianceCoordinateSystem covarianceCoordinateSystem^T to check */
-        int k;
-        int errors = 0;
-        double cc;
-        double dd;
-
-        for (int i = 0; i < variableCount; ++i) {
-            for (int j = 0; j < variableCount; ++j) {
-                for (cc = 0., dd = 0., k = 0; k < variableCount; ++k) {
-                    cc += scalingFactor[k] * covarianceCoordinateSystem[i][k] * covarianceCoordinateSystem[j][k];
-                    dd += covarianceCoordinateSystem[i][k] * covarianceCoordinateSystem[j][k];
-                }
-                /* check here, is the normalization the right one? */
-                if (Math.abs(cc - covarianceMatrix[Math.max(i, j)][Math.min(i, j)]) / Math.sqrt(covarianceMatrix[i][i] * covarianceMatrix[j][j]) > 1e-10
-                        && Math.abs(cc - covarianceMatrix[Math.max(i, j)][Math.min(i, j)]) > 1e-9) { /* quite large */
-                    // TODO #50 replace with warning
-                    System.err.println("imprecise result detected " + i + " " + j + " " + cc + " " + covarianceMatrix[Math.max(i, j)][Math.min(i, j)] + " " + (cc - covarianceMatrix[Math.max(i, j)][Math.min(i, j)]));
-                    ++errors;
-                }
-                if (Math.abs(dd - (i == j ? 1 : 0)) > 1e-10) {
-                    // TODO #50 replace with warning
-                    System.err.println("imprecise result detected (covarianceCoordinateSystem not orthog.) " + i + " " + j + " " + dd);
-                    ++errors;
-                }
-            }
-        }
-        return errors;
-    }
-
     /**
      * Compute sqrt(a^2 + b^2) without under/overflow.
      */
@@ -441,12 +543,30 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         options.put("initialSearchPosition", new Descriptor<>(initialSearchPosition));
         options.put("diagonalIterations", new Descriptor<>(diagonalIterations));
         options.put("populationSize", new Descriptor<>(populationSize));
+        options.put("covarianceModel", new Descriptor<>(covarianceModel));
+        // only relevant for the limited memory mode, hidden otherwise so experiments don't sweep it
+        if (covarianceModel == CovarianceModel.LIMITED_MEMORY) {
+            options.put("lowRankDirections", new Descriptor<>(lowRankDirections));
+        }
         options.put("cumulationStepSize", new Descriptor<>(cumulationStepSize));
         options.put("cumulation", new Descriptor<>(cumulation));
         options.put("learningRate", new Descriptor<>(learningRate));
         options.put("learningRateDiagonal", new Descriptor<>(learningRateDiagonal));
         options.put("stepSizeDampening", new Descriptor<>(stepSizeDampening));
         options.put("standardDeviation", new Descriptor<>(standardDeviation));
+        options.put("functionTolerance", new Descriptor<>(functionTolerance));
+        options.put("parallel", new Descriptor<>(parallel));
+        options.put("surrogate", new Descriptor<>(surrogate));
+        // only relevant for the surrogate mode, hidden otherwise so experiments don't sweep them
+        if (surrogate) {
+            options.put("surrogateRankCorrelation", new Descriptor<>(surrogateRankCorrelation));
+            options.put("surrogateArchiveSize", new Descriptor<>(surrogateArchiveSize));
+        }
+        // only relevant for the full covariance matrix, hidden otherwise so experiments don't sweep it
+        if (covarianceModel == CovarianceModel.FULL) {
+            options.put("asynchronousEigendecomposition", new Descriptor<>(asynchronousEigendecomposition));
+        }
+        options.put("solutionTolerance", new Descriptor<>(solutionTolerance));
 
         return options;
     }
@@ -473,6 +593,12 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
                 case "populationSize":
                     setPopulationSize((Integer) descriptor.getValue());
                     break;
+                case "covarianceModel":
+                    setCovarianceModel((CovarianceModel) descriptor.getValue());
+                    break;
+                case "lowRankDirections":
+                    setLowRankDirections((Integer) descriptor.getValue());
+                    break;
                 case "cumulationStepSize":
                     setCumulationStepSize((Double) descriptor.getValue());
                     break;
@@ -491,6 +617,27 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
                 case "standardDeviation":
                     setStandardDeviation((Double) descriptor.getValue());
                     break;
+                case "functionTolerance":
+                    setFunctionTolerance((Double) descriptor.getValue());
+                    break;
+                case "parallel":
+                    setParallel((Boolean) descriptor.getValue());
+                    break;
+                case "surrogate":
+                    setSurrogate((Boolean) descriptor.getValue());
+                    break;
+                case "surrogateRankCorrelation":
+                    setSurrogateRankCorrelation((Double) descriptor.getValue());
+                    break;
+                case "surrogateArchiveSize":
+                    setSurrogateArchiveSize((Integer) descriptor.getValue());
+                    break;
+                case "asynchronousEigendecomposition":
+                    setAsynchronousEigendecomposition((Boolean) descriptor.getValue());
+                    break;
+                case "solutionTolerance":
+                    setSolutionTolerance((Double) descriptor.getValue());
+                    break;
                 default:
                     // TODO #50 replace with log
                     System.out.println("WARNING: Option " + name + " unknown");
@@ -619,70 +766,329 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         this.maximumGenerations = maximumGenerations;
     }
 
+    public int getMaximumGenerations() {
+        return maximumGenerations;
+    }
+
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    /**
+     * @return best solution found so far (null before the run was started)
+     */
+    public Solution<ST, PT> getBestSolution() {
+        return bestSolution;
+    }
+
+    /**
+     * @return centroid of the current distribution, the best estimate of the optimum when driven by ask and tell
+     */
+    public double[] getDistributionCentroid() {
+        return distributionCentroid;
+    }
+
     /**
      * creates the next generation
      */
     public Solution<ST, PT> nextGeneration(Problem<PT> problem) {
         int variableCount = problem.getProblemGenes().get(0).getGene().getVariableCount();
+        ZigguratGaussian[] gaussians = prepareGeneration(variableCount);
 
-        // update variables if necessary
-        if (currentGeneration - lastEigenupdate > 1.0 / learningRate / variableCount / 5.0) {
-            eigendecomposition(variableCount);
+        // remove the current population
+        population.clear();
+
+        if (surrogate) {
+            surrogateGeneration(problem, variableCount, gaussians);
+        } else {
+            // sample distribution, create and evaluate new solutions
+            List<Solution<ST, PT>> generation = Arrays.asList(new Solution[populationSize]);
+            IntStream individuals = IntStream.range(0, populationSize);
+            if (parallel) {
+                individuals = individuals.parallel();
+            }
+            individuals.forEach(i -> {
+                sample(i, gaussians[i], variableCount);
+                generation.set(i, evaluate(i, variableCount, problem));
+            });
+            population.addAll(generation);
+            evaluations += populationSize;
         }
-        if (checkConsistency) {
-            performConsistencyUpdate(variableCount);
+
+        // reduce in order of the population, so ties are resolved the same way as sequentially
+        for (Solution<ST, PT> newSolution : population) {
+            if (newSolution.getQuality() < bestSolution.getQuality()) {
+                bestSolution = newSolution;
+            }
         }
 
-        // remove the current population
-        population.clear();
+        completeGeneration(variableCount);
 
-        // sample distribution
-        for (int i = 0; i < populationSize; i++) {
-            double[] solutionVariables = new double[variableCount];
+        // log and return best
+        analyticsStep(bestSolution, population);
+        return bestSolution;
+    }
 
-            // do mutation
-            if (diagonalIterations > currentGeneration) {
-                // mutate fast
-                for (int j = 0; j < variableCount; j++) {
-                    solutionVariables[j] = distributionCentroid[j] + standardDeviation * scalingFactor[j] * RandomUtil.random.nextGaussian();
+    /**
+     * Creates and evaluates the solution of an offspring row
+     *
+     * @param individual    row in offspring
+     * @param variableCount amount of variables in the current problem
+     * @param problem       currently solved
+     * @return the evaluated solution, its quality is also written to offspringQualities
+     */
+    private Solution<ST, PT> evaluate(int individual, int variableCount, Problem<PT> problem) {
+        Solution<ST, PT> newSolution = solutionBuilder.transformToSolution(
+                Arrays.copyOfRange(offspring, individual * variableCount, (individual + 1) * variableCount), problem);
+        offspringQualities[individual] = evaluator.evaluateQuality(newSolution);
+        return newSolution;
+    }
+
+    /**
+     * Samples all candidates but only evaluates the ones ranked best by the surrogate, in growing batches until the
+     * surrogate ranks the freshly evaluated points with a Kendall correlation of at least surrogateRankCorrelation.
+     * The population is then ranked by the surrogate (retrained on the new points) if not all candidates were
+     * evaluated.
+     *
+     * @param problem       currently solved
+     * @param variableCount amount of variables in the current problem
+     * @param gaussians     one random generator per individual
+     */
+    private void surrogateGeneration(Problem<PT> problem, int variableCount, ZigguratGaussian[] gaussians) {
+        IntStream individuals = IntStream.range(0, populationSize);
+        if (parallel) {
+            individuals = individuals.parallel();
+        }
+        individuals.forEach(i -> sample(i, gaussians[i], variableCount));
+
+        // candidates in the order they will be evaluated, the first evaluated ones are fixed
+        Integer[] order = IntStream.range(0, populationSize).boxed().toArray(Integer[]::new);
+        double[] predictions = new double[populationSize];
+        boolean trusted = false;
+        int evaluated = 0;
+        int batch = Math.max(1, (int) Math.ceil(populationSize / 10.0));
+        while (evaluated < populationSize && !trusted) {
+            if (surrogateModel.train(distributionCentroid, standardDeviation)) {
+                for (int i = evaluated; i < populationSize; i++) {
+                    predictions[order[i]] = surrogateModel.predict(offspring, order[i] * variableCount);
                 }
+                Arrays.sort(order, evaluated, populationSize, Comparator.comparingDouble(i -> predictions[i]));
             } else {
-                // mutate better (but slower)
+                // nothing to learn from yet
+                batch = populationSize;
+            }
 
-                // initialize the mutation vector
-                double[] randomVariableMutation = new double[variableCount];
-                for (int j = 0; j < variableCount; j++) {
-                    randomVariableMutation[j] = scalingFactor[j] * RandomUtil.random.nextGaussian();
-                }
+            int end = Math.min(populationSize, evaluated + batch);
+            List<Solution<ST, PT>> solutions = Arrays.asList(new Solution[end - evaluated]);
+            int first = evaluated;
+            IntStream batchIndividuals = IntStream.range(first, end);
+            if (parallel) {
+                batchIndividuals = batchIndividuals.parallel();
+            }
+            batchIndividuals.forEach(i -> solutions.set(i - first, evaluate(order[i], variableCount, problem)));
+            population.addAll(solutions);
+            for (int i = first; i < end; i++) {
+                surrogateModel.add(offspring, order[i] * variableCount, offspringQualities[order[i]]);
+            }
+            evaluations += end - first;
 
-                // apply the mutation vector
-                for (int j = 0; j < variableCount; j++) {
-                    double sum = 0.0;
-                    for (int k = 0; k < variableCount; k++) {
-                        sum += covarianceCoordinateSystem[j][k] * randomVariableMutation[k];
-                    }
-                    solutionVariables[j] = distributionCentroid[j] + standardDeviation * sum;
-                }
+            // ranking quality on the points the model has not been trained on (at least 15 if the archive allows)
+            trusted = surrogateModel.isTrained() && surrogateModel.rankCorrelation(Math.max(15, end - first)) >= surrogateRankCorrelation;
+            evaluated = end;
+            batch = Math.max(1, (int) Math.ceil(evaluated / 2.0));
+        }
+
+        if (evaluated < populationSize) {
+            // rank by the retrained surrogate, shifted so the best evaluated prediction matches the best real quality
+            surrogateModel.train(distributionCentroid, standardDeviation);
+            double bestReal = Double.MAX_VALUE;
+            double bestPredicted = Double.MAX_VALUE;
+            for (int i = 0; i < populationSize; i++) {
+                predictions[i] = surrogateModel.predict(offspring, i * variableCount);
+            }
+            for (int i = 0; i < evaluated; i++) {
+                bestReal = Math.min(bestReal, offspringQualities[order[i]]);
+                bestPredicted = Math.min(bestPredicted, predictions[order[i]]);
             }
+            for (int i = 0; i < populationSize; i++) {
+                offspringQualities[i] = predictions[i] - bestPredicted + bestReal;
+            }
+        }
+    }
+
+    /**
+     * Samples the next generation for an external evaluator. Together with {@link #tell(double[])} this replaces
+     * {@link #solve(Problem)} when the qualities are not computed by an {@link
+     * science.aist.machinelearning.core.fitness.Evaluator} (e.g. a batch system that wants all candidates at once):
+     * <pre>
+     * cmaes.initialize(problem);
+     * while (!cmaes.isConverged()) {
+     *     double[] candidates = cmaes.ask();
+     *     cmaes.tell(evaluate(candidates));
+     * }
+     * </pre>
+     * The returned array is the internal sample buffer and NOT a copy: populationSize rows of variableCount
+     * variables, row-major. It is valid until {@link #tell(double[])} and must not be modified. Calling ask again
+     * before tell returns the same candidates.
+     *
+     * @return the candidates of the next generation, row i starts at i * variableCount
+     * @throws IllegalStateException if the strategy was not initialized
+     */
+    public double[] ask() {
+        if (distributionCentroid == null) {
+            throw new IllegalStateException("The strategy has to be initialized before candidates can be asked for");
+        }
+        if (asked) {
+            return offspring;
+        }
+        int variableCount = distributionCentroid.length;
+        ZigguratGaussian[] gaussians = prepareGeneration(variableCount);
+        IntStream individuals = IntStream.range(0, populationSize);
+        if (parallel) {
+            individuals = individuals.parallel();
+        }
+        individuals.forEach(i -> sample(i, gaussians[i], variableCount));
+        asked = true;
+        return offspring;
+    }
+
+    /**
+     * Updates the distribution with the qualities of the candidates returned by {@link #ask()}
+     *
+     * @param qualities quality of every candidate (lower is better), index i belongs to row i of the candidates
+     * @throws IllegalStateException    if no candidates were asked for
+     * @throws IllegalArgumentException if there is not exactly one quality per candidate
+     */
+    public void tell(double[] qualities) {
+        if (!asked) {
+            throw new IllegalStateException("ask() has to be called before tell()");
+        }
+        if (qualities.length != populationSize) {
+            throw new IllegalArgumentException("Expected " + populationSize + " qualities but got " + qualities.length);
+        }
+        System.arraycopy(qualities, 0, offspringQualities, 0, populationSize);
+        asked = false;
+        evaluations += populationSize;
+        completeGeneration(distributionCentroid.length);
+    }
 
-            // create and evaluate new solution
-            Solution<ST, PT> newSolution = solutionBuilder.transformToSolution(solutionVariables, problem);
-            bestSolution = bestQuality(newSolution, bestSolution);
-            population.add(newSolution);
+    /**
+     * Brings the distribution up to date before the next generation is sampled
+     *
+     * @param variableCount amount of variables in the current problem
+     * @return one random generator per individual
+     */
+    private ZigguratGaussian[] prepareGeneration(int variableCount) {
+        // swap in the basis of a finished background eigendecomposition, sampling only happens below so it always sees
+        // either the old or the new basis
+        if (pendingEigendecomposition != null && pendingEigendecomposition.isDone()) {
+            applyBasis(pendingEigendecomposition.join(), pendingScalingFactorFix);
+            pendingEigendecomposition = null;
         }
 
+        // update variables if necessary, the separable model only takes square roots of the diagonal (O(n)), so it
+        // refreshes the scaling every generation instead of waiting for the schedule of the full decomposition
+        if (covarianceModel == CovarianceModel.SEPARABLE
+                || covarianceModel != CovarianceModel.LIMITED_MEMORY && pendingEigendecomposition == null
+                && currentGeneration - lastEigenupdate > 1.0 / learningRate / variableCount / 5.0) {
+            eigendecomposition(variableCount);
+        }
+        if (checkConsistency) {
+            performConsistencyUpdate(variableCount);
+        }
+
+        // one generator per individual, so the result does not depend on the amount of threads
+        ZigguratGaussian[] gaussians = new ZigguratGaussian[populationSize];
+        for (int i = 0; i < populationSize; i++) {
+            gaussians[i] = new ZigguratGaussian(random.split());
+        }
+        return gaussians;
+    }
+
+    /**
+     * Learns from the sampled and evaluated generation in offspring and offspringQualities
+     *
+     * @param variableCount amount of variables in the current problem
+     */
+    private void completeGeneration(int variableCount) {
+        bestQualityHistory[currentGeneration % bestQualityHistory.length] = Arrays.stream(offspringQualities).min().orElse(Double.MAX_VALUE);
         currentGeneration++;
 
         // update internal values
         updateDistribution(variableCount);
-
-        // log and return best
-        analyticsStep(bestSolution, population);
-        return bestSolution;
     }
 
     // region Weird Math Stuff
 
+    /**
+     * @return if only the diagonal of the covariance matrix is used in the current generation
+     */
+    private boolean isDiagonal() {
+        return covarianceModel == CovarianceModel.SEPARABLE || activeDiagonalIterations > currentGeneration;
+    }
+
+    /**
+     * Samples one individual from the current distribution
+     *
+     * The sample is written into the offspring row of the individual, the N(0, I) sample it was created from into the
+     * same row of offspringNoise.
+     *
+     * @param individual    index of the individual in the population
+     * @param gaussian      generator owned by the individual
+     * @param variableCount amount of variables in the current problem
+     */
+    private void sample(int individual, ZigguratGaussian gaussian, int variableCount) {
+        int offset = individual * variableCount;
+        for (int j = 0; j < variableCount; j++) {
+            offspringNoise[offset + j] = gaussian.nextGaussian();
+        }
+
+        if (covarianceModel == CovarianceModel.LIMITED_MEMORY) {
+            // d = z, then d = (1 - c_j) d + c_j M_j (M_j^T d) for every direction learned so far (or imported)
+            System.arraycopy(offspringNoise, offset, offspring, offset, variableCount);
+            int activeDirections = Math.min(Math.max(currentGeneration, importedDirections), directionDecays.length);
+            for (int d = 0; d < activeDirections; d++) {
+                int row = d * variableCount;
+                double projection = 0;
+                for (int j = 0; j < variableCount; j++) {
+                    projection += directions[row + j] * offspring[offset + j];
+                }
+                double decay = directionDecays[d];
+                for (int j = 0; j < variableCount; j++) {
+                    offspring[offset + j] = (1 - decay) * offspring[offset + j] + decay * directions[row + j] * projection;
+                }
+            }
+            for (int j = 0; j < variableCount; j++) {
+                offspring[offset + j] = distributionCentroid[j] + standardDeviation * offspring[offset + j];
+            }
+        } else if (isDiagonal()) {
+            // mutate fast
+            for (int j = 0; j < variableCount; j++) {
+                offspring[offset + j] = distributionCentroid[j] + standardDeviation * scalingFactor[j] * offspringNoise[offset + j];
+            }
+        } else {
+            // mutate better (but slower)
+
+            // initialize the mutation vector D * z in place, z itself is not needed in this mode
+            for (int j = 0; j < variableCount; j++) {
+                offspringNoise[offset + j] *= scalingFactor[j];
+            }
+
+            // apply the mutation vector B * D * z as sum of the eigenvectors, so every pass runs over a contiguous row
+            Arrays.fill(offspring, offset, offset + variableCount, 0);
+            for (int k = 0; k < variableCount; k++) {
+                int row = k * variableCount;
+                double length = offspringNoise[offset + k];
+                for (int j = 0; j < variableCount; j++) {
+                    offspring[offset + j] += length * covarianceCoordinateSystem[row + j];
+                }
+            }
+            for (int j = 0; j < variableCount; j++) {
+                offspring[offset + j] = distributionCentroid[j] + standardDeviation * offspring[offset + j];
+            }
+        }
+    }
+
     /**
      * Updates the internal values based on the new population
      *
@@ -692,24 +1098,31 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         double[] oldDistributionCentroid = Arrays.copyOf(distributionCentroid, distributionCentroid.length);
         double[] evaluationPathAdaption = new double[variableCount];
 
-        // sort population
-        population.sort(Comparator.comparingDouble(Solution::getQuality));
+        // rank population, the variables are read from the packed offspring and not from the solutions
+        int[] ranking = IntStream.range(0, populationSize).boxed()
+                .sorted(Comparator.comparingDouble(i -> offspringQualities[i]))
+                .mapToInt(Integer::intValue).toArray();
 
         // calculate new distribution centroid
-        for (int i = 0; i < variableCount; i++) {
-            distributionCentroid[i] = 0;
-
-            Iterator<Solution<ST, PT>> iterator = population.iterator();
-            for (int j = 0; j < crossoverParentCount; j++) {
-                Solution<ST, PT> s = iterator.next();
-                distributionCentroid[i] += crossoverWeights[j] * solutionBuilder.getVaribleFromOriginalVector(s, i);
+        Arrays.fill(distributionCentroid, 0);
+        for (int k = 0; k < crossoverParentCount; k++) {
+            int offset = ranking[k] * variableCount;
+            double weight = crossoverWeights[k];
+            for (int i = 0; i < variableCount; i++) {
+                distributionCentroid[i] += weight * offspring[offset + i];
             }
+        }
+        if (covarianceModel == CovarianceModel.LIMITED_MEMORY) {
+            updateDirections(variableCount, ranking);
+            return;
+        }
 
+        for (int i = 0; i < variableCount; i++) {
             evaluationPathAdaption[i] = Math.sqrt(varianceEffectiveness) * (distributionCentroid[i] - oldDistributionCentroid[i]) / standardDeviation;
         }
 
         // cumulation for standardDeviation(evolutionPathNextGeneration)
-        if (diagonalIterations > currentGeneration) {
+        if (isDiagonal()) {
             // fast
             for (int i = 0; i < variableCount; i++) {
                 evolutionPathNextGeneration[i] = (1.0 - cumulationStepSize) *
@@ -719,19 +1132,25 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
             // slow
             double[] coordinateSystemInfluence = new double[variableCount];
             for (int i = 0; i < variableCount; i++) {
+                int row = i * variableCount;
                 double sum = 0.0;
                 for (int j = 0; j < variableCount; j++) {
-                    sum += covarianceCoordinateSystem[j][i] * evaluationPathAdaption[j];
+                    sum += covarianceCoordinateSystem[row + j] * evaluationPathAdaption[j];
                 }
                 coordinateSystemInfluence[i] = sum / scalingFactor[i];
             }
 
-            for (int i = 0; i < variableCount; i++) {
-                double sum = 0.0;
-                for (int j = 0; j < variableCount; j++) {
-                    sum += covarianceCoordinateSystem[i][j] * coordinateSystemInfluence[j];
+            // B * D^-1 * B^T * adaption, accumulated row by row
+            double[] whitened = new double[variableCount];
+            for (int k = 0; k < variableCount; k++) {
+                int row = k * variableCount;
+                double length = coordinateSystemInfluence[k];
+                for (int i = 0; i < variableCount; i++) {
+                    whitened[i] += length * covarianceCoordinateSystem[row + i];
                 }
-                evolutionPathNextGeneration[i] = (1.0 - cumulationStepSize) * evolutionPathNextGeneration[i] + Math.sqrt(cumulationStepSize * (2.0 - cumulationStepSize)) * sum;
+            }
+            for (int i = 0; i < variableCount; i++) {
+                evolutionPathNextGeneration[i] = (1.0 - cumulationStepSize) * evolutionPathNextGeneration[i] + Math.sqrt(cumulationStepSize * (2.0 - cumulationStepSize)) * whitened[i];
             }
         }
 
@@ -753,21 +1172,33 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
             evolutionPath[i] = (1.0 - cumulation) * evolutionPath[i] + cumulationIsAdded * Math.sqrt(cumulation * (2.0 - cumulation)) * evaluationPathAdaption[i];
         }
 
+        // steps of the selected parents
+        for (int k = 0; k < crossoverParentCount; k++) {
+            int offset = ranking[k] * variableCount;
+            for (int i = 0; i < variableCount; i++) {
+                parentSteps[i * crossoverParentCount + k] = (offspring[offset + i] - oldDistributionCentroid[i]) / standardDeviation;
+            }
+        }
+
         // update of covariance matrix
-        for (int i = 0; i < variableCount; i++) {
-            for (int j = (diagonalIterations >= currentGeneration ? i : 0); j <= i; j++) {
-                covarianceMatrix[i][j] =
-                        (1.0 - (diagonalIterations >= currentGeneration ? learningRateDiagonal : learningRate)) *
-                                covarianceMatrix[i][j] + learningRate * (1.0 / varianceEffectiveness) *
-                                (evolutionPath[i] * evolutionPath[j] + (1 - cumulationIsAdded) * cumulation * (2.0 - cumulation) *
-                                        covarianceMatrix[i][j]);
+        if (covarianceModel == CovarianceModel.SEPARABLE) {
+            // sep-CMA-ES uses the diagonal learning rate for all terms
+            double decay = 1.0 - learningRateDiagonal;
+            double rankOneRate = learningRateDiagonal * (1.0 / varianceEffectiveness);
+            double pathCorrection = (1 - cumulationIsAdded) * cumulation * (2.0 - cumulation);
+            double rankMuRate = learningRateDiagonal * (1 - 1.0 / varianceEffectiveness);
+            for (int i = 0; i < variableCount; i++) {
+                double rankMu = 0;
+                int row = i * crossoverParentCount;
                 for (int k = 0; k < crossoverParentCount; k++) {
-                    Solution<ST, PT> s = population.get(k);
-                    covarianceMatrix[i][j] += learningRate * (1 - 1.0 / varianceEffectiveness) * crossoverWeights[k] *
-                            (solutionBuilder.getVaribleFromOriginalVector(s, i) - oldDistributionCentroid[i]) *
-                            (solutionBuilder.getVaribleFromOriginalVector(s, j) - oldDistributionCentroid[j]) / standardDeviation / standardDeviation;
+                    rankMu += crossoverWeights[k] * parentSteps[row + k] * parentSteps[row + k];
                 }
+                covarianceDiagonal[i] = decay * covarianceDiagonal[i]
+                        + rankOneRate * (evolutionPath[i] * evolutionPath[i] + pathCorrection * covarianceDiagonal[i])
+                        + rankMuRate * rankMu;
             }
+        } else {
+            updateCovarianceMatrix(variableCount, cumulationIsAdded);
         }
 
         // update of standardDeviation
@@ -775,6 +1206,144 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
                 cumulationStepSize / stepSizeDampening);
     }
 
+    /**
+     * Rank-one and rank-mu update of the full covariance matrix
+     *
+     * @param variableCount     amount of variables in the current problem
+     * @param cumulationIsAdded 1 if the evolution path was updated, 0 if it was stalled
+     */
+    private void updateCovarianceMatrix(int variableCount, int cumulationIsAdded) {
+        boolean diagonalOnly = activeDiagonalIterations >= currentGeneration;
+        double rankOneRate = learningRate * (1.0 / varianceEffectiveness);
+        double pathCorrection = (1 - cumulationIsAdded) * cumulation * (2.0 - cumulation);
+        // decay and the stalled path correction both only scale the old matrix
+        double decay = 1.0 - (diagonalOnly ? learningRateDiagonal : learningRate) + rankOneRate * pathCorrection;
+        double rankMuRate = learningRate * (1 - 1.0 / varianceEffectiveness);
+
+        // Y W with the rank-mu learning rate folded in, so the kernel is C = decay C + a p p^T + (Y W) Y^T
+        int mu = crossoverParentCount;
+        double[] weightedSteps = new double[variableCount * mu];
+        for (int i = 0; i < variableCount; i++) {
+            int row = i * mu;
+            for (int k = 0; k < mu; k++) {
+                weightedSteps[row + k] = rankMuRate * crossoverWeights[k] * parentSteps[row + k];
+            }
+        }
+
+        if (diagonalOnly) {
+            for (int i = 0; i < variableCount; i++) {
+                int row = i * mu;
+                double rankMu = 0;
+                for (int k = 0; k < mu; k++) {
+                    rankMu += weightedSteps[row + k] * parentSteps[row + k];
+                }
+                int diagonal = EigenDecomposition.packedIndex(i, i);
+                covarianceMatrix[diagonal] = decay * covarianceMatrix[diagonal] + rankOneRate * evolutionPath[i] * evolutionPath[i] + rankMu;
+            }
+            return;
+        }
+
+        // syrk on the packed lower triangle, in blocks of rows so the parent steps of a column block stay in cache
+        int blocks = (variableCount + COVARIANCE_BLOCK_SIZE - 1) / COVARIANCE_BLOCK_SIZE;
+        IntStream rowBlocks = IntStream.range(0, blocks);
+        if (parallel && variableCount >= 4 * COVARIANCE_BLOCK_SIZE) {
+            rowBlocks = rowBlocks.parallel();
+        }
+        rowBlocks.forEach(rowBlock -> {
+            int rowStart = rowBlock * COVARIANCE_BLOCK_SIZE;
+            int rowEnd = Math.min(variableCount, rowStart + COVARIANCE_BLOCK_SIZE);
+            for (int columnStart = 0; columnStart < rowEnd; columnStart += COVARIANCE_BLOCK_SIZE) {
+                for (int i = rowStart; i < rowEnd; i++) {
+                    int row = i * mu;
+                    int packedRow = EigenDecomposition.packedIndex(i, 0);
+                    double pathI = rankOneRate * evolutionPath[i];
+                    int columnEnd = Math.min(i + 1, columnStart + COVARIANCE_BLOCK_SIZE);
+                    for (int j = columnStart; j < columnEnd; j++) {
+                        int column = j * mu;
+                        double rankMu = 0;
+                        for (int k = 0; k < mu; k++) {
+                            rankMu += weightedSteps[row + k] * parentSteps[column + k];
+                        }
+                        covarianceMatrix[packedRow + j] = decay * covarianceMatrix[packedRow + j] + pathI * evolutionPath[j] + rankMu;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Update of the {@link CovarianceModel#LIMITED_MEMORY} mode: the step size path and the direction vectors follow the
+     * weighted mean of the selected N(0, I) samples.
+     *
+     * @param variableCount amount of variables in the current problem
+     * @param ranking       indices of the population sorted by quality
+     */
+    private void updateDirections(int variableCount, int[] ranking) {
+        double[] weightedNoise = new double[variableCount];
+        for (int k = 0; k < crossoverParentCount; k++) {
+            int offset = ranking[k] * variableCount;
+            double weight = crossoverWeights[k];
+            for (int i = 0; i < variableCount; i++) {
+                weightedNoise[i] += weight * offspringNoise[offset + i];
+            }
+        }
+
+        double pathFactor = Math.sqrt(varianceEffectiveness * cumulationStepSize * (2.0 - cumulationStepSize));
+        double pathNorm = 0;
+        for (int i = 0; i < variableCount; i++) {
+            evolutionPathNextGeneration[i] = (1.0 - cumulationStepSize) * evolutionPathNextGeneration[i] + pathFactor * weightedNoise[i];
+            pathNorm += evolutionPathNextGeneration[i] * evolutionPathNextGeneration[i];
+        }
+
+        for (int d = 0; d < directionLearningRates.length; d++) {
+            double rate = directionLearningRates[d];
+            double factor = Math.sqrt(varianceEffectiveness * rate * (2.0 - rate));
+            int row = d * variableCount;
+            for (int i = 0; i < variableCount; i++) {
+                directions[row + i] = (1.0 - rate) * directions[row + i] + factor * weightedNoise[i];
+            }
+        }
+
+        // damping of 2 as in LM-MA-ES
+        standardDeviation *= Math.exp(cumulationStepSize / 2.0 * (pathNorm / variableCount - 1));
+    }
+
+    /**
+     * Checks the termination criteria of the original CMA-ES that indicate that further generations won't improve:
+     * TolFun (the best qualities of the recent 10 + 30 n / populationSize generations and the current population are
+     * within functionTolerance), TolX (the standard deviation in all coordinates is below solutionTolerance) and a
+     * numerically broken step size. Used by {@link RestartCovarianceMatrixAdaptionEvolutionStrategy} to decide when to
+     * restart. {@link #solve(Problem)} only stops at maximumGenerations.
+     *
+     * @return true if the run has converged (or stagnated)
+     */
+    public boolean isConverged() {
+        if (currentGeneration == 0) {
+            return false;
+        }
+        if (Double.isNaN(standardDeviation) || Double.isInfinite(standardDeviation)) {
+            return true;
+        }
+
+        double maximumScale = Arrays.stream(scalingFactor).max().orElse(0);
+        if (covarianceModel == CovarianceModel.SEPARABLE || covarianceModel == CovarianceModel.FULL && isDiagonal()) {
+            // scaling factors may lag behind the diagonal, which is cheap to read
+            maximumScale = Math.sqrt(IntStream.range(0, scalingFactor.length)
+                    .mapToDouble(i -> covarianceModel == CovarianceModel.SEPARABLE ? covarianceDiagonal[i] : covarianceMatrix[EigenDecomposition.packedIndex(i, i)])
+                    .max().orElse(0));
+        }
+        if (standardDeviation * maximumScale < solutionTolerance) {
+            return true;
+        }
+
+        if (currentGeneration < bestQualityHistory.length) {
+            return false;
+        }
+        double minimum = Math.min(Arrays.stream(bestQualityHistory).min().orElse(0), Arrays.stream(offspringQualities).min().orElse(0));
+        double maximum = Math.max(Arrays.stream(bestQualityHistory).max().orElse(0), Arrays.stream(offspringQualities).max().orElse(0));
+        return maximum - minimum < functionTolerance;
+    }
+
     /**
      * Updates eigenvalue decomposition for covarianceCoordinateSystem and scalingFactor Look here for eigenvalues:
      * https://en.wikipedia.org/wiki/Eigenvalues_and_eigenvectors
@@ -785,40 +1354,81 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         lastEigenupdate = currentGeneration;
 
         // update scaling factor
-        if (diagonalIterations >= currentGeneration) {
+        if (covarianceModel == CovarianceModel.SEPARABLE) {
+            for (int i = 0; i < variableCount; i++) {
+                scalingFactor[i] = Math.sqrt(covarianceDiagonal[i]);
+            }
+        } else if (activeDiagonalIterations >= currentGeneration) {
             // fast
             for (int i = 0; i < variableCount; i++) {
-                scalingFactor[i] = Math.sqrt(covarianceMatrix[i][i]);
+                scalingFactor[i] = Math.sqrt(covarianceMatrix[EigenDecomposition.packedIndex(i, i)]);
             }
         } else {
-            // slow
-
-            // update coordinate system from covarianceMatrix
-            for (int i = 0; i < variableCount; i++) {
-                for (int j = 0; j <= i; j++) {
-                    covarianceCoordinateSystem[i][j] = covarianceCoordinateSystem[j][i] = covarianceMatrix[i][j];
-                }
+            // slow, decompose a snapshot so the covariance matrix can keep evolving while the decomposition runs
+            double[] snapshot = covarianceMatrix.clone();
+            int generation = currentGeneration;
+            if (asynchronousEigendecomposition) {
+                pendingScalingFactorFix = 1.0;
+                pendingEigendecomposition = CompletableFuture.supplyAsync(() -> decompose(variableCount, snapshot, generation));
+            } else {
+                applyBasis(decompose(variableCount, snapshot, generation), 1.0);
             }
+        }
+    }
 
-            // do eigenvalue decomposition
-            double[] diagonal = new double[variableCount];
-            matrixToTridiagonalReduction(variableCount, covarianceCoordinateSystem, scalingFactor, diagonal);
-            computeEigenvaluesOfTridiagonal(variableCount, scalingFactor, diagonal, covarianceCoordinateSystem);
+    /**
+     * Eigendecomposition of a snapshot of the covariance matrix. Only touches the snapshot and its own result, so it
+     * can run concurrently to the generations.
+     *
+     * @param variableCount amount of variables in the current problem
+     * @param snapshot      packed lower triangle of the covariance matrix
+     * @param generation    generation the snapshot was taken in
+     * @return eigenvectors and square roots of the eigenvalues
+     */
+    private EigenBasis decompose(int variableCount, double[] snapshot, int generation) {
+        double[] coordinateSystem = new double[variableCount * variableCount];
+        double[] scales = new double[variableCount];
+        EigenDecomposition.unpack(variableCount, snapshot, coordinateSystem);
 
-            if (checkConsistency) {
-                checkEigenSystem(variableCount, covarianceMatrix, scalingFactor, covarianceCoordinateSystem);
+        // do eigenvalue decomposition
+        EigenDecomposition.decompose(variableCount, coordinateSystem, scales, parallel);
+
+        if (checkConsistency) {
+            // sampled instead of exhaustive, the exhaustive check would cost as much as the decomposition
+            int errors = EigenDecomposition.check(variableCount, snapshot, scales, coordinateSystem,
+                    2 * variableCount, new SplittableRandom(generation));
+            if (errors > 0) {
+                // TODO #50 replace with warning
+                System.err.println("imprecise result detected in " + errors + " sampled entries of the eigendecomposition");
             }
+        }
 
-            // assign scaling factor to eigenvalue square roots
-            for (int i = 0; i < variableCount; i++) {
-                if (scalingFactor[i] < 0) {
-                    // TODO #50 replace this with a warning
-                    System.err.println("an eigenvalue has become negative");
-                    scalingFactor[i] = 0;
-                }
-                scalingFactor[i] = Math.sqrt(scalingFactor[i]);
+        // assign scaling factor to eigenvalue square roots
+        for (int i = 0; i < variableCount; i++) {
+            if (scales[i] < 0) {
+                // TODO #50 replace this with a warning
+                System.err.println("an eigenvalue has become negative");
+                scales[i] = 0;
             }
+            scales[i] = Math.sqrt(scales[i]);
         }
+        return new EigenBasis(coordinateSystem, scales);
+    }
+
+    /**
+     * Replaces the basis the population is sampled with
+     *
+     * @param basis            result of {@link #decompose(int, double[], int)}
+     * @param scalingFactorFix rescaling the covariance matrix received after the snapshot was taken
+     */
+    private void applyBasis(EigenBasis basis, double scalingFactorFix) {
+        if (scalingFactorFix != 1.0) {
+            for (int i = 0; i < basis.scalingFactor.length; i++) {
+                basis.scalingFactor[i] *= scalingFactorFix;
+            }
+        }
+        covarianceCoordinateSystem = basis.coordinateSystem;
+        scalingFactor = basis.scalingFactor;
     }
 
     /**
@@ -827,9 +1437,11 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
     private void performConsistencyUpdate(int variableCount) {
         // check if fitness landscape is too flat
         // TODO: #81 I think regular GA could GREATLY benefit from a check like this, however there it would be just a check, nothing we can do about it
-        if (!population.isEmpty()) {
-            population.sort(Comparator.comparingDouble(Solution::getQuality));
-            if (Double.compare(population.get(0).getQuality(), population.get(Math.min(populationSize - 1, populationSize / 2 + 1) - 1).getQuality()) == 0) {
+        // read from the qualities of the last generation, so it also works for ask and tell without a population
+        if (currentGeneration > 0) {
+            double[] qualities = offspringQualities.clone();
+            Arrays.sort(qualities);
+            if (Double.compare(qualities[0], qualities[Math.min(populationSize - 1, populationSize / 2 + 1) - 1]) == 0) {
                 // TODO #50 replace this with a WARN log
                 System.err.println("WARNING: Re-Considering FitnessFunction advised. Fitness landscape is too flat. increasing deviation in the meantime");
                 standardDeviation *= Math.exp(0.2 + cumulationStepSize / stepSizeDampening);
@@ -853,12 +1465,18 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         // if scaling factors don't make sense fix em
         if (scalingFactorisWrong) {
             standardDeviation /= scalingFactorFix;
+            pendingScalingFactorFix *= scalingFactorFix;
             for (int i = 0; i < variableCount; i++) {
                 evolutionPath[i] *= scalingFactorFix;
                 scalingFactor[i] *= scalingFactorFix;
 
-                for (int j = 0; j <= i; j++) {
-                    covarianceMatrix[i][j] *= scalingFactorFix * scalingFactorFix;
+                if (covarianceModel == CovarianceModel.SEPARABLE) {
+                    covarianceDiagonal[i] *= scalingFactorFix * scalingFactorFix;
+                }
+            }
+            if (covarianceModel == CovarianceModel.FULL) {
+                for (int i = 0; i < covarianceMatrix.length; i++) {
+                    covarianceMatrix[i] *= scalingFactorFix * scalingFactorFix;
                 }
             }
         }
@@ -885,18 +1503,40 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         if (diagonalIterations < 0) {
             diagonalIterations = 150 * variableCount / populationSize;
         }
+        activeDiagonalIterations = diagonalIterations;
+        importedDirections = 0;
 
         // initialize the fields this evolution strategy needs
         scalingFactor = new double[variableCount];
         evolutionPath = new double[variableCount];
         evolutionPathNextGeneration = new double[variableCount];
-        covarianceCoordinateSystem = new double[variableCount][variableCount];
-        covarianceMatrix = new double[variableCount][variableCount];
         Arrays.fill(scalingFactor, 1);
-        // fill in the diagonals
-        for (int i = 0; i < variableCount; i++) {
-            covarianceCoordinateSystem[i][i] = 1;
-            covarianceMatrix[i][i] = 1;
+        covarianceCoordinateSystem = null;
+        pendingEigendecomposition = null;
+        asked = false;
+        covarianceMatrix = null;
+        covarianceDiagonal = null;
+        directions = null;
+        if (covarianceModel == CovarianceModel.FULL) {
+            covarianceCoordinateSystem = new double[variableCount * variableCount];
+            covarianceMatrix = new double[variableCount * (variableCount + 1) / 2];
+            // fill in the diagonals
+            for (int i = 0; i < variableCount; i++) {
+                covarianceCoordinateSystem[i * variableCount + i] = 1;
+                covarianceMatrix[EigenDecomposition.packedIndex(i, i)] = 1;
+            }
+        } else if (covarianceModel == CovarianceModel.SEPARABLE) {
+            covarianceDiagonal = new double[variableCount];
+            Arrays.fill(covarianceDiagonal, 1);
+        } else {
+            int directionCount = lowRankDirections > 0 ? lowRankDirections : 4 + (int) (3 * Math.log(variableCount));
+            directions = new double[directionCount * variableCount];
+            directionLearningRates = new double[directionCount];
+            directionDecays = new double[directionCount];
+            for (int d = 0; d < directionCount; d++) {
+                directionLearningRates[d] = Math.min(1, populationSize / Math.pow(4, d) / variableCount);
+                directionDecays[d] = Math.min(1, 1.0 / Math.pow(1.5, d) / variableCount);
+            }
         }
 
         // initialize the centroid
@@ -916,6 +1556,14 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         chiSquaredDistributionOfVariables = Math.sqrt(variableCount) * (1.0 - 1.0 / (4.0 * variableCount) + 1.0 / (21.0 * variableCount * variableCount));
         crossoverParentCount = (int) Math.floor(populationSize / 2.0);
         crossoverWeights = new double[crossoverParentCount];
+        offspring = new double[populationSize * variableCount];
+        offspringQualities = new double[populationSize];
+        offspringNoise = new double[populationSize * variableCount];
+        random = new SplittableRandom(RandomUtil.random.nextLong());
+        evaluations = 0;
+        surrogateModel = surrogate ? new LinearQuadraticSurrogate(variableCount, surrogateArchiveSize) : null;
+        bestQualityHistory = new double[10 + (int) Math.ceil(30.0 * variableCount / populationSize)];
+        parentSteps = new double[crossoverParentCount * variableCount];
 
         // initialize crossover weights
         for (int i = 0; i < crossoverParentCount; i++) {
@@ -929,7 +1577,9 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         varianceEffectiveness = 1.0 / sumSq;
 
         if (cumulationStepSize < 0) {
-            cumulationStepSize = (varianceEffectiveness + 2) / (variableCount + varianceEffectiveness + 3);
+            cumulationStepSize = covarianceModel == CovarianceModel.LIMITED_MEMORY ?
+                    Math.min(1, 2.0 * populationSize / variableCount) :
+                    (varianceEffectiveness + 2) / (variableCount + varianceEffectiveness + 3);
         }
 
         if (stepSizeDampening < 0) {
@@ -992,6 +1642,157 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         if (Arrays.stream(scalingFactor).anyMatch(x -> x <= 0)) {
             throw new IllegalArgumentException("initial standard deviations must be positive");
         }
+
+        if (warmStart != null) {
+            applyWarmStart(variableCount);
+        }
+    }
+
+    /**
+     * Replaces the freshly initialized distribution with the imported one
+     *
+     * @param variableCount amount of variables in the current problem
+     */
+    private void applyWarmStart(int variableCount) {
+        StrategyState state = warmStart;
+        warmStart = null;
+        if (state.covarianceModel != covarianceModel) {
+            throw new IllegalArgumentException("The imported state uses the covariance model " + state.covarianceModel + " but " + covarianceModel + " is configured");
+        }
+        if (state.distributionCentroid.length != variableCount) {
+            throw new IllegalArgumentException("The imported state has " + state.distributionCentroid.length + " variables but the problem has " + variableCount);
+        }
+        if (covarianceModel == CovarianceModel.FULL && state.covariance.length != variableCount * (variableCount + 1) / 2) {
+            throw new IllegalArgumentException("The imported state has " + state.covariance.length + " covariance entries but " + variableCount * (variableCount + 1) / 2 + " are required");
+        }
+        if (covarianceModel == CovarianceModel.SEPARABLE && state.covariance.length != variableCount) {
+            throw new IllegalArgumentException("The imported state has " + state.covariance.length + " covariance entries but " + variableCount + " are required");
+        }
+        if (covarianceModel == CovarianceModel.LIMITED_MEMORY && state.covariance.length != directions.length) {
+            throw new IllegalArgumentException("The imported state has " + state.covariance.length / variableCount + " directions but " + directions.length / variableCount + " are configured");
+        }
+
+        standardDeviation = state.standardDeviation;
+        distributionCentroid = state.distributionCentroid;
+        evolutionPath = state.evolutionPath;
+        evolutionPathNextGeneration = state.evolutionPathNextGeneration;
+        scalingFactor = state.scalingFactor;
+        if (covarianceModel == CovarianceModel.FULL) {
+            covarianceMatrix = state.covariance;
+            // the learned matrix is used right away, the diagonal phase only makes sense when starting from identity
+            activeDiagonalIterations = 0;
+            applyBasis(decompose(variableCount, covarianceMatrix.clone(), currentGeneration), 1.0);
+        } else if (covarianceModel == CovarianceModel.SEPARABLE) {
+            covarianceDiagonal = state.covariance;
+        } else {
+            directions = state.covariance;
+            importedDirections = directionDecays.length;
+        }
+    }
+
+    /**
+     * Writes the learned distribution (centroid, step size, evolution paths and covariance) in a compact binary form,
+     * so a later run on a similar problem can continue from it with {@link #importState(InputStream)}. The covariance
+     * is written as packed lower triangle (FULL), diagonal (SEPARABLE) or direction vectors (LIMITED_MEMORY), the
+     * eigendecomposition is recomputed on import.
+     *
+     * @param out stream the state is written to (it is flushed but not closed)
+     * @throws IOException           if writing fails
+     * @throws IllegalStateException if the strategy was not initialized yet
+     */
+    public void exportState(OutputStream out) throws IOException {
+        if (distributionCentroid == null) {
+            throw new IllegalStateException("There is no state to export before the strategy was initialized");
+        }
+        double[] covariance = covarianceModel == CovarianceModel.FULL ? covarianceMatrix :
+                covarianceModel == CovarianceModel.SEPARABLE ? covarianceDiagonal : directions;
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(STATE_MAGIC);
+        data.writeInt(STATE_VERSION);
+        data.writeInt(covarianceModel.ordinal());
+        data.writeInt(distributionCentroid.length);
+        data.writeDouble(standardDeviation);
+        writeArray(data, distributionCentroid);
+        writeArray(data, evolutionPath);
+        writeArray(data, evolutionPathNextGeneration);
+        writeArray(data, scalingFactor);
+        writeArray(data, covariance);
+        data.flush();
+    }
+
+    /**
+     * Reads a state written by {@link #exportState(OutputStream)}. The next run starts from the imported distribution
+     * instead of the initialSearchPosition. The problem must have the same amount of variables and the covariance model
+     * must be the same, all other options (e.g. the population size) may differ.
+     *
+     * @param in stream the state is read from (it is neither buffered nor closed, so data after the state stays in it)
+     * @throws IOException              if reading fails
+     * @throws IllegalArgumentException if the stream does not contain a state of this format or the state is corrupt
+     */
+    public void importState(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != STATE_MAGIC) {
+            throw new IllegalArgumentException("The stream does not contain a CMA-ES state");
+        }
+        int version = data.readInt();
+        if (version != STATE_VERSION) {
+            throw new IllegalArgumentException("Unsupported state version " + version);
+        }
+        StrategyState state = new StrategyState();
+        int model = data.readInt();
+        if (model < 0 || model >= CovarianceModel.values().length) {
+            throw new IllegalArgumentException("The state is corrupt, there is no covariance model " + model);
+        }
+        state.covarianceModel = CovarianceModel.values()[model];
+        int variableCount = data.readInt();
+        if (variableCount <= 0) {
+            throw new IllegalArgumentException("The state is corrupt, it has " + variableCount + " variables");
+        }
+        state.standardDeviation = data.readDouble();
+        state.distributionCentroid = readArray(data, variableCount);
+        state.evolutionPath = readArray(data, variableCount);
+        state.evolutionPathNextGeneration = readArray(data, variableCount);
+        state.scalingFactor = readArray(data, variableCount);
+        // the amount of directions is configurable, so only the packed matrix and the diagonal have a known size
+        state.covariance = readArray(data, state.covarianceModel == CovarianceModel.FULL ? (long) variableCount * (variableCount + 1) / 2 :
+                state.covarianceModel == CovarianceModel.SEPARABLE ? variableCount : Integer.MAX_VALUE);
+        if (state.distributionCentroid.length != variableCount || state.evolutionPath.length != variableCount
+                || state.evolutionPathNextGeneration.length != variableCount || state.scalingFactor.length != variableCount) {
+            throw new IllegalArgumentException("The state is corrupt, not all vectors have " + variableCount + " variables");
+        }
+        warmStart = state;
+    }
+
+    private static void writeArray(DataOutputStream data, double[] array) throws IOException {
+        data.writeInt(array.length);
+        for (double value : array) {
+            data.writeDouble(value);
+        }
+    }
+
+    /**
+     * Reads an array written by writeArray. The array grows while it is read, so a corrupt length can't allocate more
+     * memory than the stream actually contains.
+     *
+     * @param data          stream the array is read from
+     * @param maximumLength maximum length the array may have
+     * @return the array
+     * @throws IOException if reading fails, e.g. the stream ends before the array
+     */
+    private static double[] readArray(DataInputStream data, long maximumLength) throws IOException {
+        int length = data.readInt();
+        if (length < 0 || length > maximumLength) {
+            throw new IllegalArgumentException("The state is corrupt, an array has " + length + " values but at most " + maximumLength + " are possible");
+        }
+        double[] array = new double[Math.min(length, 1024)];
+        for (int i = 0; i < length; i++) {
+            if (i == array.length) {
+                array = Arrays.copyOf(array, (int) Math.min(length, 2L * array.length));
+            }
+            array[i] = data.readDouble();
+        }
+        return array;
     }
 
     // endregion Weird Math Stuff
@@ -1014,6 +1815,116 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
         this.standardDeviation = standardDeviation;
     }
 
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param parallel if the individuals of a generation are sampled and evaluated concurrently (requires a thread safe
+     *                 evaluator). Large eigendecompositions are also split over multiple threads.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isSurrogate() {
+        return surrogate;
+    }
+
+    /**
+     * Setter for configuration. Only used by {@link #solve(Problem)} and {@link #nextGeneration(Problem)}, ask and
+     * tell always hand out every candidate.
+     *
+     * @param surrogate if the candidates are ranked by a linear-quadratic surrogate and only evaluated until its ranking
+     *                  can be trusted
+     */
+    public void setSurrogate(boolean surrogate) {
+        this.surrogate = surrogate;
+    }
+
+    public double getSurrogateRankCorrelation() {
+        return surrogateRankCorrelation;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param surrogateRankCorrelation Kendall rank correlation between surrogate and evaluator at which no further
+     *                                 candidates of a generation are evaluated
+     */
+    public void setSurrogateRankCorrelation(double surrogateRankCorrelation) {
+        this.surrogateRankCorrelation = surrogateRankCorrelation;
+    }
+
+    public int getSurrogateArchiveSize() {
+        return surrogateArchiveSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param surrogateArchiveSize maximum amount of evaluated points the surrogate learns from, -1 for twice the
+     *                             coefficients of its largest model
+     */
+    public void setSurrogateArchiveSize(int surrogateArchiveSize) {
+        this.surrogateArchiveSize = surrogateArchiveSize;
+    }
+
+    /**
+     * @return amount of real evaluations since the run was initialized (less than generations * populationSize in the
+     * surrogate mode)
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public boolean isAsynchronousEigendecomposition() {
+        return asynchronousEigendecomposition;
+    }
+
+    /**
+     * Setter for configuration. The background decomposition hides its O(n^3) cost behind the evaluations, but the
+     * run is no longer reproducible as the generation the new basis arrives in depends on the timing.
+     *
+     * @param asynchronousEigendecomposition if the eigendecomposition runs in the background while the generations
+     *                                       keep sampling with the previous basis
+     */
+    public void setAsynchronousEigendecomposition(boolean asynchronousEigendecomposition) {
+        this.asynchronousEigendecomposition = asynchronousEigendecomposition;
+    }
+
+    public double getFunctionTolerance() {
+        return functionTolerance;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param functionTolerance difference of the recent best qualities below which the run is converged
+     */
+    public void setFunctionTolerance(double functionTolerance) {
+        this.functionTolerance = functionTolerance;
+    }
+
+    public double getSolutionTolerance() {
+        return solutionTolerance;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param solutionTolerance standard deviation in every coordinate below which the run is converged
+     */
+    public void setSolutionTolerance(double solutionTolerance) {
+        this.solutionTolerance = solutionTolerance;
+    }
+
     public void setDiagonalIterations(int diagonalIterations) {
         this.diagonalIterations = diagonalIterations;
     }
@@ -1041,4 +1952,73 @@ public class CovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValue
     public void setPopulationSize(int populationSize) {
         this.populationSize = populationSize;
     }
+
+    public int getPopulationSize() {
+        return populationSize;
+    }
+
+    public RealValuedSolutionBuilder<ST, PT> getSolutionBuilder() {
+        return solutionBuilder;
+    }
+
+    public CovarianceModel getCovarianceModel() {
+        return covarianceModel;
+    }
+
+    /**
+     * Setter for configuration. Must be set before the first generation.
+     *
+     * @param covarianceModel how the covariance matrix is represented
+     */
+    public void setCovarianceModel(CovarianceModel covarianceModel) {
+        this.covarianceModel = covarianceModel;
+    }
+
+    public int getLowRankDirections() {
+        return lowRankDirections;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param lowRankDirections amount of direction vectors in the limited memory mode, -1 for 4 + 3 * ln(n)
+     */
+    public void setLowRankDirections(int lowRankDirections) {
+        this.lowRankDirections = lowRankDirections;
+    }
+
+    /**
+     * Result of an eigendecomposition, swapped in as a whole
+     */
+    private static final class EigenBasis {
+        /**
+         * Eigenvectors as rows, row-major
+         */
+        private final double[] coordinateSystem;
+        /**
+         * Square roots of the eigenvalues
+         */
+        private final double[] scalingFactor;
+
+        private EigenBasis(double[] coordinateSystem, double[] scalingFactor) {
+            this.coordinateSystem = coordinateSystem;
+            this.scalingFactor = scalingFactor;
+        }
+    }
+
+    /**
+     * Distribution read by {@link #importState(InputStream)}
+     */
+    private static final class StrategyState {
+        private CovarianceModel covarianceModel;
+        private double standardDeviation;
+        private double[] distributionCentroid;
+        private double[] evolutionPath;
+        private double[] evolutionPathNextGeneration;
+        private double[] scalingFactor;
+        /**
+         * Packed covariance matrix, diagonal or directions depending on the covariance model
+         */
+        private double[] covariance;
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+/**
+ * Representation of the covariance matrix used by the {@link CovarianceMatrixAdaptionEvolutionStrategy}.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public enum CovarianceModel {
+
+    /**
+     * Full n x n covariance matrix with eigendecomposition. O(n^2) memory and per sample, O(n^3) per decomposition.
+     * Can start in diagonal mode for the first diagonalIterations generations.
+     */
+    FULL,
+
+    /**
+     * sep-CMA-ES: only the diagonal of the covariance matrix is learned (Ros and Hansen 2008). O(n) memory and per
+     * sample, no eigendecomposition. Works well for (nearly) separable problems.
+     */
+    SEPARABLE,
+
+    /**
+     * Limited memory matrix adaptation (LM-MA-ES, Loshchilov et al. 2017). The covariance is represented implicitly by
+     * lowRankDirections direction vectors, so memory and time per sample are O(lowRankDirections * n). Intended for
+     * thousands of variables.
+     */
+    LIMITED_MEMORY
+}
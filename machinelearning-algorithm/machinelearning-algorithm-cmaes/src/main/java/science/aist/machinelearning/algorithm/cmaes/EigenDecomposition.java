@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Eigendecomposition of symmetric matrices stored row-major in a flat double[].
+ * <p>
+ * Same method as the JAMA routines in {@link CovarianceMatrixAdaptionEvolutionStrategy} (Householder reduction to
+ * tridiagonal form followed by the implicit QL algorithm), but organized so every inner loop runs over contiguous
+ * memory:
+ * <ul>
+ * <li>the Householder vector of step k is row k (symmetry replaces the column access of JAMA),</li>
+ * <li>the symmetric matrix-vector product and rank-2 update of the trailing matrix run row by row and are split into
+ * row blocks that are processed concurrently if parallel is requested and the trailing matrix is large enough,</li>
+ * <li>the eigenvectors are accumulated as ROWS (the transposed eigenvector matrix), so the Householder back
+ * transformation and the Givens rotations of the QL iterations combine two rows instead of two columns.</li>
+ * </ul>
+ * The result matrix holds the eigenvectors as rows: row k is the eigenvector of eigenvalue k, eigenvalues are sorted
+ * ascending.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public final class EigenDecomposition {
+
+    /**
+     * Rows per block of the parallel kernels
+     */
+    private static final int BLOCK_SIZE = 64;
+
+    /**
+     * Minimum size of the trailing matrix before the kernels run concurrently
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private EigenDecomposition() {
+    }
+
+    /**
+     * Decomposes the symmetric matrix A = V^T diag(eigenvalues) V in place
+     *
+     * @param n           dimension of the matrix
+     * @param matrix      full symmetric matrix, row-major n x n. Overwritten with V: row k is the eigenvector of
+     *                    eigenvalue k
+     * @param eigenvalues output, sorted ascending
+     * @param parallel    if the O(n^2) kernels of the reduction and back transformation may run on multiple threads
+     */
+    public static void decompose(int n, double[] matrix, double[] eigenvalues, boolean parallel) {
+        double[] subdiagonal = new double[n];
+        double[] tau = new double[n];
+        tridiagonalize(n, matrix, eigenvalues, subdiagonal, tau, parallel);
+        accumulate(n, matrix, tau, parallel);
+        ql(n, eigenvalues, subdiagonal, matrix);
+        sort(n, eigenvalues, matrix);
+    }
+
+    /**
+     * Householder reduction to tridiagonal form. Reflector k is H_k = I - tau[k] v v^T with v stored in row k right of
+     * the diagonal (v[k + 1] = 1)
+     *
+     * @param n           dimension of the matrix
+     * @param a           full symmetric matrix, row-major
+     * @param diagonal    output, diagonal of the tridiagonal matrix
+     * @param subdiagonal output, subdiagonal[i] couples i and i + 1
+     * @param tau         output, scaling of the reflectors
+     * @param parallel    if the kernels may run concurrently
+     */
+    static void tridiagonalize(int n, double[] a, double[] diagonal, double[] subdiagonal, double[] tau, boolean parallel) {
+        double[] p = new double[n];
+        for (int k = 0; k < n - 2; k++) {
+            int row = k * n;
+            int start = k + 1;
+            diagonal[k] = a[row + k];
+
+            // Householder vector from x = a[k][k+1..n-1]
+            double alpha = a[row + start];
+            double norm = 0;
+            for (int j = start + 1; j < n; j++) {
+                norm += a[row + j] * a[row + j];
+            }
+            if (norm == 0) {
+                tau[k] = 0;
+                subdiagonal[k] = alpha;
+                continue;
+            }
+            double mu = -Math.copySign(Math.sqrt(alpha * alpha + norm), alpha);
+            tau[k] = (mu - alpha) / mu;
+            double scale = 1.0 / (alpha - mu);
+            a[row + start] = 1;
+            for (int j = start + 1; j < n; j++) {
+                a[row + j] *= scale;
+            }
+            subdiagonal[k] = mu;
+
+            // p = tau * A22 v
+            double t = tau[k];
+            forEachRow(start, n, parallel, r -> {
+                int offset = r * n;
+                double sum = 0;
+                for (int j = start; j < n; j++) {
+                    sum += a[offset + j] * a[row + j];
+                }
+                p[r] = t * sum;
+            });
+
+            // w = p - tau / 2 (p . v) v
+            double dot = 0;
+            for (int j = start; j < n; j++) {
+                dot += p[j] * a[row + j];
+            }
+            double correction = t / 2 * dot;
+            for (int j = start; j < n; j++) {
+                p[j] -= correction * a[row + j];
+            }
+
+            // A22 = A22 - v w^T - w v^T
+            forEachRow(start, n, parallel, r -> {
+                int offset = r * n;
+                double vr = a[row + r];
+                double wr = p[r];
+                for (int j = start; j < n; j++) {
+                    a[offset + j] -= vr * p[j] + wr * a[row + j];
+                }
+            });
+        }
+
+        if (n > 1) {
+            diagonal[n - 2] = a[(n - 2) * n + n - 2];
+            subdiagonal[n - 2] = a[(n - 2) * n + n - 1];
+        }
+        diagonal[n - 1] = a[n * n - 1];
+        subdiagonal[n - 1] = 0;
+    }
+
+    /**
+     * Builds V = H_(n-3) ... H_0 (the transposed orthogonal matrix of the reduction) in place of the reflectors
+     *
+     * @param n        dimension of the matrix
+     * @param a        reflectors as left by {@link #tridiagonalize}, overwritten with V
+     * @param tau      scaling of the reflectors
+     * @param parallel if the kernels may run concurrently
+     */
+    static void accumulate(int n, double[] a, double[] tau, boolean parallel) {
+        // the rows below the last reflector start as identity
+        for (int r = Math.max(0, n - 2); r < n; r++) {
+            for (int j = 0; j < n; j++) {
+                a[r * n + j] = r == j ? 1 : 0;
+            }
+        }
+
+        for (int k = n - 3; k >= 0; k--) {
+            int row = k * n;
+            int start = k + 1;
+            double t = tau[k];
+
+            // V = V H_k, only the rows below k are not identity yet
+            if (t != 0) {
+                forEachRow(start, n, parallel, r -> {
+                    int offset = r * n;
+                    double sum = 0;
+                    for (int j = start; j < n; j++) {
+                        sum += a[offset + j] * a[row + j];
+                    }
+                    sum *= t;
+                    for (int j = start; j < n; j++) {
+                        a[offset + j] -= sum * a[row + j];
+                    }
+                });
+            }
+
+            // the reflector is consumed, row k and column k become identity
+            for (int r = start; r < n; r++) {
+                a[r * n + k] = 0;
+            }
+            for (int j = 0; j < n; j++) {
+                a[row + j] = j == k ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * Symmetric tridiagonal QL algorithm (tql2 of EISPACK / JAMA) with the rotations applied to rows of v
+     *
+     * @param n           dimension of the matrix
+     * @param d           diagonal, overwritten with the eigenvalues
+     * @param e           subdiagonal, destroyed
+     * @param v           transposed orthogonal matrix of the reduction, rotated into the eigenvectors (rows)
+     */
+    static void ql(int n, double[] d, double[] e, double[] v) {
+        double f = 0.0;
+        double tst1 = 0.0;
+        final double eps = Math.pow(2.0, -52.0);
+        for (int l = 0; l < n; l++) {
+            // find small subdiagonal element
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n - 1) {
+                if (Math.abs(e[m]) <= eps * tst1) {
+                    break;
+                }
+                m++;
+            }
+
+            // if m == l, d[l] is an eigenvalue, otherwise iterate
+            if (m > l) {
+                do {
+                    // compute implicit shift
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2.0 * e[l]);
+                    double r = Math.hypot(p, 1.0);
+                    if (p < 0) {
+                        r = -r;
+                    }
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f = f + h;
+
+                    // implicit QL transformation
+                    p = d[m];
+                    double c = 1.0;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0.0;
+                    double s2 = 0.0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+
+                        // accumulate transformation on the rows i and i + 1
+                        int rowI = i * n;
+                        int rowI1 = rowI + n;
+                        for (int k = 0; k < n; k++) {
+                            h = v[rowI1 + k];
+                            v[rowI1 + k] = s * v[rowI + k] + c * h;
+                            v[rowI + k] = c * v[rowI + k] - s * h;
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+
+                    // check for convergence
+                } while (Math.abs(e[l]) > eps * tst1);
+            }
+            d[l] = d[l] + f;
+            e[l] = 0.0;
+        }
+    }
+
+    /**
+     * Sorts the eigenvalues ascending together with their eigenvectors
+     */
+    private static void sort(int n, double[] d, double[] v) {
+        for (int i = 0; i < n - 1; i++) {
+            int k = i;
+            for (int j = i + 1; j < n; j++) {
+                if (d[j] < d[k]) {
+                    k = j;
+                }
+            }
+            if (k != i) {
+                double swap = d[k];
+                d[k] = d[i];
+                d[i] = swap;
+                int rowI = i * n;
+                int rowK = k * n;
+                for (int j = 0; j < n; j++) {
+                    swap = v[rowI + j];
+                    v[rowI + j] = v[rowK + j];
+                    v[rowK + j] = swap;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sampled test of the decomposition. Instead of the exhaustive O(n^3) test, samples random entries (i, j) and checks
+     * (V^T diag(eigenvalues) V)_ij against the matrix and (V V^T)_ij against the identity, O(n) per sample.
+     *
+     * @param n           dimension of the matrix
+     * @param matrix      the decomposed matrix, packed lower triangle (row i starts at i * (i + 1) / 2)
+     * @param eigenvalues eigenvalues of the decomposition
+     * @param vectors     eigenvectors as rows, row-major
+     * @param samples     amount of entries checked
+     * @param random      source of the sampled entries
+     * @return the number of detected inaccuracies
+     */
+    public static int check(int n, double[] matrix, double[] eigenvalues, double[] vectors, int samples, SplittableRandom random) {
+        int errors = 0;
+        for (int sample = 0; sample < samples; sample++) {
+            // every other sample is on the diagonal, where errors show first
+            int i = random.nextInt(n);
+            int j = sample % 2 == 0 ? i : random.nextInt(n);
+
+            double reconstructed = 0;
+            double orthogonality = 0;
+            for (int k = 0; k < n; k++) {
+                double vi = vectors[k * n + i];
+                double vj = vectors[k * n + j];
+                reconstructed += eigenvalues[k] * vi * vj;
+            }
+            int rowI = i * n;
+            int rowJ = j * n;
+            for (int k = 0; k < n; k++) {
+                orthogonality += vectors[rowI + k] * vectors[rowJ + k];
+            }
+
+            double expected = matrix[packedIndex(Math.max(i, j), Math.min(i, j))];
+            double difference = Math.abs(reconstructed - expected);
+            if (difference / Math.sqrt(matrix[packedIndex(i, i)] * matrix[packedIndex(j, j)]) > 1e-10 && difference > 1e-9) {
+                errors++;
+            }
+            if (Math.abs(orthogonality - (i == j ? 1 : 0)) > 1e-10) {
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Unpacks a packed lower triangle into a full symmetric row-major matrix
+     *
+     * @param n      dimension of the matrix
+     * @param packed lower triangle, row i starts at i * (i + 1) / 2
+     * @param full   output, n x n row-major
+     */
+    public static void unpack(int n, double[] packed, double[] full) {
+        for (int i = 0; i < n; i++) {
+            int row = packedIndex(i, 0);
+            for (int j = 0; j <= i; j++) {
+                full[i * n + j] = full[j * n + i] = packed[row + j];
+            }
+        }
+    }
+
+    /**
+     * @return position of the element (i, j) with j &lt;= i in a packed lower triangle
+     */
+    static int packedIndex(int i, int j) {
+        return i * (i + 1) / 2 + j;
+    }
+
+    /**
+     * Runs the task for every row in [from, to), in concurrent blocks if requested and worth it
+     */
+    private static void forEachRow(int from, int to, boolean parallel, RowTask task) {
+        if (!parallel || to - from < PARALLEL_THRESHOLD) {
+            for (int r = from; r < to; r++) {
+                task.run(r);
+            }
+            return;
+        }
+        int blocks = (to - from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int end = Math.min(to, from + (b + 1) * BLOCK_SIZE);
+            for (int r = from + b * BLOCK_SIZE; r < end; r++) {
+                task.run(r);
+            }
+        });
+    }
+
+    /**
+     * Operation on a single row
+     */
+    private interface RowTask {
+        void run(int row);
+    }
+}
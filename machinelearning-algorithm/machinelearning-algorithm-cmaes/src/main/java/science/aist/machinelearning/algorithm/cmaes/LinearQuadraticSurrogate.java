@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Linear-quadratic global surrogate of the quality for the surrogate mode of {@link
+ * CovarianceMatrixAdaptionEvolutionStrategy} (following lq-CMA-ES by Hansen, 2019).
+ * <p>
+ * Evaluated points are kept in a bounded ring buffer of flat arrays. Training fits the most complex model the archive
+ * supports by least squares: a full quadratic model with (n + 1)(n + 2) / 2 coefficients, a
+ * quadratic model without interaction terms with 2n + 1 coefficients or a linear model with n + 1 coefficients. Only
+ * the 1.5 * coefficients points closest to the current distribution are used. Variables are centered and scaled by the
+ * current distribution and the least squares problem is solved by QR instead of the normal equations, which keeps the
+ * fit accurate when the step size and the differences in quality get small.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class LinearQuadraticSurrogate {
+
+    /**
+     * Full quadratic models are only fitted up to this amount of coefficients, otherwise the diagonal model is used
+     */
+    private static final int MAXIMUM_FULL_COEFFICIENTS = 1000;
+
+    /**
+     * Relative size below which a diagonal entry of R is treated as 0 (the points are degenerate in that direction)
+     */
+    private static final double RANK_TOLERANCE = 1e-12;
+
+    /**
+     * The model is trained on this factor times its coefficients points
+     */
+    private static final double TRAINING_FACTOR = 1.5;
+
+    /**
+     * Amount of variables per point
+     */
+    private final int variableCount;
+    /**
+     * Maximum amount of points kept in the archive
+     */
+    private final int archiveSize;
+    /**
+     * Archived points, row-major with variableCount columns
+     */
+    private final double[] points;
+    /**
+     * Real quality of the archived points
+     */
+    private final double[] qualities;
+    /**
+     * Amount of points currently in the archive
+     */
+    private int sampleCount = 0;
+    /**
+     * Position where the next point will be written into the ring buffer
+     */
+    private int nextSample = 0;
+    /**
+     * Coefficients of the trained model, null if not trained
+     */
+    private double[] coefficients;
+    /**
+     * Center the model was trained around
+     */
+    private double[] center;
+    /**
+     * Scale the model was trained with
+     */
+    private double scale;
+    /**
+     * Buffer for the features of a single point
+     */
+    private double[] features;
+
+    /**
+     * Creates an empty surrogate
+     *
+     * @param variableCount amount of variables per point
+     * @param archiveSize   maximum amount of points kept, &lt;= 0 for twice the coefficients of the largest model
+     */
+    public LinearQuadraticSurrogate(int variableCount, int archiveSize) {
+        this.variableCount = variableCount;
+        this.archiveSize = archiveSize > 0 ? archiveSize : 2 * maximumCoefficients(variableCount);
+        this.points = new double[this.archiveSize * variableCount];
+        this.qualities = new double[this.archiveSize];
+    }
+
+    /**
+     * @return coefficients of the full quadratic model if it is small enough, otherwise of the diagonal one
+     */
+    private static int maximumCoefficients(int variableCount) {
+        int full = (variableCount + 1) * (variableCount + 2) / 2;
+        return full <= MAXIMUM_FULL_COEFFICIENTS ? full : 2 * variableCount + 1;
+    }
+
+    /**
+     * Archives an evaluated point, replacing the oldest one if the archive is full
+     *
+     * @param source  array containing the point
+     * @param offset  position of the first variable in source
+     * @param quality real quality of the point
+     */
+    public void add(double[] source, int offset, double quality) {
+        System.arraycopy(source, offset, points, nextSample * variableCount, variableCount);
+        qualities[nextSample] = quality;
+        nextSample = (nextSample + 1) % archiveSize;
+        sampleCount = Math.min(sampleCount + 1, archiveSize);
+    }
+
+    /**
+     * Fits the model to the archive
+     *
+     * @param center center of the current distribution
+     * @param scale  step size of the current distribution
+     * @return false if the archive is too small for even the linear model
+     */
+    public boolean train(double[] center, double scale) {
+        int full = (variableCount + 1) * (variableCount + 2) / 2;
+        int diagonal = 2 * variableCount + 1;
+        int linear = variableCount + 1;
+        int count;
+        if (full <= MAXIMUM_FULL_COEFFICIENTS && full <= archiveSize && sampleCount >= full) {
+            count = full;
+        } else if (diagonal <= archiveSize && sampleCount >= diagonal) {
+            count = diagonal;
+        } else if (sampleCount > linear) {
+            count = linear;
+        } else {
+            coefficients = null;
+            return false;
+        }
+        this.center = center.clone();
+        this.scale = scale;
+        features = new double[count];
+
+        // least squares over the points closest to the current distribution, old points far away would dominate the
+        // quadratic features. The columns are equilibrated, as the quadratic features are orders of magnitude smaller
+        // than the linear ones once the distribution has converged
+        int trainingSize = Math.min(sampleCount, (int) Math.ceil(TRAINING_FACTOR * count));
+        int[] training = closest(trainingSize);
+        double[] design = new double[trainingSize * count];
+        double[] y = new double[trainingSize];
+        double[] columnScale = new double[count];
+        for (int t = 0; t < trainingSize; t++) {
+            features(points, training[t] * variableCount);
+            System.arraycopy(features, 0, design, t * count, count);
+            y[t] = qualities[training[t]];
+            for (int i = 0; i < count; i++) {
+                columnScale[i] = Math.max(columnScale[i], Math.abs(features[i]));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            columnScale[i] = columnScale[i] > 0 ? columnScale[i] : 1;
+        }
+        for (int t = 0; t < trainingSize; t++) {
+            for (int i = 0; i < count; i++) {
+                design[t * count + i] /= columnScale[i];
+            }
+        }
+
+        coefficients = leastSquares(design, y, trainingSize, count);
+        for (int i = 0; i < count; i++) {
+            coefficients[i] /= columnScale[i];
+        }
+        return true;
+    }
+
+    /**
+     * @return if the model can predict
+     */
+    public boolean isTrained() {
+        return coefficients != null;
+    }
+
+    /**
+     * Predicts the quality of a point
+     *
+     * @param source array containing the point
+     * @param offset position of the first variable in source
+     * @return predicted quality
+     */
+    public double predict(double[] source, int offset) {
+        if (!isTrained()) {
+            throw new IllegalStateException("Surrogate has first to be trained via train() function");
+        }
+        features(source, offset);
+        double prediction = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            prediction += coefficients[i] * features[i];
+        }
+        return prediction;
+    }
+
+    /**
+     * Kendall rank correlation between the predictions of the current model and the real qualities of the most recent
+     * archived points. Called after new points were added but before the model is trained on them, it measures how
+     * well the model ranks unseen points.
+     *
+     * @param recentCount amount of most recent points compared (limited by the archive)
+     * @return correlation between -1 and 1, NaN if less than two points can be compared
+     */
+    public double rankCorrelation(int recentCount) {
+        int count = Math.min(recentCount, sampleCount);
+        double[] predicted = new double[count];
+        double[] real = new double[count];
+        for (int t = 0; t < count; t++) {
+            int sample = recent(t);
+            predicted[t] = predict(points, sample * variableCount);
+            real[t] = qualities[sample];
+        }
+        return kendall(predicted, real);
+    }
+
+    /**
+     * Kendall rank correlation (tau-b, accounts for ties) of two samples in O(n^2)
+     *
+     * @param a first sample
+     * @param b second sample (same length as a)
+     * @return correlation between -1 and 1, NaN if it is undefined (less than two values or a constant sample)
+     */
+    public static double kendall(double[] a, double[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Samples must have the same length");
+        }
+        long concordant = 0;
+        long discordant = 0;
+        long tiesA = 0;
+        long tiesB = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int j = i + 1; j < a.length; j++) {
+                double signA = Math.signum(a[i] - a[j]);
+                double signB = Math.signum(b[i] - b[j]);
+                if (signA == 0 && signB == 0) {
+                    continue;
+                }
+                if (signA == 0) {
+                    tiesA++;
+                } else if (signB == 0) {
+                    tiesB++;
+                } else if (signA == signB) {
+                    concordant++;
+                } else {
+                    discordant++;
+                }
+            }
+        }
+        double denominator = Math.sqrt((double) (concordant + discordant + tiesA) * (concordant + discordant + tiesB));
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        return (concordant - discordant) / denominator;
+    }
+
+    /**
+     * @return amount of points in the archive
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public int getArchiveSize() {
+        return archiveSize;
+    }
+
+    /**
+     * @return amount of coefficients of the trained model, 0 if not trained
+     */
+    public int getCoefficientCount() {
+        return isTrained() ? coefficients.length : 0;
+    }
+
+    /**
+     * @param count amount of points
+     * @return positions of the archived points with the smallest distance to the center
+     */
+    private int[] closest(int count) {
+        double[] distances = new double[sampleCount];
+        for (int sample = 0; sample < sampleCount; sample++) {
+            int offset = sample * variableCount;
+            double distance = 0;
+            for (int i = 0; i < variableCount; i++) {
+                double z = points[offset + i] - center[i];
+                distance += z * z;
+            }
+            distances[sample] = distance;
+        }
+        return IntStream.range(0, sampleCount).boxed()
+                .sorted(Comparator.comparingDouble(sample -> distances[sample]))
+                .limit(count)
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param t 0 for the most recent point, 1 for the one before, ...
+     * @return position of the point in the ring buffer
+     */
+    private int recent(int t) {
+        return (nextSample - 1 - t + 2 * archiveSize) % archiveSize;
+    }
+
+    /**
+     * Writes the features of the point (1, z, z_i^2 and z_i z_j as far as the model needs them) into the feature buffer,
+     * with z the centered and scaled variables
+     */
+    private void features(double[] source, int offset) {
+        int count = features.length;
+        features[0] = 1;
+        for (int i = 0; i < variableCount; i++) {
+            features[i + 1] = (source[offset + i] - center[i]) / scale;
+        }
+        if (count == variableCount + 1) {
+            return;
+        }
+        int position = variableCount + 1;
+        for (int i = 0; i < variableCount; i++) {
+            double zi = features[i + 1];
+            if (count == 2 * variableCount + 1) {
+                features[position++] = zi * zi;
+            } else {
+                for (int j = 0; j <= i; j++) {
+                    features[position++] = zi * features[j + 1];
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves min ||A x - b|| with a householder QR decomposition. Unlike the normal equations this does not square the
+     * condition of A, which matters as the qualities of a converged distribution differ only in the last digits. A and b
+     * are overwritten.
+     *
+     * @param a    matrix, row-major with n columns
+     * @param b    right hand side
+     * @param rows amount of rows (&gt;= n)
+     * @param n    amount of columns
+     * @return x, coefficients of columns that are (numerically) linear dependent on previous ones are 0
+     */
+    private static double[] leastSquares(double[] a, double[] b, int rows, int n) {
+        double[] diagonal = new double[n];
+        double largest = 0;
+        for (int k = 0; k < n; k++) {
+            double norm = 0;
+            for (int i = k; i < rows; i++) {
+                norm += a[i * n + k] * a[i * n + k];
+            }
+            norm = Math.sqrt(norm);
+            if (norm == 0) {
+                continue;
+            }
+            double alpha = a[k * n + k] > 0 ? -norm : norm;
+            // householder vector v = a_k - alpha e_k, stored in place of column k
+            a[k * n + k] -= alpha;
+            double vv = 0;
+            for (int i = k; i < rows; i++) {
+                vv += a[i * n + k] * a[i * n + k];
+            }
+            for (int j = k + 1; j < n; j++) {
+                double dot = 0;
+                for (int i = k; i < rows; i++) {
+                    dot += a[i * n + k] * a[i * n + j];
+                }
+                double factor = 2 * dot / vv;
+                for (int i = k; i < rows; i++) {
+                    a[i * n + j] -= factor * a[i * n + k];
+                }
+            }
+            double dot = 0;
+            for (int i = k; i < rows; i++) {
+                dot += a[i * n + k] * b[i];
+            }
+            double factor = 2 * dot / vv;
+            for (int i = k; i < rows; i++) {
+                b[i] -= factor * a[i * n + k];
+            }
+            diagonal[k] = alpha;
+            largest = Math.max(largest, norm);
+        }
+
+        // backward substitution R x = Q^T b
+        double[] x = new double[n];
+        for (int k = n - 1; k >= 0; k--) {
+            if (Math.abs(diagonal[k]) <= RANK_TOLERANCE * largest) {
+                continue;
+            }
+            double sum = b[k];
+            for (int j = k + 1; j < n; j++) {
+                sum -= a[k * n + j] * x[j];
+            }
+            x[k] = sum / diagonal[k];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,608 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.core.AbstractAlgorithm;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.options.Descriptor;
+import science.aist.machinelearning.core.util.RandomUtil;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Restart controller for the {@link CovarianceMatrixAdaptionEvolutionStrategy} (IPOP / BIPOP-CMA-ES, see {@link
+ * RestartStrategy}).
+ * <p>
+ * Every run is a copy of the configured cmaes (created through its options) that is driven through its
+ * initialize / nextGeneration lifecycle until it reaches its maximumGenerations, {@link
+ * CovarianceMatrixAdaptionEvolutionStrategy#isConverged()} or the shared budget of maximumEvaluations is used up. Runs
+ * start at a uniformly random position between lowerBound and upperBound, only the first run starts at the given
+ * solution if there is one. The step size parameters that depend on the
+ * population size (learning rates, cumulation, dampening) are derived anew for every run.
+ * <p>
+ * concurrentRuns runs are executed at the same time on separate threads, every thread starts the next run of the
+ * schedule as soon as its current one ends. The evaluator must therefore be thread safe. The best solution of all runs
+ * is returned.
+ *
+ * @param <ST> Gene type of the solution
+ * @param <PT> Gene type of the Problem
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class RestartCovarianceMatrixAdaptionEvolutionStrategy<ST, PT extends FloatValueProblem> extends AbstractAlgorithm<ST, PT> {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = Logger.getLogger(RestartCovarianceMatrixAdaptionEvolutionStrategy.class);
+
+    /**
+     * Configuration of the runs, every run uses a copy of it
+     */
+    private CovarianceMatrixAdaptionEvolutionStrategy<ST, PT> cmaes;
+
+    private RestartStrategy restartStrategy = RestartStrategy.IPOP;
+
+    /**
+     * Budget of evaluations shared by all runs
+     */
+    private Integer maximumEvaluations;
+
+    /**
+     * Maximum amount of runs after the first one. In the BIPOP regime only the increasing population runs are counted
+     */
+    private Integer maximumRestarts = 9;
+
+    /**
+     * Factor the population size grows with every (large) restart
+     */
+    private Double populationIncrease = 2.0;
+
+    /**
+     * Amount of runs executed at the same time
+     */
+    private Integer concurrentRuns = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Lower bound of the random start positions
+     */
+    private Double lowerBound = -5.0;
+
+    /**
+     * Upper bound of the random start positions
+     */
+    private Double upperBound = 5.0;
+
+    /**
+     * Termination criteria, all runs stop as soon as the best quality is less or equal. Disabled by default, as
+     * qualities may well be negative
+     */
+    private Double targetQuality = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Best solution of all runs
+     */
+    private final AtomicReference<Solution<ST, PT>> globalBest = new AtomicReference<>();
+
+    /**
+     * Evaluations used by all runs
+     */
+    private final AtomicLong evaluations = new AtomicLong();
+
+    /**
+     * Runs that are started or finished, in order of their start
+     */
+    private final List<Run> runs = new ArrayList<>();
+
+    /**
+     * Amount of large (increasing population) runs started
+     */
+    private int largeRuns;
+
+    /**
+     * Evaluations used by the large and small regime (BIPOP)
+     */
+    private long largeEvaluations;
+
+    private long smallEvaluations;
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem) {
+        return solve(problem, (double[]) null);
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem, Solution<ST, PT> givenSolution) {
+        if (givenSolution == null) {
+            return solve(problem);
+        }
+        Solution<ST, PT> best = solve(problem, cmaes.getSolutionBuilder().getOriginalVector(givenSolution));
+        if (best == null) {
+            return null;
+        }
+        if (givenSolution.getCachets().isEmpty()) {
+            getEvaluator().evaluateQuality(givenSolution);
+        }
+        return givenSolution.getQuality() < best.getQuality() ? givenSolution : best;
+    }
+
+    /**
+     * Executes the runs
+     *
+     * @param problem    to be solved
+     * @param firstStart start position of the first run, null for a random one
+     * @return best solution of all runs
+     */
+    private Solution<ST, PT> solve(Problem<PT> problem, double[] firstStart) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().isEmpty()) {
+            return null;
+        }
+
+        globalBest.set(null);
+        evaluations.set(0);
+        largeRuns = 0;
+        largeEvaluations = 0;
+        smallEvaluations = 0;
+        synchronized (runs) {
+            runs.clear();
+        }
+        initializeLog(problem);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrentRuns, runnable -> {
+            Thread thread = new Thread(runnable, "restart-cmaes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < concurrentRuns; i++) {
+                workers.add(executor.submit(() -> work(problem, firstStart)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for the runs", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("CMA-ES run failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Solution<ST, PT> best = globalBest.get();
+        finalizeLog(best);
+        return best;
+    }
+
+    /**
+     * Executes runs of the schedule until the budget, the restarts or the target quality are exhausted
+     *
+     * @param problem    to be solved
+     * @param firstStart start position of the first run, null for a random one
+     */
+    private void work(Problem<PT> problem, double[] firstStart) {
+        Run run;
+        while ((run = nextRun(firstStart)) != null) {
+            execute(run, problem);
+        }
+    }
+
+    /**
+     * Determines the configuration of the next run
+     *
+     * @param firstStart start position of the first run, null for a random one
+     * @return next run, or null if no more runs shall be started
+     */
+    private Run nextRun(double[] firstStart) {
+        Solution<ST, PT> best = globalBest.get();
+        if (evaluations.get() >= maximumEvaluations || best != null && best.getQuality() <= targetQuality) {
+            return null;
+        }
+
+        synchronized (runs) {
+            int defaultPopulation = cmaes.getPopulationSize();
+            double defaultDeviation = cmaes.getStandardDeviation();
+            Run run;
+            if (restartStrategy == RestartStrategy.IPOP || runs.isEmpty() || largeEvaluations <= smallEvaluations) {
+                if (largeRuns > maximumRestarts) {
+                    return null;
+                }
+                run = new Run(true, (int) Math.round(defaultPopulation * Math.pow(populationIncrease, largeRuns)), defaultDeviation);
+                if (runs.isEmpty() && firstStart != null) {
+                    run.start = firstStart.clone();
+                }
+                largeRuns++;
+            } else {
+                // small regime: random population between the default and half of the current large one, smaller steps
+                double u = RandomUtil.random.nextDouble();
+                double largePopulation = defaultPopulation * Math.pow(populationIncrease, Math.max(0, largeRuns - 1));
+                int population = (int) Math.max(defaultPopulation, Math.floor(defaultPopulation * Math.pow(0.5 * largePopulation / defaultPopulation, u * u)));
+                run = new Run(false, population, defaultDeviation * Math.pow(10, -2 * RandomUtil.random.nextDouble()));
+            }
+            runs.add(run);
+            return run;
+        }
+    }
+
+    /**
+     * Executes a single CMA-ES run
+     *
+     * @param run     configuration of the run
+     * @param problem to be solved
+     */
+    private void execute(Run run, Problem<PT> problem) {
+        int variableCount = problem.getProblemGenes().get(0).getGene().getVariableCount();
+        CovarianceMatrixAdaptionEvolutionStrategy<ST, PT> instance = copyCmaes();
+        instance.setPopulationSize(run.populationSize);
+        instance.setStandardDeviation(run.standardDeviation);
+        double[] start = run.start;
+        if (start == null) {
+            start = new double[variableCount];
+            for (int i = 0; i < variableCount; i++) {
+                start[i] = lowerBound + RandomUtil.random.nextDouble() * (upperBound - lowerBound);
+            }
+        }
+        instance.setInitialSearchPosition(start);
+
+        if (!reserve(run, 1)) {
+            return;
+        }
+        Solution<ST, PT> startSolution = instance.getSolutionBuilder().transformToSolution(start, problem);
+        getEvaluator().evaluateQuality(startSolution);
+        instance.bestSolution = startSolution;
+        instance.initialize(problem);
+        offer(run, startSolution);
+
+        while (instance.getCurrentGeneration() < instance.getMaximumGenerations() && !instance.isConverged() && !targetReached()) {
+            if (!reserve(run, run.populationSize)) {
+                break;
+            }
+            long evaluated = instance.getEvaluations();
+            offer(run, instance.nextGeneration(problem));
+            run.generations++;
+            // the surrogate mode may need less evaluations than reserved, give the rest back
+            reserve(run, (int) (instance.getEvaluations() - evaluated) - run.populationSize);
+        }
+    }
+
+    /**
+     * Reserves evaluations of the shared budget
+     *
+     * @param run    that wants to evaluate
+     * @param amount of evaluations, negative to give back unused ones
+     * @return true if the budget allows the evaluations
+     */
+    private boolean reserve(Run run, int amount) {
+        if (evaluations.addAndGet(amount) > maximumEvaluations) {
+            evaluations.addAndGet(-amount);
+            return false;
+        }
+        synchronized (runs) {
+            run.evaluations += amount;
+            if (run.large) {
+                largeEvaluations += amount;
+            } else {
+                smallEvaluations += amount;
+            }
+        }
+        return true;
+    }
+
+    private void offer(Run run, Solution<ST, PT> solution) {
+        run.quality = Math.min(run.quality, solution.getQuality());
+        globalBest.accumulateAndGet(solution, (a, b) -> a == null || b.getQuality() < a.getQuality() ? b : a);
+    }
+
+    private boolean targetReached() {
+        Solution<ST, PT> best = globalBest.get();
+        return best != null && best.getQuality() <= targetQuality;
+    }
+
+    /**
+     * Creates a new instance of the cmaes with the same options, so every run has its own state
+     *
+     * @return copy of the cmaes
+     */
+    private CovarianceMatrixAdaptionEvolutionStrategy<ST, PT> copyCmaes() {
+        CovarianceMatrixAdaptionEvolutionStrategy<ST, PT> copy = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        // set every option on its own, so one option that can't be set does not prevent the others
+        cmaes.getOptions().forEach(copy::setOption);
+        copy.setEvaluator(getEvaluator());
+        // analytics are not thread safe
+        copy.setAnalytics(null);
+        // derived from the population size of the run
+        copy.setCumulationStepSize(-1);
+        copy.setCumulation(-1);
+        copy.setLearningRate(-1);
+        copy.setLearningRateDiagonal(-1);
+        copy.setStepSizeDampening(-1);
+        return copy;
+    }
+
+    /**
+     * Creates the log headers, and logs the current algorithm configuration
+     *
+     * @param problem that is being solved in this log
+     */
+    private void initializeLog(Problem<PT> problem) {
+        if (analytics != null) {
+            analytics.startAnalytics();
+            analytics.logParam("problemSize", problem.getProblemSize());
+            analytics.logParam("restartStrategy", restartStrategy.name());
+            analytics.logParam("maximumEvaluations", String.valueOf(maximumEvaluations));
+            analytics.logParam("concurrentRuns", String.valueOf(concurrentRuns));
+            List<String> headers = new ArrayList<>();
+            headers.add("population size");
+            headers.add("generations");
+            headers.add("evaluations");
+            headers.add("best quality");
+            analytics.logAlgorithmStepHeaders(headers);
+            analytics.logProblem(problem);
+        }
+    }
+
+    /**
+     * Logs every run and the best solution
+     *
+     * @param best solution of all runs
+     */
+    private void finalizeLog(Solution<ST, PT> best) {
+        if (analytics != null) {
+            for (Run run : getRuns()) {
+                List<String> values = new ArrayList<>();
+                values.add(String.valueOf(run.populationSize));
+                values.add(String.valueOf(run.generations));
+                values.add(String.valueOf(run.evaluations));
+                values.add(String.valueOf(run.quality));
+                analytics.logAlgorithmStep(values);
+            }
+            analytics.logSolution(best);
+            analytics.finishAnalytics();
+        }
+    }
+
+    /**
+     * @return runs of the last solve in order of their start
+     */
+    public List<Run> getRuns() {
+        synchronized (runs) {
+            return new ArrayList<>(runs);
+        }
+    }
+
+    /**
+     * @return evaluations used in the last solve
+     */
+    public long getEvaluations() {
+        return evaluations.get();
+    }
+
+    @Override
+    protected Map<String, Descriptor> getSpecificOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("cmaes", new Descriptor<>(cmaes));
+        options.put("restartStrategy", new Descriptor<>(restartStrategy));
+        options.put("maximumEvaluations", new Descriptor<>(maximumEvaluations));
+        options.put("maximumRestarts", new Descriptor<>(maximumRestarts));
+        options.put("populationIncrease", new Descriptor<>(populationIncrease));
+        options.put("concurrentRuns", new Descriptor<>(concurrentRuns));
+        options.put("lowerBound", new Descriptor<>(lowerBound));
+        options.put("upperBound", new Descriptor<>(upperBound));
+        options.put("targetQuality", new Descriptor<>(targetQuality));
+        return options;
+    }
+
+    @Override
+    protected boolean setSpecificOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "cmaes":
+                    setCmaes((CovarianceMatrixAdaptionEvolutionStrategy<ST, PT>) descriptor.getValue());
+                    break;
+                case "restartStrategy":
+                    setRestartStrategy((RestartStrategy) descriptor.getValue());
+                    break;
+                case "maximumEvaluations":
+                    setMaximumEvaluations((Integer) descriptor.getValue());
+                    break;
+                case "maximumRestarts":
+                    setMaximumRestarts((Integer) descriptor.getValue());
+                    break;
+                case "populationIncrease":
+                    setPopulationIncrease((Double) descriptor.getValue());
+                    break;
+                case "concurrentRuns":
+                    setConcurrentRuns((Integer) descriptor.getValue());
+                    break;
+                case "lowerBound":
+                    setLowerBound((Double) descriptor.getValue());
+                    break;
+                case "upperBound":
+                    setUpperBound((Double) descriptor.getValue());
+                    break;
+                case "targetQuality":
+                    setTargetQuality((Double) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    public CovarianceMatrixAdaptionEvolutionStrategy<ST, PT> getCmaes() {
+        return cmaes;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param cmaes configuration of the runs, it is copied and never run itself
+     */
+    @Required
+    public void setCmaes(CovarianceMatrixAdaptionEvolutionStrategy<ST, PT> cmaes) {
+        this.cmaes = cmaes;
+    }
+
+    public RestartStrategy getRestartStrategy() {
+        return restartStrategy;
+    }
+
+    public void setRestartStrategy(RestartStrategy restartStrategy) {
+        this.restartStrategy = restartStrategy;
+    }
+
+    public Integer getMaximumEvaluations() {
+        return maximumEvaluations;
+    }
+
+    @Required
+    public void setMaximumEvaluations(Integer maximumEvaluations) {
+        this.maximumEvaluations = maximumEvaluations;
+    }
+
+    public Integer getMaximumRestarts() {
+        return maximumRestarts;
+    }
+
+    public void setMaximumRestarts(Integer maximumRestarts) {
+        this.maximumRestarts = maximumRestarts;
+    }
+
+    public Double getPopulationIncrease() {
+        return populationIncrease;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param populationIncrease factor the population size grows with every (large) restart
+     */
+    public void setPopulationIncrease(Double populationIncrease) {
+        if (populationIncrease < 1) {
+            throw new IllegalArgumentException("population increase must be >= 1");
+        }
+        this.populationIncrease = populationIncrease;
+    }
+
+    public Integer getConcurrentRuns() {
+        return concurrentRuns;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param concurrentRuns amount of runs (and threads) executed at the same time
+     */
+    public void setConcurrentRuns(Integer concurrentRuns) {
+        if (concurrentRuns <= 0) {
+            throw new IllegalArgumentException("at least one concurrent run is required");
+        }
+        this.concurrentRuns = concurrentRuns;
+    }
+
+    public Double getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(Double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public Double getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(Double upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public Double getTargetQuality() {
+        return targetQuality;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param targetQuality all runs stop as soon as the best quality is less or equal (NEGATIVE_INFINITY disables it)
+     */
+    public void setTargetQuality(Double targetQuality) {
+        this.targetQuality = targetQuality;
+    }
+
+    /**
+     * Statistics of one run
+     */
+    public static class Run {
+
+        private final boolean large;
+
+        private final int populationSize;
+
+        private final double standardDeviation;
+
+        /**
+         * Start position, null for a random one
+         */
+        private double[] start;
+
+        private int generations;
+
+        private long evaluations;
+
+        private double quality = Double.MAX_VALUE;
+
+        private Run(boolean large, int populationSize, double standardDeviation) {
+            this.large = large;
+            this.populationSize = populationSize;
+            this.standardDeviation = standardDeviation;
+        }
+
+        /**
+         * @return true if the run belongs to the increasing population regime, false for the small BIPOP regime
+         */
+        public boolean isLarge() {
+            return large;
+        }
+
+        public int getPopulationSize() {
+            return populationSize;
+        }
+
+        public double getStandardDeviation() {
+            return standardDeviation;
+        }
+
+        public int getGenerations() {
+            return generations;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        /**
+         * @return best quality of the run
+         */
+        public double getQuality() {
+            return quality;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+/**
+ * Restart regimes of the {@link RestartCovarianceMatrixAdaptionEvolutionStrategy}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public enum RestartStrategy {
+
+    /**
+     * Every restart multiplies the population size (Auger and Hansen 2005)
+     */
+    IPOP,
+
+    /**
+     * Interleaves increasing population sizes with runs of small random population size and step size, whichever
+     * regime used less evaluations so far is run next (Hansen 2009)
+     */
+    BIPOP
+}
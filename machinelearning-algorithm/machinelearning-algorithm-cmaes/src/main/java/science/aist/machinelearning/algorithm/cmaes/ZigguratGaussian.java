@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+import java.util.SplittableRandom;
+
+/**
+ * Standard normal generator with the ziggurat method of Marsaglia and Tsang (2000), 128 layers. Most samples only need
+ * one random long, a table lookup and a multiplication, compared to two uniforms plus log and sqrt of the polar method
+ * behind {@link java.util.Random#nextGaussian()}.
+ * <p>
+ * Not thread safe, every thread (or every sampled individual) uses its own instance on its own {@link
+ * SplittableRandom}. The generator is unsynchronized unlike {@link java.util.Random}.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ZigguratGaussian {
+
+    /**
+     * Start of the right tail
+     */
+    private static final double R = 3.442619855899;
+
+    private static final int[] KN = new int[128];
+
+    private static final double[] WN = new double[128];
+
+    private static final double[] FN = new double[128];
+
+    static {
+        final double m1 = 2147483648.0;
+        final double vn = 9.91256303526217e-3;
+        double dn = R;
+        double tn = dn;
+        double q = vn / Math.exp(-.5 * dn * dn);
+
+        KN[0] = (int) ((dn / q) * m1);
+        KN[1] = 0;
+        WN[0] = q / m1;
+        WN[127] = dn / m1;
+        FN[0] = 1.;
+        FN[127] = Math.exp(-.5 * dn * dn);
+        for (int i = 126; i >= 1; i--) {
+            dn = Math.sqrt(-2. * Math.log(vn / dn + Math.exp(-.5 * dn * dn)));
+            KN[i + 1] = (int) ((dn / tn) * m1);
+            tn = dn;
+            FN[i] = Math.exp(-.5 * dn * dn);
+            WN[i] = dn / m1;
+        }
+    }
+
+    private final SplittableRandom random;
+
+    /**
+     * @param random source of uniform random numbers, owned by this generator
+     */
+    public ZigguratGaussian(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * @return next N(0, 1) distributed value
+     */
+    public double nextGaussian() {
+        long bits = random.nextLong();
+        int hz = (int) bits;
+        int iz = layer(bits);
+        if (Math.abs(hz) < KN[iz]) {
+            return hz * WN[iz];
+        }
+        return fix(hz, iz);
+    }
+
+    /**
+     * Slow path for samples outside of the rectangle of the layer
+     */
+    private double fix(int hz, int iz) {
+        while (true) {
+            double x = hz * WN[iz];
+            if (iz == 0) {
+                // sample from the tail
+                double y;
+                do {
+                    x = -Math.log(uniform()) / R;
+                    y = -Math.log(uniform());
+                } while (y + y < x * x);
+                return hz > 0 ? R + x : -R - x;
+            }
+            if (FN[iz] + uniform() * (FN[iz - 1] - FN[iz]) < Math.exp(-.5 * x * x)) {
+                return x;
+            }
+
+            long bits = random.nextLong();
+            hz = (int) bits;
+            iz = layer(bits);
+            if (Math.abs(hz) < KN[iz]) {
+                return hz * WN[iz];
+            }
+        }
+    }
+
+    /**
+     * Layer of a sample. The value uses the low 32 bits of the draw, the layer its top 7 bits, as taking both from the
+     * same bits correlates the layer with the value (Leong et al., 2005).
+     *
+     * @param bits random draw of the sample
+     * @return layer index (0 to 127)
+     */
+    private static int layer(long bits) {
+        return (int) (bits >>> 57);
+    }
+
+    /**
+     * @return uniform value in (0, 1]
+     */
+    private double uniform() {
+        return 1.0 - random.nextDouble();
+    }
+}
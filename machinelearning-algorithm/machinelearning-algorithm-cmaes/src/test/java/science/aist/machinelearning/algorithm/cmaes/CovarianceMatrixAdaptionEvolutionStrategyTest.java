@@ -18,11 +18,17 @@ import science.aist.machinelearning.core.ProblemGene;
 import science.aist.machinelearning.core.Solution;
 import science.aist.machinelearning.core.fitness.CachetEvaluator;
 import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.util.RandomUtil;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * @author Oliver Krauss
@@ -79,6 +85,318 @@ public class CovarianceMatrixAdaptionEvolutionStrategyTest {
         Assert.assertTrue(solution.getSolutionGenes().get(4).getGene() - E < 1.0E-14);
     }
 
+    @Test
+    public void testHighDimensional() {
+        // given
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> highDimensional = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        highDimensional.setEvaluator(sphereEvaluator());
+        highDimensional.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        highDimensional.setMaximumGenerations(300);
+        highDimensional.setDiagonalIterations(0);
+        Problem<SphereProblem> p = sphereProblem(200);
+        double initialQuality = sphereEvaluator().evaluateQuality(new DefaultRealValuedSolutionBuilder<SphereProblem>().transformToSolution(new double[200], p));
+
+        // when
+        Solution<Double, SphereProblem> solution = highDimensional.solve(p);
+
+        // then
+        Assert.assertNotNull(solution);
+        Assert.assertTrue(solution.getQuality() < initialQuality / 2, solution.getQuality() + " vs " + initialQuality);
+    }
+
+    @Test
+    public void testSeparableAndLimitedMemory() {
+        for (CovarianceModel model : new CovarianceModel[]{CovarianceModel.SEPARABLE, CovarianceModel.LIMITED_MEMORY}) {
+            // given
+            CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> largeScale = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+            largeScale.setEvaluator(sphereEvaluator());
+            largeScale.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+            largeScale.setMaximumGenerations(300);
+            largeScale.setCovarianceModel(model);
+            largeScale.setInitialSearchPosition(new double[200]);
+            Problem<SphereProblem> p = sphereProblem(200);
+
+            // when
+            Solution<Double, SphereProblem> solution = largeScale.solve(p);
+
+            // then starting from 0 the quality is 200
+            Assert.assertNotNull(solution);
+            Assert.assertTrue(solution.getQuality() < 1, model + " quality was " + solution.getQuality());
+        }
+    }
+
+    @Test
+    public void testParallelIsDeterministic() {
+        double[] qualities = new double[2];
+        for (int run = 0; run < 2; run++) {
+            // given the same seed once sequential and once parallel
+            RandomUtil.random = new Random(42);
+            CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> parallel = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+            parallel.setEvaluator(sphereEvaluator());
+            parallel.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+            parallel.setMaximumGenerations(100);
+            parallel.setParallel(run == 1);
+
+            // when
+            qualities[run] = parallel.solve(sphereProblem(20)).getQuality();
+        }
+        RandomUtil.random = new Random();
+
+        // then
+        Assert.assertEquals(qualities[1], qualities[0]);
+        Assert.assertTrue(qualities[1] < 1.0E-3, "quality was " + qualities[1]);
+    }
+
+    @Test
+    public void testAsynchronousEigendecomposition() {
+        // given
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> asynchronous = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        asynchronous.setEvaluator(sphereEvaluator());
+        asynchronous.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        asynchronous.setMaximumGenerations(150);
+        asynchronous.setDiagonalIterations(0);
+        asynchronous.setAsynchronousEigendecomposition(true);
+
+        // when
+        Solution<Double, SphereProblem> solution = asynchronous.solve(sphereProblem(20));
+
+        // then
+        Assert.assertTrue(asynchronous.getOptions().containsKey("asynchronousEigendecomposition"));
+        Assert.assertTrue(solution.getQuality() < 1.0E-3, "quality was " + solution.getQuality());
+    }
+
+    @Test
+    public void testWarmStart() throws IOException {
+        // given a run that learned the distribution
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> previous = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        previous.setEvaluator(sphereEvaluator());
+        previous.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        previous.setMaximumGenerations(100);
+        previous.solve(sphereProblem(20));
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        previous.exportState(state);
+
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> warm = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        warm.setEvaluator(sphereEvaluator());
+        warm.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        warm.setMaximumGenerations(5);
+        warm.setDiagonalIterations(7);
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> imported = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+
+        // when
+        warm.importState(new ByteArrayInputStream(state.toByteArray()));
+        Solution<Double, SphereProblem> solution = warm.solve(sphereProblem(20));
+        imported.importState(new ByteArrayInputStream(state.toByteArray()));
+        imported.initialize(sphereProblem(20));
+
+        // then the warm run starts where the previous one stopped
+        Assert.assertTrue(solution.getQuality() < 1.0E-3, "quality was " + solution.getQuality());
+        Assert.assertEquals(imported.getStandardDeviation(), previous.getStandardDeviation(), 1.0E-15);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(imported.getDistributionCentroid()[i], previous.getDistributionCentroid()[i], 1.0E-15);
+        }
+        // skipping the diagonal phase only applies to the warm started run
+        Assert.assertEquals(warm.getOptions().get("diagonalIterations").getValue(), 7);
+    }
+
+    @Test
+    public void testWarmStartLimitedMemory() throws IOException {
+        // given a state with learned directions and the same state with the directions (last array) zeroed
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> previous = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        previous.setEvaluator(sphereEvaluator());
+        previous.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        previous.setCovarianceModel(CovarianceModel.LIMITED_MEMORY);
+        previous.setMaximumGenerations(50);
+        previous.solve(sphereProblem(20));
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        previous.exportState(state);
+        byte[] learned = state.toByteArray();
+        byte[] withoutDirections = learned.clone();
+        // magic, version, model, variable count, standard deviation, four vectors and the length of the directions
+        int directionsStart = 4 * Integer.BYTES + Double.BYTES + 4 * (Integer.BYTES + 20 * Double.BYTES) + Integer.BYTES;
+        Arrays.fill(withoutDirections, directionsStart, withoutDirections.length, (byte) 0);
+
+        // when both sample their first generation from the same seed
+        double[][] offspring = new double[2][];
+        int run = 0;
+        for (byte[] bytes : new byte[][]{learned, withoutDirections}) {
+            RandomUtil.random = new Random(42);
+            CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> warm = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+            warm.setCovarianceModel(CovarianceModel.LIMITED_MEMORY);
+            warm.importState(new ByteArrayInputStream(bytes));
+            warm.initialize(sphereProblem(20));
+            offspring[run++] = warm.ask().clone();
+        }
+        RandomUtil.random = new Random();
+
+        // then the imported directions already shape the first generation
+        Assert.assertFalse(Arrays.equals(offspring[0], offspring[1]));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testImportCorruptCovarianceModel() throws IOException {
+        // given
+        byte[] state = exportedState(3);
+        // covariance model ordinal after magic and version
+        state[11] = 42;
+
+        // when
+        new CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem>().importState(new ByteArrayInputStream(state));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testImportCorruptLength() throws IOException {
+        // given
+        byte[] state = exportedState(3);
+        // length of the centroid after magic, version, model, variable count and standard deviation
+        state[24] = 0x7f;
+
+        // when
+        new CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem>().importState(new ByteArrayInputStream(state));
+    }
+
+    private static byte[] exportedState(int variables) throws IOException {
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> previous = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        previous.setEvaluator(sphereEvaluator());
+        previous.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        previous.setMaximumGenerations(1);
+        previous.solve(sphereProblem(variables));
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        previous.exportState(state);
+        return state.toByteArray();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWarmStartOtherDimension() throws IOException {
+        // given
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> previous = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        previous.setEvaluator(sphereEvaluator());
+        previous.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        previous.setMaximumGenerations(1);
+        previous.solve(sphereProblem(5));
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        previous.exportState(state);
+
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> warm = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        warm.setEvaluator(sphereEvaluator());
+        warm.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        warm.setMaximumGenerations(1);
+        warm.importState(new ByteArrayInputStream(state.toByteArray()));
+
+        // when
+        warm.solve(sphereProblem(6));
+    }
+
+    @Test
+    public void testAskTell() {
+        // given the same seed once with the evaluator and once with ask and tell
+        int variables = 10;
+        RandomUtil.random = new Random(42);
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> closed = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        closed.setEvaluator(sphereEvaluator());
+        closed.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        closed.setMaximumGenerations(100);
+        closed.solve(sphereProblem(variables));
+
+        RandomUtil.random = new Random(42);
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> askTell = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        askTell.initialize(sphereProblem(variables));
+
+        // when
+        while (askTell.getCurrentGeneration() < 100) {
+            double[] candidates = askTell.ask();
+            Assert.assertSame(askTell.ask(), candidates);
+            double[] qualities = new double[candidates.length / variables];
+            for (int i = 0; i < candidates.length; i++) {
+                qualities[i / variables] += (candidates[i] - 1) * (candidates[i] - 1);
+            }
+            askTell.tell(qualities);
+        }
+        RandomUtil.random = new Random();
+
+        // then both drive the distribution the same way
+        Assert.assertEquals(askTell.getDistributionCentroid(), closed.getDistributionCentroid());
+        for (double variable : askTell.getDistributionCentroid()) {
+            Assert.assertEquals(variable, 1, 1e-2);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testTellWithoutAsk() {
+        // given
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> askTell = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        askTell.initialize(sphereProblem(5));
+
+        // when
+        askTell.tell(new double[askTell.getPopulationSize()]);
+    }
+
+    @Test
+    public void testSurrogate() {
+        // given the same budget of generations with and without surrogate
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> plain = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        plain.setEvaluator(sphereEvaluator());
+        plain.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        plain.setMaximumGenerations(150);
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, SphereProblem> surrogate = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        surrogate.setEvaluator(sphereEvaluator());
+        surrogate.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        surrogate.setMaximumGenerations(150);
+        surrogate.setSurrogate(true);
+
+        // when
+        Solution<Double, SphereProblem> plainSolution = plain.solve(sphereProblem(10));
+        Solution<Double, SphereProblem> surrogateSolution = surrogate.solve(sphereProblem(10));
+
+        // then the quadratic surrogate is exact on the sphere, so far less evaluations are needed
+        Assert.assertTrue(surrogate.getOptions().containsKey("surrogateRankCorrelation"));
+        Assert.assertTrue(plainSolution.getQuality() < 1.0E-3, "quality was " + plainSolution.getQuality());
+        Assert.assertTrue(surrogateSolution.getQuality() < 1.0E-3, "quality was " + surrogateSolution.getQuality());
+        Assert.assertEquals(plain.getEvaluations(), 150L * plain.getPopulationSize());
+        Assert.assertTrue(surrogate.getEvaluations() * 2 < plain.getEvaluations(), "surrogate needed " + surrogate.getEvaluations() + " evaluations");
+    }
+
+    private static Problem<SphereProblem> sphereProblem(int variables) {
+        List<ProblemGene<SphereProblem>> problemList = new ArrayList<>();
+        problemList.add(new ProblemGene<>(new SphereProblem(variables)));
+        return new Problem<>(problemList);
+    }
+
+    /**
+     * @return evaluator for a sphere shifted to 1 in every variable
+     */
+    private static GenericEvaluatorImpl<Double, SphereProblem> sphereEvaluator() {
+        GenericEvaluatorImpl<Double, SphereProblem> sphereEvaluator = new GenericEvaluatorImpl<>();
+        Map<CachetEvaluator<Double, SphereProblem>, Double> cachets = new HashMap<>();
+        cachets.put(new CachetEvaluator<Double, SphereProblem>() {
+            @Override
+            public double evaluateQuality(Solution<Double, SphereProblem> solution) {
+                return solution.getSolutionGenes().stream().mapToDouble(g -> (g.getGene() - 1) * (g.getGene() - 1)).sum();
+            }
+
+            @Override
+            public String getName() {
+                return "sphere";
+            }
+        }, 1.0);
+        sphereEvaluator.setCachetEvaluators(cachets);
+        return sphereEvaluator;
+    }
+
+    private static class SphereProblem implements FloatValueProblem {
+
+        private final int variables;
+
+        private SphereProblem(int variables) {
+            this.variables = variables;
+        }
+
+        @Override
+        public int getVariableCount() {
+            return variables;
+        }
+    }
+
     private static class SampleProblem implements FloatValueProblem {
         @Override
         public int getVariableCount() {
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class EigenDecompositionTest {
+
+    /**
+     * Random symmetric positive definite matrix A = R R^T + n I
+     */
+    private static double[][] randomCovariance(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] r = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                r[i][j] = random.nextDouble() - 0.5;
+            }
+        }
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = 0;
+                for (int k = 0; k < n; k++) {
+                    sum += r[i][k] * r[j][k];
+                }
+                a[i][j] = a[j][i] = sum + (i == j ? n : 0);
+            }
+        }
+        return a;
+    }
+
+    private static double[] flatten(double[][] a) {
+        int n = a.length;
+        double[] flat = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a[i], 0, flat, i * n, n);
+        }
+        return flat;
+    }
+
+    private static double[] pack(double[][] a) {
+        int n = a.length;
+        double[] packed = new double[n * (n + 1) / 2];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a[i], 0, packed, i * (i + 1) / 2, i + 1);
+        }
+        return packed;
+    }
+
+    private void assertDecomposition(int n, boolean parallel) {
+        // given
+        double[][] a = randomCovariance(n, n);
+        double[] vectors = flatten(a);
+        double[] values = new double[n];
+
+        // when
+        EigenDecomposition.decompose(n, vectors, values, parallel);
+
+        // then A v = lambda v for every eigenvector and the eigenvalues are sorted
+        for (int k = 0; k < n; k++) {
+            if (k > 0) {
+                Assert.assertTrue(values[k - 1] <= values[k]);
+            }
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int j = 0; j < n; j++) {
+                    sum += a[i][j] * vectors[k * n + j];
+                }
+                Assert.assertEquals(sum, values[k] * vectors[k * n + i], 1e-8);
+            }
+        }
+        Assert.assertEquals(EigenDecomposition.check(n, pack(a), values, vectors, 10 * n, new SplittableRandom(1)), 0);
+    }
+
+    @Test
+    public void testDecompose() {
+        assertDecomposition(1, false);
+        assertDecomposition(2, false);
+        assertDecomposition(50, false);
+    }
+
+    @Test
+    public void testDecomposeParallel() {
+        // large enough that the kernels are split into blocks
+        assertDecomposition(400, true);
+    }
+
+    @Test
+    public void testSameEigenvaluesAsJama() {
+        // given
+        int n = 60;
+        double[][] a = randomCovariance(n, 7);
+        double[][] jamaVectors = new double[n][];
+        for (int i = 0; i < n; i++) {
+            jamaVectors[i] = a[i].clone();
+        }
+        double[] jamaValues = new double[n];
+        double[] jamaSubdiagonal = new double[n];
+        double[] vectors = flatten(a);
+        double[] values = new double[n];
+
+        // when
+        CovarianceMatrixAdaptionEvolutionStrategy.matrixToTridiagonalReduction(n, jamaVectors, jamaValues, jamaSubdiagonal);
+        CovarianceMatrixAdaptionEvolutionStrategy.computeEigenvaluesOfTridiagonal(n, jamaValues, jamaSubdiagonal, jamaVectors);
+        EigenDecomposition.decompose(n, vectors, values, false);
+
+        // then
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(values[i], jamaValues[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void testCheckDetectsError() {
+        // given
+        int n = 20;
+        double[][] a = randomCovariance(n, 3);
+        double[] vectors = flatten(a);
+        double[] values = new double[n];
+        EigenDecomposition.decompose(n, vectors, values, false);
+
+        // when
+        values[0] += 1;
+        for (int k = 0; k < n; k++) {
+            values[k] *= 1.5;
+        }
+
+        // then
+        Assert.assertTrue(EigenDecomposition.check(n, pack(a), values, vectors, 10 * n, new SplittableRandom(1)) > 0);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class LinearQuadraticSurrogateTest {
+
+    /**
+     * Quadratic function with interaction terms
+     */
+    private static double quadratic(double[] x) {
+        return 3 + x[0] - 2 * x[1] + x[0] * x[0] + 4 * x[1] * x[1] + x[2] * x[2] + x[0] * x[1] - x[1] * x[2];
+    }
+
+    @Test
+    public void testFullModel() {
+        // given
+        LinearQuadraticSurrogate surrogate = new LinearQuadraticSurrogate(3, -1);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < surrogate.getArchiveSize(); i++) {
+            double[] x = {random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2};
+            surrogate.add(x, 0, quadratic(x));
+        }
+
+        // when
+        boolean trained = surrogate.train(new double[]{0.5, 0.5, 0.5}, 2);
+
+        // then the full model is fitted and exact
+        Assert.assertTrue(trained);
+        Assert.assertEquals(surrogate.getCoefficientCount(), 10);
+        double[] x = {1.5, -0.5, 0.25};
+        Assert.assertEquals(surrogate.predict(x, 0), quadratic(x), 1e-6);
+        Assert.assertEquals(surrogate.rankCorrelation(20), 1.0, 1e-9);
+    }
+
+    @Test
+    public void testModelGrowsWithArchive() {
+        // given
+        LinearQuadraticSurrogate surrogate = new LinearQuadraticSurrogate(3, -1);
+        SplittableRandom random = new SplittableRandom(2);
+
+        // when / then
+        Assert.assertFalse(surrogate.train(new double[3], 1));
+        for (int i = 0; i < 5; i++) {
+            surrogate.add(new double[]{random.nextDouble(), random.nextDouble(), random.nextDouble()}, 0, i);
+        }
+        Assert.assertTrue(surrogate.train(new double[3], 1));
+        Assert.assertEquals(surrogate.getCoefficientCount(), 4);
+        for (int i = 0; i < 2; i++) {
+            surrogate.add(new double[]{random.nextDouble(), random.nextDouble(), random.nextDouble()}, 0, i);
+        }
+        Assert.assertTrue(surrogate.train(new double[3], 1));
+        Assert.assertEquals(surrogate.getCoefficientCount(), 7);
+    }
+
+    @Test
+    public void testKendall() {
+        Assert.assertEquals(LinearQuadraticSurrogate.kendall(new double[]{1, 2, 3, 4}, new double[]{10, 20, 30, 40}), 1.0, 1e-12);
+        Assert.assertEquals(LinearQuadraticSurrogate.kendall(new double[]{1, 2, 3, 4}, new double[]{4, 3, 2, 1}), -1.0, 1e-12);
+        // 5 concordant and 1 discordant pair
+        Assert.assertEquals(LinearQuadraticSurrogate.kendall(new double[]{1, 2, 3, 4}, new double[]{1, 3, 2, 4}), 4.0 / 6, 1e-12);
+        Assert.assertTrue(Double.isNaN(LinearQuadraticSurrogate.kendall(new double[]{1}, new double[]{1})));
+    }
+}
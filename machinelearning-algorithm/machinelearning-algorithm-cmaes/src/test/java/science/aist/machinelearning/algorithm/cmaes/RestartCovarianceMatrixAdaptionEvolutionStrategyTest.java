@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.cmaes.operator.DefaultRealValuedSolutionBuilder;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the {@link RestartCovarianceMatrixAdaptionEvolutionStrategy} on the multimodal rastrigin function
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class RestartCovarianceMatrixAdaptionEvolutionStrategyTest {
+
+    @Test
+    public void testIpop() {
+        // given
+        RestartCovarianceMatrixAdaptionEvolutionStrategy<Double, RastriginProblem> restarts = restarts(RestartStrategy.IPOP);
+
+        // when
+        Solution<Double, RastriginProblem> solution = restarts.solve(problem());
+
+        // then
+        Assert.assertNotNull(solution);
+        Assert.assertTrue(restarts.getEvaluations() <= 200000);
+        Assert.assertTrue(restarts.getRuns().size() > 1);
+        Assert.assertTrue(restarts.getRuns().stream().allMatch(RestartCovarianceMatrixAdaptionEvolutionStrategy.Run::isLarge));
+        Assert.assertEquals(restarts.getRuns().stream().mapToInt(RestartCovarianceMatrixAdaptionEvolutionStrategy.Run::getPopulationSize).max().getAsInt(),
+                10 * (1 << (restarts.getRuns().size() - 1)));
+        Assert.assertTrue(solution.getQuality() < 1.0, "quality was " + solution.getQuality());
+    }
+
+    @Test
+    public void testBipop() {
+        // given
+        RestartCovarianceMatrixAdaptionEvolutionStrategy<Double, RastriginProblem> restarts = restarts(RestartStrategy.BIPOP);
+
+        // when
+        Solution<Double, RastriginProblem> solution = restarts.solve(problem());
+
+        // then
+        Assert.assertNotNull(solution);
+        Assert.assertTrue(restarts.getEvaluations() <= 200000);
+        Assert.assertTrue(solution.getQuality() < 1.0, "quality was " + solution.getQuality());
+    }
+
+    @Test
+    public void testNegativeQualitiesDontTerminate() {
+        // given - the rastrigin function shifted below zero, without a target quality
+        RestartCovarianceMatrixAdaptionEvolutionStrategy<Double, RastriginProblem> restarts = restarts(RestartStrategy.IPOP);
+        restarts.setTargetQuality(Double.NEGATIVE_INFINITY);
+        restarts.setMaximumEvaluations(20000);
+        Map<CachetEvaluator<Double, RastriginProblem>, Double> cachets = new HashMap<>();
+        cachets.put(new RastriginCachetEvaluator() {
+            @Override
+            public double evaluateQuality(Solution<Double, RastriginProblem> solution) {
+                return super.evaluateQuality(solution) - 1000;
+            }
+        }, 1.0);
+        GenericEvaluatorImpl<Double, RastriginProblem> evaluator = new GenericEvaluatorImpl<>();
+        evaluator.setCachetEvaluators(cachets);
+        restarts.setEvaluator(evaluator);
+
+        // when
+        Solution<Double, RastriginProblem> solution = restarts.solve(problem());
+
+        // then the budget is (mostly) used instead of stopping at the first negative quality
+        Assert.assertTrue(solution.getQuality() < 0);
+        Assert.assertTrue(restarts.getRuns().size() > 1);
+        Assert.assertTrue(restarts.getEvaluations() > 10000, "evaluations were " + restarts.getEvaluations());
+    }
+
+    @Test
+    public void testFirstRunStartsAtGivenSolution() {
+        // given - a single thread, so the first evaluation of the runs is the start of the first run
+        RestartCovarianceMatrixAdaptionEvolutionStrategy<Double, RastriginProblem> restarts = restarts(RestartStrategy.IPOP);
+        restarts.setConcurrentRuns(1);
+        restarts.setMaximumEvaluations(100);
+        double[] given = {3.0, -2.0, 1.0, 4.0, -3.0};
+        Solution<Double, RastriginProblem> givenSolution = new DefaultRealValuedSolutionBuilder<RastriginProblem>().transformToSolution(given, problem());
+        restarts.getEvaluator().evaluateQuality(givenSolution);
+        List<double[]> evaluated = new ArrayList<>();
+        Map<CachetEvaluator<Double, RastriginProblem>, Double> cachets = new HashMap<>();
+        cachets.put(new RastriginCachetEvaluator() {
+            @Override
+            public double evaluateQuality(Solution<Double, RastriginProblem> solution) {
+                evaluated.add(solution.getSolutionGenes().stream().mapToDouble(g -> g.getGene()).toArray());
+                return super.evaluateQuality(solution);
+            }
+        }, 1.0);
+        GenericEvaluatorImpl<Double, RastriginProblem> evaluator = new GenericEvaluatorImpl<>();
+        evaluator.setCachetEvaluators(cachets);
+        restarts.setEvaluator(evaluator);
+
+        // when
+        Solution<Double, RastriginProblem> solution = restarts.solve(problem(), givenSolution);
+
+        // then
+        Assert.assertNotNull(solution);
+        Assert.assertEquals(evaluated.get(0), given);
+        Assert.assertTrue(solution.getQuality() <= givenSolution.getQuality());
+    }
+
+    private static RestartCovarianceMatrixAdaptionEvolutionStrategy<Double, RastriginProblem> restarts(RestartStrategy strategy) {
+        GenericEvaluatorImpl<Double, RastriginProblem> evaluator = new GenericEvaluatorImpl<>();
+        Map<CachetEvaluator<Double, RastriginProblem>, Double> cachets = new HashMap<>();
+        cachets.put(new RastriginCachetEvaluator(), 1.0);
+        evaluator.setCachetEvaluators(cachets);
+
+        CovarianceMatrixAdaptionEvolutionStrategy<Double, RastriginProblem> cmaes = new CovarianceMatrixAdaptionEvolutionStrategy<>();
+        cmaes.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        cmaes.setMaximumGenerations(1000);
+        cmaes.setPopulationSize(10);
+        cmaes.setStandardDeviation(2.0);
+        cmaes.setCheckConsistency(false);
+        cmaes.setFunctionTolerance(1e-10);
+
+        RestartCovarianceMatrixAdaptionEvolutionStrategy<Double, RastriginProblem> restarts = new RestartCovarianceMatrixAdaptionEvolutionStrategy<>();
+        restarts.setEvaluator(evaluator);
+        restarts.setCmaes(cmaes);
+        restarts.setRestartStrategy(strategy);
+        restarts.setMaximumEvaluations(200000);
+        restarts.setLowerBound(-5.12);
+        restarts.setUpperBound(5.12);
+        restarts.setTargetQuality(1e-8);
+        return restarts;
+    }
+
+    private static Problem<RastriginProblem> problem() {
+        List<ProblemGene<RastriginProblem>> problemList = new ArrayList<>();
+        problemList.add(new ProblemGene<>(new RastriginProblem()));
+        return new Problem<>(problemList);
+    }
+
+    private static class RastriginProblem implements FloatValueProblem {
+        @Override
+        public int getVariableCount() {
+            return 5;
+        }
+    }
+
+    private static class RastriginCachetEvaluator implements CachetEvaluator<Double, RastriginProblem> {
+
+        @Override
+        public double evaluateQuality(Solution<Double, RastriginProblem> solution) {
+            return solution.getSolutionGenes().stream()
+                    .mapToDouble(g -> g.getGene() * g.getGene() - 10 * Math.cos(2 * Math.PI * g.getGene()) + 10)
+                    .sum();
+        }
+
+        @Override
+        public String getName() {
+            return "rastrigin";
+        }
+    }
+}
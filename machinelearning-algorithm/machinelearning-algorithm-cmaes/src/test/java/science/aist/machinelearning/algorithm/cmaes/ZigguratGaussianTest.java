@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.cmaes;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ZigguratGaussianTest {
+
+    @Test
+    public void testMoments() {
+        // given
+        ZigguratGaussian gaussian = new ZigguratGaussian(new SplittableRandom(42));
+        int samples = 1000000;
+        double sum = 0;
+        double squares = 0;
+        int tail = 0;
+
+        // when
+        for (int i = 0; i < samples; i++) {
+            double value = gaussian.nextGaussian();
+            sum += value;
+            squares += value * value;
+            if (Math.abs(value) > 3) {
+                tail++;
+            }
+        }
+
+        // then mean 0, variance 1 and P(|x| > 3) = 0.0027
+        double mean = sum / samples;
+        Assert.assertEquals(mean, 0, 0.005);
+        Assert.assertEquals(squares / samples - mean * mean, 1, 0.01);
+        Assert.assertEquals(tail / (double) samples, 0.0027, 0.0005);
+    }
+
+    @Test
+    public void testTailMass() {
+        // given P(x > t) of the standard normal distribution
+        double[] thresholds = {2, 3, 3.5, 4};
+        double[] expected = {0.022750132, 0.001349898, 2.32629e-4, 3.16712e-5};
+        ZigguratGaussian gaussian = new ZigguratGaussian(new SplittableRandom(7));
+        int samples = 4000000;
+        int[] upper = new int[thresholds.length];
+        int[] lower = new int[thresholds.length];
+
+        // when
+        for (int i = 0; i < samples; i++) {
+            double value = gaussian.nextGaussian();
+            for (int t = 0; t < thresholds.length; t++) {
+                if (value > thresholds[t]) {
+                    upper[t]++;
+                } else if (value < -thresholds[t]) {
+                    lower[t]++;
+                }
+            }
+        }
+
+        // then both tails carry their mass within 4 standard errors
+        for (int t = 0; t < thresholds.length; t++) {
+            double tolerance = 4 * Math.sqrt(expected[t] * (1 - expected[t]) / samples);
+            Assert.assertEquals(upper[t] / (double) samples, expected[t], tolerance, "P(x > " + thresholds[t] + ")");
+            Assert.assertEquals(lower[t] / (double) samples, expected[t], tolerance, "P(x < -" + thresholds[t] + ")");
+        }
+    }
+}
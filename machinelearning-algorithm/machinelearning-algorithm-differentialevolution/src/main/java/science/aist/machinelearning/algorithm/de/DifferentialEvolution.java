@@ -0,0 +1,752 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.de;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.cmaes.FloatValueProblem;
+import science.aist.machinelearning.algorithm.cmaes.operator.RealValuedSolutionBuilder;
+import science.aist.machinelearning.core.AbstractAlgorithm;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.options.Descriptor;
+import science.aist.machinelearning.core.util.RandomUtil;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Differential evolution for {@link FloatValueProblem}s, see {@link DifferentialEvolutionStrategy} for the supported
+ * strategies.
+ * <p>
+ * Memory is linear in the amount of variables: the population, the trial vectors and the archive are each kept in one
+ * contiguous row-major double[] (one row per individual), which makes DE usable for problems with thousands of
+ * variables where the O(n^2) covariance matrix of CMA-ES is too large. The {@link RealValuedSolutionBuilder} is only
+ * used at the boundary, to evaluate a row and to materialize the best row as result.
+ * <p>
+ * Trial generation and evaluation run in parallel chunks of the population, so the evaluator must be thread safe
+ * (unless parallel is disabled). Every chunk draws from its own random generator, split from {@link RandomUtil} per
+ * generation. Selection and the adaptation of the SHADE history are sequential.
+ *
+ * @param <ST> Gene type of the solution
+ * @param <PT> Gene type of the Problem
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class DifferentialEvolution<ST, PT extends FloatValueProblem> extends AbstractAlgorithm<ST, PT> {
+
+    /**
+     * Operator responsible to get from double[] to ST
+     */
+    private RealValuedSolutionBuilder<ST, PT> solutionBuilder;
+
+    /**
+     * Termination Criteria on how many generations may be evaluated
+     */
+    private Integer maximumGenerations;
+
+    private Integer populationSize = 50;
+
+    private DifferentialEvolutionStrategy strategy = DifferentialEvolutionStrategy.CURRENT_TO_PBEST_1_BIN;
+
+    /**
+     * Fixed scaling factor F of RAND_1_BIN
+     */
+    private Double scalingFactor = 0.5;
+
+    /**
+     * Fixed crossover rate CR of RAND_1_BIN
+     */
+    private Double crossoverRate = 0.9;
+
+    /**
+     * Amount of entries in the success history of CURRENT_TO_PBEST_1_BIN
+     */
+    private Integer historySize = 10;
+
+    /**
+     * Fraction of the best individuals the pbest of CURRENT_TO_PBEST_1_BIN is drawn from
+     */
+    private Double greedyFraction = 0.11;
+
+    /**
+     * Lower bound of every variable, the initial population is drawn uniformly between the bounds
+     */
+    private Double lowerBound = -5.0;
+
+    /**
+     * Upper bound of every variable
+     */
+    private Double upperBound = 5.0;
+
+    /**
+     * If trials are created and evaluated concurrently
+     */
+    private Boolean parallel = true;
+
+    /**
+     * Number of current generation, increasing with each algorithm step
+     */
+    private int currentGeneration;
+
+    private int variableCount;
+
+    /**
+     * Population, row-major with variableCount columns
+     */
+    private double[] population;
+
+    private double[] qualities;
+
+    /**
+     * Trial vectors of the current generation, row-major with variableCount columns
+     */
+    private double[] trials;
+
+    private double[] trialQualities;
+
+    /**
+     * Scaling factor every trial was created with
+     */
+    private double[] trialScaling;
+
+    /**
+     * Crossover rate every trial was created with
+     */
+    private double[] trialCrossover;
+
+    /**
+     * Parents that were replaced by better trials, row-major with variableCount columns
+     */
+    private double[] archive;
+
+    private int archiveCount;
+
+    /**
+     * Success history of scaling factors (SHADE M_F)
+     */
+    private double[] historyScaling;
+
+    /**
+     * Success history of crossover rates (SHADE M_CR)
+     */
+    private double[] historyCrossover;
+
+    /**
+     * Next history entry to be overwritten
+     */
+    private int historyPosition;
+
+    /**
+     * Indices of the individuals ordered by quality, only the first entries are used for the pbest
+     */
+    private int[] order;
+
+    private int bestIndex;
+
+    private SplittableRandom random;
+
+    /**
+     * Creates a trial or initial row for an individual
+     */
+    private interface RowTask {
+        void run(int individual, SplittableRandom random);
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem) {
+        return solve(problem, (double[]) null);
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem, Solution<ST, PT> givenSolution) {
+        if (givenSolution == null) {
+            return null;
+        }
+        return solve(problem, solutionBuilder.getOriginalVector(givenSolution));
+    }
+
+    /**
+     * Runs the evolution
+     *
+     * @param problem to be solved
+     * @param start   vector that is inserted into the initial population, or null
+     * @return best solution found
+     */
+    private Solution<ST, PT> solve(Problem<PT> problem, double[] start) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().isEmpty()) {
+            return null;
+        }
+
+        initialize(problem, start);
+        initializeLog(problem);
+        while (currentGeneration < maximumGenerations) {
+            nextGeneration(problem);
+        }
+
+        Solution<ST, PT> best = solutionBuilder.transformToSolution(getBestVector(), problem);
+        getEvaluator().evaluateQuality(best);
+        finalizeLog(best);
+        return best;
+    }
+
+    /**
+     * Allocates the packed state and creates and evaluates the initial population
+     *
+     * @param problem to be solved
+     * @param start   vector that replaces the first individual, or null
+     */
+    private void initialize(Problem<PT> problem, double[] start) {
+        variableCount = problem.getProblemGenes().get(0).getGene().getVariableCount();
+        if (variableCount <= 0) {
+            throw new IllegalArgumentException("We cannot optimize nothing! variable count must be > 0");
+        }
+        if (start != null && start.length != variableCount) {
+            throw new IllegalArgumentException("The given solution must have the same dimensions as given in the problem");
+        }
+        if (populationSize < 4) {
+            throw new IllegalArgumentException("Differential evolution needs a population of at least 4");
+        }
+
+        int size = populationSize * variableCount;
+        population = new double[size];
+        qualities = new double[populationSize];
+        trials = new double[size];
+        trialQualities = new double[populationSize];
+        trialScaling = new double[populationSize];
+        trialCrossover = new double[populationSize];
+        archive = new double[size];
+        archiveCount = 0;
+        historyScaling = new double[historySize];
+        historyCrossover = new double[historySize];
+        Arrays.fill(historyScaling, 0.5);
+        Arrays.fill(historyCrossover, 0.5);
+        historyPosition = 0;
+        order = IntStream.range(0, populationSize).toArray();
+        random = new SplittableRandom(RandomUtil.random.nextLong());
+        currentGeneration = 0;
+
+        forEachRow((i, r) -> {
+            int offset = i * variableCount;
+            if (i == 0 && start != null) {
+                System.arraycopy(start, 0, population, 0, variableCount);
+            } else {
+                for (int j = 0; j < variableCount; j++) {
+                    population[offset + j] = lowerBound + r.nextDouble() * (upperBound - lowerBound);
+                }
+            }
+            qualities[i] = evaluate(population, i, problem);
+        });
+        updateBest();
+    }
+
+    /**
+     * Creates, evaluates and selects the trials of one generation
+     *
+     * @param problem to be solved
+     */
+    private void nextGeneration(Problem<PT> problem) {
+        boolean pbest = strategy == DifferentialEvolutionStrategy.CURRENT_TO_PBEST_1_BIN;
+        if (pbest) {
+            order = IntStream.range(0, populationSize).boxed()
+                    .sorted(Comparator.comparingDouble(i -> qualities[i]))
+                    .mapToInt(Integer::intValue).toArray();
+        }
+
+        forEachRow((i, r) -> {
+            if (pbest) {
+                createPBestTrial(i, r);
+            } else {
+                createRandTrial(i, r);
+            }
+            trialQualities[i] = evaluate(trials, i, problem);
+        });
+
+        select(pbest);
+        updateBest();
+        currentGeneration++;
+        analyticsStep();
+    }
+
+    /**
+     * Runs the task for every individual, in parallel chunks if enabled. The random generators of the chunks are split
+     * off sequentially, so the result only depends on the seed of {@link RandomUtil} and the amount of chunks.
+     *
+     * @param task to be run
+     */
+    private void forEachRow(RowTask task) {
+        int chunks = parallel ? Math.min(populationSize, Runtime.getRuntime().availableProcessors() * 4) : 1;
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            randoms[c] = random.split();
+        }
+
+        IntStream stream = IntStream.range(0, chunks);
+        if (parallel) {
+            stream = stream.parallel();
+        }
+        stream.forEach(c -> {
+            int end = (int) ((long) populationSize * (c + 1) / chunks);
+            for (int i = (int) ((long) populationSize * c / chunks); i < end; i++) {
+                task.run(i, randoms[c]);
+            }
+        });
+    }
+
+    /**
+     * DE/rand/1/bin
+     *
+     * @param i individual
+     * @param r random generator of the chunk
+     */
+    private void createRandTrial(int i, SplittableRandom r) {
+        int r1;
+        int r2;
+        int r3;
+        do {
+            r1 = r.nextInt(populationSize);
+        } while (r1 == i);
+        do {
+            r2 = r.nextInt(populationSize);
+        } while (r2 == i || r2 == r1);
+        do {
+            r3 = r.nextInt(populationSize);
+        } while (r3 == i || r3 == r2 || r3 == r1);
+
+        double f = scalingFactor;
+        double cr = crossoverRate;
+        trialScaling[i] = f;
+        trialCrossover[i] = cr;
+
+        int offset = i * variableCount;
+        int o1 = r1 * variableCount;
+        int o2 = r2 * variableCount;
+        int o3 = r3 * variableCount;
+        int forced = r.nextInt(variableCount);
+        for (int j = 0; j < variableCount; j++) {
+            double parent = population[offset + j];
+            if (j == forced || r.nextDouble() < cr) {
+                trials[offset + j] = bound(population[o1 + j] + f * (population[o2 + j] - population[o3 + j]), parent);
+            } else {
+                trials[offset + j] = parent;
+            }
+        }
+    }
+
+    /**
+     * DE/current-to-pbest/1/bin with archive and SHADE parameter adaption
+     *
+     * @param i individual
+     * @param r random generator of the chunk
+     */
+    private void createPBestTrial(int i, SplittableRandom r) {
+        // sample the parameters around a random entry of the success history
+        int h = r.nextInt(historySize);
+        double cr = Math.min(1, Math.max(0, historyCrossover[h] + 0.1 * gaussian(r)));
+        double f;
+        do {
+            // cauchy distribution
+            f = historyScaling[h] + 0.1 * Math.tan(Math.PI * (r.nextDouble() - 0.5));
+        } while (f <= 0);
+        f = Math.min(f, 1);
+        trialScaling[i] = f;
+        trialCrossover[i] = cr;
+
+        int greedy = Math.max(2, (int) Math.round(greedyFraction * populationSize));
+        int best = order[r.nextInt(Math.min(greedy, populationSize))];
+        int r1;
+        int r2;
+        do {
+            r1 = r.nextInt(populationSize);
+        } while (r1 == i);
+        do {
+            r2 = r.nextInt(populationSize + archiveCount);
+        } while (r2 == i || r2 == r1);
+        double[] second = r2 < populationSize ? population : archive;
+        int o2 = (r2 < populationSize ? r2 : r2 - populationSize) * variableCount;
+
+        int offset = i * variableCount;
+        int ob = best * variableCount;
+        int o1 = r1 * variableCount;
+        int forced = r.nextInt(variableCount);
+        for (int j = 0; j < variableCount; j++) {
+            double parent = population[offset + j];
+            if (j == forced || r.nextDouble() < cr) {
+                double donor = parent + f * (population[ob + j] - parent) + f * (population[o1 + j] - second[o2 + j]);
+                trials[offset + j] = bound(donor, parent);
+            } else {
+                trials[offset + j] = parent;
+            }
+        }
+    }
+
+    /**
+     * Replaces parents by trials that are at least as good, archives the replaced parents and updates the success
+     * history
+     *
+     * @param pbest if the archive and history are used
+     */
+    private void select(boolean pbest) {
+        double weightSum = 0;
+        double crossoverSum = 0;
+        double scalingSum = 0;
+        double scalingSquareSum = 0;
+        for (int i = 0; i < populationSize; i++) {
+            if (trialQualities[i] > qualities[i]) {
+                continue;
+            }
+            int offset = i * variableCount;
+            if (pbest && trialQualities[i] < qualities[i]) {
+                double weight = qualities[i] - trialQualities[i];
+                weightSum += weight;
+                crossoverSum += weight * trialCrossover[i];
+                scalingSum += weight * trialScaling[i];
+                scalingSquareSum += weight * trialScaling[i] * trialScaling[i];
+
+                int slot = archiveCount < populationSize ? archiveCount++ : random.nextInt(populationSize);
+                System.arraycopy(population, offset, archive, slot * variableCount, variableCount);
+            }
+            System.arraycopy(trials, offset, population, offset, variableCount);
+            qualities[i] = trialQualities[i];
+        }
+
+        if (pbest && weightSum > 0 && !Double.isInfinite(weightSum)) {
+            // weighted mean for the crossover rate, weighted lehmer mean for the scaling factor
+            historyCrossover[historyPosition] = crossoverSum / weightSum;
+            historyScaling[historyPosition] = scalingSquareSum / scalingSum;
+            historyPosition = (historyPosition + 1) % historySize;
+        }
+    }
+
+    private void updateBest() {
+        bestIndex = 0;
+        for (int i = 1; i < populationSize; i++) {
+            if (qualities[i] < qualities[bestIndex]) {
+                bestIndex = i;
+            }
+        }
+    }
+
+    /**
+     * Keeps a variable within the bounds by moving it half way from the parent to the violated bound
+     *
+     * @param value  of the donor
+     * @param parent value of the parent
+     * @return value within the bounds
+     */
+    private double bound(double value, double parent) {
+        if (value < lowerBound) {
+            return (lowerBound + parent) / 2;
+        }
+        if (value > upperBound) {
+            return (upperBound + parent) / 2;
+        }
+        return value;
+    }
+
+    /**
+     * Evaluates one row of a packed matrix
+     *
+     * @param matrix  population or trials
+     * @param row     individual
+     * @param problem to be solved
+     * @return quality of the row
+     */
+    private double evaluate(double[] matrix, int row, Problem<PT> problem) {
+        double[] vector = Arrays.copyOfRange(matrix, row * variableCount, (row + 1) * variableCount);
+        return getEvaluator().evaluateQuality(solutionBuilder.transformToSolution(vector, problem));
+    }
+
+    /**
+     * Standard normal distributed value (polar method), as the SplittableRandom does not offer one
+     *
+     * @param r random generator
+     * @return gaussian value
+     */
+    static double gaussian(SplittableRandom r) {
+        double u;
+        double v;
+        double s;
+        do {
+            u = 2 * r.nextDouble() - 1;
+            v = 2 * r.nextDouble() - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        return u * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
+    /**
+     * Creates the log headers, and logs the current algorithm configuration
+     *
+     * @param problem that is being solved in this log
+     */
+    private void initializeLog(Problem<PT> problem) {
+        if (analytics != null) {
+            analytics.startAnalytics();
+            analytics.logParam("problemSize", problem.getProblemSize());
+            analytics.logParam("strategy", strategy.name());
+            analytics.logParam("populationSize", String.valueOf(populationSize));
+            analytics.logParam("maximumGenerations", String.valueOf(maximumGenerations));
+            List<String> headers = new ArrayList<>();
+            headers.add("best quality");
+            headers.add("worst quality");
+            headers.add("average quality");
+            analytics.logAlgorithmStepHeaders(headers);
+            analytics.logProblem(problem);
+        }
+    }
+
+    private void finalizeLog(Solution<ST, PT> best) {
+        if (analytics != null) {
+            analytics.logSolution(best);
+            analytics.finishAnalytics();
+        }
+    }
+
+    /**
+     * Logs the statistics of the current generation
+     */
+    private void analyticsStep() {
+        if (analytics != null) {
+            List<String> values = new ArrayList<>();
+            values.add(String.valueOf(qualities[bestIndex]));
+            values.add(String.valueOf(Arrays.stream(qualities).max().orElse(0)));
+            values.add(String.valueOf(Arrays.stream(qualities).average().orElse(0)));
+            analytics.logAlgorithmStep(values);
+        }
+    }
+
+    /**
+     * @return copy of the best vector of the current population
+     */
+    public double[] getBestVector() {
+        return Arrays.copyOfRange(population, bestIndex * variableCount, (bestIndex + 1) * variableCount);
+    }
+
+    /**
+     * @return quality of the best vector of the current population
+     */
+    public double getBestQuality() {
+        return qualities[bestIndex];
+    }
+
+    /**
+     * @return success history of the scaling factor (only adapted by CURRENT_TO_PBEST_1_BIN)
+     */
+    public double[] getHistoryScaling() {
+        return historyScaling;
+    }
+
+    /**
+     * @return success history of the crossover rate (only adapted by CURRENT_TO_PBEST_1_BIN)
+     */
+    public double[] getHistoryCrossover() {
+        return historyCrossover;
+    }
+
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    protected Map<String, Descriptor> getSpecificOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("solutionBuilder", new Descriptor<>(solutionBuilder));
+        options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
+        options.put("populationSize", new Descriptor<>(populationSize));
+        options.put("strategy", new Descriptor<>(strategy));
+        options.put("lowerBound", new Descriptor<>(lowerBound));
+        options.put("upperBound", new Descriptor<>(upperBound));
+        options.put("parallel", new Descriptor<>(parallel));
+        // only the options of the selected strategy are offered to experiments
+        if (strategy == DifferentialEvolutionStrategy.RAND_1_BIN) {
+            options.put("scalingFactor", new Descriptor<>(scalingFactor));
+            options.put("crossoverRate", new Descriptor<>(crossoverRate));
+        } else {
+            options.put("historySize", new Descriptor<>(historySize));
+            options.put("greedyFraction", new Descriptor<>(greedyFraction));
+        }
+        return options;
+    }
+
+    @Override
+    protected boolean setSpecificOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "solutionBuilder":
+                    setSolutionBuilder((RealValuedSolutionBuilder<ST, PT>) descriptor.getValue());
+                    break;
+                case "maximumGenerations":
+                    setMaximumGenerations((Integer) descriptor.getValue());
+                    break;
+                case "populationSize":
+                    setPopulationSize((Integer) descriptor.getValue());
+                    break;
+                case "strategy":
+                    setStrategy((DifferentialEvolutionStrategy) descriptor.getValue());
+                    break;
+                case "lowerBound":
+                    setLowerBound((Double) descriptor.getValue());
+                    break;
+                case "upperBound":
+                    setUpperBound((Double) descriptor.getValue());
+                    break;
+                case "parallel":
+                    setParallel((Boolean) descriptor.getValue());
+                    break;
+                case "scalingFactor":
+                    setScalingFactor((Double) descriptor.getValue());
+                    break;
+                case "crossoverRate":
+                    setCrossoverRate((Double) descriptor.getValue());
+                    break;
+                case "historySize":
+                    setHistorySize((Integer) descriptor.getValue());
+                    break;
+                case "greedyFraction":
+                    setGreedyFraction((Double) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    public RealValuedSolutionBuilder<ST, PT> getSolutionBuilder() {
+        return solutionBuilder;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param solutionBuilder transforms the rows into solutions
+     */
+    @Required
+    public void setSolutionBuilder(RealValuedSolutionBuilder<ST, PT> solutionBuilder) {
+        this.solutionBuilder = solutionBuilder;
+    }
+
+    public Integer getMaximumGenerations() {
+        return maximumGenerations;
+    }
+
+    @Required
+    public void setMaximumGenerations(Integer maximumGenerations) {
+        this.maximumGenerations = maximumGenerations;
+    }
+
+    public Integer getPopulationSize() {
+        return populationSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param populationSize amount of individuals (at least 4)
+     */
+    public void setPopulationSize(Integer populationSize) {
+        if (populationSize < 4) {
+            throw new IllegalArgumentException("population size must be >= 4");
+        }
+        this.populationSize = populationSize;
+    }
+
+    public DifferentialEvolutionStrategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(DifferentialEvolutionStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public Double getScalingFactor() {
+        return scalingFactor;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param scalingFactor F of RAND_1_BIN
+     */
+    public void setScalingFactor(Double scalingFactor) {
+        this.scalingFactor = scalingFactor;
+    }
+
+    public Double getCrossoverRate() {
+        return crossoverRate;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param crossoverRate CR of RAND_1_BIN
+     */
+    public void setCrossoverRate(Double crossoverRate) {
+        this.crossoverRate = crossoverRate;
+    }
+
+    public Integer getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param historySize entries of the success history of CURRENT_TO_PBEST_1_BIN
+     */
+    public void setHistorySize(Integer historySize) {
+        if (historySize <= 0) {
+            throw new IllegalArgumentException("history size must be > 0");
+        }
+        this.historySize = historySize;
+    }
+
+    public Double getGreedyFraction() {
+        return greedyFraction;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param greedyFraction fraction of the best individuals the pbest is drawn from
+     */
+    public void setGreedyFraction(Double greedyFraction) {
+        this.greedyFraction = greedyFraction;
+    }
+
+    public Double getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(Double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public Double getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(Double upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public Boolean getParallel() {
+        return parallel;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param parallel if trials are created and evaluated concurrently (requires a thread safe evaluator)
+     */
+    public void setParallel(Boolean parallel) {
+        this.parallel = parallel;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.de;
+
+/**
+ * Mutation strategies of the {@link DifferentialEvolution}. Both use binomial crossover.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public enum DifferentialEvolutionStrategy {
+
+    /**
+     * Classic DE/rand/1/bin: v = x_r1 + F * (x_r2 - x_r3) with a fixed scaling factor F and crossover rate
+     */
+    RAND_1_BIN,
+
+    /**
+     * DE/current-to-pbest/1/bin with external archive: v = x_i + F * (x_pbest - x_i) + F * (x_r1 - x_r2), where x_r2 may
+     * come from the archive of replaced parents. F and the crossover rate are adapted per individual from a success
+     * history (SHADE)
+     */
+    CURRENT_TO_PBEST_1_BIN
+}
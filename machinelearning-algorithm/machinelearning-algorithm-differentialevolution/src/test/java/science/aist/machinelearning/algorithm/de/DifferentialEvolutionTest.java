@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.de;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.cmaes.FloatValueProblem;
+import science.aist.machinelearning.algorithm.cmaes.operator.DefaultRealValuedSolutionBuilder;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class DifferentialEvolutionTest {
+
+    @Test
+    public void testShade() {
+        // given
+        DifferentialEvolution<Double, SampleProblem> de = differentialEvolution();
+        de.setStrategy(DifferentialEvolutionStrategy.CURRENT_TO_PBEST_1_BIN);
+        de.setMaximumGenerations(1000);
+
+        // when
+        Solution<Double, SampleProblem> solution = de.solve(problem(5));
+
+        // then
+        Assert.assertNotNull(solution);
+        Assert.assertEquals(solution.getSolutionGenes().size(), 5);
+        Assert.assertTrue(solution.getQuality() < 1.0E-6, "quality was " + solution.getQuality());
+        Assert.assertEquals(solution.getQuality(), de.getBestQuality());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(solution.getSolutionGenes().get(i).getGene(), target(i), 1.0E-6);
+        }
+    }
+
+    @Test
+    public void testRandOneBin() {
+        // given
+        DifferentialEvolution<Double, SampleProblem> de = differentialEvolution();
+        de.setStrategy(DifferentialEvolutionStrategy.RAND_1_BIN);
+        de.setMaximumGenerations(1000);
+
+        // when
+        Solution<Double, SampleProblem> solution = de.solve(problem(5));
+
+        // then
+        Assert.assertTrue(solution.getQuality() < 1.0E-3, "quality was " + solution.getQuality());
+        Assert.assertTrue(de.getOptions().containsKey("scalingFactor"));
+        Assert.assertFalse(de.getOptions().containsKey("historySize"));
+    }
+
+    @Test
+    public void testHighDimensional() {
+        // given
+        DifferentialEvolution<Double, SampleProblem> de = differentialEvolution();
+        de.setPopulationSize(20);
+        de.setMaximumGenerations(200);
+        Problem<SampleProblem> problem = problem(2000);
+        Solution<Double, SampleProblem> start = new DefaultRealValuedSolutionBuilder<SampleProblem>().transformToSolution(new double[2000], problem);
+        double startQuality = evaluator().evaluateQuality(start);
+
+        // when
+        Solution<Double, SampleProblem> solution = de.solve(problem, start);
+
+        // then the given solution is part of the population, so the result can only be better
+        Assert.assertTrue(solution.getQuality() < startQuality, solution.getQuality() + " vs " + startQuality);
+        Assert.assertEquals(de.getCurrentGeneration(), 200);
+    }
+
+    private DifferentialEvolution<Double, SampleProblem> differentialEvolution() {
+        DifferentialEvolution<Double, SampleProblem> de = new DifferentialEvolution<>();
+        de.setEvaluator(evaluator());
+        de.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        de.setPopulationSize(40);
+        de.setLowerBound(-10.0);
+        de.setUpperBound(10.0);
+        return de;
+    }
+
+    private static GenericEvaluatorImpl<Double, SampleProblem> evaluator() {
+        Map<CachetEvaluator<Double, SampleProblem>, Double> cachets = new HashMap<>();
+        cachets.put(new SphereCachetEvaluator(), 1.0);
+        GenericEvaluatorImpl<Double, SampleProblem> evaluator = new GenericEvaluatorImpl<>();
+        evaluator.setCachetEvaluators(cachets);
+        return evaluator;
+    }
+
+    private static Problem<SampleProblem> problem(int variables) {
+        List<ProblemGene<SampleProblem>> problemList = new ArrayList<>();
+        problemList.add(new ProblemGene<>(new SampleProblem(variables)));
+        return new Problem<>(problemList);
+    }
+
+    private static double target(int variable) {
+        return (variable % 7) - 3.5;
+    }
+
+    private static class SampleProblem implements FloatValueProblem {
+
+        private final int variables;
+
+        private SampleProblem(int variables) {
+            this.variables = variables;
+        }
+
+        @Override
+        public int getVariableCount() {
+            return variables;
+        }
+    }
+
+    /**
+     * Shifted sphere function
+     */
+    private static class SphereCachetEvaluator implements CachetEvaluator<Double, SampleProblem> {
+
+        @Override
+        public double evaluateQuality(Solution<Double, SampleProblem> solution) {
+            double quality = 0;
+            for (int i = 0; i < solution.getSolutionGenes().size(); i++) {
+                double d = solution.getSolutionGenes().get(i).getGene() - target(i);
+                quality += d * d;
+            }
+            return quality;
+        }
+
+        @Override
+        public String getName() {
+            return "sphere";
+        }
+    }
+}
@@ -0,0 +1,793 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.distributed;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.distributed.EvaluationProtocol.EvaluationResult;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.codec.SolutionCodec;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.Evaluator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Evaluator} that ships solutions to worker processes ({@link EvaluationWorker}) over TCP and collects their
+ * quality. As it is a normal evaluator, any algorithm (and thus any {@link
+ * science.aist.machinelearning.core.experiment.Experiment}) can use it transparently. Algorithms that evaluate whole
+ * generations via {@link #evaluateQualities(List)} profit the most, as only they keep all workers busy.
+ * <ul>
+ * <li>Batching: solutions are sent in batches of batchSize to reduce the per message overhead</li>
+ * <li>Pipelining: each worker receives up to pipelineDepth batches in advance so it never waits for the network</li>
+ * <li>Work stealing: all workers pull from one shared queue. When the queue is empty, idle workers additionally
+ * re-execute batches that are still running on other workers. The first result wins, so a single slow worker
+ * can't stall a generation.</li>
+ * <li>Fault tolerance: when a worker dies (e.g. a native simulator crashes) or fails to evaluate a batch, the batch is
+ * resubmitted to the remaining workers (up to maximumAttempts times), unless a stolen copy of it is still running.
+ * Local worker processes that died are restarted. Once no worker is left
+ * (no local process running and no connection open), all waiting evaluations fail instead of waiting for a worker
+ * that may never come.</li>
+ * </ul>
+ * localWorkers worker processes are started on this machine with the current classpath. Additional workers on other
+ * machines can connect to bindAddress:port at any time. Local workers also connect via TCP (on the loopback interface by
+ * default), as Unix-domain socket channels are only available from Java 16 on and this project targets Java 11.
+ * <p>
+ * The solutions are transferred with a {@link SolutionCodec}, so the evaluator only depends on the core and can be used
+ * by any algorithm.
+ * <p>
+ * This class is deliberately NOT {@link science.aist.machinelearning.core.Configurable}, as an experiment must not
+ * vary infrastructure settings such as the number of worker processes.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class DistributedEvaluator<ST, PT> implements Evaluator<ST, PT>, AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = Logger.getLogger(DistributedEvaluator.class);
+    /**
+     * Batches waiting for a worker
+     */
+    private final BlockingDeque<Batch> queue = new LinkedBlockingDeque<>();
+    /**
+     * Currently connected workers
+     */
+    private final List<WorkerConnection> connections = new CopyOnWriteArrayList<>();
+    /**
+     * Currently running local worker processes
+     */
+    private final List<Process> processes = new CopyOnWriteArrayList<>();
+    /**
+     * Id of the next batch
+     */
+    private final AtomicLong nextBatchId = new AtomicLong();
+    /**
+     * Amount of local worker processes that were restarted
+     */
+    private final AtomicInteger workerRestarts = new AtomicInteger();
+    /**
+     * The evaluator the workers use. Only used locally for the evaluation identity and cachet dictionary
+     */
+    private Evaluator<ST, PT> evaluator;
+    /**
+     * Problem the solutions belong to
+     */
+    private Problem<PT> problem;
+    /**
+     * Codec the solutions are transferred with
+     */
+    private SolutionCodec<ST, PT> codec;
+    /**
+     * Factory that sets up local worker processes
+     */
+    private Class<? extends EvaluationWorkerFactory> workerFactory;
+    /**
+     * Amount of worker processes started on this machine
+     */
+    private int localWorkers = Runtime.getRuntime().availableProcessors();
+    /**
+     * Additional arguments for the JVM of local workers (e.g. -Xmx)
+     */
+    private List<String> workerJvmArguments = new ArrayList<>();
+    /**
+     * Address the master listens on. Loopback by default, so only local workers can connect
+     */
+    private String bindAddress = "127.0.0.1";
+    /**
+     * Port the master listens on, 0 for any free port
+     */
+    private int port = 0;
+    /**
+     * Amount of solutions sent in one message
+     */
+    private int batchSize = 4;
+    /**
+     * Amount of batches a worker may have in flight
+     */
+    private int pipelineDepth = 2;
+    /**
+     * Amount of failed evaluations (dead worker or error reply) of a batch before it is considered as failed
+     */
+    private int maximumAttempts = 3;
+    /**
+     * Amount of times local worker processes are restarted over the lifetime of the evaluator
+     */
+    private int maximumWorkerRestarts = 10;
+    /**
+     * If idle workers re-execute batches that are still running on other workers
+     */
+    private boolean workStealing = true;
+    /**
+     * Accepts worker connections, null if not started
+     */
+    private ServerSocket serverSocket;
+    /**
+     * If the evaluator was closed
+     */
+    private volatile boolean closed = false;
+    /**
+     * If any worker was started or connected. Before that, evaluations wait for the first (remote) worker
+     */
+    private volatile boolean workersStarted = false;
+
+    /**
+     * Starts listening for workers, and starts the local worker processes. Called automatically by the first
+     * evaluation.
+     *
+     * @throws UncheckedIOException if the socket can't be opened or a worker can't be started
+     */
+    public synchronized void start() {
+        if (closed) {
+            throw new IllegalStateException("Evaluator was already closed");
+        }
+        if (serverSocket != null) {
+            return;
+        }
+        try {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getByName(bindAddress));
+            Thread acceptor = new Thread(this::acceptWorkers, "distributed-evaluator-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            for (int i = 0; i < localWorkers; i++) {
+                startWorkerProcess();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start distributed evaluation", e);
+        }
+    }
+
+    private void acceptWorkers() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(10000);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                if (in.readInt() != EvaluationProtocol.MAGIC) {
+                    logger.warn("Rejected connection from " + socket.getRemoteSocketAddress() + " that is not a worker");
+                    socket.close();
+                    continue;
+                }
+                socket.setSoTimeout(0);
+                WorkerConnection connection = new WorkerConnection(socket, in);
+                connections.add(connection);
+                workersStarted = true;
+                connection.start();
+                logger.debug("Worker connected from " + socket.getRemoteSocketAddress());
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Failed to accept worker", e);
+                }
+            }
+        }
+    }
+
+    private void startWorkerProcess() throws IOException {
+        if (workerFactory == null) {
+            throw new IllegalStateException("workerFactory must be set to start local workers");
+        }
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(workerJvmArguments);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(EvaluationWorker.class.getName());
+        command.add(serverSocket.getInetAddress().getHostAddress());
+        command.add(String.valueOf(serverSocket.getLocalPort()));
+        command.add(workerFactory.getName());
+
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        processes.add(process);
+        workersStarted = true;
+        process.onExit().thenRun(() -> workerProcessExited(process));
+    }
+
+    private void workerProcessExited(Process process) {
+        processes.remove(process);
+        if (closed) {
+            return;
+        }
+        logger.warn("Worker process exited with " + process.exitValue());
+        if (workerRestarts.incrementAndGet() <= maximumWorkerRestarts) {
+            try {
+                startWorkerProcess();
+                return;
+            } catch (IOException e) {
+                logger.error("Failed to restart worker process", e);
+            }
+        }
+        failIfNoWorkersLeft();
+    }
+
+    /**
+     * Fails all batches waiting in the queue if no worker is left that could evaluate them. Batches in flight on a lost
+     * worker were already put back into the queue when the connection failed.
+     */
+    private void failIfNoWorkersLeft() {
+        if (!closed && workersStarted && processes.isEmpty() && connections.isEmpty()) {
+            failQueued(new IllegalStateException("All workers died"));
+        }
+    }
+
+    @Override
+    public double evaluateQuality(Solution solution) {
+        evaluateQualities(Collections.singletonList(solution));
+        return solution.getQuality();
+    }
+
+    @Override
+    public void evaluateQualities(List<? extends Solution> solutions) {
+        if (solutions.isEmpty()) {
+            return;
+        }
+        start();
+
+        List<Batch> batches = new ArrayList<>();
+        for (int i = 0; i < solutions.size(); i += batchSize) {
+            List<Solution<ST, PT>> chunk = (List<Solution<ST, PT>>) (List) solutions.subList(i, Math.min(i + batchSize, solutions.size()));
+            try {
+                Batch batch = new Batch(nextBatchId.getAndIncrement(), chunk, codec.encode(chunk, problem));
+                batches.add(batch);
+                queue.add(batch);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not encode solutions", e);
+            }
+        }
+        // the last worker may have died before the batches were queued
+        failIfNoWorkersLeft();
+
+        for (Batch batch : batches) {
+            List<EvaluationResult> results;
+            try {
+                results = batch.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for evaluation", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Distributed evaluation failed", e.getCause());
+            }
+            for (int i = 0; i < batch.solutions.size(); i++) {
+                Solution<ST, PT> solution = batch.solutions.get(i);
+                solution.setQuality(results.get(i).quality);
+                solution.setCachets(results.get(i).cachets);
+            }
+        }
+    }
+
+    /**
+     * Handles a failed evaluation of a batch, because the worker died or replied with an error. As long as another
+     * copy of the batch (stolen or duplicated) is still running, that copy may still succeed. Otherwise the batch is
+     * put back into the queue, or fails once it used up maximumAttempts.
+     *
+     * @param batch  that failed
+     * @param reason of the failure
+     */
+    private void attemptFailed(Batch batch, String reason) {
+        synchronized (batch) {
+            int attempts = batch.attempts.incrementAndGet();
+            if (batch.running.decrementAndGet() > 0 || batch.future.isDone()) {
+                return;
+            }
+            if (attempts >= maximumAttempts) {
+                batch.future.completeExceptionally(new IllegalStateException("Batch " + batch.id + " failed " + attempts + " times, last: " + reason));
+            } else {
+                logger.info("Resubmitting batch " + batch.id + " after " + reason);
+                queue.addFirst(batch);
+            }
+        }
+    }
+
+    private void failQueued(Exception e) {
+        Batch batch;
+        while ((batch = queue.poll()) != null) {
+            batch.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Shuts down all workers and stops listening. Unfinished evaluations fail.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        connections.forEach(WorkerConnection::shutdown);
+        // connected workers terminate on their own, workers that are still starting up are destroyed before they
+        // try to connect to a closed socket
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(200, TimeUnit.MILLISECONDS)) {
+                    process.destroy();
+                    if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close server socket", e);
+            }
+        }
+        failQueued(new IllegalStateException("Evaluator was closed"));
+    }
+
+    /**
+     * @return amount of currently connected workers
+     */
+    public int getConnectedWorkers() {
+        return connections.size();
+    }
+
+    /**
+     * @return amount of local worker processes that were restarted after they died
+     */
+    public int getWorkerRestarts() {
+        return workerRestarts.get();
+    }
+
+    /**
+     * @return port the master listens on, or -1 if not started
+     */
+    public int getLocalPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    @Override
+    public Map<CachetEvaluator<ST, PT>, Double> returnCachetDictionary() {
+        return evaluator != null ? evaluator.returnCachetDictionary() : new HashMap<>();
+    }
+
+    @Override
+    public String evaluationIdentity() {
+        return evaluator != null ? evaluator.evaluationIdentity() : "distributed";
+    }
+
+    public Evaluator<ST, PT> getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param evaluator the evaluator the workers use (only used for identity and cachet dictionary)
+     */
+    public void setEvaluator(Evaluator<ST, PT> evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    public Problem<PT> getProblem() {
+        return problem;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param problem the solutions belong to, must be equal to the one of the {@link EvaluationWorkerFactory}
+     */
+    @Required
+    public void setProblem(Problem<PT> problem) {
+        this.problem = problem;
+    }
+
+    public SolutionCodec<ST, PT> getCodec() {
+        return codec;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param codec the solutions are transferred with, must be equal to the one of the {@link
+     *              EvaluationWorkerFactory}
+     */
+    @Required
+    public void setCodec(SolutionCodec<ST, PT> codec) {
+        this.codec = codec;
+    }
+
+    public Class<? extends EvaluationWorkerFactory> getWorkerFactory() {
+        return workerFactory;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param workerFactory sets up the local worker processes
+     */
+    public void setWorkerFactory(Class<? extends EvaluationWorkerFactory> workerFactory) {
+        this.workerFactory = workerFactory;
+    }
+
+    public int getLocalWorkers() {
+        return localWorkers;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param localWorkers amount of worker processes started on this machine (0 if only remote workers are used, then
+     *                     evaluations wait until the first remote worker connects)
+     */
+    public void setLocalWorkers(int localWorkers) {
+        this.localWorkers = localWorkers;
+    }
+
+    public List<String> getWorkerJvmArguments() {
+        return workerJvmArguments;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param workerJvmArguments additional arguments for the JVM of local workers
+     */
+    public void setWorkerJvmArguments(List<String> workerJvmArguments) {
+        this.workerJvmArguments = workerJvmArguments;
+    }
+
+    public String getBindAddress() {
+        return bindAddress;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param bindAddress address to listen on, use 0.0.0.0 to allow workers on other machines
+     */
+    public void setBindAddress(String bindAddress) {
+        this.bindAddress = bindAddress;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param port to listen on, 0 for any free port
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param batchSize amount of solutions sent in one message (&gt; 0)
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be > 0");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * Setter for configuration. Takes effect for workers that connect afterwards
+     *
+     * @param pipelineDepth amount of batches a worker may have in flight (&gt; 0)
+     */
+    public void setPipelineDepth(int pipelineDepth) {
+        if (pipelineDepth <= 0) {
+            throw new IllegalArgumentException("pipelineDepth must be > 0");
+        }
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    public int getMaximumAttempts() {
+        return maximumAttempts;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param maximumAttempts amount of failed evaluations (dead worker or error reply) before a batch fails (&gt; 0)
+     */
+    public void setMaximumAttempts(int maximumAttempts) {
+        if (maximumAttempts <= 0) {
+            throw new IllegalArgumentException("maximumAttempts must be > 0");
+        }
+        this.maximumAttempts = maximumAttempts;
+    }
+
+    public int getMaximumWorkerRestarts() {
+        return maximumWorkerRestarts;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param maximumWorkerRestarts how often local worker processes are restarted in total
+     */
+    public void setMaximumWorkerRestarts(int maximumWorkerRestarts) {
+        this.maximumWorkerRestarts = maximumWorkerRestarts;
+    }
+
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param workStealing if idle workers re-execute batches that are still running on other workers
+     */
+    public void setWorkStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+    }
+
+    /**
+     * Solutions that are evaluated together by one worker
+     */
+    private class Batch {
+        private final long id;
+        private final List<Solution<ST, PT>> solutions;
+        private final byte[] data;
+        private final CompletableFuture<List<EvaluationResult>> future = new CompletableFuture<>();
+        /**
+         * Amount of workers currently evaluating the batch (&gt; 1 if it was stolen)
+         */
+        private final AtomicInteger running = new AtomicInteger();
+        /**
+         * Amount of failed evaluations of the batch (dead worker or error reply)
+         */
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private Batch(long id, List<Solution<ST, PT>> solutions, byte[] data) {
+            this.id = id;
+            this.solutions = solutions;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Connection to a single worker with one thread sending and one thread receiving batches
+     */
+    private class WorkerConnection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        /**
+         * Batches sent to the worker that were not yet answered, in order of sending
+         */
+        private final Map<Long, Batch> inFlight = new LinkedHashMap<>();
+        /**
+         * Free pipeline slots
+         */
+        private final Semaphore slots = new Semaphore(pipelineDepth);
+        /**
+         * If the connection is usable
+         */
+        private volatile boolean alive = true;
+
+        private WorkerConnection(Socket socket, DataInputStream in) throws IOException {
+            this.socket = socket;
+            this.in = in;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private void start() {
+            String name = "distributed-evaluator-worker-" + socket.getPort();
+            Thread sender = new Thread(this::sendLoop, name + "-sender");
+            sender.setDaemon(true);
+            sender.start();
+            Thread receiver = new Thread(this::receiveLoop, name + "-receiver");
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+
+        private void sendLoop() {
+            try {
+                while (alive && !closed) {
+                    slots.acquire();
+                    Batch batch = null;
+                    while (batch == null && alive && !closed) {
+                        batch = queue.poll(50, TimeUnit.MILLISECONDS);
+                        if (batch == null && workStealing) {
+                            batch = steal();
+                        }
+                        if (batch != null && batch.future.isDone()) {
+                            batch = null;
+                        }
+                    }
+                    if (batch == null) {
+                        return;
+                    }
+
+                    synchronized (inFlight) {
+                        if (!alive) {
+                            queue.addFirst(batch);
+                            failIfNoWorkersLeft();
+                            return;
+                        }
+                        batch.running.incrementAndGet();
+                        inFlight.put(batch.id, batch);
+                    }
+                    synchronized (out) {
+                        out.writeByte(EvaluationProtocol.EVALUATE);
+                        out.writeLong(batch.id);
+                        out.writeInt(batch.data.length);
+                        out.write(batch.data);
+                        out.flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Finds a batch that is running on another worker but was not yet stolen. Only idle workers steal.
+         *
+         * @return batch to be evaluated a second time, or null
+         */
+        private Batch steal() {
+            synchronized (inFlight) {
+                if (!inFlight.isEmpty()) {
+                    return null;
+                }
+            }
+            for (WorkerConnection connection : connections) {
+                if (connection == this) {
+                    continue;
+                }
+                synchronized (connection.inFlight) {
+                    for (Batch batch : connection.inFlight.values()) {
+                        if (!batch.future.isDone() && batch.running.get() == 1) {
+                            return batch;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void receiveLoop() {
+            try {
+                while (alive) {
+                    long id = in.readLong();
+                    byte status = in.readByte();
+                    List<EvaluationResult> results = null;
+                    String message = null;
+                    if (status == EvaluationProtocol.OK) {
+                        results = EvaluationProtocol.readResults(in);
+                    } else {
+                        message = in.readUTF();
+                    }
+
+                    Batch batch;
+                    synchronized (inFlight) {
+                        batch = inFlight.remove(id);
+                    }
+                    slots.release();
+                    if (batch == null) {
+                        continue;
+                    }
+                    if (results != null) {
+                        batch.running.decrementAndGet();
+                        batch.future.complete(results);
+                    } else {
+                        logger.warn("Worker " + socket.getRemoteSocketAddress() + " failed to evaluate batch " + id + ": " + message);
+                        attemptFailed(batch, "error reply: " + message);
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Marks the connection as dead, and resubmits all batches that are not running anywhere else (see {@link
+         * #attemptFailed(Batch, String)})
+         */
+        private void fail(Exception cause) {
+            List<Batch> lost;
+            synchronized (inFlight) {
+                if (!alive) {
+                    return;
+                }
+                alive = false;
+                lost = new ArrayList<>(inFlight.values());
+                inFlight.clear();
+            }
+            connections.remove(this);
+            // wake up the sender
+            slots.release(pipelineDepth);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already broken
+            }
+            if (!closed) {
+                logger.warn("Lost worker " + socket.getRemoteSocketAddress() + " with " + lost.size() + " batches in flight", cause);
+            }
+            for (Batch batch : lost) {
+                attemptFailed(batch, "lost worker");
+            }
+            failIfNoWorkersLeft();
+        }
+
+        private void shutdown() {
+            try {
+                synchronized (out) {
+                    out.writeByte(EvaluationProtocol.SHUTDOWN);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // the worker is gone anyway
+            }
+            fail(null);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.distributed;
+
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.Cachet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wire protocol between {@link DistributedEvaluator} and {@link EvaluationWorker}. All messages are length prefixed so
+ * several requests can be pipelined on one connection.
+ * <ul>
+ * <li>worker -&gt; master on connect: MAGIC</li>
+ * <li>master -&gt; worker: EVALUATE | batch id | length | encoded solutions, or SHUTDOWN</li>
+ * <li>worker -&gt; master: batch id | OK | count | (quality | cachet count | (name | quality)*)* , or batch id |
+ * FAILED | message</li>
+ * </ul>
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+final class EvaluationProtocol {
+
+    /**
+     * Sent by the worker after connecting ("GAEV")
+     */
+    static final int MAGIC = 0x47414556;
+    /**
+     * Request to evaluate a batch
+     */
+    static final byte EVALUATE = 1;
+    /**
+     * Request to terminate the worker
+     */
+    static final byte SHUTDOWN = 2;
+    /**
+     * Response status if the batch was evaluated
+     */
+    static final byte OK = 0;
+    /**
+     * Response status if the evaluator threw an exception
+     */
+    static final byte FAILED = 1;
+
+    private EvaluationProtocol() {
+    }
+
+    /**
+     * Writes the qualities and cachets of evaluated solutions
+     */
+    static void writeResults(DataOutputStream out, long batchId, List<? extends Solution> solutions) throws IOException {
+        out.writeLong(batchId);
+        out.writeByte(OK);
+        out.writeInt(solutions.size());
+        for (Solution<?, ?> solution : solutions) {
+            out.writeDouble(solution.getQuality());
+            List<Cachet> cachets = solution.getCachets() != null ? solution.getCachets() : new ArrayList<>();
+            out.writeInt(cachets.size());
+            for (Cachet cachet : cachets) {
+                out.writeUTF(cachet.getName());
+                out.writeDouble(cachet.getQuality());
+            }
+        }
+    }
+
+    /**
+     * Reads the qualities and cachets written with {@link #writeResults(DataOutputStream, long, List)} (after the
+     * batch id and status were read)
+     */
+    static List<EvaluationResult> readResults(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<EvaluationResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double quality = in.readDouble();
+            int cachetCount = in.readInt();
+            List<Cachet> cachets = new ArrayList<>(cachetCount);
+            for (int j = 0; j < cachetCount; j++) {
+                String name = in.readUTF();
+                cachets.add(new Cachet(in.readDouble(), name));
+            }
+            results.add(new EvaluationResult(quality, cachets));
+        }
+        return results;
+    }
+
+    /**
+     * Quality and cachets of a single remotely evaluated solution
+     */
+    static class EvaluationResult {
+        final double quality;
+        final List<Cachet> cachets;
+
+        EvaluationResult(double quality, List<Cachet> cachets) {
+            this.quality = quality;
+            this.cachets = cachets;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.distributed;
+
+import org.apache.log4j.Logger;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.codec.SolutionCodec;
+import science.aist.machinelearning.core.fitness.Evaluator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Worker process of the {@link DistributedEvaluator}. Connects to the master, and evaluates the batches it receives
+ * one after the other until the master shuts it down or the connection is lost.
+ * <p>
+ * Usage: java science.aist.machinelearning.algorithm.distributed.EvaluationWorker host port factoryClass
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class EvaluationWorker<ST, PT> {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = Logger.getLogger(EvaluationWorker.class);
+    /**
+     * Evaluator doing the actual work
+     */
+    private final Evaluator<ST, PT> evaluator;
+    /**
+     * Problem the solutions belong to
+     */
+    private final Problem<PT> problem;
+    /**
+     * Codec the solutions are received with
+     */
+    private final SolutionCodec<ST, PT> codec;
+
+    public EvaluationWorker(EvaluationWorkerFactory<ST, PT> factory) {
+        this.evaluator = factory.createEvaluator();
+        this.problem = factory.createProblem();
+        this.codec = factory.createCodec();
+    }
+
+    /**
+     * Connects to the master and processes batches until shut down
+     *
+     * @param host of the master
+     * @param port of the master
+     * @throws IOException if the connection can't be established
+     */
+    public void run(String host, int port) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(EvaluationProtocol.MAGIC);
+            out.flush();
+
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (type == EvaluationProtocol.SHUTDOWN) {
+                    return;
+                }
+                long batchId = in.readLong();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+
+                try {
+                    List<Solution<ST, PT>> solutions = codec.decode(data, problem);
+                    evaluator.evaluateQualities(solutions);
+                    EvaluationProtocol.writeResults(out, batchId, solutions);
+                } catch (Exception e) {
+                    logger.error("Failed to evaluate batch " + batchId, e);
+                    out.writeLong(batchId);
+                    out.writeByte(EvaluationProtocol.FAILED);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                }
+                out.flush();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("Usage: EvaluationWorker host port factoryClass");
+            System.exit(1);
+        }
+        EvaluationWorkerFactory<?, ?> factory = (EvaluationWorkerFactory<?, ?>) Class.forName(args[2]).getDeclaredConstructor().newInstance();
+        new EvaluationWorker<>(factory).run(args[0], Integer.parseInt(args[1]));
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.distributed;
+
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.codec.SolutionCodec;
+import science.aist.machinelearning.core.fitness.Evaluator;
+
+/**
+ * Sets up a worker process of the {@link DistributedEvaluator}. Implementations need a public no-argument
+ * constructor, as the worker instantiates them by class name.
+ * <p>
+ * The problem and codec MUST be equal to the ones given to the {@link DistributedEvaluator}, as problem genes are
+ * transferred as indices into the problem.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public interface EvaluationWorkerFactory<ST, PT> {
+
+    /**
+     * @return the evaluator that does the actual work in the worker process
+     */
+    Evaluator<ST, PT> createEvaluator();
+
+    /**
+     * @return the problem the solutions belong to
+     */
+    Problem<PT> createProblem();
+
+    /**
+     * @return the codec the solutions are transferred with
+     */
+    SolutionCodec<ST, PT> createCodec();
+}
@@ -11,12 +11,18 @@ package science.aist.machinelearning.algorithm.ga;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.ga.checkpoint.PopulationCheckpointer;
+import science.aist.machinelearning.algorithm.ga.checkpoint.PopulationSnapshot;
+import science.aist.machinelearning.algorithm.ga.operator.OperatorSelection;
 import science.aist.machinelearning.algorithm.mutation.Mutator;
 import science.aist.machinelearning.core.AbstractAlgorithm;
 import science.aist.machinelearning.core.Problem;
 import science.aist.machinelearning.core.Solution;
 import science.aist.machinelearning.core.options.Descriptor;
+import science.aist.machinelearning.core.surrogate.RankCorrelation;
+import science.aist.machinelearning.core.surrogate.SurrogateModel;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -83,6 +89,67 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
      * if the finalizeLog function has already been called
      */
     private boolean logFinalized = false;
+    /**
+     * Optional surrogate that pre-screens offspring. If set, the GA over-generates offspring, ranks them by predicted
+     * quality and only hands the best ones to the real evaluator.
+     */
+    private SurrogateModel<GT, PT> surrogateModel;
+    /**
+     * How many offspring are generated per free spot in the population when the surrogate is used (e.g. 3.0 means
+     * 3 times as many candidates are predicted, and the best third is evaluated for real)
+     */
+    private double surrogateOffspringFactor = 3.0;
+    /**
+     * Amount of generations after which the surrogate is retrained on the newly evaluated solutions
+     */
+    private int surrogateRetrainInterval = 1;
+    /**
+     * Spearman rank correlation between predicted and real quality of the solutions evaluated in each generation
+     */
+    private final List<Double> surrogateRankCorrelations = new ArrayList<>();
+    /**
+     * Optional checkpointer that asynchronously writes a snapshot of the population every checkpointInterval
+     * generations
+     */
+    private PopulationCheckpointer<GT, PT> checkpointer;
+    /**
+     * Amount of generations between two snapshots
+     */
+    private int checkpointInterval = 10;
+    /**
+     * Optional adaptive operator selection. If set, the crossover-vs-mutation coin flip (mutationProbability) is
+     * replaced by the selection, which chooses among ALL registered crossovers and mutators and is credited with the
+     * relative quality improvement of each child over its best parent.
+     */
+    private OperatorSelection operatorSelection;
+    /**
+     * Crossovers that are available to the operator selection in addition to the crossover
+     */
+    private List<Crossover<GT, PT>> additionalCrossovers = new ArrayList<>();
+    /**
+     * Mutators that are available to the operator selection in addition to the mutator
+     */
+    private List<Mutator<GT, PT>> additionalMutators = new ArrayList<>();
+    /**
+     * Crossovers the operator selection chooses from. Their index is the operator index
+     */
+    private List<Crossover<GT, PT>> operatorCrossovers;
+    /**
+     * Mutators the operator selection chooses from. Their index + amount of crossovers is the operator index
+     */
+    private List<Mutator<GT, PT>> operatorMutators;
+    /**
+     * Best quality of the parents selected for the child that is currently bred
+     */
+    private double parentQuality;
+    /**
+     * Selector handed to the operators when the operator selection is used. Records the quality of the parents
+     */
+    private final Selector<GT, PT> creditSelector = population -> {
+        Solution<GT, PT> parent = selector.select(population);
+        parentQuality = Math.min(parentQuality, parent.getQuality());
+        return parent;
+    };
 
     @Override
     public Solution<GT, PT> solve(Problem<PT> problem) {
@@ -108,11 +175,15 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
         if (givenSolution.getCachets().size() == 0) {
             getEvaluator().evaluateQuality(givenSolution);
         }
-        this.bestSolution = givenSolution;
+        // when continuing a restored run, the given solution only replaces the best if it is better
+        if (currentGeneration == 0 || bestSolution == null || givenSolution.getQuality() < bestSolution.getQuality()) {
+            this.bestSolution = givenSolution;
+        }
 
         // if the first step was not as of yet executed -> do it now
         if (currentGeneration == 0) {
             fillPopulation(problem);
+            trainSurrogate();
             analyticsStep(bestSolution, population);
             currentGeneration++;
         }
@@ -133,6 +204,12 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
     protected void reset() {
         bestSolution = null;
         population.clear();
+        surrogateRankCorrelations.clear();
+        if (surrogateModel != null) {
+            surrogateModel.reset();
+        }
+        operatorCrossovers = null;
+        operatorMutators = null;
         currentGeneration = 0;
         logInitialized = false;
         logFinalized = false;
@@ -156,10 +233,26 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
             analytics.logParam("populationSize", String.valueOf(populationSize));
             analytics.logParam("elites", String.valueOf(elites));
             analytics.logParam("maximumGenerations", String.valueOf(maximumGenerations));
+            if (surrogateModel != null) {
+                analytics.logParam("surrogateModel", surrogateModel.getClass().getName());
+                analytics.logParam("surrogateOffspringFactor", String.valueOf(surrogateOffspringFactor));
+                analytics.logParam("surrogateRetrainInterval", String.valueOf(surrogateRetrainInterval));
+            }
+            if (operatorSelection != null) {
+                initializeOperatorSelection();
+                analytics.logParam("operatorSelection", operatorSelection.getClass().getName());
+            }
             List<String> headers = new ArrayList<>();
             headers.add("best quality");
             headers.add("worst quality");
             headers.add("average quality");
+            if (surrogateModel != null) {
+                headers.add("surrogate rank correlation");
+            }
+            if (operatorSelection != null) {
+                operatorCrossovers.forEach(x -> headers.add("probability " + x.getClass().getSimpleName()));
+                operatorMutators.forEach(x -> headers.add("probability " + x.getClass().getSimpleName()));
+            }
             analytics.logAlgorithmStepHeaders(headers);
             analytics.logProblem(problem);
         }
@@ -188,12 +281,13 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
     private void fillPopulation(Problem<PT> problem) {
         // generate initial population
         //logger.debug("Generating initial population");
+        List<Solution<GT, PT>> created = new ArrayList<>();
         for (int i = population.size(); i < populationSize; i++) {
-            Solution<GT, PT> s = solutionCreator.createSolution(problem);
-            // evaluate population fitness
-            bestSolution = bestQuality(s, bestSolution);
-            population.add(s);
+            created.add(solutionCreator.createSolution(problem));
         }
+        // evaluate population fitness
+        evaluateOffspring(created, Collections.emptyList());
+        population.addAll(created);
     }
 
     /**
@@ -237,26 +331,235 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
         }
 
         // for all remaining spots in new population breed new
-        while (childPopulation.size() < populationSize) {
-            // breed
-            Solution<GT, PT> s;
-            if (crossover != null && mutationProbability < random.nextDouble()) {
-                s = crossover.breed(population, selector);
-            } else {
-                s = selector.select(population);
-                s = mutator.mutate(s);
+        if (surrogateModel != null && surrogateModel.isTrained()) {
+            breedWithSurrogate(childPopulation);
+        } else if (operatorSelection != null) {
+            // the operator selection must be credited before it selects the next operator, so each child is evaluated
+            // on its own
+            List<OperatorApplication> applications = new ArrayList<>(1);
+            while (childPopulation.size() < populationSize) {
+                applications.clear();
+                Solution<GT, PT> s = breed(applications, false);
+                evaluateOffspring(Collections.singletonList(s), applications);
+                childPopulation.add(s);
             }
-
-            bestSolution = bestQuality(s, bestSolution);
-            childPopulation.add(s);
+        } else {
+            List<Solution<GT, PT>> children = new ArrayList<>();
+            List<OperatorApplication> applications = new ArrayList<>();
+            while (childPopulation.size() + children.size() < populationSize) {
+                children.add(breed(applications, false));
+            }
+            evaluateOffspring(children, applications);
+            childPopulation.addAll(children);
         }
         population = childPopulation;
+
+        if (surrogateModel != null && currentGeneration % surrogateRetrainInterval == 0) {
+            trainSurrogate();
+        }
         analyticsStep(bestSolution, population);
 
+        if (checkpointer != null && currentGeneration % checkpointInterval == 0) {
+            try {
+                checkpointer.checkpoint(createSnapshot(), problem);
+            } catch (IOException e) {
+                logger.error("Failed to create population snapshot in generation " + currentGeneration, e);
+            }
+        }
 
         return bestSolution;
     }
 
+    /**
+     * Breeds a single (not yet evaluated) child from the current population, either by crossover or by mutation
+     *
+     * @param applications   the operator application of the child is appended if the operator selection is used
+     * @param sampleOperator if the operator is sampled from the probabilities of the operator selection instead of
+     *                       being selected by it (see {@link #sampleOperator()})
+     * @return the child
+     */
+    private Solution<GT, PT> breed(List<OperatorApplication> applications, boolean sampleOperator) {
+        if (operatorSelection != null) {
+            return breedWithOperatorSelection(applications, sampleOperator);
+        }
+        if (crossover != null && mutationProbability < random.nextDouble()) {
+            return crossover.breed(population, selector);
+        }
+        return mutator.mutate(selector.select(population));
+    }
+
+    /**
+     * Breeds a single child with the operator chosen by the operator selection. The operator is credited as soon as
+     * the child is evaluated. The application is tracked next to the child (and not by the child), as operators may
+     * return the same instance several times, e.g. an unchanged parent.
+     *
+     * @param applications   the operator application of the child is appended to it
+     * @param sampleOperator if the operator is sampled from the probabilities of the operator selection instead of
+     *                       being selected by it
+     * @return the child
+     */
+    private Solution<GT, PT> breedWithOperatorSelection(List<OperatorApplication> applications, boolean sampleOperator) {
+        if (operatorCrossovers == null) {
+            initializeOperatorSelection();
+        }
+        int operator = sampleOperator ? sampleOperator() : operatorSelection.selectOperator();
+        parentQuality = Double.MAX_VALUE;
+        Solution<GT, PT> child;
+        if (operator < operatorCrossovers.size()) {
+            child = operatorCrossovers.get(operator).breed(population, creditSelector);
+        } else {
+            child = operatorMutators.get(operator - operatorCrossovers.size()).mutate(creditSelector.select(population));
+        }
+        applications.add(new OperatorApplication(operator, parentQuality));
+        return child;
+    }
+
+    /**
+     * Draws an operator according to the current probabilities of the operator selection. Used when several children
+     * are bred before any of them is credited, as a deterministic selection (e.g. the upper confidence bound) would
+     * otherwise use the same operator for all of them.
+     *
+     * @return index of the operator
+     */
+    private int sampleOperator() {
+        double[] probabilities = operatorSelection.getProbabilities();
+        double sum = 0;
+        for (double probability : probabilities) {
+            sum += probability;
+        }
+        if (sum <= 0) {
+            return random.nextInt(probabilities.length);
+        }
+        double r = random.nextDouble() * sum;
+        for (int i = 0; i < probabilities.length; i++) {
+            r -= probabilities[i];
+            if (r < 0) {
+                return i;
+            }
+        }
+        return probabilities.length - 1;
+    }
+
+    /**
+     * Collects all registered operators and (re-)initializes the operator selection with them
+     */
+    private void initializeOperatorSelection() {
+        operatorCrossovers = new ArrayList<>();
+        if (crossover != null) {
+            operatorCrossovers.add(crossover);
+        }
+        operatorCrossovers.addAll(additionalCrossovers);
+        operatorMutators = new ArrayList<>();
+        if (mutator != null) {
+            operatorMutators.add(mutator);
+        }
+        operatorMutators.addAll(additionalMutators);
+        operatorSelection.initialize(operatorCrossovers.size() + operatorMutators.size());
+    }
+
+    /**
+     * Credits the operator that created the (now evaluated) solution with the relative improvement over its best
+     * parent
+     *
+     * @param application operator application that created the solution
+     * @param solution    evaluated solution
+     */
+    private void creditOperator(OperatorApplication application, Solution<GT, PT> solution) {
+        double reward = 0;
+        if (solution.getQuality() < application.parentQuality) {
+            reward = Math.min(1, (application.parentQuality - solution.getQuality()) / Math.max(Math.abs(application.parentQuality), Double.MIN_NORMAL));
+        }
+        operatorSelection.reward(application.operator, reward);
+    }
+
+    /**
+     * Fills the child population using the surrogate for pre-screening. Generates surrogateOffspringFactor times as many
+     * candidates as there are free spots, and only evaluates the candidates with the best predicted quality. The rank
+     * correlation between prediction and real quality of the evaluated candidates is recorded.
+     * <p>
+     * Note that an evaluating {@link Mutator} will still evaluate its own result, the surrogate can only save the
+     * evaluations the GA itself would do.
+     *
+     * @param childPopulation population to be filled
+     */
+    private void breedWithSurrogate(List<Solution<GT, PT>> childPopulation) {
+        int free = populationSize - childPopulation.size();
+        if (free <= 0) {
+            return;
+        }
+        int candidateCount = Math.max(free, (int) Math.ceil(free * surrogateOffspringFactor));
+
+        List<Solution<GT, PT>> candidates = new ArrayList<>(candidateCount);
+        List<OperatorApplication> applications = new ArrayList<>();
+        double[] predictions = new double[candidateCount];
+        for (int i = 0; i < candidateCount; i++) {
+            // the candidates are only credited once the selected ones are evaluated, so the operators are sampled
+            Solution<GT, PT> s = breed(applications, true);
+            candidates.add(s);
+            predictions[i] = surrogateModel.predictQuality(s);
+        }
+
+        Integer[] order = new Integer[candidateCount];
+        for (int i = 0; i < candidateCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> predictions[i]));
+
+        List<Solution<GT, PT>> selected = new ArrayList<>(free);
+        List<OperatorApplication> selectedApplications = new ArrayList<>();
+        for (int i = 0; i < free; i++) {
+            selected.add(candidates.get(order[i]));
+            if (!applications.isEmpty()) {
+                selectedApplications.add(applications.get(order[i]));
+            }
+        }
+        evaluateOffspring(selected, selectedApplications);
+
+        double[] predicted = new double[free];
+        double[] real = new double[free];
+        for (int i = 0; i < free; i++) {
+            predicted[i] = predictions[order[i]];
+            real[i] = selected.get(i).getQuality();
+        }
+        childPopulation.addAll(selected);
+
+        surrogateRankCorrelations.add(RankCorrelation.spearman(predicted, real));
+    }
+
+    /**
+     * Evaluates newly created solutions as one batch (see {@link
+     * science.aist.machinelearning.core.fitness.Evaluator#evaluateQualities(List)}), updates the best solution and hands
+     * the results to the surrogate and operator selection (if any)
+     *
+     * @param solutions    to be evaluated
+     * @param applications operator applications that created the solutions (same order), empty if the solutions were
+     *                     not created by the operator selection
+     */
+    private void evaluateOffspring(List<Solution<GT, PT>> solutions, List<OperatorApplication> applications) {
+        evaluator.evaluateQualities(solutions);
+        for (int i = 0; i < solutions.size(); i++) {
+            Solution<GT, PT> solution = solutions.get(i);
+            if (solution.getQuality() < bestSolution.getQuality()) {
+                bestSolution = solution;
+            }
+            if (surrogateModel != null) {
+                surrogateModel.addSample(solution);
+            }
+            if (!applications.isEmpty()) {
+                creditOperator(applications.get(i), solution);
+            }
+        }
+    }
+
+    /**
+     * (Re-)trains the surrogate if there is one
+     */
+    private void trainSurrogate() {
+        if (surrogateModel != null && surrogateModel.getSampleCount() > 0) {
+            surrogateModel.train();
+        }
+    }
+
     /**
      * Logs one single step of the algorithm, in case of GA this means statistics about the current generation
      *
@@ -271,6 +574,14 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
             values.add(String.valueOf(givenSolution.getQuality()));
             values.add(String.valueOf(worstSolution.getQuality()));
             values.add(String.valueOf(averageQuality));
+            if (surrogateModel != null) {
+                values.add(String.valueOf(getSurrogateRankCorrelation()));
+            }
+            if (operatorSelection != null) {
+                for (double probability : operatorSelection.getProbabilities()) {
+                    values.add(String.valueOf(probability));
+                }
+            }
             analytics.logAlgorithmStep(values);
         }
     }
@@ -395,6 +706,166 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
         this.mutationProbability = mutationProbability;
     }
 
+    public SurrogateModel<GT, PT> getSurrogateModel() {
+        return surrogateModel;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param surrogateModel if not set every offspring is evaluated with the real evaluator
+     */
+    public void setSurrogateModel(SurrogateModel<GT, PT> surrogateModel) {
+        this.surrogateModel = surrogateModel;
+    }
+
+    public double getSurrogateOffspringFactor() {
+        return surrogateOffspringFactor;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param surrogateOffspringFactor candidates generated per free spot when the surrogate is used (&gt;= 1)
+     */
+    public void setSurrogateOffspringFactor(double surrogateOffspringFactor) {
+        if (surrogateOffspringFactor < 1) {
+            throw new IllegalArgumentException("surrogateOffspringFactor must be >= 1");
+        }
+        this.surrogateOffspringFactor = surrogateOffspringFactor;
+    }
+
+    public int getSurrogateRetrainInterval() {
+        return surrogateRetrainInterval;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param surrogateRetrainInterval amount of generations between retraining the surrogate (&gt;= 1)
+     */
+    public void setSurrogateRetrainInterval(int surrogateRetrainInterval) {
+        if (surrogateRetrainInterval < 1) {
+            throw new IllegalArgumentException("surrogateRetrainInterval must be >= 1");
+        }
+        this.surrogateRetrainInterval = surrogateRetrainInterval;
+    }
+
+    /**
+     * Returns the rank correlation between predicted and real quality measured in the last generation that was
+     * pre-screened by the surrogate. Values close to 1 mean the surrogate ranks offspring like the real evaluator.
+     *
+     * @return spearman rank correlation or NaN if the surrogate was not used (yet)
+     */
+    public double getSurrogateRankCorrelation() {
+        return surrogateRankCorrelations.isEmpty() ? Double.NaN : surrogateRankCorrelations.get(surrogateRankCorrelations.size() - 1);
+    }
+
+    /**
+     * Returns a COPY of the rank correlations of all generations that were pre-screened by the surrogate
+     *
+     * @return a copy of the rank correlations in order of the generations
+     */
+    public List<Double> getSurrogateRankCorrelations() {
+        return new ArrayList<>(surrogateRankCorrelations);
+    }
+
+    public OperatorSelection getOperatorSelection() {
+        return operatorSelection;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param operatorSelection if not set the mutationProbability decides between crossover and mutator
+     */
+    public void setOperatorSelection(OperatorSelection operatorSelection) {
+        this.operatorSelection = operatorSelection;
+        this.operatorCrossovers = null;
+        this.operatorMutators = null;
+    }
+
+    public List<Crossover<GT, PT>> getAdditionalCrossovers() {
+        return additionalCrossovers;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param additionalCrossovers crossovers that are only used by the operator selection
+     */
+    public void setAdditionalCrossovers(List<Crossover<GT, PT>> additionalCrossovers) {
+        this.additionalCrossovers = additionalCrossovers;
+        this.operatorCrossovers = null;
+    }
+
+    public List<Mutator<GT, PT>> getAdditionalMutators() {
+        return additionalMutators;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param additionalMutators mutators that are only used by the operator selection
+     */
+    public void setAdditionalMutators(List<Mutator<GT, PT>> additionalMutators) {
+        this.additionalMutators = additionalMutators;
+        this.operatorCrossovers = null;
+    }
+
+    public PopulationCheckpointer<GT, PT> getCheckpointer() {
+        return checkpointer;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param checkpointer if not set no snapshots are written
+     */
+    public void setCheckpointer(PopulationCheckpointer<GT, PT> checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param checkpointInterval amount of generations between two snapshots (&gt;= 1)
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be >= 1");
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Creates a snapshot of the current state (generation, best solution and population)
+     *
+     * @return snapshot that can be written with a {@link PopulationCheckpointer}
+     */
+    public PopulationSnapshot<GT, PT> createSnapshot() {
+        return new PopulationSnapshot<>(currentGeneration, bestSolution, population);
+    }
+
+    /**
+     * Restores the state of a snapshot. The next call to solve continues the run with the generation after the
+     * snapshot. Restoring the same snapshot into several algorithms forks the run.
+     * <p>
+     * NOTE: The analytics are not restored.
+     *
+     * @param snapshot to be restored
+     */
+    public void restore(PopulationSnapshot<GT, PT> snapshot) {
+        reset();
+        currentGeneration = snapshot.getGeneration();
+        bestSolution = snapshot.getBestSolution();
+        population.addAll(snapshot.getPopulation());
+    }
+
     /**
      * Returns a COPY of the current population. The state of this is: - Before first step - Empty - After each step -
      * The population that will be the PARENT of the next generation - After Execution - The lastly created population
@@ -444,6 +915,19 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
         options.put("populationSize", new Descriptor<>(populationSize));
         options.put("elites", new Descriptor<>(elites));
         options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
+        options.put("surrogateModel", new Descriptor<>(surrogateModel));
+        // surrogate settings are only relevant (and only offered to experiments) if a surrogate is used
+        if (surrogateModel != null) {
+            options.put("surrogateOffspringFactor", new Descriptor<>(surrogateOffspringFactor));
+            options.put("surrogateRetrainInterval", new Descriptor<>(surrogateRetrainInterval));
+        }
+        options.put("checkpointer", new Descriptor<>(checkpointer));
+        if (checkpointer != null) {
+            options.put("checkpointInterval", new Descriptor<>(checkpointInterval));
+        }
+        options.put("operatorSelection", new Descriptor<>(operatorSelection));
+        options.put("additionalCrossovers", new Descriptor<>(additionalCrossovers));
+        options.put("additionalMutators", new Descriptor<>(additionalMutators));
 
         return options;
     }
@@ -473,10 +957,47 @@ public class GeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
                 case "maximumGenerations":
                     setMaximumGenerations((Integer) descriptor.getValue());
                     break;
+                case "surrogateModel":
+                    setSurrogateModel((SurrogateModel<GT, PT>) descriptor.getValue());
+                    break;
+                case "surrogateOffspringFactor":
+                    setSurrogateOffspringFactor((Double) descriptor.getValue());
+                    break;
+                case "surrogateRetrainInterval":
+                    setSurrogateRetrainInterval((Integer) descriptor.getValue());
+                    break;
+                case "checkpointer":
+                    setCheckpointer((PopulationCheckpointer<GT, PT>) descriptor.getValue());
+                    break;
+                case "checkpointInterval":
+                    setCheckpointInterval((Integer) descriptor.getValue());
+                    break;
+                case "operatorSelection":
+                    setOperatorSelection((OperatorSelection) descriptor.getValue());
+                    break;
+                case "additionalCrossovers":
+                    setAdditionalCrossovers((List<Crossover<GT, PT>>) descriptor.getValue());
+                    break;
+                case "additionalMutators":
+                    setAdditionalMutators((List<Mutator<GT, PT>>) descriptor.getValue());
+                    break;
             }
         } catch (Exception e) {
             return false;
         }
         return true;
     }
+
+    /**
+     * Application of an operator that waits for the evaluation of the child
+     */
+    private static class OperatorApplication {
+        private final int operator;
+        private final double parentQuality;
+
+        private OperatorApplication(int operator, double parentQuality) {
+            this.operator = operator;
+            this.parentQuality = parentQuality;
+        }
+    }
 }
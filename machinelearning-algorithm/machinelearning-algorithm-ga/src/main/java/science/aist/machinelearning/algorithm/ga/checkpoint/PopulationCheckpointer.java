@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.checkpoint;
+
+import org.apache.log4j.Logger;
+import science.aist.machinelearning.core.Problem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes {@link PopulationSnapshot}s to a file without stalling the algorithm. The solutions are serialized on the
+ * calling thread (so the snapshot is consistent even if the algorithm continues to modify the population), while
+ * compression, checksum and the actual IO happen on a background thread.
+ * <p>
+ * The file is replaced atomically, so it always contains the last COMPLETE snapshot even if the process dies while
+ * writing.
+ *
+ * @param <GT> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class PopulationCheckpointer<GT, PT> implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = Logger.getLogger(PopulationCheckpointer.class);
+    /**
+     * Codec for the snapshots
+     */
+    private final PopulationSnapshotCodec<GT, PT> codec;
+    /**
+     * File the snapshots are written to
+     */
+    private final Path file;
+    /**
+     * Single background thread, so snapshots are written in order
+     */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "population-checkpointer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Last write that was scheduled
+     */
+    private volatile CompletableFuture<Path> lastWrite = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param codec codec used for the snapshots
+     * @param file  file the snapshots are written to (replaced with every snapshot)
+     */
+    public PopulationCheckpointer(PopulationSnapshotCodec<GT, PT> codec, Path file) {
+        this.codec = codec;
+        this.file = file;
+    }
+
+    /**
+     * Serializes the snapshot and writes it asynchronously
+     *
+     * @param snapshot to be written
+     * @param problem  the snapshot was created for
+     * @return future that completes with the file when the snapshot was written
+     * @throws IOException if the snapshot can't be serialized
+     */
+    public CompletableFuture<Path> checkpoint(PopulationSnapshot<GT, PT> snapshot, Problem<PT> problem) throws IOException {
+        byte[] body = codec.serialize(snapshot, problem);
+        lastWrite = CompletableFuture.supplyAsync(() -> write(codec.pack(body)), writer);
+        lastWrite.exceptionally(e -> {
+            logger.error("Failed to write population snapshot to " + file, e);
+            return null;
+        });
+        return lastWrite;
+    }
+
+    private Path write(byte[] data) {
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, data);
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Blocks until all scheduled snapshots are written
+     *
+     * @throws IOException if the last snapshot could not be written
+     */
+    public void flush() throws IOException {
+        try {
+            lastWrite.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for snapshot", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to write snapshot", e.getCause());
+        }
+    }
+
+    /**
+     * Reads the last snapshot that was written
+     *
+     * @param problem the snapshot was created for
+     * @return the snapshot
+     * @throws IOException if the file does not exist or is corrupt
+     */
+    public PopulationSnapshot<GT, PT> load(Problem<PT> problem) throws IOException {
+        return codec.decode(Files.readAllBytes(file), problem);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Waits for the pending snapshots and stops the background thread
+     *
+     * @throws IOException if the last snapshot could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            writer.shutdown();
+        }
+    }
+}
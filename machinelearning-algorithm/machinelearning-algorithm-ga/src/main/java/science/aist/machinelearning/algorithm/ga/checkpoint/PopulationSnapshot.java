@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.checkpoint;
+
+import science.aist.machinelearning.core.Solution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * State of a {@link science.aist.machinelearning.algorithm.ga.GeneticAlgorithm} at the end of a generation. Can be
+ * used to continue a run after a restart, or to fork a run into several what-if experiments.
+ *
+ * @param <GT> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class PopulationSnapshot<GT, PT> {
+
+    /**
+     * Generation the snapshot was taken in
+     */
+    private final int generation;
+    /**
+     * Best known solution
+     */
+    private final Solution<GT, PT> bestSolution;
+    /**
+     * Population of the generation
+     */
+    private final List<Solution<GT, PT>> population;
+
+    public PopulationSnapshot(int generation, Solution<GT, PT> bestSolution, List<Solution<GT, PT>> population) {
+        this.generation = generation;
+        this.bestSolution = bestSolution;
+        this.population = Collections.unmodifiableList(new ArrayList<>(population));
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public Solution<GT, PT> getBestSolution() {
+        return bestSolution;
+    }
+
+    /**
+     * @return unmodifiable population
+     */
+    public List<Solution<GT, PT>> getPopulation() {
+        return population;
+    }
+}
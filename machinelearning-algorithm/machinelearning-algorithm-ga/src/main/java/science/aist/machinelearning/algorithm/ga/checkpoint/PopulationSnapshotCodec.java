@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.checkpoint;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.codec.GeneCodec;
+import science.aist.machinelearning.core.codec.SolutionCodec;
+import science.aist.machinelearning.core.fitness.Cachet;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary format for {@link PopulationSnapshot}s. In contrast to java serialization only the state that is
+ * needed to continue the search is written:
+ * <ul>
+ * <li>solution and problem genes as in the {@link SolutionCodec}</li>
+ * <li>quality and cachets, with cachet names stored once in a string table</li>
+ * </ul>
+ * Layout: magic (4 bytes) | version (1) | flags (1) | raw length (4) | CRC32 of the body (8) | body. The body is
+ * optionally deflate compressed.
+ * <p>
+ * Encoding is split into {@link #serialize(PopulationSnapshot, Problem)} (touches the solutions, must happen on the
+ * thread that owns them) and {@link #pack(byte[])} (compression and checksum, can happen on any thread).
+ *
+ * @param <GT> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class PopulationSnapshotCodec<GT, PT> implements Configurable {
+
+    /**
+     * Magic number identifying snapshot files ("GASN")
+     */
+    private static final int MAGIC = 0x4741534E;
+    /**
+     * Version of the format
+     */
+    private static final byte VERSION = 1;
+    /**
+     * Flag that marks the body as deflate compressed
+     */
+    private static final byte FLAG_COMPRESSED = 1;
+    /**
+     * Size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 4 + 8;
+
+    /**
+     * Codec for the solution genes
+     */
+    private GeneCodec<GT> geneCodec;
+    /**
+     * Optional codec for problem genes that are not contained in the problem
+     */
+    private GeneCodec<PT> problemGeneCodec;
+    /**
+     * If the body is deflate compressed
+     */
+    private boolean compress = true;
+
+    /**
+     * Encodes the snapshot into the complete binary format
+     *
+     * @param snapshot to be encoded
+     * @param problem  the snapshot was created for
+     * @return binary snapshot
+     * @throws IOException if a gene can't be written
+     */
+    public byte[] encode(PopulationSnapshot<GT, PT> snapshot, Problem<PT> problem) throws IOException {
+        return pack(serialize(snapshot, problem));
+    }
+
+    /**
+     * Serializes the snapshot into the uncompressed body, without header
+     *
+     * @param snapshot to be serialized
+     * @param problem  the snapshot was created for
+     * @return uncompressed body
+     * @throws IOException if a gene can't be written
+     */
+    public byte[] serialize(PopulationSnapshot<GT, PT> snapshot, Problem<PT> problem) throws IOException {
+        SolutionCodec<GT, PT> solutionCodec = solutionCodec();
+        Map<ProblemGene<PT>, Integer> problemGeneIndices = SolutionCodec.problemGeneIndices(problem);
+        Map<String, Integer> names = new HashMap<>();
+        List<String> nameTable = new ArrayList<>();
+
+        ByteArrayOutputStream solutionBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(solutionBytes);
+        SolutionCodec.writeVarInt(out, snapshot.getGeneration());
+        SolutionCodec.writeVarInt(out, snapshot.getPopulation().size());
+        int bestIndex = -1;
+        for (int i = 0; i < snapshot.getPopulation().size(); i++) {
+            Solution<GT, PT> solution = snapshot.getPopulation().get(i);
+            if (solution == snapshot.getBestSolution()) {
+                bestIndex = i;
+            }
+            writeSolution(out, solution, solutionCodec, problemGeneIndices, names, nameTable);
+        }
+        // the best solution is usually part of the population (elitism), so it is only referenced
+        SolutionCodec.writeVarInt(out, bestIndex + 1);
+        if (bestIndex < 0) {
+            out.writeBoolean(snapshot.getBestSolution() != null);
+            if (snapshot.getBestSolution() != null) {
+                writeSolution(out, snapshot.getBestSolution(), solutionCodec, problemGeneIndices, names, nameTable);
+            }
+        }
+        out.flush();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(solutionBytes.size() + 64);
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        SolutionCodec.writeVarInt(bodyOut, nameTable.size());
+        for (String name : nameTable) {
+            bodyOut.writeUTF(name);
+        }
+        solutionBytes.writeTo(bodyOut);
+        bodyOut.flush();
+        return body.toByteArray();
+    }
+
+    /**
+     * Compresses (if enabled) the body and adds header and checksum
+     *
+     * @param body created by {@link #serialize(PopulationSnapshot, Problem)}
+     * @return binary snapshot
+     */
+    public byte[] pack(byte[] body) {
+        byte[] payload = body;
+        byte flags = 0;
+        if (compress) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            deflater.setInput(body);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            deflater.end();
+            payload = compressed.toByteArray();
+            flags |= FLAG_COMPRESSED;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(HEADER_SIZE + payload.length);
+        try (DataOutputStream out = new DataOutputStream(result)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(flags);
+            out.writeInt(body.length);
+            out.writeLong(crc.getValue());
+            out.write(payload);
+        } catch (IOException e) {
+            // can't happen on a byte array
+            throw new IllegalStateException(e);
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * Decodes a binary snapshot
+     *
+     * @param data    binary snapshot created by {@link #encode(PopulationSnapshot, Problem)}
+     * @param problem the snapshot was created for. Problem genes are restored by their index in it.
+     * @return the snapshot
+     * @throws IOException if the data is corrupt (checksum mismatch) or not a snapshot
+     */
+    public PopulationSnapshot<GT, PT> decode(byte[] data, Problem<PT> problem) throws IOException {
+        if (data.length < HEADER_SIZE) {
+            throw new IOException("Not a population snapshot: too short");
+        }
+        DataInputStream header = new DataInputStream(new ByteArrayInputStream(data, 0, HEADER_SIZE));
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a population snapshot: wrong magic number");
+        }
+        byte version = header.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        byte flags = header.readByte();
+        int rawLength = header.readInt();
+        long checksum = header.readLong();
+
+        CRC32 crc = new CRC32();
+        crc.update(data, HEADER_SIZE, data.length - HEADER_SIZE);
+        if (crc.getValue() != checksum) {
+            throw new IOException("Snapshot is corrupt: checksum mismatch");
+        }
+
+        byte[] body;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            body = new byte[rawLength];
+            Inflater inflater = new Inflater();
+            inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+            try {
+                if (inflater.inflate(body) != rawLength) {
+                    throw new IOException("Snapshot is corrupt: wrong length");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Snapshot is corrupt", e);
+            } finally {
+                inflater.end();
+            }
+        } else {
+            body = new byte[data.length - HEADER_SIZE];
+            System.arraycopy(data, HEADER_SIZE, body, 0, body.length);
+        }
+
+        return deserialize(new DataInputStream(new ByteArrayInputStream(body)), problem);
+    }
+
+    private PopulationSnapshot<GT, PT> deserialize(DataInput in, Problem<PT> problem) throws IOException {
+        SolutionCodec<GT, PT> solutionCodec = solutionCodec();
+        List<ProblemGene<PT>> problemGenes = SolutionCodec.problemGenes(problem);
+        String[] nameTable = new String[SolutionCodec.readVarInt(in)];
+        for (int i = 0; i < nameTable.length; i++) {
+            nameTable[i] = in.readUTF();
+        }
+
+        int generation = SolutionCodec.readVarInt(in);
+        int size = SolutionCodec.readVarInt(in);
+        List<Solution<GT, PT>> population = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            population.add(readSolution(in, solutionCodec, problemGenes, nameTable));
+        }
+        int bestIndex = SolutionCodec.readVarInt(in) - 1;
+        Solution<GT, PT> bestSolution = null;
+        if (bestIndex >= 0) {
+            bestSolution = population.get(bestIndex);
+        } else if (in.readBoolean()) {
+            bestSolution = readSolution(in, solutionCodec, problemGenes, nameTable);
+        }
+        return new PopulationSnapshot<>(generation, bestSolution, population);
+    }
+
+    /**
+     * @return codec for the genes of the solutions
+     */
+    private SolutionCodec<GT, PT> solutionCodec() {
+        SolutionCodec<GT, PT> solutionCodec = new SolutionCodec<>();
+        solutionCodec.setGeneCodec(geneCodec);
+        solutionCodec.setProblemGeneCodec(problemGeneCodec);
+        return solutionCodec;
+    }
+
+    private void writeSolution(DataOutput out, Solution<GT, PT> solution, SolutionCodec<GT, PT> solutionCodec,
+                               Map<ProblemGene<PT>, Integer> problemGeneIndices, Map<String, Integer> names,
+                               List<String> nameTable) throws IOException {
+        out.writeDouble(solution.getQuality());
+
+        List<Cachet> cachets = solution.getCachets() != null ? solution.getCachets() : new ArrayList<>();
+        SolutionCodec.writeVarInt(out, cachets.size());
+        for (Cachet cachet : cachets) {
+            Integer nameIndex = names.get(cachet.getName());
+            if (nameIndex == null) {
+                nameIndex = nameTable.size();
+                names.put(cachet.getName(), nameIndex);
+                nameTable.add(cachet.getName());
+            }
+            SolutionCodec.writeVarInt(out, nameIndex);
+            out.writeDouble(cachet.getQuality());
+        }
+
+        solutionCodec.writeGenes(out, solution, problemGeneIndices);
+    }
+
+    private Solution<GT, PT> readSolution(DataInput in, SolutionCodec<GT, PT> solutionCodec, List<ProblemGene<PT>> problemGenes,
+                                          String[] nameTable) throws IOException {
+        Solution<GT, PT> solution = new Solution<>();
+        solution.setQuality(in.readDouble());
+
+        int cachetCount = SolutionCodec.readVarInt(in);
+        List<Cachet> cachets = new ArrayList<>(cachetCount);
+        for (int i = 0; i < cachetCount; i++) {
+            String name = nameTable[SolutionCodec.readVarInt(in)];
+            cachets.add(new Cachet(in.readDouble(), name));
+        }
+        solution.setCachets(cachets);
+
+        solutionCodec.readGenes(in, solution, problemGenes);
+        return solution;
+    }
+
+    public GeneCodec<GT> getGeneCodec() {
+        return geneCodec;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param geneCodec codec for the solution genes
+     */
+    @Required
+    public void setGeneCodec(GeneCodec<GT> geneCodec) {
+        this.geneCodec = geneCodec;
+    }
+
+    public GeneCodec<PT> getProblemGeneCodec() {
+        return problemGeneCodec;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param problemGeneCodec if not set, all problem genes must be part of the problem
+     */
+    public void setProblemGeneCodec(GeneCodec<PT> problemGeneCodec) {
+        this.problemGeneCodec = problemGeneCodec;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param compress if the snapshot body shall be deflate compressed
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("geneCodec", new Descriptor<>(geneCodec));
+        options.put("problemGeneCodec", new Descriptor<>(problemGeneCodec));
+        options.put("compress", new Descriptor<>(compress));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "geneCodec":
+                    setGeneCodec((GeneCodec<GT>) descriptor.getValue());
+                    break;
+                case "problemGeneCodec":
+                    setProblemGeneCodec((GeneCodec<PT>) descriptor.getValue());
+                    break;
+                case "compress":
+                    setCompress((Boolean) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Base class for crossovers of permutation genomes. Each solution gene is an int[] containing a permutation of 0 to
+ * n-1 (e.g. a job order), and the child of two permutations is again a valid permutation.
+ * <p>
+ * Solutions with several genes are crossed gene by gene. The operators work on the primitive arrays and use per thread
+ * scratch buffers, so apart from the child no objects are created.
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public abstract class AbstractPermutationCrossover<PT> extends AbstractCrossover<int[], PT> {
+
+    /**
+     * Per thread generators, seeded from {@link science.aist.machinelearning.core.util.RandomUtil} unless a seed is set
+     */
+    private CrossoverRandom generators = new CrossoverRandom();
+
+    @Override
+    public Solution<int[], PT> breedTwo(Solution<int[], PT> a, Solution<int[], PT> b) {
+
+        if ((a == null || a.getSolutionGenes() == null || a.getSolutionGenes().size() == 0)) {
+            if (b == null || b.getSolutionGenes() == null || b.getSolutionGenes().size() == 0) {
+                return null;
+            }
+            return b;
+        } else if (b == null || b.getSolutionGenes() == null || b.getSolutionGenes().size() == 0) {
+            return a;
+        }
+
+        int length = Math.min(a.getSolutionGenes().size(), b.getSolutionGenes().size());
+        List<SolutionGene<int[], PT>> genes = new ArrayList<>(length);
+        CrossoverScratch scratch = CrossoverScratch.get();
+        for (int i = 0; i < length; i++) {
+            SolutionGene<int[], PT> geneA = a.getSolutionGenes().get(i);
+            int[] parentA = geneA.getGene();
+            int[] parentB = b.getSolutionGenes().get(i).getGene();
+            if (parentA.length != parentB.length) {
+                throw new IllegalArgumentException("Permutations must have the same length but were " + parentA.length + " and " + parentB.length);
+            }
+            int[] child = new int[parentA.length];
+            if (child.length > 0) {
+                crossover(parentA, parentB, child, scratch);
+            }
+            genes.add(new SolutionGene<>(child, geneA.getProblemGenes()));
+        }
+
+        Solution<int[], PT> crossoverSolution = new Solution<>();
+        crossoverSolution.setSolutionGenes(genes);
+        return crossoverSolution;
+    }
+
+    /**
+     * @return the random generator of the current thread
+     */
+    protected SplittableRandom random() {
+        return generators.get();
+    }
+
+    /**
+     * Setter for configuration. Restarts the generators of all threads from the given seed.
+     *
+     * @param seed of the generators
+     */
+    public void setSeed(long seed) {
+        generators = new CrossoverRandom(seed);
+    }
+
+    /**
+     * Crosses two permutations of the same length
+     *
+     * @param a       first parent, permutation of 0 to n-1
+     * @param b       second parent, permutation of 0 to n-1
+     * @param child   receives the child, length n
+     * @param scratch scratch buffers of the current thread
+     */
+    protected abstract void crossover(int[] a, int[] b, int[] child, CrossoverScratch scratch);
+
+    /**
+     * Creates the inverse of a permutation (position of each value)
+     *
+     * @param permutation to be inverted
+     * @param inverse     receives the position of each value
+     */
+    static void invert(int[] permutation, int[] inverse) {
+        for (int i = 0; i < permutation.length; i++) {
+            inverse[permutation[i]] = i;
+        }
+    }
+}
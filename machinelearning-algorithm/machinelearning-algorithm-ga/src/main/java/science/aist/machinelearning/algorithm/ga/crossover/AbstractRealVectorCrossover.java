@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Base class for crossovers of real valued genomes. Each solution gene is a double[] vector, the child is created
+ * variable by variable and clamped to the (optional) bounds.
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public abstract class AbstractRealVectorCrossover<PT> extends AbstractCrossover<double[], PT> implements Configurable {
+
+    /**
+     * Per thread generators, seeded from {@link science.aist.machinelearning.core.util.RandomUtil} unless a seed is set
+     */
+    private CrossoverRandom generators = new CrossoverRandom();
+
+    /**
+     * Lower bound of every variable
+     */
+    protected double lowerBound = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Upper bound of every variable
+     */
+    protected double upperBound = Double.POSITIVE_INFINITY;
+
+    @Override
+    public Solution<double[], PT> breedTwo(Solution<double[], PT> a, Solution<double[], PT> b) {
+
+        if ((a == null || a.getSolutionGenes() == null || a.getSolutionGenes().size() == 0)) {
+            if (b == null || b.getSolutionGenes() == null || b.getSolutionGenes().size() == 0) {
+                return null;
+            }
+            return b;
+        } else if (b == null || b.getSolutionGenes() == null || b.getSolutionGenes().size() == 0) {
+            return a;
+        }
+
+        int length = Math.min(a.getSolutionGenes().size(), b.getSolutionGenes().size());
+        List<SolutionGene<double[], PT>> genes = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            SolutionGene<double[], PT> geneA = a.getSolutionGenes().get(i);
+            double[] parentA = geneA.getGene();
+            double[] parentB = b.getSolutionGenes().get(i).getGene();
+            double[] child = new double[Math.min(parentA.length, parentB.length)];
+            crossover(parentA, parentB, child);
+            for (int j = 0; j < child.length; j++) {
+                child[j] = Math.min(upperBound, Math.max(lowerBound, child[j]));
+            }
+            genes.add(new SolutionGene<>(child, geneA.getProblemGenes()));
+        }
+
+        Solution<double[], PT> crossoverSolution = new Solution<>();
+        crossoverSolution.setSolutionGenes(genes);
+        return crossoverSolution;
+    }
+
+    /**
+     * @return the random generator of the current thread
+     */
+    protected SplittableRandom random() {
+        return generators.get();
+    }
+
+    /**
+     * Setter for configuration. Restarts the generators of all threads from the given seed.
+     *
+     * @param seed of the generators
+     */
+    public void setSeed(long seed) {
+        generators = new CrossoverRandom(seed);
+    }
+
+    /**
+     * Crosses two vectors
+     *
+     * @param a     first parent
+     * @param b     second parent
+     * @param child receives the child (length of the shorter parent)
+     */
+    protected abstract void crossover(double[] a, double[] b, double[] child);
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(double upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("lowerBound", new Descriptor<>(lowerBound));
+        options.put("upperBound", new Descriptor<>(upperBound));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "lowerBound":
+                    setLowerBound((Double) descriptor.getValue());
+                    break;
+                case "upperBound":
+                    setUpperBound((Double) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
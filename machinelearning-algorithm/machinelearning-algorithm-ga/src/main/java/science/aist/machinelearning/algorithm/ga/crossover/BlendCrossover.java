@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.Map;
+
+/**
+ * Blend crossover (BLX-alpha) for real vectors. Each variable of the child is drawn uniformly from the interval spanned
+ * by the parents, extended by alpha times its width on both sides.
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class BlendCrossover<PT> extends AbstractRealVectorCrossover<PT> {
+
+    /**
+     * Extension of the parent interval, 0.5 is the common choice
+     */
+    private double alpha = 0.5;
+
+    @Override
+    protected void crossover(double[] a, double[] b, double[] child) {
+        for (int i = 0; i < child.length; i++) {
+            double min = Math.min(a[i], b[i]);
+            double range = Math.abs(a[i] - b[i]);
+            child[i] = min - alpha * range + random().nextDouble() * range * (1 + 2 * alpha);
+        }
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public void setAlpha(double alpha) {
+        this.alpha = alpha;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = super.getOptions();
+        options.put("alpha", new Descriptor<>(alpha));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            if (name.equals("alpha")) {
+                setAlpha((Double) descriptor.getValue());
+                return true;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return super.setOption(name, descriptor);
+    }
+}
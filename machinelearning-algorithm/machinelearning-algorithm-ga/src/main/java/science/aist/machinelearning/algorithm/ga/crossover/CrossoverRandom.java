@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+import science.aist.machinelearning.core.util.RandomUtil;
+
+import java.util.SplittableRandom;
+
+/**
+ * Per thread random generators of a crossover. Every thread gets its own {@link SplittableRandom} split from a common
+ * root, so parallel breeding does not contend on one generator, and a crossover created with a seed repeats its
+ * children in a single threaded run.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+final class CrossoverRandom {
+
+    private final SplittableRandom root;
+
+    private final ThreadLocal<SplittableRandom> generators = ThreadLocal.withInitial(this::split);
+
+    /**
+     * Creates generators seeded from {@link RandomUtil#random}
+     */
+    CrossoverRandom() {
+        this(RandomUtil.random.nextLong());
+    }
+
+    /**
+     * @param seed of the root generator
+     */
+    CrossoverRandom(long seed) {
+        root = new SplittableRandom(seed);
+    }
+
+    private synchronized SplittableRandom split() {
+        return root.split();
+    }
+
+    /**
+     * @return the generator of the current thread
+     */
+    SplittableRandom get() {
+        return generators.get();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+/**
+ * Per thread scratch buffers for the array based crossovers. The buffers only grow, so after warm-up breeding a child
+ * does not allocate anything but the child itself.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public final class CrossoverScratch {
+
+    /**
+     * Amount of independent buffers a crossover may use at the same time
+     */
+    static final int SLOTS = 4;
+
+    private static final ThreadLocal<CrossoverScratch> SCRATCH = ThreadLocal.withInitial(CrossoverScratch::new);
+
+    private final int[][] buffers = new int[SLOTS][0];
+
+    private CrossoverScratch() {
+    }
+
+    /**
+     * @return the scratch buffers of the current thread
+     */
+    static CrossoverScratch get() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * Returns a buffer with at least the given length. The content is undefined.
+     *
+     * @param slot   index of the buffer (0 to SLOTS - 1)
+     * @param length minimum length
+     * @return the buffer
+     */
+    public int[] ints(int slot, int length) {
+        if (buffers[slot].length < length) {
+            buffers[slot] = new int[length];
+        }
+        return buffers[slot];
+    }
+}
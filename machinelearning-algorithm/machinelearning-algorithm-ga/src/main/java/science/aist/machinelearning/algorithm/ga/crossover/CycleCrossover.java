@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+import java.util.Arrays;
+
+/**
+ * Cycle crossover (CX). The positions are partitioned into cycles (following a value of the second parent to its
+ * position in the first parent). The cycles are taken alternately from the first and the second parent, so every value
+ * keeps the absolute position it had in one of the parents.
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class CycleCrossover<PT> extends AbstractPermutationCrossover<PT> {
+
+    @Override
+    protected void crossover(int[] a, int[] b, int[] child, CrossoverScratch scratch) {
+        int n = a.length;
+        int[] positionA = scratch.ints(0, n);
+        int[] visited = scratch.ints(1, n);
+        invert(a, positionA);
+        Arrays.fill(visited, 0, n, 0);
+
+        // start with a random parent, otherwise the first cycle would always be inherited from a
+        boolean fromA = random().nextBoolean();
+        for (int start = 0; start < n; start++) {
+            if (visited[start] != 0) {
+                continue;
+            }
+            int position = start;
+            do {
+                visited[position] = 1;
+                child[position] = fromA ? a[position] : b[position];
+                position = positionA[b[position]];
+            } while (position != start);
+            fromA = !fromA;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+/**
+ * Edge recombination crossover (ERX). The child is built as a tour over the union of the adjacencies (edges) of both
+ * parents: starting with the first value of the first parent, the next value is always the neighbour that has the
+ * fewest remaining neighbours itself. Only if no neighbour is left, a random unused value is chosen. This preserves the
+ * adjacency relations of the parents, which is what matters for routing or sequencing problems.
+ * <p>
+ * The edge table is a flat int array with at most 4 neighbours per value.
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class EdgeRecombinationCrossover<PT> extends AbstractPermutationCrossover<PT> {
+
+    /**
+     * Maximum amount of distinct neighbours a value can have in two (cyclic) parents
+     */
+    private static final int MAX_NEIGHBOURS = 4;
+
+    @Override
+    protected void crossover(int[] a, int[] b, int[] child, CrossoverScratch scratch) {
+        int n = a.length;
+        int[] neighbours = scratch.ints(0, n * MAX_NEIGHBOURS);
+        int[] neighbourCount = scratch.ints(1, n);
+        int[] unused = scratch.ints(2, n);
+        int[] unusedPosition = scratch.ints(3, n);
+
+        for (int i = 0; i < n; i++) {
+            neighbourCount[i] = 0;
+            unused[i] = i;
+            unusedPosition[i] = i;
+        }
+        addEdges(a, neighbours, neighbourCount);
+        addEdges(b, neighbours, neighbourCount);
+
+        int unusedCount = n;
+        int current = a[0];
+        for (int k = 0; k < n; k++) {
+            child[k] = current;
+
+            // remove current from the unused values
+            int last = unused[--unusedCount];
+            int position = unusedPosition[current];
+            unused[position] = last;
+            unusedPosition[last] = position;
+
+            // remove current from the edge table (edges are symmetric, so only the neighbours know it)
+            int offset = current * MAX_NEIGHBOURS;
+            for (int i = 0; i < neighbourCount[current]; i++) {
+                removeEdge(neighbours[offset + i], current, neighbours, neighbourCount);
+            }
+
+            if (unusedCount == 0) {
+                break;
+            }
+
+            // next is the neighbour with the fewest remaining neighbours, ties are broken randomly
+            int next = -1;
+            int fewest = Integer.MAX_VALUE;
+            int ties = 0;
+            for (int i = 0; i < neighbourCount[current]; i++) {
+                int candidate = neighbours[offset + i];
+                int count = neighbourCount[candidate];
+                if (count < fewest) {
+                    fewest = count;
+                    next = candidate;
+                    ties = 1;
+                } else if (count == fewest && random().nextInt(++ties) == 0) {
+                    next = candidate;
+                }
+            }
+            if (next < 0) {
+                next = unused[random().nextInt(unusedCount)];
+            }
+            current = next;
+        }
+    }
+
+    private static void addEdges(int[] parent, int[] neighbours, int[] neighbourCount) {
+        int n = parent.length;
+        for (int i = 0; i < n; i++) {
+            int value = parent[i];
+            addEdge(value, parent[(i + n - 1) % n], neighbours, neighbourCount);
+            addEdge(value, parent[(i + 1) % n], neighbours, neighbourCount);
+        }
+    }
+
+    private static void addEdge(int from, int to, int[] neighbours, int[] neighbourCount) {
+        if (from == to) {
+            return;
+        }
+        int offset = from * MAX_NEIGHBOURS;
+        int count = neighbourCount[from];
+        for (int i = 0; i < count; i++) {
+            if (neighbours[offset + i] == to) {
+                return;
+            }
+        }
+        neighbours[offset + count] = to;
+        neighbourCount[from] = count + 1;
+    }
+
+    private static void removeEdge(int from, int to, int[] neighbours, int[] neighbourCount) {
+        int offset = from * MAX_NEIGHBOURS;
+        int count = neighbourCount[from];
+        for (int i = 0; i < count; i++) {
+            if (neighbours[offset + i] == to) {
+                neighbours[offset + i] = neighbours[offset + count - 1];
+                neighbourCount[from] = count - 1;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies one of the array based permutation crossovers ({@link PartiallyMappedCrossover}, {@link OrderCrossover},
+ * {@link CycleCrossover}, {@link EdgeRecombinationCrossover}) to genes that are a {@link List} of Integers, such as the
+ * machine order of a job in the Fisher-Thompson job shop problem. Each gene is crossed on its own.
+ * <p>
+ * The genes are copied into int arrays and back, so this costs three array and one list allocation per gene more than
+ * using the array based crossover directly.
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ListPermutationCrossover<PT> extends AbstractCrossover<List<Integer>, PT> {
+
+    /**
+     * The crossover that does the actual work
+     */
+    private AbstractPermutationCrossover<?> permutationCrossover;
+
+    @Override
+    public Solution<List<Integer>, PT> breedTwo(Solution<List<Integer>, PT> a, Solution<List<Integer>, PT> b) {
+
+        if ((a == null || a.getSolutionGenes() == null || a.getSolutionGenes().size() == 0)) {
+            if (b == null || b.getSolutionGenes() == null || b.getSolutionGenes().size() == 0) {
+                return null;
+            }
+            return b;
+        } else if (b == null || b.getSolutionGenes() == null || b.getSolutionGenes().size() == 0) {
+            return a;
+        }
+
+        int length = Math.min(a.getSolutionGenes().size(), b.getSolutionGenes().size());
+        List<SolutionGene<List<Integer>, PT>> genes = new ArrayList<>(length);
+        CrossoverScratch scratch = CrossoverScratch.get();
+        for (int i = 0; i < length; i++) {
+            SolutionGene<List<Integer>, PT> geneA = a.getSolutionGenes().get(i);
+            List<Integer> parentA = geneA.getGene();
+            List<Integer> parentB = b.getSolutionGenes().get(i).getGene();
+            if (parentA.size() != parentB.size()) {
+                throw new IllegalArgumentException("Permutations must have the same length but were " + parentA.size() + " and " + parentB.size());
+            }
+            int[] child = new int[parentA.size()];
+            if (child.length > 0) {
+                permutationCrossover.crossover(toArray(parentA), toArray(parentB), child, scratch);
+            }
+            List<Integer> childGene = new ArrayList<>(child.length);
+            for (int value : child) {
+                childGene.add(value);
+            }
+            genes.add(new SolutionGene<>(childGene, geneA.getProblemGenes()));
+        }
+
+        Solution<List<Integer>, PT> crossoverSolution = new Solution<>();
+        crossoverSolution.setSolutionGenes(genes);
+        return crossoverSolution;
+    }
+
+    private static int[] toArray(List<Integer> permutation) {
+        int[] array = new int[permutation.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = permutation.get(i);
+        }
+        return array;
+    }
+
+    public AbstractPermutationCrossover<?> getPermutationCrossover() {
+        return permutationCrossover;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param permutationCrossover the array based crossover applied to each gene
+     */
+    @Required
+    public void setPermutationCrossover(AbstractPermutationCrossover<?> permutationCrossover) {
+        this.permutationCrossover = permutationCrossover;
+    }
+}
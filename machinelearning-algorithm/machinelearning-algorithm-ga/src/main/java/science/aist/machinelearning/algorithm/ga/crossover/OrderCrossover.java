@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+import java.util.Arrays;
+
+/**
+ * Order crossover (OX). A random segment is copied from the first parent, the remaining positions are filled (starting
+ * after the segment and wrapping around) with the missing values in the relative order of the second parent.
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class OrderCrossover<PT> extends AbstractPermutationCrossover<PT> {
+
+    @Override
+    protected void crossover(int[] a, int[] b, int[] child, CrossoverScratch scratch) {
+        int n = a.length;
+        int start = random().nextInt(n);
+        int end = random().nextInt(n);
+        if (start > end) {
+            int swap = start;
+            start = end;
+            end = swap;
+        }
+
+        int[] used = scratch.ints(0, n);
+        Arrays.fill(used, 0, n, 0);
+        for (int i = start; i <= end; i++) {
+            child[i] = a[i];
+            used[a[i]] = 1;
+        }
+
+        int position = (end + 1) % n;
+        for (int k = 1; k <= n; k++) {
+            int value = b[(end + k) % n];
+            if (used[value] == 0) {
+                child[position] = value;
+                position = (position + 1) % n;
+            }
+        }
+    }
+}
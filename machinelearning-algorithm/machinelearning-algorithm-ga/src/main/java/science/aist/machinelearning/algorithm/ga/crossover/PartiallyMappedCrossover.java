@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+/**
+ * Partially mapped crossover (PMX). A random segment is copied from the first parent, the remaining positions are
+ * taken from the second parent. Values that already occur in the segment are replaced along the mapping that the
+ * segment defines between the two parents, which keeps absolute positions of the second parent wherever possible.
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class PartiallyMappedCrossover<PT> extends AbstractPermutationCrossover<PT> {
+
+    @Override
+    protected void crossover(int[] a, int[] b, int[] child, CrossoverScratch scratch) {
+        int n = a.length;
+        int start = random().nextInt(n);
+        int end = random().nextInt(n);
+        if (start > end) {
+            int swap = start;
+            start = end;
+            end = swap;
+        }
+
+        int[] positionA = scratch.ints(0, n);
+        invert(a, positionA);
+
+        System.arraycopy(a, start, child, start, end - start + 1);
+        for (int i = 0; i < n; i++) {
+            if (i >= start && i <= end) {
+                continue;
+            }
+            int value = b[i];
+            int position = positionA[value];
+            // follow the mapping until the value is not part of the segment
+            while (position >= start && position <= end) {
+                value = b[position];
+                position = positionA[value];
+            }
+            child[i] = value;
+        }
+    }
+}
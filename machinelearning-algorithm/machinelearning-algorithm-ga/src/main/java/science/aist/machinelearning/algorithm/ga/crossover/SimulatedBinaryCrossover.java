@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.crossover;
+
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.Map;
+
+/**
+ * Simulated binary crossover (SBX) for real vectors. Each variable is recombined with probability 0.5, the child is
+ * spread around the parents with a polynomial distribution, whose distribution index controls how close the child stays
+ * to the parents (larger = closer).
+ *
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class SimulatedBinaryCrossover<PT> extends AbstractRealVectorCrossover<PT> {
+
+    /**
+     * Distribution index eta, typically between 2 and 20
+     */
+    private double distributionIndex = 20.0;
+
+    @Override
+    protected void crossover(double[] a, double[] b, double[] child) {
+        double exponent = 1.0 / (distributionIndex + 1.0);
+        for (int i = 0; i < child.length; i++) {
+            double x1 = a[i];
+            double x2 = b[i];
+            if (random().nextDouble() >= 0.5 || Math.abs(x1 - x2) < 1e-14) {
+                child[i] = x1;
+                continue;
+            }
+            double u = random().nextDouble();
+            double beta = u <= 0.5 ? Math.pow(2.0 * u, exponent) : Math.pow(1.0 / (2.0 * (1.0 - u)), exponent);
+            // the two children of sbx are symmetric around the parents, pick one of them
+            child[i] = random().nextBoolean()
+                    ? 0.5 * ((1 + beta) * x1 + (1 - beta) * x2)
+                    : 0.5 * ((1 - beta) * x1 + (1 + beta) * x2);
+        }
+    }
+
+    public double getDistributionIndex() {
+        return distributionIndex;
+    }
+
+    public void setDistributionIndex(double distributionIndex) {
+        this.distributionIndex = distributionIndex;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = super.getOptions();
+        options.put("distributionIndex", new Descriptor<>(distributionIndex));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            if (name.equals("distributionIndex")) {
+                setDistributionIndex((Double) descriptor.getValue());
+                return true;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return super.setOption(name, descriptor);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.multiobjective;
+
+/**
+ * Crowding distance of NSGA-II on a flat, row-major objective matrix. The crowding distance of a solution is the sum
+ * over all objectives of the normalized distance between its two neighbours in the front. Boundary solutions receive
+ * an infinite distance so they are always kept.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public final class CrowdingDistance {
+
+    private CrowdingDistance() {
+    }
+
+    /**
+     * Calculates the crowding distance of the members of one front
+     *
+     * @param objectives row-major objective values
+     * @param m          amount of objectives
+     * @param members    indices of the solutions in the front (will be reordered)
+     * @param count      amount of members
+     * @param distance   receives the distance of each member at the index of the member
+     */
+    public static void compute(double[] objectives, int m, int[] members, int count, double[] distance) {
+        for (int i = 0; i < count; i++) {
+            distance[members[i]] = 0;
+        }
+        if (count <= 2) {
+            for (int i = 0; i < count; i++) {
+                distance[members[i]] = Double.POSITIVE_INFINITY;
+            }
+            return;
+        }
+
+        for (int objective = 0; objective < m; objective++) {
+            final int o = objective;
+            NonDominatedSorting.sortIndices(members, count, (a, b) -> Double.compare(objectives[a * m + o], objectives[b * m + o]));
+            double min = objectives[members[0] * m + o];
+            double max = objectives[members[count - 1] * m + o];
+            distance[members[0]] = Double.POSITIVE_INFINITY;
+            distance[members[count - 1]] = Double.POSITIVE_INFINITY;
+            double range = max - min;
+            if (range == 0) {
+                continue;
+            }
+            for (int i = 1; i < count - 1; i++) {
+                distance[members[i]] += (objectives[members[i + 1] * m + o] - objectives[members[i - 1] * m + o]) / range;
+            }
+        }
+    }
+}
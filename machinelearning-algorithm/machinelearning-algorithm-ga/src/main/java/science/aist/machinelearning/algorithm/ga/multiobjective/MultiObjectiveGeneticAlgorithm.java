@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.multiobjective;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.ga.Crossover;
+import science.aist.machinelearning.algorithm.ga.Selector;
+import science.aist.machinelearning.algorithm.mutation.Mutator;
+import science.aist.machinelearning.core.AbstractAlgorithm;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.Cachet;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.*;
+
+/**
+ * Multi-objective genetic algorithm following NSGA-II. Every {@link Cachet} of a solution is treated as a separate
+ * objective (all minimized) instead of being summed up into the quality.
+ * <p>
+ * Each generation the offspring are merged with the parents, sorted into pareto fronts with {@link
+ * NonDominatedSorting}, and the next population is filled front by front. The last front that does not fit entirely
+ * is truncated by {@link CrowdingDistance} to keep the front spread out. Parents are chosen with a crowded binary
+ * tournament (lower rank first, then larger crowding distance).
+ * <p>
+ * The objective values, ranks and crowding distances are kept in primitive arrays, so populations of several thousand
+ * solutions are sorted in milliseconds.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class MultiObjectiveGeneticAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
+
+    /**
+     * Random for random number generation
+     */
+    private final Random random = new Random();
+    /**
+     * Crossover strategy for building children out of parents
+     */
+    private Crossover<GT, PT> crossover;
+    /**
+     * Mutation strategy for mutating new children
+     */
+    private Mutator<GT, PT> mutator;
+    /**
+     * Double between 0 and 1 that determines the mutation probability
+     */
+    private double mutationProbability;
+    /**
+     * Size of mapping population in each generation
+     */
+    private int populationSize;
+    /**
+     * Termination Criteria on how many generations may be evaluated
+     */
+    private int maximumGenerations;
+    /**
+     * Names of the cachets that are the objectives. If empty, all cachets of the evaluator are used
+     */
+    private List<String> objectives = new ArrayList<>();
+    /**
+     * Current population in the GA context
+     */
+    private List<Solution<GT, PT>> population = new ArrayList<>();
+    /**
+     * Pareto rank of each solution in the population (same order)
+     */
+    private int[] ranks = new int[0];
+    /**
+     * Crowding distance of each solution in the population (same order)
+     */
+    private double[] crowding = new double[0];
+    /**
+     * Index of each objective name in a row of the objective matrix
+     */
+    private Map<String, Integer> objectiveIndex;
+    /**
+     * Best solution according to the (weighted sum) quality
+     */
+    private Solution<GT, PT> bestSolution;
+    /**
+     * Crowded binary tournament on the current population
+     */
+    private final Selector<GT, PT> crowdedTournament = population -> {
+        int a = random.nextInt(population.size());
+        int b = random.nextInt(population.size());
+        if (ranks[a] != ranks[b]) {
+            return population.get(ranks[a] < ranks[b] ? a : b);
+        }
+        return population.get(crowding[a] >= crowding[b] ? a : b);
+    };
+
+    @Override
+    public Solution<GT, PT> solve(Problem<PT> problem) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().isEmpty()) {
+            return null;
+        }
+        Solution<GT, PT> solution = solutionCreator.createSolution(problem);
+        evaluator.evaluateQuality(solution);
+        return solve(problem, solution);
+    }
+
+    @Override
+    public Solution<GT, PT> solve(Problem<PT> problem, Solution<GT, PT> givenSolution) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().isEmpty() || givenSolution == null) {
+            return null;
+        }
+        initializeObjectives();
+        initializeLog(problem);
+        if (givenSolution.getCachets().isEmpty()) {
+            evaluator.evaluateQuality(givenSolution);
+        }
+        bestSolution = givenSolution;
+
+        // initial population, the given solution is part of it
+        population = new ArrayList<>(populationSize);
+        List<Solution<GT, PT>> created = new ArrayList<>(populationSize);
+        for (int i = 1; i < populationSize; i++) {
+            created.add(solutionCreator.createSolution(problem));
+        }
+        evaluator.evaluateQualities(created);
+        population.add(givenSolution);
+        population.addAll(created);
+        survive(population);
+        analyticsStep();
+
+        for (int generation = 1; generation < maximumGenerations; generation++) {
+            nextGeneration();
+            analyticsStep();
+        }
+
+        if (analytics != null) {
+            analytics.logSolution(bestSolution);
+            analytics.finishAnalytics();
+        }
+        return bestSolution;
+    }
+
+    /**
+     * Breeds and evaluates one generation of offspring, and selects the survivors of parents and offspring
+     */
+    private void nextGeneration() {
+        List<Solution<GT, PT>> offspring = new ArrayList<>(populationSize);
+        for (int i = 0; i < populationSize; i++) {
+            offspring.add(breed());
+        }
+        evaluator.evaluateQualities(offspring);
+
+        List<Solution<GT, PT>> combined = new ArrayList<>(population.size() + offspring.size());
+        combined.addAll(population);
+        combined.addAll(offspring);
+        survive(combined);
+    }
+
+    /**
+     * Breeds a single child, by mutation or crossover
+     *
+     * @return the (not yet evaluated) child
+     */
+    private Solution<GT, PT> breed() {
+        if (crossover == null || (mutator != null && random.nextDouble() < mutationProbability)) {
+            return mutator.mutate(crowdedTournament.select(population));
+        }
+        return crossover.breed(population, crowdedTournament);
+    }
+
+    /**
+     * Sorts the candidates into pareto fronts and sets the best populationSize of them as the new population, together
+     * with their ranks and crowding distances.
+     *
+     * @param candidates evaluated solutions
+     */
+    private void survive(List<Solution<GT, PT>> candidates) {
+        int n = candidates.size();
+        int m = objectiveIndex.size();
+        double[] values = objectiveValues(candidates);
+        int[] candidateRanks = NonDominatedSorting.sort(values, n, m);
+
+        // bucket the candidates by front (counting sort on the rank)
+        int fronts = 0;
+        for (int rank : candidateRanks) {
+            fronts = Math.max(fronts, rank + 1);
+        }
+        int[] frontStart = new int[fronts + 1];
+        for (int rank : candidateRanks) {
+            frontStart[rank + 1]++;
+        }
+        for (int f = 0; f < fronts; f++) {
+            frontStart[f + 1] += frontStart[f];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(frontStart, fronts);
+        for (int i = 0; i < n; i++) {
+            members[fill[candidateRanks[i]]++] = i;
+        }
+
+        int size = Math.min(populationSize, n);
+        List<Solution<GT, PT>> survivors = new ArrayList<>(size);
+        int[] survivorRanks = new int[size];
+        double[] survivorCrowding = new double[size];
+        double[] distance = new double[n];
+        int[] front = new int[n];
+        for (int f = 0; f < fronts && survivors.size() < size; f++) {
+            int count = frontStart[f + 1] - frontStart[f];
+            System.arraycopy(members, frontStart[f], front, 0, count);
+            CrowdingDistance.compute(values, m, front, count, distance);
+            int take = Math.min(count, size - survivors.size());
+            if (take < count) {
+                // the front does not fit, keep the least crowded ones
+                final double[] d = distance;
+                NonDominatedSorting.sortIndices(front, count, (a, b) -> Double.compare(d[b], d[a]));
+            }
+            for (int i = 0; i < take; i++) {
+                int candidate = front[i];
+                survivorRanks[survivors.size()] = f;
+                survivorCrowding[survivors.size()] = distance[candidate];
+                survivors.add(candidates.get(candidate));
+            }
+        }
+
+        population = survivors;
+        ranks = survivorRanks;
+        crowding = survivorCrowding;
+        for (Solution<GT, PT> solution : survivors) {
+            if (solution.getQuality() < bestSolution.getQuality()) {
+                bestSolution = solution;
+            }
+        }
+    }
+
+    /**
+     * Extracts the objective values of the solutions from their cachets. Missing cachets count as worst possible value.
+     *
+     * @param solutions evaluated solutions
+     * @return row-major objective matrix
+     */
+    private double[] objectiveValues(List<Solution<GT, PT>> solutions) {
+        int m = objectiveIndex.size();
+        double[] values = new double[solutions.size() * m];
+        Arrays.fill(values, Double.MAX_VALUE);
+        for (int i = 0; i < solutions.size(); i++) {
+            for (Cachet cachet : solutions.get(i).getCachets()) {
+                Integer index = objectiveIndex.get(cachet.getName());
+                if (index != null) {
+                    values[i * m + index] = cachet.getQuality();
+                }
+            }
+        }
+        return values;
+    }
+
+    private void initializeObjectives() {
+        List<String> names = objectives;
+        if (names == null || names.isEmpty()) {
+            names = new ArrayList<>();
+            for (CachetEvaluator<GT, PT> cachetEvaluator : evaluator.returnCachetDictionary().keySet()) {
+                names.add(cachetEvaluator.getName());
+            }
+            Collections.sort(names);
+        }
+        objectiveIndex = new HashMap<>();
+        for (String name : names) {
+            objectiveIndex.putIfAbsent(name, objectiveIndex.size());
+        }
+        if (objectiveIndex.isEmpty()) {
+            throw new IllegalStateException("Multi objective optimization requires at least one objective");
+        }
+    }
+
+    private void initializeLog(Problem<PT> problem) {
+        if (analytics != null) {
+            analytics.startAnalytics();
+            analytics.logParam("problemSize", problem.getProblemSize());
+            analytics.logParam("crossover", crossover != null ? crossover.getClass().getName() : "no crossover");
+            analytics.logParam("mutator", mutator != null ? mutator.getClass().getName() : "no mutator");
+            analytics.logParam("creator", solutionCreator.getClass().getName());
+            analytics.logParam("mutationProbability", String.valueOf(mutationProbability));
+            analytics.logParam("populationSize", String.valueOf(populationSize));
+            analytics.logParam("maximumGenerations", String.valueOf(maximumGenerations));
+            analytics.logParam("objectives", String.join(",", objectiveIndex.keySet()));
+            List<String> headers = new ArrayList<>();
+            headers.add("best quality");
+            headers.add("average quality");
+            headers.add("pareto front size");
+            analytics.logAlgorithmStepHeaders(headers);
+            analytics.logProblem(problem);
+        }
+    }
+
+    private void analyticsStep() {
+        if (analytics != null) {
+            List<String> values = new ArrayList<>();
+            values.add(String.valueOf(bestSolution.getQuality()));
+            values.add(String.valueOf(population.stream().mapToDouble(Solution::getQuality).average().orElse(0.0)));
+            values.add(String.valueOf(getParetoFront().size()));
+            analytics.logAlgorithmStep(values);
+        }
+    }
+
+    /**
+     * Returns the non-dominated solutions of the current population (rank 0)
+     *
+     * @return pareto front of the last generation
+     */
+    public List<Solution<GT, PT>> getParetoFront() {
+        List<Solution<GT, PT>> front = new ArrayList<>();
+        for (int i = 0; i < population.size(); i++) {
+            if (ranks[i] == 0) {
+                front.add(population.get(i));
+            }
+        }
+        return front;
+    }
+
+    /**
+     * @return the population of the last generation
+     */
+    public List<Solution<GT, PT>> getPopulation() {
+        return Collections.unmodifiableList(population);
+    }
+
+    public Crossover<GT, PT> getCrossover() {
+        return crossover;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param crossover if not set algorithm will only mutate solutions
+     */
+    public void setCrossover(Crossover<GT, PT> crossover) {
+        this.crossover = crossover;
+    }
+
+    public Mutator<GT, PT> getMutator() {
+        return mutator;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param mutator if not set algorithm will only breed solutions with the crossover
+     */
+    public void setMutator(Mutator<GT, PT> mutator) {
+        this.mutator = mutator;
+    }
+
+    public double getMutationProbability() {
+        return mutationProbability;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param mutationProbability probability between 0 and 1 that a child is mutated instead of bred
+     */
+    @Required
+    public void setMutationProbability(double mutationProbability) {
+        this.mutationProbability = mutationProbability;
+    }
+
+    public int getPopulationSize() {
+        return populationSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param populationSize the population size
+     */
+    @Required
+    public void setPopulationSize(int populationSize) {
+        this.populationSize = populationSize;
+    }
+
+    public int getMaximumGenerations() {
+        return maximumGenerations;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param maximumGenerations the maximum generations
+     */
+    @Required
+    public void setMaximumGenerations(int maximumGenerations) {
+        this.maximumGenerations = maximumGenerations;
+    }
+
+    public List<String> getObjectives() {
+        return objectives;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param objectives names of the cachets that are optimized, if empty all cachets of the evaluator are used
+     */
+    public void setObjectives(List<String> objectives) {
+        this.objectives = objectives;
+    }
+
+    @Override
+    protected Map<String, Descriptor> getSpecificOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("crossover", new Descriptor<>(crossover));
+        options.put("mutator", new Descriptor<>(mutator));
+        options.put("mutationProbability", new Descriptor<>(mutationProbability));
+        options.put("populationSize", new Descriptor<>(populationSize));
+        options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
+        options.put("objectives", new Descriptor<>(objectives));
+        return options;
+    }
+
+    @Override
+    protected boolean setSpecificOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "crossover":
+                    setCrossover((Crossover<GT, PT>) descriptor.getValue());
+                    break;
+                case "mutator":
+                    setMutator((Mutator<GT, PT>) descriptor.getValue());
+                    break;
+                case "mutationProbability":
+                    setMutationProbability((Double) descriptor.getValue());
+                    break;
+                case "populationSize":
+                    setPopulationSize((Integer) descriptor.getValue());
+                    break;
+                case "maximumGenerations":
+                    setMaximumGenerations((Integer) descriptor.getValue());
+                    break;
+                case "objectives":
+                    setObjectives((List<String>) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ga.multiobjective;
+
+/**
+ * Efficient non-dominated sorting (ENS) on a flat, row-major objective matrix (n rows of m objectives, all
+ * minimized).
+ * <p>
+ * The solutions are sorted lexicographically first, so a solution can only be dominated by solutions before it. Then
+ * each solution is assigned to the first front that does not dominate it. As "front k dominates p" implies "front k-1
+ * dominates p", the front is found with a binary search (ENS-BS).
+ * <ul>
+ * <li>Two objectives: the last solution added to a front has the smallest second objective of the front, so checking
+ * a front is O(1) and the whole sort is O(N log N)</li>
+ * <li>More objectives: a front is checked against all its members, which is O(m N^2) in the worst case but close to
+ * O(m N log N) for typical populations</li>
+ * </ul>
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public final class NonDominatedSorting {
+
+    private NonDominatedSorting() {
+    }
+
+    /**
+     * Compares two indices, without boxing
+     */
+    @FunctionalInterface
+    interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Assigns the rank (index of the pareto front, 0 is the non-dominated front) to every solution
+     *
+     * @param objectives row-major objective values, n * m
+     * @param n          amount of solutions
+     * @param m          amount of objectives
+     * @return rank of each solution
+     */
+    public static int[] sort(double[] objectives, int n, int m) {
+        int[] ranks = new int[n];
+        if (n == 0) {
+            return ranks;
+        }
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        sortIndices(order, n, (a, b) -> compareLexicographic(objectives, m, a, b));
+
+        if (m == 2) {
+            sortTwoObjectives(objectives, order, ranks, n);
+        } else {
+            sortObjectives(objectives, m, order, ranks, n);
+        }
+        return ranks;
+    }
+
+    private static void sortTwoObjectives(double[] objectives, int[] order, int[] ranks, int n) {
+        // second objective of the solution added last to each front (= minimum of the front)
+        double[] frontMinimum = new double[n];
+        int fronts = 0;
+        int previous = -1;
+        for (int k = 0; k < n; k++) {
+            int p = order[k];
+            double second = objectives[2 * p + 1];
+            if (previous >= 0 && objectives[2 * p] == objectives[2 * previous] && second == objectives[2 * previous + 1]) {
+                // duplicates don't dominate each other
+                ranks[p] = ranks[previous];
+                previous = p;
+                continue;
+            }
+            // first front whose minimum is larger than p, i.e. no member dominates p
+            int low = 0;
+            int high = fronts;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (frontMinimum[mid] <= second) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            ranks[p] = low;
+            frontMinimum[low] = second;
+            if (low == fronts) {
+                fronts++;
+            }
+            previous = p;
+        }
+    }
+
+    private static void sortObjectives(double[] objectives, int m, int[] order, int[] ranks, int n) {
+        // members of each front in order of insertion, stored as linked lists in flat arrays
+        int[] frontLast = new int[n];
+        int[] previousMember = new int[n];
+        int fronts = 0;
+        for (int k = 0; k < n; k++) {
+            int p = order[k];
+            int low = 0;
+            int high = fronts;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (frontDominates(objectives, m, frontLast[mid], previousMember, p)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            ranks[p] = low;
+            previousMember[p] = low == fronts ? -1 : frontLast[low];
+            frontLast[low] = p;
+            if (low == fronts) {
+                fronts++;
+            }
+        }
+    }
+
+    private static boolean frontDominates(double[] objectives, int m, int last, int[] previousMember, int p) {
+        // the most recently added members are the most similar ones, so they are checked first
+        for (int q = last; q >= 0; q = previousMember[q]) {
+            if (dominates(objectives, m, q, p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if solution a dominates solution b (a is not worse in any, and better in at least one objective)
+     *
+     * @param objectives row-major objective values
+     * @param m          amount of objectives
+     * @param a          index of the first solution
+     * @param b          index of the second solution
+     * @return true if a dominates b
+     */
+    public static boolean dominates(double[] objectives, int m, int a, int b) {
+        boolean better = false;
+        int offsetA = a * m;
+        int offsetB = b * m;
+        for (int i = 0; i < m; i++) {
+            double va = objectives[offsetA + i];
+            double vb = objectives[offsetB + i];
+            if (va > vb) {
+                return false;
+            } else if (va < vb) {
+                better = true;
+            }
+        }
+        return better;
+    }
+
+    private static int compareLexicographic(double[] objectives, int m, int a, int b) {
+        int offsetA = a * m;
+        int offsetB = b * m;
+        for (int i = 0; i < m; i++) {
+            int result = Double.compare(objectives[offsetA + i], objectives[offsetB + i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stable merge sort of the first n indices, without boxing
+     *
+     * @param indices    to be sorted
+     * @param n          amount of indices to sort
+     * @param comparator comparison of two indices
+     */
+    static void sortIndices(int[] indices, int n, IndexComparator comparator) {
+        int[] buffer = new int[n];
+        int[] source = indices;
+        int[] target = buffer;
+        for (int width = 1; width < n; width <<= 1) {
+            for (int left = 0; left < n; left += width << 1) {
+                int middle = Math.min(left + width, n);
+                int right = Math.min(left + (width << 1), n);
+                int i = left;
+                int j = middle;
+                int k = left;
+                while (i < middle && j < right) {
+                    target[k++] = comparator.compare(source[j], source[i]) < 0 ? source[j++] : source[i++];
+                }
+                while (i < middle) {
+                    target[k++] = source[i++];
+                }
+                while (j < right) {
+                    target[k++] = source[j++];
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != indices) {
+            System.arraycopy(source, 0, indices, 0, n);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.ga.operator;
+
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.Map;
+
+/**
+ * Adaptive pursuit operator selection. In contrast to {@link ProbabilityMatching} the currently best operator is
+ * pursued: its probability moves towards the maximum probability while all others move towards the minimum
+ * probability. This reacts faster when one operator is clearly superior.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class AdaptivePursuit extends ProbabilityMatching {
+
+    /**
+     * Learning rate (0, 1] with which the probabilities pursue the best operator
+     */
+    private double learningRate = 0.8;
+
+    @Override
+    protected void updateProbabilities(int operator) {
+        int k = probabilities.length;
+        int best = 0;
+        for (int i = 1; i < k; i++) {
+            if (estimates[i] > estimates[best]) {
+                best = i;
+            }
+        }
+        double maximumProbability = 1 - (k - 1) * getMinimumProbability();
+        for (int i = 0; i < k; i++) {
+            double target = i == best ? maximumProbability : getMinimumProbability();
+            probabilities[i] += learningRate * (target - probabilities[i]);
+        }
+    }
+
+    public double getLearningRate() {
+        return learningRate;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param learningRate learning rate of the pursuit in (0, 1]
+     */
+    public void setLearningRate(double learningRate) {
+        if (learningRate <= 0 || learningRate > 1) {
+            throw new IllegalArgumentException("learningRate must be in (0, 1]");
+        }
+        this.learningRate = learningRate;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = super.getOptions();
+        options.put("learningRate", new Descriptor<>(learningRate));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        if (name.equals("learningRate")) {
+            try {
+                setLearningRate((Double) descriptor.getValue());
+            } catch (Exception e) {
+                return false;
+            }
+            return true;
+        }
+        return super.setOption(name, descriptor);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.ga.operator;
+
+/**
+ * Adaptive operator selection (AOS) decides which of several registered variation operators (crossovers and
+ * mutators) is used to create the next offspring. Each operator is credited with the quality improvement it produced,
+ * and the selection shifts towards the operators that are currently productive.
+ * <p>
+ * Operators are identified by their index in the order they were registered.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public interface OperatorSelection {
+
+    /**
+     * (Re-)initializes the selection, forgetting all previously assigned rewards
+     *
+     * @param operatorCount amount of operators to choose from (&gt; 0)
+     */
+    void initialize(int operatorCount);
+
+    /**
+     * Selects the operator that shall be used next
+     *
+     * @return index of the operator
+     */
+    int selectOperator();
+
+    /**
+     * Credits an operator with the reward of an application
+     *
+     * @param operator index of the operator that was applied
+     * @param reward   reward of the application (&gt;= 0, 0 means no improvement)
+     */
+    void reward(int operator, double reward);
+
+    /**
+     * Returns the current probability of each operator to be selected
+     *
+     * @return COPY of the probabilities in order of the operators
+     */
+    double[] getProbabilities();
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.ga.operator;
+
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.options.Descriptor;
+import science.aist.machinelearning.core.util.RandomUtil;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Probability matching operator selection. The quality of each operator is estimated as exponential moving average of
+ * its rewards, and each operator is selected proportional to its estimated quality. Every operator keeps at least the
+ * minimum probability so it can recover when the search enters a phase where it becomes productive again.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ProbabilityMatching implements OperatorSelection, Configurable {
+
+    /**
+     * Estimated quality (average reward) of each operator
+     */
+    protected double[] estimates;
+    /**
+     * Selection probability of each operator
+     */
+    protected double[] probabilities;
+    /**
+     * Minimum probability of each operator. Must be smaller than 1 / operatorCount
+     */
+    private double minimumProbability = 0.05;
+    /**
+     * Adaption rate (0, 1] of the quality estimates. Higher values forget older rewards faster
+     */
+    private double adaptionRate = 0.3;
+
+    @Override
+    public void initialize(int operatorCount) {
+        if (operatorCount <= 0) {
+            throw new IllegalArgumentException("At least one operator is required");
+        }
+        if (operatorCount > 1 && minimumProbability * operatorCount >= 1) {
+            throw new IllegalArgumentException("minimumProbability must be < 1 / " + operatorCount);
+        }
+        estimates = new double[operatorCount];
+        probabilities = new double[operatorCount];
+        Arrays.fill(estimates, 1.0);
+        Arrays.fill(probabilities, 1.0 / operatorCount);
+    }
+
+    @Override
+    public int selectOperator() {
+        double r = RandomUtil.random.nextDouble();
+        double sum = 0;
+        for (int i = 0; i < probabilities.length - 1; i++) {
+            sum += probabilities[i];
+            if (r < sum) {
+                return i;
+            }
+        }
+        return probabilities.length - 1;
+    }
+
+    @Override
+    public void reward(int operator, double reward) {
+        estimates[operator] += adaptionRate * (reward - estimates[operator]);
+        updateProbabilities(operator);
+    }
+
+    /**
+     * Recalculates the probabilities after the estimate of an operator changed
+     *
+     * @param operator operator that was rewarded last
+     */
+    protected void updateProbabilities(int operator) {
+        int k = probabilities.length;
+        double total = 0;
+        for (double estimate : estimates) {
+            total += estimate;
+        }
+        for (int i = 0; i < k; i++) {
+            probabilities[i] = total > 0
+                    ? minimumProbability + (1 - k * minimumProbability) * estimates[i] / total
+                    : 1.0 / k;
+        }
+    }
+
+    @Override
+    public double[] getProbabilities() {
+        return probabilities == null ? new double[0] : Arrays.copyOf(probabilities, probabilities.length);
+    }
+
+    public double getMinimumProbability() {
+        return minimumProbability;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param minimumProbability minimum probability of every operator (must be &lt; 1 / operatorCount)
+     */
+    public void setMinimumProbability(double minimumProbability) {
+        if (minimumProbability < 0 || minimumProbability >= 1) {
+            throw new IllegalArgumentException("minimumProbability must be in [0, 1)");
+        }
+        this.minimumProbability = minimumProbability;
+    }
+
+    public double getAdaptionRate() {
+        return adaptionRate;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param adaptionRate adaption rate of the quality estimates in (0, 1]
+     */
+    public void setAdaptionRate(double adaptionRate) {
+        if (adaptionRate <= 0 || adaptionRate > 1) {
+            throw new IllegalArgumentException("adaptionRate must be in (0, 1]");
+        }
+        this.adaptionRate = adaptionRate;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("minimumProbability", new Descriptor<>(minimumProbability));
+        options.put("adaptionRate", new Descriptor<>(adaptionRate));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "minimumProbability":
+                    setMinimumProbability((Double) descriptor.getValue());
+                    break;
+                case "adaptionRate":
+                    setAdaptionRate((Double) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.ga.operator;
+
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Multi-armed bandit operator selection using the UCB1 policy. Each operator is an arm, the operator with the highest
+ * upper confidence bound (average reward + exploration bonus) is selected. Rewards are averaged over a sliding window,
+ * as operator productivity changes over the course of the search.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class UpperConfidenceBoundSelection implements OperatorSelection, Configurable {
+
+    /**
+     * Scaling of the exploration bonus. Should be in the range of the rewards
+     */
+    private double explorationFactor = 0.5;
+    /**
+     * Amount of most recent applications the reward statistics are calculated on
+     */
+    private int windowSize = 100;
+    /**
+     * Ring buffer of the applied operators
+     */
+    private int[] windowOperators;
+    /**
+     * Ring buffer of the rewards of the applied operators
+     */
+    private double[] windowRewards;
+    /**
+     * Amount of applications in the window
+     */
+    private int windowFill;
+    /**
+     * Position of the next application in the window
+     */
+    private int windowPosition;
+    /**
+     * Applications of each operator in the window
+     */
+    private int[] counts;
+    /**
+     * Sum of rewards of each operator in the window
+     */
+    private double[] rewardSums;
+
+    @Override
+    public void initialize(int operatorCount) {
+        if (operatorCount <= 0) {
+            throw new IllegalArgumentException("At least one operator is required");
+        }
+        windowOperators = new int[windowSize];
+        windowRewards = new double[windowSize];
+        windowFill = 0;
+        windowPosition = 0;
+        counts = new int[operatorCount];
+        rewardSums = new double[operatorCount];
+    }
+
+    @Override
+    public int selectOperator() {
+        int best = 0;
+        double bestBound = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                // every operator must be tried at least once
+                return i;
+            }
+            double bound = rewardSums[i] / counts[i] + explorationFactor * Math.sqrt(2 * Math.log(windowFill) / counts[i]);
+            if (bound > bestBound) {
+                bestBound = bound;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void reward(int operator, double reward) {
+        if (windowFill == windowSize) {
+            // evict the oldest application
+            counts[windowOperators[windowPosition]]--;
+            rewardSums[windowOperators[windowPosition]] -= windowRewards[windowPosition];
+        } else {
+            windowFill++;
+        }
+        windowOperators[windowPosition] = operator;
+        windowRewards[windowPosition] = reward;
+        windowPosition = (windowPosition + 1) % windowSize;
+        counts[operator]++;
+        rewardSums[operator] += reward;
+    }
+
+    /**
+     * UCB1 is deterministic, so the probabilities are the relative application frequencies in the current window
+     *
+     * @return relative frequency of each operator in the window
+     */
+    @Override
+    public double[] getProbabilities() {
+        if (counts == null) {
+            return new double[0];
+        }
+        double[] probabilities = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            probabilities[i] = windowFill == 0 ? 1.0 / counts.length : (double) counts[i] / windowFill;
+        }
+        return probabilities;
+    }
+
+    public double getExplorationFactor() {
+        return explorationFactor;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param explorationFactor scaling of the exploration bonus (&gt;= 0)
+     */
+    public void setExplorationFactor(double explorationFactor) {
+        if (explorationFactor < 0) {
+            throw new IllegalArgumentException("explorationFactor must be >= 0");
+        }
+        this.explorationFactor = explorationFactor;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Setter for configuration. Takes effect on the next {@link #initialize(int)}
+     *
+     * @param windowSize amount of most recent applications that are considered (&gt; 0)
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be > 0");
+        }
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("explorationFactor", new Descriptor<>(explorationFactor));
+        options.put("windowSize", new Descriptor<>(windowSize));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "explorationFactor":
+                    setExplorationFactor((Double) descriptor.getValue());
+                    break;
+                case "windowSize":
+                    setWindowSize((Integer) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.ga.selector;
+
+import org.apache.log4j.Logger;
+import science.aist.machinelearning.algorithm.ga.Selector;
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Variant of the {@link TournamentSelector} that is safe to use from parallel breeding and does not allocate per
+ * tournament.
+ * <p>
+ * The selector works on a primitive snapshot of the qualities (see {@link #snapshot(List)}) and returns indices into
+ * the population. Participants are drawn WITHOUT replacement with a partial Fisher-Yates shuffle on a per-thread index
+ * buffer. The swaps are undone after every tournament, so the buffer stays the identity permutation and a tournament
+ * costs O(tournamentSize) instead of O(population). If the tournament is larger than the population every solution
+ * participates, so the best one wins.
+ * <p>
+ * The random generator is passed by the caller (one per thread), by default {@link ThreadLocalRandom} is used. The
+ * selector itself holds no mutable shared state apart from the thread local buffers.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class SnapshotTournamentSelector<GT, PT> implements Selector<GT, PT>, Configurable {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = Logger.getLogger(SnapshotTournamentSelector.class);
+
+    /**
+     * Index buffers of every thread
+     */
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private int tournamentSize = 2;
+
+    /**
+     * Copies the qualities of the population into an array. The population is iterated once, so this is also cheap for
+     * lists without random access.
+     *
+     * @param population to be snapshot
+     * @return quality of every solution in the order of the population
+     */
+    public static double[] snapshot(List<? extends Solution<?, ?>> population) {
+        double[] qualities = new double[population.size()];
+        int i = 0;
+        for (Solution<?, ?> solution : population) {
+            qualities[i++] = solution.getQuality();
+        }
+        return qualities;
+    }
+
+    @Override
+    public Solution<GT, PT> select(List<Solution<GT, PT>> population) {
+        if (population == null || population.size() == 0) {
+            return null;
+        }
+        if (!(population instanceof RandomAccess)) {
+            population = new ArrayList<>(population);
+        }
+
+        logger.trace("Starting tournament selection");
+        int populationSize = population.size();
+        int size = Math.min(tournamentSize, populationSize);
+        int best = 0;
+        if (size >= populationSize) {
+            for (int i = 1; i < populationSize; i++) {
+                if (population.get(i).getQuality() < population.get(best).getQuality()) {
+                    best = i;
+                }
+            }
+        } else {
+            Buffers buffers = this.buffers.get().ensure(populationSize, size);
+            Random random = ThreadLocalRandom.current();
+            best = buffers.draw(0, populationSize, random);
+            for (int i = 1; i < size; i++) {
+                int candidate = buffers.draw(i, populationSize, random);
+                if (population.get(candidate).getQuality() < population.get(best).getQuality()) {
+                    best = candidate;
+                }
+            }
+            buffers.restore(size);
+        }
+        logger.trace("Finished tournament selection");
+        return population.get(best);
+    }
+
+    /**
+     * Holds one tournament with the random generator of the current thread
+     *
+     * @param qualities snapshot of the population
+     * @return index of the winner, or -1 if the population is empty
+     */
+    public int selectIndex(double[] qualities) {
+        return selectIndex(qualities, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Holds one tournament
+     *
+     * @param qualities snapshot of the population
+     * @param random    generator owned by the calling thread
+     * @return index of the winner, or -1 if the population is empty
+     */
+    public int selectIndex(double[] qualities, Random random) {
+        if (qualities == null || qualities.length == 0) {
+            return -1;
+        }
+        return tournament(qualities, random);
+    }
+
+    /**
+     * Holds n tournaments with the random generator of the current thread
+     *
+     * @param qualities snapshot of the population
+     * @param n         amount of tournaments, e.g. the size of the mating pool
+     * @return index of the winner of every tournament
+     */
+    public int[] selectMany(double[] qualities, int n) {
+        return selectMany(qualities, n, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Holds n tournaments, e.g. to select the whole mating pool of a generation at once
+     *
+     * @param qualities snapshot of the population
+     * @param n         amount of tournaments
+     * @param random    generator owned by the calling thread
+     * @return index of the winner of every tournament
+     */
+    public int[] selectMany(double[] qualities, int n, Random random) {
+        if (qualities == null || qualities.length == 0) {
+            throw new IllegalArgumentException("Can't select from an empty population");
+        }
+        int[] winners = new int[n];
+        for (int i = 0; i < n; i++) {
+            winners[i] = tournament(qualities, random);
+        }
+        return winners;
+    }
+
+    /**
+     * Draws min(tournamentSize, populationSize) distinct participants and returns the best. Ties are won by the
+     * participant drawn first.
+     *
+     * @param qualities snapshot of the population
+     * @param random    generator owned by the calling thread
+     * @return index of the winner
+     */
+    private int tournament(double[] qualities, Random random) {
+        int populationSize = qualities.length;
+        int size = Math.min(tournamentSize, populationSize);
+        if (size >= populationSize) {
+            int best = 0;
+            for (int i = 1; i < populationSize; i++) {
+                if (qualities[i] < qualities[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        Buffers buffers = this.buffers.get().ensure(populationSize, size);
+        int best = buffers.draw(0, populationSize, random);
+        for (int i = 1; i < size; i++) {
+            int candidate = buffers.draw(i, populationSize, random);
+            if (qualities[candidate] < qualities[best]) {
+                best = candidate;
+            }
+        }
+        buffers.restore(size);
+        return best;
+    }
+
+    public int getTournamentSize() {
+        return tournamentSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param tournamentSize amount of participants, values larger than the population select the best solution
+     */
+    public void setTournamentSize(int tournamentSize) {
+        if (tournamentSize <= 0) {
+            throw new IllegalArgumentException("tournament size must be > 0");
+        }
+        this.tournamentSize = tournamentSize;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("tournamentSize", new Descriptor<>(tournamentSize));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            if (name.equals("tournamentSize")) {
+                setTournamentSize((Integer) descriptor.getValue());
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reusable buffers of one thread
+     */
+    private static final class Buffers {
+
+        /**
+         * Identity permutation of the population indices, only permuted during a tournament
+         */
+        private int[] indices = new int[0];
+
+        /**
+         * Positions swapped during the current tournament
+         */
+        private int[] swaps = new int[0];
+
+        /**
+         * Grows the buffers if necessary
+         *
+         * @param populationSize amount of solutions
+         * @param tournamentSize amount of participants
+         * @return this
+         */
+        private Buffers ensure(int populationSize, int tournamentSize) {
+            if (indices.length < populationSize) {
+                int old = indices.length;
+                indices = Arrays.copyOf(indices, populationSize);
+                for (int i = old; i < populationSize; i++) {
+                    indices[i] = i;
+                }
+            }
+            if (swaps.length < tournamentSize) {
+                swaps = new int[tournamentSize];
+            }
+            return this;
+        }
+
+        /**
+         * Draws the i-th participant of a tournament (one step of a partial Fisher-Yates shuffle)
+         *
+         * @param i              amount of participants drawn so far
+         * @param populationSize amount of solutions
+         * @param random         generator owned by the calling thread
+         * @return index of the participant
+         */
+        private int draw(int i, int populationSize, Random random) {
+            int j = i + random.nextInt(populationSize - i);
+            int candidate = indices[j];
+            indices[j] = indices[i];
+            indices[i] = candidate;
+            swaps[i] = j;
+            return candidate;
+        }
+
+        /**
+         * Restores the identity permutation after a tournament, only the swapped positions were touched
+         *
+         * @param size amount of participants drawn
+         */
+        private void restore(int size) {
+            for (int i = 0; i < size; i++) {
+                indices[i] = i;
+                indices[swaps[i]] = swaps[i];
+            }
+        }
+    }
+}
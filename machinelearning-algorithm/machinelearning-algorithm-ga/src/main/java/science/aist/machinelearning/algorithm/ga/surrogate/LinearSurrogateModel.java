@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.ga.surrogate;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.options.Descriptor;
+import science.aist.machinelearning.core.surrogate.SolutionToVector;
+import science.aist.machinelearning.core.surrogate.SurrogateModel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lightweight surrogate that fits a ridge regression (linear least squares with L2 regularization) on the feature
+ * vectors produced by a {@link SolutionToVector}. The archive is a bounded ring buffer, so the model always learns from
+ * the most recent {@link #archiveSize} evaluations.
+ * <p>
+ * Training solves the normal equations (X^T X + lambda I) w = X^T y with a Cholesky decomposition, which costs
+ * O(archiveSize * d^2 + d^3) for d features. This is negligible compared to an evaluator that needs seconds.
+ *
+ * @param <GT> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class LinearSurrogateModel<GT, PT> implements SurrogateModel<GT, PT>, Configurable {
+
+    /**
+     * Maps the solution to the features the regression is trained on
+     */
+    private SolutionToVector<GT, PT> solutionToVector;
+    /**
+     * Maximum amount of samples kept for training
+     */
+    private int archiveSize = 500;
+    /**
+     * L2 regularization factor (avoids singular systems when features are constant)
+     */
+    private double regularization = 1e-3;
+    /**
+     * Features of archived samples, row-major with featureCount columns
+     */
+    private double[] features;
+    /**
+     * Real quality of archived samples
+     */
+    private double[] qualities;
+    /**
+     * Amount of features per sample, known after the first sample
+     */
+    private int featureCount = -1;
+    /**
+     * Amount of samples currently in the archive
+     */
+    private int sampleCount = 0;
+    /**
+     * Position where the next sample will be written into the ring buffer
+     */
+    private int nextSample = 0;
+    /**
+     * Weights of the regression. Index 0 is the intercept
+     */
+    private double[] weights;
+
+    @Override
+    public void addSample(Solution<GT, PT> solution) {
+        double[] vector = solutionToVector.mapSolutionToVector(solution);
+        if (featureCount < 0) {
+            featureCount = vector.length;
+            features = new double[archiveSize * featureCount];
+            qualities = new double[archiveSize];
+        } else if (vector.length != featureCount) {
+            throw new IllegalArgumentException("All feature vectors must have the same length (" + featureCount + ") but got " + vector.length);
+        }
+
+        System.arraycopy(vector, 0, features, nextSample * featureCount, featureCount);
+        qualities[nextSample] = solution.getQuality();
+        nextSample = (nextSample + 1) % archiveSize;
+        sampleCount = Math.min(sampleCount + 1, archiveSize);
+    }
+
+    @Override
+    public void train() {
+        if (sampleCount == 0) {
+            return;
+        }
+        int d = featureCount + 1;
+
+        // build the normal equations, only the lower triangle is needed for cholesky
+        double[] xtx = new double[d * d];
+        double[] xty = new double[d];
+        double[] row = new double[d];
+        row[0] = 1;
+        for (int s = 0; s < sampleCount; s++) {
+            System.arraycopy(features, s * featureCount, row, 1, featureCount);
+            double y = qualities[s];
+            for (int i = 0; i < d; i++) {
+                double ri = row[i];
+                xty[i] += ri * y;
+                int offset = i * d;
+                for (int j = 0; j <= i; j++) {
+                    xtx[offset + j] += ri * row[j];
+                }
+            }
+        }
+        // do not regularize the intercept
+        for (int i = 1; i < d; i++) {
+            xtx[i * d + i] += regularization * sampleCount;
+        }
+
+        weights = choleskySolve(xtx, xty, d);
+    }
+
+    /**
+     * Solves A x = b for a symmetric positive definite A of which only the lower triangle is set. A is overwritten with
+     * its cholesky factor.
+     *
+     * @param a lower triangle of the matrix, row-major
+     * @param b right hand side
+     * @param n dimension
+     * @return x
+     */
+    private static double[] choleskySolve(double[] a, double[] b, int n) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = a[i * n + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= a[i * n + k] * a[j * n + k];
+                }
+                if (i == j) {
+                    // guard against numerically semi-definite systems
+                    a[i * n + i] = Math.sqrt(Math.max(sum, 1e-12));
+                } else {
+                    a[i * n + j] = sum / a[j * n + j];
+                }
+            }
+        }
+
+        // forward substitution L y = b
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= a[i * n + k] * x[k];
+            }
+            x[i] = sum / a[i * n + i];
+        }
+        // backward substitution L^T x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= a[k * n + i] * x[k];
+            }
+            x[i] = sum / a[i * n + i];
+        }
+        return x;
+    }
+
+    @Override
+    public boolean isTrained() {
+        return weights != null;
+    }
+
+    @Override
+    public double predictQuality(Solution<GT, PT> solution) {
+        if (!isTrained()) {
+            throw new IllegalStateException("Surrogate has first to be trained via train() function");
+        }
+        double[] vector = solutionToVector.mapSolutionToVector(solution);
+        double prediction = weights[0];
+        for (int i = 0; i < featureCount; i++) {
+            prediction += weights[i + 1] * vector[i];
+        }
+        return prediction;
+    }
+
+    @Override
+    public void reset() {
+        features = null;
+        qualities = null;
+        featureCount = -1;
+        sampleCount = 0;
+        nextSample = 0;
+        weights = null;
+    }
+
+    @Override
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public SolutionToVector<GT, PT> getSolutionToVector() {
+        return solutionToVector;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param solutionToVector maps solutions to the features
+     */
+    @Required
+    public void setSolutionToVector(SolutionToVector<GT, PT> solutionToVector) {
+        this.solutionToVector = solutionToVector;
+    }
+
+    public int getArchiveSize() {
+        return archiveSize;
+    }
+
+    /**
+     * Setter for configuration. Must be called before the first sample is added.
+     *
+     * @param archiveSize maximum amount of samples kept for training
+     */
+    public void setArchiveSize(int archiveSize) {
+        if (archiveSize <= 0) {
+            throw new IllegalArgumentException("archive size must be > 0");
+        }
+        if (sampleCount > 0) {
+            throw new IllegalStateException("archive size can't be changed after samples were added");
+        }
+        this.archiveSize = archiveSize;
+    }
+
+    public double getRegularization() {
+        return regularization;
+    }
+
+    public void setRegularization(double regularization) {
+        this.regularization = regularization;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("solutionToVector", new Descriptor<>(solutionToVector));
+        options.put("archiveSize", new Descriptor<>(archiveSize));
+        options.put("regularization", new Descriptor<>(regularization));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "solutionToVector":
+                    setSolutionToVector((SolutionToVector<GT, PT>) descriptor.getValue());
+                    break;
+                case "archiveSize":
+                    setArchiveSize((Integer) descriptor.getValue());
+                    break;
+                case "regularization":
+                    setRegularization((Double) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -17,10 +17,15 @@ import science.aist.machinelearning.core.options.Descriptor;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Does a mutator-operation using the given solution.
+ * <p>
+ * With more than one neighbour, the node creates that many neighbours via {@link Mutator#neighbours(Solution, int)},
+ * evaluates them as one batch and returns the best one if it is better than the given solution. This requires the
+ * evaluator, without one the node falls back to a single mutation.
  *
  * @author Daniel Wilfing
  * @since 1.0
@@ -31,6 +36,11 @@ public class MutatorNode extends FunctionalGPGraphNode<Solution> {
 
     private Evaluator evaluator = null;
 
+    /**
+     * Amount of neighbours created per execution, 1 uses {@link Mutator#mutate(Solution)}
+     */
+    private Integer neighbours = 1;
+
     @Override
     public boolean checkValidity() {
         return getChildNodes().size() == 1 &&
@@ -55,11 +65,23 @@ public class MutatorNode extends FunctionalGPGraphNode<Solution> {
             return null;
         }
 
-        if (solution.getQuality() == 0.0) {
+        if (evaluator != null && solution.getQuality() == 0.0) {
             evaluator.evaluateQuality(solution);
         }
 
-        return getMutator().mutate(solution);
+        if (neighbours <= 1 || evaluator == null) {
+            return getMutator().mutate(solution);
+        }
+
+        List<Solution> candidates = getMutator().neighbours(solution, neighbours);
+        evaluator.evaluateQualities(candidates);
+        Solution best = solution;
+        for (Solution candidate : candidates) {
+            if (candidate.getQuality() < best.getQuality()) {
+                best = candidate;
+            }
+        }
+        return best;
     }
 
     @Override
@@ -73,6 +95,10 @@ public class MutatorNode extends FunctionalGPGraphNode<Solution> {
 
         options.put("evaluator", new Descriptor<>(evaluator));
         options.put("mutator", new Descriptor<>(mutator));
+        // the neighbourhood is only relevant (and only offered to experiments) if the node can evaluate it
+        if (evaluator != null) {
+            options.put("neighbours", new Descriptor<>(neighbours));
+        }
 
         return options;
     }
@@ -84,6 +110,8 @@ public class MutatorNode extends FunctionalGPGraphNode<Solution> {
                 setEvaluator((Evaluator) descriptor.getValue());
             } else if (name.equals("mutator")) {
                 setMutator((Mutator) descriptor.getValue());
+            } else if (name.equals("neighbours")) {
+                setNeighbours((Integer) descriptor.getValue());
             }
         } catch (Exception e) {
             return false;
@@ -99,7 +127,25 @@ public class MutatorNode extends FunctionalGPGraphNode<Solution> {
         this.mutator = mutator;
     }
 
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
     public void setEvaluator(Evaluator evaluator) {
         this.evaluator = evaluator;
     }
+
+    public Integer getNeighbours() {
+        return neighbours;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param neighbours amount of neighbours created and evaluated as batch per execution (1 = single mutation). Only
+     *                   used if the node has an evaluator.
+     */
+    public void setNeighbours(Integer neighbours) {
+        this.neighbours = neighbours;
+    }
 }
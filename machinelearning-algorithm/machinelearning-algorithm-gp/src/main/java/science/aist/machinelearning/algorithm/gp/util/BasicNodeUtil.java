@@ -355,7 +355,12 @@ public class BasicNodeUtil {
                     int max = whileCollectionNode.getMaxIterations();
                     return max * solutionsCreatedByGraph(children.get(1));
                 }
-            } else if (node instanceof MutatorNode || node instanceof CrossoverNode) {
+            } else if (node instanceof MutatorNode) {
+                // neighbours are only created if the node can evaluate them, otherwise it mutates once
+                MutatorNode mutatorNode = (MutatorNode) node;
+                int created = mutatorNode.getEvaluator() != null ? Math.max(1, mutatorNode.getNeighbours()) : 1;
+                return created + solutionsCreatedByGraph(children.get(0));
+            } else if (node instanceof CrossoverNode) {
                 return 1 + solutionsCreatedByGraph(children.get(0));
             } else {
                 int solutions = 0;
@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.ils;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.mutation.Mutator;
+import science.aist.machinelearning.core.AbstractAlgorithm;
+import science.aist.machinelearning.core.Algorithm;
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.Evaluator;
+import science.aist.machinelearning.core.mapping.SolutionCreator;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multi-start variant of the {@link IterativeLocalSearchAlgorithm}. Runs several independent kick / search trajectories
+ * on separate threads. Every trajectory works with its own deep copy of the search algorithm, kick mutator, evaluator and
+ * solution creator: every member that is {@link Configurable} and has a public default constructor is re-created through
+ * its options, including the members it holds in its options (e.g. the mutator and evaluator of a local search). A
+ * member that is used in several places is copied once per trajectory, so the copies are wired like the originals.
+ * Members that can't be copied this way (e.g. cachet evaluators, which are not configurable) are shared between all
+ * trajectories and must be thread safe.
+ * <p>
+ * The best solution of all trajectories is shared through an atomic reference. Additionally the best solutions are kept
+ * in a small elite pool: a trajectory that did not improve for stagnationLimit generations restarts from a random elite
+ * solution instead of wasting its remaining generations.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ParallelIterativeLocalSearchAlgorithm<GT, PT> extends AbstractAlgorithm<GT, PT> {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = Logger.getLogger(ParallelIterativeLocalSearchAlgorithm.class);
+    private final Random r = new Random();
+    /**
+     * Mutation strategy for kicking the solution of a trajectory
+     */
+    private Mutator<GT, PT> mutator;
+    /**
+     * Termination Criteria on how many generations each trajectory may run
+     */
+    private int maximumGenerations;
+    /**
+     * search algorithm, that takes care of the underlying search. Each trajectory uses a copy of it
+     */
+    private Algorithm<GT, PT> searchAlgorithm;
+    /**
+     * Amount of trajectories that are run in parallel
+     */
+    private int trajectories = Runtime.getRuntime().availableProcessors();
+    /**
+     * Amount of generations without improvement after which a trajectory restarts from an elite solution (0 = never)
+     */
+    private int stagnationLimit = 0;
+    /**
+     * Amount of solutions kept in the elite pool
+     */
+    private int eliteSize = 5;
+    /**
+     * Best solution of all trajectories
+     */
+    private final AtomicReference<Solution<GT, PT>> globalBest = new AtomicReference<>();
+    /**
+     * Best solutions found by all trajectories, ordered by quality
+     */
+    private final List<Solution<GT, PT>> elites = new ArrayList<>();
+    /**
+     * Amount of restarts from elite solutions over all trajectories
+     */
+    private final AtomicInteger restarts = new AtomicInteger();
+    /**
+     * Best quality of each trajectory of the last run
+     */
+    private List<Double> trajectoryQualities = new ArrayList<>();
+
+    @Override
+    public Solution<GT, PT> solve(Problem<PT> problem) {
+
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().size() == 0) {
+            return null;
+        }
+
+        Solution<GT, PT> bestSolution = getSolutionCreator().createSolution(problem);
+        getEvaluator().evaluateQuality(bestSolution);
+
+        return solve(problem, bestSolution);
+    }
+
+    @Override
+    public Solution<GT, PT> solve(Problem<PT> problem, Solution<GT, PT> bestSolution) {
+
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().size() == 0 || bestSolution == null) {
+            return null;
+        }
+
+        writeStartAnalyticsData(problem);
+        if (bestSolution.getCachets().isEmpty()) {
+            getEvaluator().evaluateQuality(bestSolution);
+        }
+        globalBest.set(bestSolution);
+        synchronized (elites) {
+            elites.clear();
+        }
+        restarts.set(0);
+
+        // the first trajectory continues from the given solution, all others start from a new one
+        ExecutorService executor = Executors.newFixedThreadPool(trajectories, runnable -> {
+            Thread thread = new Thread(runnable, "parallel-ils");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<Solution<GT, PT>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < trajectories; i++) {
+                final boolean continueGiven = i == 0;
+                results.add(executor.submit(() -> runTrajectory(problem, continueGiven ? bestSolution : null)));
+            }
+            List<Double> qualities = new ArrayList<>();
+            for (Future<Solution<GT, PT>> result : results) {
+                qualities.add(result.get().getQuality());
+            }
+            trajectoryQualities = qualities;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for the trajectories", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Trajectory failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Solution<GT, PT> best = globalBest.get();
+        writeEndAnalyticsData(problem, best);
+        return best;
+    }
+
+    /**
+     * Runs a single kick / search trajectory
+     *
+     * @param problem to be solved
+     * @param start   solution to start from, or null to create one
+     * @return best solution of the trajectory
+     */
+    private Solution<GT, PT> runTrajectory(Problem<PT> problem, Solution<GT, PT> start) {
+        // members shared by the originals (e.g. the evaluator) are shared by the copies of this trajectory as well
+        Map<Object, Object> copies = new IdentityHashMap<>();
+        Algorithm<GT, PT> search = copySearchAlgorithm(copies);
+        Mutator<GT, PT> kick = copy(mutator, copies);
+        Evaluator<GT, PT> evaluator = copy(getEvaluator(), copies);
+        SolutionCreator<GT, PT> solutionCreator = copy(getSolutionCreator(), copies);
+
+        Solution<GT, PT> current = start;
+        if (current == null) {
+            current = solutionCreator.createSolution(problem);
+            evaluator.evaluateQuality(current);
+        }
+        offer(current);
+        Solution<GT, PT> best = current;
+
+        int stagnation = 0;
+        for (int i = 0; i < getMaximumGenerations(); i++) {
+            //Kick
+            Solution<GT, PT> newSolution = kick.mutate(current);
+
+            //local search
+            newSolution = search.solve(problem, newSolution);
+            // the solution may share its cachet list with others, so it gets its own before it is evaluated again
+            newSolution.setCachets(new ArrayList<>());
+            evaluator.evaluateQuality(newSolution);
+
+            if (newSolution.getQuality() < current.getQuality()) {
+                current = newSolution;
+                stagnation = 0;
+                offer(current);
+                if (current.getQuality() < best.getQuality()) {
+                    best = current;
+                }
+            } else if (stagnationLimit > 0 && ++stagnation >= stagnationLimit) {
+                Solution<GT, PT> elite = randomElite();
+                if (elite != null) {
+                    current = elite;
+                    restarts.incrementAndGet();
+                }
+                stagnation = 0;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Offers a solution to the global best and the elite pool
+     *
+     * @param solution evaluated solution
+     */
+    private void offer(Solution<GT, PT> solution) {
+        globalBest.accumulateAndGet(solution, (a, b) -> b.getQuality() < a.getQuality() ? b : a);
+        synchronized (elites) {
+            if (elites.size() >= eliteSize && solution.getQuality() >= elites.get(elites.size() - 1).getQuality()) {
+                return;
+            }
+            int index = 0;
+            while (index < elites.size() && elites.get(index).getQuality() <= solution.getQuality()) {
+                index++;
+            }
+            elites.add(index, solution);
+            if (elites.size() > eliteSize) {
+                elites.remove(elites.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * @return copy of a random elite solution, or null if there is none
+     */
+    private Solution<GT, PT> randomElite() {
+        Solution<GT, PT> elite;
+        synchronized (elites) {
+            if (elites.isEmpty()) {
+                return null;
+            }
+            elite = elites.get(r.nextInt(elites.size()));
+        }
+        Solution<GT, PT> copy = new Solution<>(elite);
+        copy.setCachets(new ArrayList<>(elite.getCachets()));
+        return copy;
+    }
+
+    /**
+     * Creates a deep copy of the search algorithm, so every trajectory has its own state
+     *
+     * @param copies originals and their copies of the trajectory
+     * @return copy of the search algorithm
+     */
+    protected Algorithm<GT, PT> copySearchAlgorithm(Map<Object, Object> copies) {
+        try {
+            searchAlgorithm.getClass().getConstructor();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Search algorithm " + searchAlgorithm.getClass().getName() + " needs a public default constructor", e);
+        }
+        return copy(searchAlgorithm, copies);
+    }
+
+    /**
+     * Creates a deep copy of a {@link Configurable} member by creating a new instance and setting copies of all its
+     * options. Members that are not configurable or have no public default constructor are returned as they are.
+     *
+     * @param original member to copy
+     * @param copies   originals and their copies of the trajectory, so a member used several times is copied once
+     * @param <T>      type of the member
+     * @return copy of the member, or the member itself if it can't be copied
+     */
+    protected <T> T copy(T original, Map<Object, Object> copies) {
+        if (!(original instanceof Configurable)) {
+            return original;
+        }
+        if (copies.containsKey(original)) {
+            return (T) copies.get(original);
+        }
+        Configurable copy;
+        try {
+            copy = (Configurable) original.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            copies.put(original, original);
+            return original;
+        }
+        copies.put(original, copy);
+        // set every option on its own, so one option that can't be set does not prevent the others
+        ((Configurable) original).getOptions().forEach((name, descriptor) -> {
+            Object value = descriptor.getValue();
+            Object valueCopy = copy(value, copies);
+            copy.setOption(name, valueCopy == value ? descriptor : new Descriptor<>(valueCopy));
+        });
+        if (copy instanceof Algorithm) {
+            // analytics are not thread safe
+            ((Algorithm<?, ?>) copy).setAnalytics(null);
+        }
+        return (T) copy;
+    }
+
+    /**
+     * Writes the analyticsData for the begin of a new file.
+     *
+     * @param problem problemData for the analytics
+     */
+    private void writeStartAnalyticsData(Problem<PT> problem) {
+        if (getAnalytics() != null) {
+            getAnalytics().startAnalytics();
+            getAnalytics().logParam("problemSize", problem.getProblemSize());
+            getAnalytics().logParam("kickmutator", getMutator().getClass().getName());
+            getAnalytics().logParam("searchAlgorithm", getSearchAlgorithm().getClass().getName());
+            getAnalytics().logParam("creator", getSolutionCreator().getClass().getName());
+            getAnalytics().logParam("maximumGenerations", String.valueOf(getMaximumGenerations()));
+            getAnalytics().logParam("trajectories", String.valueOf(getTrajectories()));
+            getAnalytics().logParam("stagnationLimit", String.valueOf(getStagnationLimit()));
+            List<String> headers = new ArrayList<>();
+            headers.add("trajectory best quality");
+            getAnalytics().logAlgorithmStepHeaders(headers);
+        }
+    }
+
+    /**
+     * Writes the analyticsData for the end of a new file.
+     *
+     * @param problem      problemData for the analytics
+     * @param bestSolution result of the search algorithm
+     */
+    private void writeEndAnalyticsData(Problem<PT> problem, Solution<GT, PT> bestSolution) {
+        if (getAnalytics() != null) {
+            for (Double quality : trajectoryQualities) {
+                getAnalytics().logAlgorithmStep(Collections.singletonList(String.valueOf(quality)));
+            }
+            getAnalytics().logProblem(problem);
+            getAnalytics().logSolution(bestSolution);
+            getAnalytics().finishAnalytics();
+        }
+    }
+
+    /**
+     * @return best quality of each trajectory of the last run
+     */
+    public List<Double> getTrajectoryQualities() {
+        return trajectoryQualities;
+    }
+
+    /**
+     * @return amount of restarts from elite solutions in the last run
+     */
+    public int getRestarts() {
+        return restarts.get();
+    }
+
+    public int getMaximumGenerations() {
+        return maximumGenerations;
+    }
+
+    @Required
+    public void setMaximumGenerations(int maximumGenerations) {
+        this.maximumGenerations = maximumGenerations;
+    }
+
+    public Mutator<GT, PT> getMutator() {
+        return mutator;
+    }
+
+    public void setMutator(Mutator<GT, PT> mutator) {
+        this.mutator = mutator;
+    }
+
+    public Algorithm<GT, PT> getSearchAlgorithm() {
+        return searchAlgorithm;
+    }
+
+    @Required
+    public void setSearchAlgorithm(Algorithm<GT, PT> searchAlgorithm) {
+        this.searchAlgorithm = searchAlgorithm;
+    }
+
+    public int getTrajectories() {
+        return trajectories;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param trajectories amount of trajectories (and threads) that run in parallel
+     */
+    public void setTrajectories(int trajectories) {
+        if (trajectories <= 0) {
+            throw new IllegalArgumentException("at least one trajectory is required");
+        }
+        this.trajectories = trajectories;
+    }
+
+    public int getStagnationLimit() {
+        return stagnationLimit;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param stagnationLimit generations without improvement before a trajectory restarts from an elite (0 = never)
+     */
+    public void setStagnationLimit(int stagnationLimit) {
+        this.stagnationLimit = stagnationLimit;
+    }
+
+    public int getEliteSize() {
+        return eliteSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param eliteSize amount of solutions kept as restart points
+     */
+    public void setEliteSize(int eliteSize) {
+        this.eliteSize = eliteSize;
+    }
+
+    @Override
+    protected Map<String, Descriptor> getSpecificOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+
+        options.put("mutator", new Descriptor<>(mutator));
+        options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
+        options.put("searchAlgorithm", new Descriptor<>(searchAlgorithm));
+        options.put("trajectories", new Descriptor<>(trajectories));
+        options.put("stagnationLimit", new Descriptor<>(stagnationLimit));
+        // the elite pool is only used for restarts
+        if (stagnationLimit > 0) {
+            options.put("eliteSize", new Descriptor<>(eliteSize));
+        }
+
+        return options;
+    }
+
+    @Override
+    protected boolean setSpecificOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "mutator":
+                    setMutator((Mutator<GT, PT>) descriptor.getValue());
+                    break;
+                case "maximumGenerations":
+                    setMaximumGenerations((Integer) descriptor.getValue());
+                    break;
+                case "searchAlgorithm":
+                    setSearchAlgorithm((Algorithm<GT, PT>) descriptor.getValue());
+                    break;
+                case "trajectories":
+                    setTrajectories((Integer) descriptor.getValue());
+                    break;
+                case "stagnationLimit":
+                    setStagnationLimit((Integer) descriptor.getValue());
+                    break;
+                case "eliteSize":
+                    setEliteSize((Integer) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
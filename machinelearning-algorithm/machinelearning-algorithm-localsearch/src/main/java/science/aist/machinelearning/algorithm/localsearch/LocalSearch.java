@@ -10,20 +10,34 @@
 package science.aist.machinelearning.algorithm.localsearch;
 
 
+import science.aist.machinelearning.algorithm.mutation.EvaluatingMutator;
+import science.aist.machinelearning.algorithm.mutation.MoveMutator;
 import science.aist.machinelearning.algorithm.mutation.Mutator;
+import science.aist.machinelearning.algorithm.mutation.UndoLog;
 import science.aist.machinelearning.core.AbstractAlgorithm;
 import science.aist.machinelearning.core.Problem;
 import science.aist.machinelearning.core.Solution;
 import science.aist.machinelearning.core.analytics.Analytics;
+import science.aist.machinelearning.core.fitness.Evaluator;
 import science.aist.machinelearning.core.options.Descriptor;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Iterative local search, that constantly mutates a mapping and takes the better mapping for further search.
+ * <p>
+ * If the mutator is a {@link MoveMutator} the search works on a single copy of the given solution: each move is applied
+ * in place, evaluated, and reverted via an {@link UndoLog} if it did not improve the solution.
+ * <p>
+ * Moves and neighbours are scored by the evaluator of the mutator (as {@link Mutator#mutate(Solution)} would), the
+ * evaluator of the local search is only used if the mutator has none.
+ * <p>
+ * With a neighbourhoodSize larger than 1 (or the adaptive neighbourhood) every step creates that many neighbours of the
+ * current solution, evaluates them concurrently and accepts the best one if it improves the current solution (best
+ * improvement). The adaptive neighbourhood doubles the size after every step without improvement (up to
+ * maximumNeighbourhoodSize) and halves it again after an improvement, so more cores are used when improvements become
+ * rare. The neighbours are created through {@link Mutator#neighbours(Solution, int)}. With batchEvaluation they are
+ * handed to the evaluator as one batch instead (e.g. for a distributed evaluator).
  *
  * @author Daniel Wilfing
  * @since 1.0
@@ -36,6 +50,33 @@ public class LocalSearch<ST, PT> extends AbstractAlgorithm<ST, PT> {
 
     protected Integer currentGeneration = 0;
 
+    /**
+     * Amount of neighbours evaluated (in parallel) per step. 1 is a first improvement random walk
+     */
+    protected Integer neighbourhoodSize = 1;
+
+    /**
+     * If the neighbourhood size should adapt to how often improvements are found
+     */
+    protected Boolean adaptiveNeighbourhood = false;
+
+    /**
+     * Upper limit of the adaptive neighbourhood size
+     */
+    protected Integer maximumNeighbourhoodSize = 64;
+
+    /**
+     * Neighbourhood size used in the last step
+     */
+    protected int currentNeighbourhoodSize = 1;
+
+    /**
+     * If each neighbourhood is handed to the evaluator as one batch (see {@link
+     * science.aist.machinelearning.core.fitness.Evaluator#evaluateQualities(List)}) instead of being evaluated
+     * concurrently
+     */
+    protected Boolean batchEvaluation = false;
+
     private void analyticsStep(Solution<ST, PT> bestSolution) {
         if (getAnalytics() != null) {
             List<String> values = new ArrayList<>();
@@ -59,6 +100,14 @@ public class LocalSearch<ST, PT> extends AbstractAlgorithm<ST, PT> {
             return null;
         }
 
+        if ((neighbourhoodSize > 1 || adaptiveNeighbourhood) && moveEvaluator() != null) {
+            return exploreNeighbourhoods(bestSolution);
+        }
+
+        if (mutator instanceof MoveMutator && moveEvaluator() != null) {
+            return climb(bestSolution);
+        }
+
         for (int i = 0; i < getMaximumGenerations(); i++) {
             //Mutate
             bestSolution = mutator.mutate(bestSolution);
@@ -68,6 +117,99 @@ public class LocalSearch<ST, PT> extends AbstractAlgorithm<ST, PT> {
         return bestSolution;
     }
 
+    /**
+     * Hill climbing with in place moves, the given solution is not changed
+     *
+     * @param givenSolution solution to start from
+     * @return improved copy of the given solution
+     */
+    private Solution<ST, PT> climb(Solution<ST, PT> givenSolution) {
+        MoveMutator<ST, PT> moveMutator = (MoveMutator<ST, PT>) mutator;
+        Evaluator<ST, PT> evaluator = moveEvaluator();
+        Solution<ST, PT> solution = new Solution<>(givenSolution);
+        if (solution.getCachets() == null || solution.getCachets().isEmpty()) {
+            // the copy shares the cachet list with the given solution
+            solution.setCachets(new ArrayList<>());
+            evaluator.evaluateQuality(solution);
+        }
+
+        UndoLog<ST, PT> undo = new UndoLog<>();
+        for (int i = 0; i < getMaximumGenerations(); i++) {
+            double previousQuality = solution.getQuality();
+            moveMutator.applyMove(solution, undo);
+            evaluator.evaluateQuality(solution);
+            if (solution.getQuality() < previousQuality) {
+                undo.commit();
+            } else {
+                undo.revert(solution);
+            }
+            analyticsStep(solution);
+        }
+
+        return solution;
+    }
+
+    /**
+     * @return evaluator that scores moves and neighbours: the one of the mutator, or of the local search if the mutator
+     * does not evaluate on its own
+     */
+    private Evaluator<ST, PT> moveEvaluator() {
+        if (mutator instanceof EvaluatingMutator && ((EvaluatingMutator<ST, PT>) mutator).getEvaluator() != null) {
+            return ((EvaluatingMutator<ST, PT>) mutator).getEvaluator();
+        }
+        return getEvaluator();
+    }
+
+    /**
+     * Best improvement search that evaluates a whole neighbourhood per step concurrently
+     *
+     * @param givenSolution solution to start from
+     * @return best solution found
+     */
+    private Solution<ST, PT> exploreNeighbourhoods(Solution<ST, PT> givenSolution) {
+        Solution<ST, PT> solution = givenSolution;
+        if (solution.getCachets() == null || solution.getCachets().isEmpty()) {
+            solution = new Solution<>(givenSolution);
+            solution.setCachets(new ArrayList<>());
+            moveEvaluator().evaluateQuality(solution);
+        }
+
+        currentNeighbourhoodSize = Math.max(1, neighbourhoodSize);
+        for (int i = 0; i < getMaximumGenerations(); i++) {
+            List<Solution<ST, PT>> neighbours = mutator.neighbours(solution, currentNeighbourhoodSize);
+            evaluate(neighbours);
+            Optional<Solution<ST, PT>> best = neighbours.stream().min(Comparator.comparingDouble(Solution::getQuality));
+
+            boolean improved = best.isPresent() && best.get().getQuality() < solution.getQuality();
+            if (improved) {
+                solution = best.get();
+            }
+            if (adaptiveNeighbourhood) {
+                currentNeighbourhoodSize = improved
+                        ? Math.max(Math.max(1, neighbourhoodSize), currentNeighbourhoodSize / 2)
+                        : Math.min(maximumNeighbourhoodSize, currentNeighbourhoodSize * 2);
+            }
+            analyticsStep(solution);
+        }
+
+        return solution;
+    }
+
+    /**
+     * Evaluates the neighbours, either as one batch through the evaluator or concurrently on this machine. Concurrent
+     * evaluation requires a thread safe evaluator.
+     *
+     * @param neighbours to be evaluated
+     */
+    private void evaluate(List<Solution<ST, PT>> neighbours) {
+        Evaluator<ST, PT> evaluator = moveEvaluator();
+        if (batchEvaluation) {
+            evaluator.evaluateQualities(neighbours);
+        } else {
+            neighbours.parallelStream().forEach(evaluator::evaluateQuality);
+        }
+    }
+
     @Override
     public Analytics getAnalytics() {
         return analytics;
@@ -81,6 +223,18 @@ public class LocalSearch<ST, PT> extends AbstractAlgorithm<ST, PT> {
         options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
         options.put("mutator", new Descriptor<>(mutator));
         options.put("currentGeneration", new Descriptor(currentGeneration));
+        // neighbourhood settings are only relevant (and only offered to experiments) once the neighbourhood mode is
+        // enabled. Otherwise a sweep would silently move the search to concurrent evaluation, which needs a thread
+        // safe evaluator
+        if (neighbourhoodSize > 1 || adaptiveNeighbourhood) {
+            options.put("neighbourhoodSize", new Descriptor<>(neighbourhoodSize));
+            options.put("adaptiveNeighbourhood", new Descriptor<>(adaptiveNeighbourhood));
+            // the upper limit is only relevant if the neighbourhood adapts
+            if (adaptiveNeighbourhood) {
+                options.put("maximumNeighbourhoodSize", new Descriptor<>(maximumNeighbourhoodSize));
+            }
+            options.put("batchEvaluation", new Descriptor<>(batchEvaluation));
+        }
 
         return options;
     }
@@ -98,6 +252,18 @@ public class LocalSearch<ST, PT> extends AbstractAlgorithm<ST, PT> {
                 case "currentGeneration":
                     setCurrentGeneration((Integer) descriptor.getValue());
                     break;
+                case "neighbourhoodSize":
+                    setNeighbourhoodSize((Integer) descriptor.getValue());
+                    break;
+                case "adaptiveNeighbourhood":
+                    setAdaptiveNeighbourhood((Boolean) descriptor.getValue());
+                    break;
+                case "maximumNeighbourhoodSize":
+                    setMaximumNeighbourhoodSize((Integer) descriptor.getValue());
+                    break;
+                case "batchEvaluation":
+                    setBatchEvaluation((Boolean) descriptor.getValue());
+                    break;
             }
         } catch (Exception e) {
             return false;
@@ -128,4 +294,65 @@ public class LocalSearch<ST, PT> extends AbstractAlgorithm<ST, PT> {
     public void setCurrentGeneration(Integer currentGeneration) {
         this.currentGeneration = currentGeneration;
     }
+
+    public Integer getNeighbourhoodSize() {
+        return neighbourhoodSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param neighbourhoodSize amount of neighbours evaluated concurrently per step (initial size if adaptive). Values
+     *                          &gt; 1 require a thread safe evaluator unless batchEvaluation is used
+     */
+    public void setNeighbourhoodSize(Integer neighbourhoodSize) {
+        this.neighbourhoodSize = neighbourhoodSize;
+    }
+
+    public Boolean getAdaptiveNeighbourhood() {
+        return adaptiveNeighbourhood;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param adaptiveNeighbourhood if the neighbourhood grows while no improvements are found. Requires a thread safe
+     *                              evaluator unless batchEvaluation is used
+     */
+    public void setAdaptiveNeighbourhood(Boolean adaptiveNeighbourhood) {
+        this.adaptiveNeighbourhood = adaptiveNeighbourhood;
+    }
+
+    public Integer getMaximumNeighbourhoodSize() {
+        return maximumNeighbourhoodSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param maximumNeighbourhoodSize upper limit of the adaptive neighbourhood size
+     */
+    public void setMaximumNeighbourhoodSize(Integer maximumNeighbourhoodSize) {
+        this.maximumNeighbourhoodSize = maximumNeighbourhoodSize;
+    }
+
+    public Boolean getBatchEvaluation() {
+        return batchEvaluation;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param batchEvaluation if each neighbourhood is evaluated as one batch by the evaluator (e.g. a distributed one)
+     */
+    public void setBatchEvaluation(Boolean batchEvaluation) {
+        this.batchEvaluation = batchEvaluation;
+    }
+
+    /**
+     * @return neighbourhood size used in the last step
+     */
+    public int getCurrentNeighbourhoodSize() {
+        return currentNeighbourhoodSize;
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.mutation;
+
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+
+import java.util.ArrayList;
+
+/**
+ * Lightweight description of a move of a {@link MoveMutator}: which genes are replaced by which new genes. A move does
+ * not copy the solution it was created for, so many candidate moves can be created, filtered (e.g. against a tabu list)
+ * and only the interesting ones turned into solutions via {@link #toSolution(Solution)} or applied in place via {@link
+ * #apply(Solution, UndoLog)}.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class Move<ST, PT> {
+
+    /**
+     * Indices of the replaced genes
+     */
+    private final int[] indices;
+
+    /**
+     * New genes at the indices
+     */
+    private final Object[] genes;
+
+    /**
+     * Records the move that is currently in the undo log
+     *
+     * @param solution solution the move was applied to
+     * @param undo     undo log of the move
+     */
+    Move(Solution<ST, PT> solution, UndoLog<ST, PT> undo) {
+        indices = new int[undo.size()];
+        genes = new Object[undo.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = undo.getReplacedIndex(i);
+            genes[i] = solution.getSolutionGenes().get(indices[i]);
+        }
+    }
+
+    /**
+     * Applies the move to the solution in place
+     *
+     * @param solution to be changed
+     * @param undo     records the move so it can be reverted, it is reset by this call
+     */
+    public void apply(Solution<ST, PT> solution, UndoLog<ST, PT> undo) {
+        undo.begin(solution);
+        for (int i = 0; i < indices.length; i++) {
+            undo.replaceGene(solution, indices[i], getGene(i));
+        }
+    }
+
+    /**
+     * Creates the neighbour this move leads to. The neighbour is NOT evaluated and has its own cachet list.
+     *
+     * @param solution the move was created for (is not changed)
+     * @return new solution with the move applied
+     */
+    public Solution<ST, PT> toSolution(Solution<ST, PT> solution) {
+        Solution<ST, PT> neighbour = new Solution<>(solution);
+        neighbour.setCachets(new ArrayList<>());
+        for (int i = 0; i < indices.length; i++) {
+            neighbour.getSolutionGenes().set(indices[i], getGene(i));
+        }
+        return neighbour;
+    }
+
+    /**
+     * @return amount of genes replaced by the move
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * @param replacement number of the replacement (0 to size - 1)
+     * @return index of the replaced gene
+     */
+    public int getIndex(int replacement) {
+        return indices[replacement];
+    }
+
+    /**
+     * @param replacement number of the replacement (0 to size - 1)
+     * @return the new gene
+     */
+    public SolutionGene<ST, PT> getGene(int replacement) {
+        return (SolutionGene<ST, PT>) genes[replacement];
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.mutation;
+
+import science.aist.machinelearning.core.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mutator that can apply a move IN PLACE and revert it again. Hill climbers use it to evaluate neighbours of a
+ * solution without copying the solution for every attempt:
+ * <pre>
+ *     mutator.applyMove(solution, undo);
+ *     evaluator.evaluateQuality(solution);
+ *     if (notBetter) {
+ *         undo.revert(solution);
+ *     } else {
+ *         undo.commit();
+ *     }
+ * </pre>
+ * <p>
+ * Candidate moves can also be created without changing the solution via {@link #moves(Solution, int)}.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public interface MoveMutator<ST, PT> extends Mutator<ST, PT> {
+
+    /**
+     * Applies a random move to the solution in place. Every change to the solution must be done through (or recorded
+     * in) the undo log, so the move can be reverted.
+     *
+     * @param solution solution to be changed (must be evaluated)
+     * @param undo     undo log that records the move, it is reset by this call
+     */
+    void applyMove(Solution<ST, PT> solution, UndoLog<ST, PT> undo);
+
+    /**
+     * Creates k random moves for the solution without changing it. The default applies and reverts each move on a
+     * single shallow copy of the solution.
+     *
+     * @param solution to create the moves for (is not changed)
+     * @param k        amount of moves
+     * @return k moves
+     */
+    default List<Move<ST, PT>> moves(Solution<ST, PT> solution, int k) {
+        Solution<ST, PT> work = new Solution<>(solution);
+        UndoLog<ST, PT> undo = new UndoLog<>();
+        List<Move<ST, PT>> moves = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            applyMove(work, undo);
+            moves.add(new Move<>(work, undo));
+            undo.revert(work);
+        }
+        return moves;
+    }
+
+    @Override
+    default List<Solution<ST, PT>> neighbours(Solution<ST, PT> solution, int k) {
+        List<Solution<ST, PT>> neighbours = new ArrayList<>(k);
+        for (Move<ST, PT> move : moves(solution, k)) {
+            neighbours.add(move.toSolution(solution));
+        }
+        return neighbours;
+    }
+}
@@ -11,6 +11,9 @@ package science.aist.machinelearning.algorithm.mutation;
 
 import science.aist.machinelearning.core.Solution;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Interface containing necessary methods for the mutation of solutions.
  *
@@ -20,4 +23,24 @@ import science.aist.machinelearning.core.Solution;
 public interface Mutator<ST, PT> {
 
     Solution<ST, PT> mutate(Solution<ST, PT> solution);
+
+    /**
+     * Creates several neighbours of the solution at once, so the caller can evaluate them as a batch (see {@link
+     * science.aist.machinelearning.core.fitness.Evaluator#evaluateQualities(List)}) or in parallel. The neighbours are
+     * NOT evaluated and don't share cachets with the solution.
+     * <p>
+     * The default calls {@link #mutate(Solution)} k times. Mutators that evaluate their result in mutate should
+     * override this (e.g. as {@link MoveMutator}).
+     *
+     * @param solution to create the neighbours of (is not changed)
+     * @param k        amount of neighbours
+     * @return k neighbours
+     */
+    default List<Solution<ST, PT>> neighbours(Solution<ST, PT> solution, int k) {
+        List<Solution<ST, PT>> neighbours = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            neighbours.add(mutate(solution));
+        }
+        return neighbours;
+    }
 }
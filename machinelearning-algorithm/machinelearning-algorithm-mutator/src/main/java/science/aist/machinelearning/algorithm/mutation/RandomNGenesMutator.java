@@ -22,11 +22,13 @@ import java.util.Random;
 /**
  * Abstract class for the implementation of mutators. Will mutate x genes of the solution, evaluate the solution and
  * return the better result (previous or mutated).
+ * <p>
+ * As {@link MoveMutator} the same x genes are replaced in place, which lets hill climbers avoid copying the solution.
  *
  * @author Daniel Wilfing
  * @since 1.0
  */
-public abstract class RandomNGenesMutator<ST, PT> extends EvaluatingMutator<ST, PT> {
+public abstract class RandomNGenesMutator<ST, PT> extends EvaluatingMutator<ST, PT> implements MoveMutator<ST, PT> {
 
     private final Random r = new Random();
     /**
@@ -58,6 +60,26 @@ public abstract class RandomNGenesMutator<ST, PT> extends EvaluatingMutator<ST,
         return mutation.getQuality() < solution.getQuality() ? mutation : new Solution<>(solution);
     }
 
+    @Override
+    public void applyMove(Solution<ST, PT> solution, UndoLog<ST, PT> undo) {
+        undo.begin(solution);
+        int genes = solution.getSolutionGenes().size();
+        int mutations = Math.min(getMutationsPerSolution(), genes);
+        if (mutations == genes) {
+            for (int index = 0; index < genes; index++) {
+                undo.replaceGene(solution, index, createGeneByMutation(solution.getSolutionGenes().get(index)));
+            }
+            return;
+        }
+        // the amount of mutations is usually tiny compared to the genes, so drawing until we hit a new index is cheap
+        while (undo.size() < mutations) {
+            int index = r.nextInt(genes);
+            if (!undo.isReplaced(index)) {
+                undo.replaceGene(solution, index, createGeneByMutation(solution.getSolutionGenes().get(index)));
+            }
+        }
+    }
+
     protected abstract SolutionGene<ST, PT> createGeneByMutation(SolutionGene<ST, PT> gene);
 
     public Integer getMutationsPerSolution() {
@@ -10,17 +10,10 @@
 package science.aist.machinelearning.algorithm.mutation;
 
 import science.aist.machinelearning.core.Solution;
-import science.aist.machinelearning.core.SolutionGene;
-import science.aist.machinelearning.core.fitness.Cachet;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
- * Doesn't make a copy of the old solution, but remembers genes before mutation. If the new solution ends up worse, will
- * use those genes to rollback and get the old solution.
+ * Doesn't make a deep copy of the old solution, but remembers genes before mutation in an {@link UndoLog}. If the new
+ * solution ends up worse, will use those genes to rollback and get the old solution.
  *
  * @author Daniel Wilfing
  * @since 1.0
@@ -33,37 +26,22 @@ public abstract class RollbackRandomNGenesMutator<ST, PT> extends RandomNGenesMu
             return null;
         }
 
+        // mutate() must not change the given solution (e.g. a parent in the population of a GA), so the gene list is
+        // copied once. Hill climbers that own their solution use applyMove directly and don't copy at all
         solution = new Solution<>(solution);
 
-        List<Integer> availableIndex = new ArrayList<>();
-        for (int i = 0; i < solution.getSolutionGenes().size(); i++) {
-            availableIndex.add(i);
-        }
-
-        //collect data about the old quality
+        //collect data about the old quality, the undo log keeps the replaced genes and the old cachets
         double previousQuality = solution.getQuality();
-        List<Cachet> oldCachets = new ArrayList<>(solution.getCachets());
-        //keep info about which genes have been mutated and at which position they've been
-        Map<Integer, SolutionGene<ST, PT>> previousGenes = new HashMap<>();
-
-        int counter = 0;
-        while (counter++ < getMutationsPerSolution() && availableIndex.size() > 0) {
-            int index = availableIndex.remove(getR().nextInt(availableIndex.size()));
-            SolutionGene<ST, PT> gene = solution.getSolutionGenes().get(index);
-            previousGenes.put(index, new SolutionGene<>(gene.getGene(), gene.getProblemGenes()));
-            solution.getSolutionGenes().set(index, createGeneByMutation(gene));
-        }
+        UndoLog<ST, PT> undo = new UndoLog<>();
+        applyMove(solution, undo);
 
         getEvaluator().evaluateQuality(solution);
 
         //rollback happens here
         if (previousQuality <= solution.getQuality()) {
-            solution.setQuality(previousQuality);
-            solution.setCachets(oldCachets);
-            //set the old genes back to their correct position
-            for (Map.Entry<Integer, SolutionGene<ST, PT>> entry : previousGenes.entrySet()) {
-                solution.getSolutionGenes().set(entry.getKey(), entry.getValue());
-            }
+            undo.revert(solution);
+        } else {
+            undo.commit();
         }
 
         return solution;
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.algorithm.mutation;
+
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.fitness.Cachet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact undo log of a {@link MoveMutator}. It records the replaced genes (index + previous gene in parallel arrays),
+ * the previous quality and the previous cachet list of a solution, so a move can be reverted without copying the
+ * solution.
+ * <p>
+ * The cachet list is double buffered: {@link #begin(Solution)} hands the solution an empty list that the evaluator
+ * fills, and reverting swaps the original list back. As long as moves are rejected, the log does not allocate
+ * anything. An undo log is not thread safe, every thread needs its own.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class UndoLog<ST, PT> {
+
+    /**
+     * Indices of the replaced genes in the order they were replaced
+     */
+    private int[] indices = new int[4];
+    /**
+     * Previous genes at the indices
+     */
+    private Object[] genes = new Object[4];
+    /**
+     * Amount of recorded gene replacements
+     */
+    private int size;
+    /**
+     * Quality before the move
+     */
+    private double quality;
+    /**
+     * Cachets before the move
+     */
+    private List<Cachet> cachets;
+    /**
+     * Empty list that is handed to the solution during the move
+     */
+    private List<Cachet> spareCachets;
+
+    /**
+     * Starts recording a new move on the solution
+     *
+     * @param solution that will be changed
+     */
+    public void begin(Solution<ST, PT> solution) {
+        clearGenes();
+        quality = solution.getQuality();
+        cachets = solution.getCachets();
+        if (spareCachets == null) {
+            spareCachets = new ArrayList<>();
+        } else {
+            spareCachets.clear();
+        }
+        solution.setCachets(spareCachets);
+    }
+
+    /**
+     * Replaces a gene of the solution and records the previous one
+     *
+     * @param solution solution that is changed
+     * @param index    index of the gene
+     * @param gene     new gene
+     */
+    public void replaceGene(Solution<ST, PT> solution, int index, SolutionGene<ST, PT> gene) {
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+            genes = Arrays.copyOf(genes, size * 2);
+        }
+        indices[size] = index;
+        genes[size] = solution.getSolutionGenes().set(index, gene);
+        size++;
+    }
+
+    /**
+     * Checks if the gene at the index was already replaced in the current move
+     *
+     * @param index of the gene
+     * @return true if the gene was replaced
+     */
+    public boolean isReplaced(int index) {
+        for (int i = 0; i < size; i++) {
+            if (indices[i] == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return amount of genes replaced in the current move
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of a replaced gene, e.g. to derive the attributes of a move
+     *
+     * @param replacement number of the replacement (0 to size - 1)
+     * @return index of the gene in the solution
+     */
+    public int getReplacedIndex(int replacement) {
+        return indices[replacement];
+    }
+
+    /**
+     * Returns the gene that was replaced
+     *
+     * @param replacement number of the replacement (0 to size - 1)
+     * @return the gene before the replacement
+     */
+    public SolutionGene<ST, PT> getReplacedGene(int replacement) {
+        return (SolutionGene<ST, PT>) genes[replacement];
+    }
+
+    /**
+     * Reverts the solution to the state before {@link #begin(Solution)}
+     *
+     * @param solution that was changed
+     */
+    public void revert(Solution<ST, PT> solution) {
+        // revert in reverse order, so a gene that was replaced twice ends up with its original value
+        for (int i = size - 1; i >= 0; i--) {
+            solution.getSolutionGenes().set(indices[i], (SolutionGene<ST, PT>) genes[i]);
+        }
+        solution.setQuality(quality);
+        solution.setCachets(cachets);
+        clearGenes();
+        cachets = null;
+    }
+
+    /**
+     * Accepts the move. The cachet list now belongs to the solution, so the next move needs a new one.
+     */
+    public void commit() {
+        clearGenes();
+        cachets = null;
+        spareCachets = null;
+    }
+
+    private void clearGenes() {
+        // release the references so rejected genes can be garbage collected
+        Arrays.fill(genes, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.nn;
+
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.surrogate.SolutionToVector;
+import science.aist.machinelearning.core.surrogate.SurrogateModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Surrogate model (e.g. for the genetic algorithm) that is backed by a {@link NeuralNetwork}. The features of a solution
+ * (see {@link SolutionToVector}) are fed to the network as problem genes, the network learns to output the (normalized)
+ * quality as a single solution gene.
+ * <p>
+ * The network is trained online: every call to {@link #train()} continues fitting the network on the bounded archive
+ * of the most recent samples.
+ *
+ * @param <GT> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class NeuralNetworkSurrogateModel<GT, PT> implements SurrogateModel<GT, PT> {
+
+    /**
+     * Number of hidden layers + their neuron count of the network
+     */
+    private final int[] hiddenLayers;
+    /**
+     * Configures every network that is created (also after a reset)
+     */
+    private final Consumer<NeuralNetwork<Double, Double>> networkConfigurer;
+    /**
+     * The network that approximates the quality
+     */
+    private NeuralNetwork<Double, Double> network;
+    /**
+     * Maps the solution to the features the network is trained on
+     */
+    private final SolutionToVector<GT, PT> solutionToVector;
+    /**
+     * Archived features, each as problem for the network
+     */
+    private final List<Problem<Double>> inputs = new ArrayList<>();
+    /**
+     * Archived real qualities
+     */
+    private final List<Double> qualities = new ArrayList<>();
+    /**
+     * Maximum amount of samples kept for training
+     */
+    private int archiveSize = 500;
+    /**
+     * Mean of the qualities when the network was trained (used to normalize the target)
+     */
+    private double qualityMean = 0;
+    /**
+     * Standard deviation of the qualities when the network was trained (used to normalize the target)
+     */
+    private double qualityDeviation = 1;
+
+    /**
+     * Creates a surrogate with a network with the given hidden layers
+     *
+     * @param hiddenLayers     number of hidden layers + their neuron count
+     * @param solutionToVector maps solutions to the input of the network
+     */
+    public NeuralNetworkSurrogateModel(int[] hiddenLayers, SolutionToVector<GT, PT> solutionToVector) {
+        this(hiddenLayers, solutionToVector, (n) -> {
+        });
+    }
+
+    /**
+     * Creates a surrogate with a network with the given hidden layers
+     *
+     * @param hiddenLayers      number of hidden layers + their neuron count
+     * @param solutionToVector  maps solutions to the input of the network
+     * @param networkConfigurer callback to configure the network (epochs, learning rate, ...) before it is used
+     */
+    public NeuralNetworkSurrogateModel(int[] hiddenLayers, SolutionToVector<GT, PT> solutionToVector, Consumer<NeuralNetwork<Double, Double>> networkConfigurer) {
+        this.solutionToVector = solutionToVector;
+        this.hiddenLayers = hiddenLayers;
+        this.networkConfigurer = networkConfigurer;
+        this.network = createNetwork();
+    }
+
+    /**
+     * @return new untrained network
+     */
+    private NeuralNetwork<Double, Double> createNetwork() {
+        NeuralNetwork<Double, Double> network = new NeuralNetwork<>(hiddenLayers);
+        network.setProblemToDoubleTransformer(Double::doubleValue)
+                .setSolutionToDoubleTransformer(Double::doubleValue)
+                .setDoubleToSolutionTransformer(Double::valueOf);
+        networkConfigurer.accept(network);
+        return network;
+    }
+
+    @Override
+    public void addSample(Solution<GT, PT> solution) {
+        inputs.add(toProblem(solution));
+        qualities.add(solution.getQuality());
+        if (inputs.size() > archiveSize) {
+            inputs.remove(0);
+            qualities.remove(0);
+        }
+    }
+
+    @Override
+    public void train() {
+        if (inputs.isEmpty()) {
+            return;
+        }
+
+        qualityMean = qualities.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+        qualityDeviation = Math.sqrt(qualities.stream().mapToDouble(q -> (q - qualityMean) * (q - qualityMean)).average().orElse(0));
+        if (qualityDeviation == 0) {
+            qualityDeviation = 1;
+        }
+
+        List<Solution<Double, Double>> outputs = new ArrayList<>(qualities.size());
+        for (Double quality : qualities) {
+            Solution<Double, Double> output = new Solution<>();
+            output.addGene(new SolutionGene<>((quality - qualityMean) / qualityDeviation));
+            outputs.add(output);
+        }
+        network.train(inputs, outputs);
+    }
+
+    @Override
+    public boolean isTrained() {
+        return network.isTrained();
+    }
+
+    @Override
+    public double predictQuality(Solution<GT, PT> solution) {
+        Solution<Double, Double> prediction = network.solve(toProblem(solution));
+        return prediction.getSolutionGenes().get(0).getGene() * qualityDeviation + qualityMean;
+    }
+
+    @Override
+    public void reset() {
+        inputs.clear();
+        qualities.clear();
+        qualityMean = 0;
+        qualityDeviation = 1;
+        // the network can't be untrained, so it is replaced
+        network = createNetwork();
+    }
+
+    @Override
+    public int getSampleCount() {
+        return inputs.size();
+    }
+
+    /**
+     * Transforms the features of a solution into the problem the network expects as input
+     *
+     * @param solution to be transformed
+     * @return problem with one gene per feature
+     */
+    private Problem<Double> toProblem(Solution<GT, PT> solution) {
+        double[] vector = solutionToVector.mapSolutionToVector(solution);
+        List<ProblemGene<Double>> genes = new ArrayList<>(vector.length);
+        for (double v : vector) {
+            genes.add(new ProblemGene<>(v));
+        }
+        return new Problem<>(genes);
+    }
+
+    /**
+     * @return the underlying network (replaced by {@link #reset()})
+     */
+    public NeuralNetwork<Double, Double> getNetwork() {
+        return network;
+    }
+
+    public int getArchiveSize() {
+        return archiveSize;
+    }
+
+    /**
+     * @param archiveSize maximum amount of samples kept for training
+     */
+    public void setArchiveSize(int archiveSize) {
+        this.archiveSize = archiveSize;
+    }
+}
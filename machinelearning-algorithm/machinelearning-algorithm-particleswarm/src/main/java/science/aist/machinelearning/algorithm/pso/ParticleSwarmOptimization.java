@@ -0,0 +1,620 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.pso;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.cmaes.FloatValueProblem;
+import science.aist.machinelearning.algorithm.cmaes.operator.RealValuedSolutionBuilder;
+import science.aist.machinelearning.core.AbstractAlgorithm;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.options.Descriptor;
+import science.aist.machinelearning.core.util.RandomUtil;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Particle swarm optimization for {@link FloatValueProblem}s with inertia weight (defaults are the constriction
+ * coefficients of Clerc and Kennedy) and selectable {@link SwarmTopology}.
+ * <p>
+ * The state is kept as structure of arrays: positions, velocities and personal bests are each one row-major double[]
+ * (one row per particle), there are no Solution objects per particle. The {@link RealValuedSolutionBuilder} is only
+ * used to evaluate a position and to materialize the best personal best as result.
+ * <p>
+ * An iteration runs in two phases over parallel chunks of the swarm (the evaluator must be thread safe unless parallel
+ * is disabled): first every particle moves, reading only the personal bests of the previous iteration, then every
+ * particle is evaluated and updates its own personal best. Every particle draws from its own random generator, split
+ * from {@link RandomUtil} per iteration, so a parallel run gives the same result as a sequential one. Velocities are
+ * clamped to maximumVelocity * (upperBound - lowerBound); particles leaving the bounds are put on the bound and
+ * stopped.
+ * <p>
+ * The search stops after maximumGenerations or as soon as the best quality reaches targetQuality (disabled by
+ * default).
+ *
+ * @param <ST> Gene type of the solution
+ * @param <PT> Gene type of the Problem
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ParticleSwarmOptimization<ST, PT extends FloatValueProblem> extends AbstractAlgorithm<ST, PT> {
+
+    /**
+     * Operator responsible to get from double[] to ST
+     */
+    private RealValuedSolutionBuilder<ST, PT> solutionBuilder;
+
+    /**
+     * Termination Criteria on how many generations may be evaluated
+     */
+    private Integer maximumGenerations;
+
+    /**
+     * Termination Criteria, the search stops as soon as the best quality is less or equal. Disabled by default, as
+     * qualities may well be negative
+     */
+    private Double targetQuality = Double.NEGATIVE_INFINITY;
+
+    private Integer swarmSize = 40;
+
+    private SwarmTopology topology = SwarmTopology.RING;
+
+    /**
+     * Factor the previous velocity is kept with
+     */
+    private Double inertiaWeight = 0.7298;
+
+    /**
+     * Attraction to the personal best
+     */
+    private Double cognitiveCoefficient = 1.49618;
+
+    /**
+     * Attraction to the best of the neighbourhood
+     */
+    private Double socialCoefficient = 1.49618;
+
+    /**
+     * Maximum velocity per variable as fraction of the search range
+     */
+    private Double maximumVelocity = 0.2;
+
+    /**
+     * Lower bound of every variable, the initial swarm is drawn uniformly between the bounds
+     */
+    private Double lowerBound = -5.0;
+
+    /**
+     * Upper bound of every variable
+     */
+    private Double upperBound = 5.0;
+
+    /**
+     * If particles are updated and evaluated concurrently
+     */
+    private Boolean parallel = true;
+
+    /**
+     * Number of current generation, increasing with each algorithm step
+     */
+    private int currentGeneration;
+
+    private int variableCount;
+
+    /**
+     * Current positions, row-major with variableCount columns
+     */
+    private double[] positions;
+
+    /**
+     * Current velocities, row-major with variableCount columns
+     */
+    private double[] velocities;
+
+    /**
+     * Quality of the current positions
+     */
+    private double[] qualities;
+
+    /**
+     * Best position every particle has visited, row-major with variableCount columns
+     */
+    private double[] personalBests;
+
+    private double[] personalBestQualities;
+
+    /**
+     * Particle whose personal best every particle is attracted to
+     */
+    private int[] neighbourhoodBests;
+
+    /**
+     * Particle with the best personal best
+     */
+    private int bestIndex;
+
+    private SplittableRandom random;
+
+    /**
+     * Updates a single particle
+     */
+    private interface ParticleTask {
+        void run(int particle, SplittableRandom random);
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem) {
+        return solve(problem, (double[]) null);
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem, Solution<ST, PT> givenSolution) {
+        if (givenSolution == null) {
+            return null;
+        }
+        return solve(problem, solutionBuilder.getOriginalVector(givenSolution));
+    }
+
+    /**
+     * Runs the swarm
+     *
+     * @param problem to be solved
+     * @param start   initial position of the first particle, or null
+     * @return best solution found
+     */
+    private Solution<ST, PT> solve(Problem<PT> problem, double[] start) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().isEmpty()) {
+            return null;
+        }
+
+        initialize(problem, start);
+        initializeLog(problem);
+        while (currentGeneration < maximumGenerations && personalBestQualities[bestIndex] > targetQuality) {
+            nextGeneration(problem);
+        }
+
+        Solution<ST, PT> best = solutionBuilder.transformToSolution(getBestVector(), problem);
+        getEvaluator().evaluateQuality(best);
+        finalizeLog(best);
+        return best;
+    }
+
+    /**
+     * Allocates the state and creates and evaluates the initial swarm
+     *
+     * @param problem to be solved
+     * @param start   initial position of the first particle, or null
+     */
+    private void initialize(Problem<PT> problem, double[] start) {
+        variableCount = problem.getProblemGenes().get(0).getGene().getVariableCount();
+        if (variableCount <= 0) {
+            throw new IllegalArgumentException("We cannot optimize nothing! variable count must be > 0");
+        }
+        if (start != null && start.length != variableCount) {
+            throw new IllegalArgumentException("The given solution must have the same dimensions as given in the problem");
+        }
+
+        int size = swarmSize * variableCount;
+        positions = new double[size];
+        velocities = new double[size];
+        personalBests = new double[size];
+        qualities = new double[swarmSize];
+        personalBestQualities = new double[swarmSize];
+        neighbourhoodBests = new int[swarmSize];
+        random = new SplittableRandom(RandomUtil.random.nextLong());
+        currentGeneration = 0;
+
+        double range = upperBound - lowerBound;
+        forEachParticle((i, r) -> {
+            int offset = i * variableCount;
+            for (int j = 0; j < variableCount; j++) {
+                positions[offset + j] = i == 0 && start != null ? start[j] : lowerBound + r.nextDouble() * range;
+                // half-diff initialization keeps the swarm from exploding in the first iterations
+                velocities[offset + j] = ((lowerBound + r.nextDouble() * range) - positions[offset + j]) / 2;
+            }
+            qualities[i] = evaluate(i, problem);
+            System.arraycopy(positions, offset, personalBests, offset, variableCount);
+            personalBestQualities[i] = qualities[i];
+        });
+        updateNeighbourhoodBests();
+    }
+
+    /**
+     * Moves every particle once and updates the personal and neighbourhood bests
+     *
+     * @param problem to be solved
+     */
+    private void nextGeneration(Problem<PT> problem) {
+        double velocityLimit = maximumVelocity * (upperBound - lowerBound);
+        // all particles move before any personal best changes, as a particle reads the personal best of its neighbour
+        forEachParticle((i, r) -> {
+            int offset = i * variableCount;
+            int social = neighbourhoodBests[i] * variableCount;
+            for (int j = 0; j < variableCount; j++) {
+                int k = offset + j;
+                double position = positions[k];
+                double velocity = inertiaWeight * velocities[k]
+                        + cognitiveCoefficient * r.nextDouble() * (personalBests[k] - position)
+                        + socialCoefficient * r.nextDouble() * (personalBests[social + j] - position);
+                velocity = Math.max(-velocityLimit, Math.min(velocityLimit, velocity));
+                position += velocity;
+                if (position < lowerBound) {
+                    position = lowerBound;
+                    velocity = 0;
+                } else if (position > upperBound) {
+                    position = upperBound;
+                    velocity = 0;
+                }
+                positions[k] = position;
+                velocities[k] = velocity;
+            }
+        });
+
+        forEachParticle((i, r) -> {
+            int offset = i * variableCount;
+            qualities[i] = evaluate(i, problem);
+            if (qualities[i] <= personalBestQualities[i]) {
+                System.arraycopy(positions, offset, personalBests, offset, variableCount);
+                personalBestQualities[i] = qualities[i];
+            }
+        });
+
+        updateNeighbourhoodBests();
+        currentGeneration++;
+        analyticsStep();
+    }
+
+    /**
+     * Runs the task for every particle, in parallel chunks if enabled. The random generators of the particles are split
+     * off sequentially, so the result only depends on the seed of {@link RandomUtil}, not on the amount of chunks.
+     *
+     * @param task to be run
+     */
+    private void forEachParticle(ParticleTask task) {
+        int chunks = parallel ? Math.min(swarmSize, Runtime.getRuntime().availableProcessors() * 4) : 1;
+        SplittableRandom[] randoms = new SplittableRandom[swarmSize];
+        for (int i = 0; i < swarmSize; i++) {
+            randoms[i] = random.split();
+        }
+
+        IntStream stream = IntStream.range(0, chunks);
+        if (parallel) {
+            stream = stream.parallel();
+        }
+        stream.forEach(c -> {
+            int end = (int) ((long) swarmSize * (c + 1) / chunks);
+            for (int i = (int) ((long) swarmSize * c / chunks); i < end; i++) {
+                task.run(i, randoms[i]);
+            }
+        });
+    }
+
+    /**
+     * Determines the best personal best in the neighbourhood of every particle and the best particle overall
+     */
+    private void updateNeighbourhoodBests() {
+        bestIndex = 0;
+        for (int i = 1; i < swarmSize; i++) {
+            if (personalBestQualities[i] < personalBestQualities[bestIndex]) {
+                bestIndex = i;
+            }
+        }
+
+        int columns = (int) Math.ceil(Math.sqrt(swarmSize));
+        for (int i = 0; i < swarmSize; i++) {
+            switch (topology) {
+                case GLOBAL:
+                    neighbourhoodBests[i] = bestIndex;
+                    break;
+                case RING:
+                    neighbourhoodBests[i] = better(i, better(neighbour(i, -1), neighbour(i, 1)));
+                    break;
+                case VON_NEUMANN:
+                    int left = gridNeighbour(i, swarmSize, columns, 0, -1);
+                    int right = gridNeighbour(i, swarmSize, columns, 0, 1);
+                    int up = gridNeighbour(i, swarmSize, columns, -1, 0);
+                    int down = gridNeighbour(i, swarmSize, columns, 1, 0);
+                    int horizontal = better(left, right);
+                    int vertical = better(up, down);
+                    neighbourhoodBests[i] = better(i, better(horizontal, vertical));
+                    break;
+            }
+        }
+    }
+
+    private int neighbour(int particle, int offset) {
+        return Math.floorMod(particle + offset, swarmSize);
+    }
+
+    /**
+     * Neighbour of a particle on the torus of the von Neumann topology. Rows and columns wrap around on their own, so
+     * the last particle of a row is next to the first particle of the same row (not of the next one). If the swarm
+     * doesn't fill the grid the last row and the columns crossing it are shorter.
+     *
+     * @param particle     index of the particle
+     * @param swarmSize    amount of particles
+     * @param columns      amount of columns of the grid
+     * @param rowOffset    rows to move (negative is up)
+     * @param columnOffset columns to move (negative is left)
+     * @return index of the neighbour
+     */
+    static int gridNeighbour(int particle, int swarmSize, int columns, int rowOffset, int columnOffset) {
+        int row = particle / columns;
+        int column = particle % columns;
+        int rowLength = Math.min(columns, swarmSize - row * columns);
+        int columnHeight = (swarmSize - column + columns - 1) / columns;
+        return Math.floorMod(row + rowOffset, columnHeight) * columns + Math.floorMod(column + columnOffset, rowLength);
+    }
+
+    private int better(int a, int b) {
+        return personalBestQualities[b] < personalBestQualities[a] ? b : a;
+    }
+
+    /**
+     * Evaluates the current position of a particle
+     *
+     * @param particle to be evaluated
+     * @param problem  to be solved
+     * @return quality of the position
+     */
+    private double evaluate(int particle, Problem<PT> problem) {
+        double[] vector = Arrays.copyOfRange(positions, particle * variableCount, (particle + 1) * variableCount);
+        return getEvaluator().evaluateQuality(solutionBuilder.transformToSolution(vector, problem));
+    }
+
+    /**
+     * Creates the log headers, and logs the current algorithm configuration
+     *
+     * @param problem that is being solved in this log
+     */
+    private void initializeLog(Problem<PT> problem) {
+        if (analytics != null) {
+            analytics.startAnalytics();
+            analytics.logParam("problemSize", problem.getProblemSize());
+            analytics.logParam("topology", topology.name());
+            analytics.logParam("swarmSize", String.valueOf(swarmSize));
+            analytics.logParam("maximumGenerations", String.valueOf(maximumGenerations));
+            List<String> headers = new ArrayList<>();
+            headers.add("best quality");
+            headers.add("average quality");
+            analytics.logAlgorithmStepHeaders(headers);
+            analytics.logProblem(problem);
+        }
+    }
+
+    private void finalizeLog(Solution<ST, PT> best) {
+        if (analytics != null) {
+            analytics.logSolution(best);
+            analytics.finishAnalytics();
+        }
+    }
+
+    /**
+     * Logs the best personal best and the average quality of the current positions
+     */
+    private void analyticsStep() {
+        if (analytics != null) {
+            List<String> values = new ArrayList<>();
+            values.add(String.valueOf(personalBestQualities[bestIndex]));
+            values.add(String.valueOf(Arrays.stream(qualities).average().orElse(0)));
+            analytics.logAlgorithmStep(values);
+        }
+    }
+
+    /**
+     * @return copy of the best position found
+     */
+    public double[] getBestVector() {
+        return Arrays.copyOfRange(personalBests, bestIndex * variableCount, (bestIndex + 1) * variableCount);
+    }
+
+    /**
+     * @return quality of the best position found
+     */
+    public double getBestQuality() {
+        return personalBestQualities[bestIndex];
+    }
+
+    public int getCurrentGeneration() {
+        return currentGeneration;
+    }
+
+    @Override
+    protected Map<String, Descriptor> getSpecificOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("solutionBuilder", new Descriptor<>(solutionBuilder));
+        options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
+        options.put("targetQuality", new Descriptor<>(targetQuality));
+        options.put("swarmSize", new Descriptor<>(swarmSize));
+        options.put("topology", new Descriptor<>(topology));
+        options.put("inertiaWeight", new Descriptor<>(inertiaWeight));
+        options.put("cognitiveCoefficient", new Descriptor<>(cognitiveCoefficient));
+        options.put("socialCoefficient", new Descriptor<>(socialCoefficient));
+        options.put("maximumVelocity", new Descriptor<>(maximumVelocity));
+        options.put("lowerBound", new Descriptor<>(lowerBound));
+        options.put("upperBound", new Descriptor<>(upperBound));
+        options.put("parallel", new Descriptor<>(parallel));
+        return options;
+    }
+
+    @Override
+    protected boolean setSpecificOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "solutionBuilder":
+                    setSolutionBuilder((RealValuedSolutionBuilder<ST, PT>) descriptor.getValue());
+                    break;
+                case "maximumGenerations":
+                    setMaximumGenerations((Integer) descriptor.getValue());
+                    break;
+                case "targetQuality":
+                    setTargetQuality((Double) descriptor.getValue());
+                    break;
+                case "swarmSize":
+                    setSwarmSize((Integer) descriptor.getValue());
+                    break;
+                case "topology":
+                    setTopology((SwarmTopology) descriptor.getValue());
+                    break;
+                case "inertiaWeight":
+                    setInertiaWeight((Double) descriptor.getValue());
+                    break;
+                case "cognitiveCoefficient":
+                    setCognitiveCoefficient((Double) descriptor.getValue());
+                    break;
+                case "socialCoefficient":
+                    setSocialCoefficient((Double) descriptor.getValue());
+                    break;
+                case "maximumVelocity":
+                    setMaximumVelocity((Double) descriptor.getValue());
+                    break;
+                case "lowerBound":
+                    setLowerBound((Double) descriptor.getValue());
+                    break;
+                case "upperBound":
+                    setUpperBound((Double) descriptor.getValue());
+                    break;
+                case "parallel":
+                    setParallel((Boolean) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    public RealValuedSolutionBuilder<ST, PT> getSolutionBuilder() {
+        return solutionBuilder;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param solutionBuilder transforms the positions into solutions
+     */
+    @Required
+    public void setSolutionBuilder(RealValuedSolutionBuilder<ST, PT> solutionBuilder) {
+        this.solutionBuilder = solutionBuilder;
+    }
+
+    public Integer getMaximumGenerations() {
+        return maximumGenerations;
+    }
+
+    @Required
+    public void setMaximumGenerations(Integer maximumGenerations) {
+        this.maximumGenerations = maximumGenerations;
+    }
+
+    public Double getTargetQuality() {
+        return targetQuality;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param targetQuality the search stops as soon as the best quality is less or equal (NEGATIVE_INFINITY
+     *                      disables it)
+     */
+    public void setTargetQuality(Double targetQuality) {
+        this.targetQuality = targetQuality;
+    }
+
+    public Integer getSwarmSize() {
+        return swarmSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param swarmSize amount of particles
+     */
+    public void setSwarmSize(Integer swarmSize) {
+        if (swarmSize <= 0) {
+            throw new IllegalArgumentException("swarm size must be > 0");
+        }
+        this.swarmSize = swarmSize;
+    }
+
+    public SwarmTopology getTopology() {
+        return topology;
+    }
+
+    public void setTopology(SwarmTopology topology) {
+        this.topology = topology;
+    }
+
+    public Double getInertiaWeight() {
+        return inertiaWeight;
+    }
+
+    public void setInertiaWeight(Double inertiaWeight) {
+        this.inertiaWeight = inertiaWeight;
+    }
+
+    public Double getCognitiveCoefficient() {
+        return cognitiveCoefficient;
+    }
+
+    public void setCognitiveCoefficient(Double cognitiveCoefficient) {
+        this.cognitiveCoefficient = cognitiveCoefficient;
+    }
+
+    public Double getSocialCoefficient() {
+        return socialCoefficient;
+    }
+
+    public void setSocialCoefficient(Double socialCoefficient) {
+        this.socialCoefficient = socialCoefficient;
+    }
+
+    public Double getMaximumVelocity() {
+        return maximumVelocity;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param maximumVelocity maximum velocity per variable as fraction of the search range
+     */
+    public void setMaximumVelocity(Double maximumVelocity) {
+        this.maximumVelocity = maximumVelocity;
+    }
+
+    public Double getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(Double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public Double getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(Double upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public Boolean getParallel() {
+        return parallel;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param parallel if particles are updated and evaluated concurrently (requires a thread safe evaluator)
+     */
+    public void setParallel(Boolean parallel) {
+        this.parallel = parallel;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.pso;
+
+/**
+ * Neighbourhood topologies of the {@link ParticleSwarmOptimization}. A particle is attracted by the best personal best
+ * within its neighbourhood. Smaller neighbourhoods spread information slower, which keeps the swarm diverse for longer.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public enum SwarmTopology {
+
+    /**
+     * Every particle sees the whole swarm (gbest)
+     */
+    GLOBAL,
+
+    /**
+     * Every particle sees itself and its two neighbours by index (lbest)
+     */
+    RING,
+
+    /**
+     * Particles are laid out on a torus with sqrt(swarmSize) columns, every particle sees itself and its four neighbours
+     * (left, right, up, down)
+     */
+    VON_NEUMANN
+}
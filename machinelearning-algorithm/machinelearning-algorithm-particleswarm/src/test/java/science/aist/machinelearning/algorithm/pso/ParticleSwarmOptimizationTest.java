@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.pso;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.cmaes.FloatValueProblem;
+import science.aist.machinelearning.algorithm.cmaes.operator.DefaultRealValuedSolutionBuilder;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.util.RandomUtil;
+
+import java.util.*;
+
+/**
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ParticleSwarmOptimizationTest {
+
+    @Test
+    public void testTopologies() {
+        for (SwarmTopology topology : SwarmTopology.values()) {
+            // given
+            ParticleSwarmOptimization<Double, SampleProblem> pso = particleSwarm();
+            pso.setTopology(topology);
+            pso.setMaximumGenerations(1000);
+
+            // when
+            Solution<Double, SampleProblem> solution = pso.solve(problem(5));
+
+            // then
+            Assert.assertNotNull(solution);
+            Assert.assertEquals(solution.getSolutionGenes().size(), 5);
+            Assert.assertTrue(solution.getQuality() < 1.0E-6, topology + " quality was " + solution.getQuality());
+            Assert.assertEquals(solution.getQuality(), pso.getBestQuality());
+        }
+    }
+
+    @Test
+    public void testTargetQualityTerminates() {
+        // given
+        ParticleSwarmOptimization<Double, SampleProblem> pso = particleSwarm();
+        pso.setMaximumGenerations(100000);
+        pso.setTargetQuality(1.0E-3);
+
+        // when
+        Solution<Double, SampleProblem> solution = pso.solve(problem(5));
+
+        // then
+        Assert.assertTrue(solution.getQuality() <= 1.0E-3);
+        Assert.assertTrue(pso.getCurrentGeneration() < 100000);
+    }
+
+    @Test
+    public void testNegativeQualitiesDontTerminate() {
+        // given - without a target quality the search must not stop on negative qualities
+        ParticleSwarmOptimization<Double, SampleProblem> pso = particleSwarm();
+        Map<CachetEvaluator<Double, SampleProblem>, Double> cachets = new HashMap<>();
+        cachets.put(new SphereCachetEvaluator() {
+            @Override
+            public double evaluateQuality(Solution<Double, SampleProblem> solution) {
+                return super.evaluateQuality(solution) - 1000;
+            }
+        }, 1.0);
+        GenericEvaluatorImpl<Double, SampleProblem> evaluator = new GenericEvaluatorImpl<>();
+        evaluator.setCachetEvaluators(cachets);
+        pso.setEvaluator(evaluator);
+        pso.setMaximumGenerations(50);
+
+        // when
+        Solution<Double, SampleProblem> solution = pso.solve(problem(5));
+
+        // then
+        Assert.assertTrue(solution.getQuality() < 0);
+        Assert.assertEquals(pso.getCurrentGeneration(), 50);
+    }
+
+    @Test
+    public void testParallelEqualsSequential() {
+        Random original = RandomUtil.random;
+        try {
+            // given
+            ParticleSwarmOptimization<Double, SampleProblem> parallel = particleSwarm();
+            parallel.setMaximumGenerations(50);
+            ParticleSwarmOptimization<Double, SampleProblem> sequential = particleSwarm();
+            sequential.setMaximumGenerations(50);
+            sequential.setParallel(false);
+
+            // when
+            RandomUtil.random = new Random(42);
+            parallel.solve(problem(10));
+            RandomUtil.random = new Random(42);
+            sequential.solve(problem(10));
+
+            // then
+            Assert.assertEquals(parallel.getBestVector(), sequential.getBestVector());
+            Assert.assertEquals(parallel.getBestQuality(), sequential.getBestQuality());
+        } finally {
+            RandomUtil.random = original;
+        }
+    }
+
+    @Test
+    public void testVonNeumannNeighbours() {
+        // given 10 particles on 4 columns:
+        //  0 1 2 3
+        //  4 5 6 7
+        //  8 9
+        int size = 10;
+        int columns = 4;
+
+        // then rows wrap within the row
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(3, size, columns, 0, 1), 0);
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(4, size, columns, 0, -1), 7);
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(5, size, columns, 0, 1), 6);
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(9, size, columns, 0, 1), 8);
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(8, size, columns, 0, -1), 9);
+        // and columns wrap within the column
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(1, size, columns, -1, 0), 9);
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(9, size, columns, 1, 0), 1);
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(7, size, columns, 1, 0), 3);
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(2, size, columns, -1, 0), 6);
+        Assert.assertEquals(ParticleSwarmOptimization.gridNeighbour(2, size, columns, 1, 0), 6);
+    }
+
+    @Test
+    public void testHighDimensional() {
+        // given
+        ParticleSwarmOptimization<Double, SampleProblem> pso = particleSwarm();
+        pso.setSwarmSize(20);
+        pso.setMaximumGenerations(200);
+        Problem<SampleProblem> problem = problem(2000);
+        Solution<Double, SampleProblem> start = new DefaultRealValuedSolutionBuilder<SampleProblem>().transformToSolution(new double[2000], problem);
+        double startQuality = evaluator().evaluateQuality(start);
+
+        // when
+        Solution<Double, SampleProblem> solution = pso.solve(problem, start);
+
+        // then the given solution is the first personal best, so the result can only be better
+        Assert.assertTrue(solution.getQuality() < startQuality, solution.getQuality() + " vs " + startQuality);
+        Assert.assertEquals(pso.getCurrentGeneration(), 200);
+    }
+
+    private ParticleSwarmOptimization<Double, SampleProblem> particleSwarm() {
+        ParticleSwarmOptimization<Double, SampleProblem> pso = new ParticleSwarmOptimization<>();
+        pso.setEvaluator(evaluator());
+        pso.setSolutionBuilder(new DefaultRealValuedSolutionBuilder<>());
+        pso.setLowerBound(-10.0);
+        pso.setUpperBound(10.0);
+        return pso;
+    }
+
+    private static GenericEvaluatorImpl<Double, SampleProblem> evaluator() {
+        Map<CachetEvaluator<Double, SampleProblem>, Double> cachets = new HashMap<>();
+        cachets.put(new SphereCachetEvaluator(), 1.0);
+        GenericEvaluatorImpl<Double, SampleProblem> evaluator = new GenericEvaluatorImpl<>();
+        evaluator.setCachetEvaluators(cachets);
+        return evaluator;
+    }
+
+    private static Problem<SampleProblem> problem(int variables) {
+        List<ProblemGene<SampleProblem>> problemList = new ArrayList<>();
+        problemList.add(new ProblemGene<>(new SampleProblem(variables)));
+        return new Problem<>(problemList);
+    }
+
+    private static double target(int variable) {
+        return (variable % 7) - 3.5;
+    }
+
+    private static class SampleProblem implements FloatValueProblem {
+
+        private final int variables;
+
+        private SampleProblem(int variables) {
+            this.variables = variables;
+        }
+
+        @Override
+        public int getVariableCount() {
+            return variables;
+        }
+    }
+
+    /**
+     * Shifted sphere function
+     */
+    private static class SphereCachetEvaluator implements CachetEvaluator<Double, SampleProblem> {
+
+        @Override
+        public double evaluateQuality(Solution<Double, SampleProblem> solution) {
+            double quality = 0;
+            for (int i = 0; i < solution.getSolutionGenes().size(); i++) {
+                double d = solution.getSolutionGenes().get(i).getGene() - target(i);
+                quality += d * d;
+            }
+            return quality;
+        }
+
+        @Override
+        public String getName() {
+            return "sphere";
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.sa;
+
+import science.aist.machinelearning.algorithm.mutation.EvaluatingMutator;
+import science.aist.machinelearning.algorithm.mutation.MoveMutator;
+import science.aist.machinelearning.algorithm.mutation.Mutator;
+import science.aist.machinelearning.algorithm.mutation.UndoLog;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.Evaluator;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * A single annealing chain: the current solution, the best solution it has seen, and the Metropolis step.
+ * <p>
+ * With a {@link MoveMutator} the chain owns a private copy of its solution and changes it in place. A rejected move is
+ * reverted through the {@link UndoLog}, so only accepted moves that improve the best solution of the chain cause a copy.
+ * Other mutators create a new solution per step. A chain is not thread safe, but different chains may run concurrently
+ * if the mutator and evaluator are thread safe.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+class Annealer<ST, PT> {
+
+    private final Mutator<ST, PT> mutator;
+
+    private final Evaluator<ST, PT> evaluator;
+
+    private final Random random;
+
+    private final UndoLog<ST, PT> undo = new UndoLog<>();
+
+    private Solution<ST, PT> current;
+
+    private Solution<ST, PT> best;
+
+    /**
+     * Amount of accepted moves
+     */
+    private int accepted;
+
+    /**
+     * Creates a chain
+     *
+     * @param mutator   creates the moves
+     * @param evaluator evaluates the moves
+     * @param start     solution to start from (will not be changed)
+     * @param random    source for the acceptance decisions
+     */
+    Annealer(Mutator<ST, PT> mutator, Evaluator<ST, PT> evaluator, Solution<ST, PT> start, Random random) {
+        this.mutator = mutator;
+        this.evaluator = evaluator;
+        this.random = random;
+        this.current = copy(start);
+        if (start.getCachets() == null || start.getCachets().isEmpty()) {
+            evaluator.evaluateQuality(current);
+        }
+        this.best = copy(current);
+    }
+
+    /**
+     * Does one Metropolis step: improvements are always accepted, deteriorations by delta with exp(-delta / temperature)
+     *
+     * @param temperature of the step
+     * @return true if the move was accepted
+     */
+    boolean step(double temperature) {
+        double previousQuality = current.getQuality();
+        if (mutator instanceof MoveMutator) {
+            ((MoveMutator<ST, PT>) mutator).applyMove(current, undo);
+            evaluator.evaluateQuality(current);
+            if (!accept(current.getQuality() - previousQuality, temperature)) {
+                undo.revert(current);
+                return false;
+            }
+            undo.commit();
+        } else {
+            Solution<ST, PT> candidate = mutator.mutate(current);
+            if (!(mutator instanceof EvaluatingMutator)) {
+                evaluator.evaluateQuality(candidate);
+            }
+            if (!accept(candidate.getQuality() - previousQuality, temperature)) {
+                return false;
+            }
+            current = candidate;
+        }
+
+        accepted++;
+        if (current.getQuality() < best.getQuality()) {
+            best = copy(current);
+        }
+        return true;
+    }
+
+    private boolean accept(double delta, double temperature) {
+        if (delta <= 0) {
+            return true;
+        }
+        return temperature > 0 && random.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    /**
+     * Copies the solution including its cachets, so the evaluation of one can't change the other
+     *
+     * @param solution to be copied
+     * @return copy
+     */
+    private static <ST, PT> Solution<ST, PT> copy(Solution<ST, PT> solution) {
+        Solution<ST, PT> copy = new Solution<>(solution);
+        copy.setCachets(solution.getCachets() == null ? new ArrayList<>() : new ArrayList<>(solution.getCachets()));
+        return copy;
+    }
+
+    Solution<ST, PT> getCurrent() {
+        return current;
+    }
+
+    /**
+     * Replaces the current solution, used for swaps between chains
+     *
+     * @param current new current solution (owned by this chain from now on)
+     */
+    void setCurrent(Solution<ST, PT> current) {
+        this.current = current;
+        if (current.getQuality() < best.getQuality()) {
+            best = copy(current);
+        }
+    }
+
+    Solution<ST, PT> getBest() {
+        return best;
+    }
+
+    int getAccepted() {
+        return accepted;
+    }
+}
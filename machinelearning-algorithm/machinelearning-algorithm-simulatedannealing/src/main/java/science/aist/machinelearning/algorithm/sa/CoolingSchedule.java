@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.sa;
+
+/**
+ * Cooling schedule of the {@link SimulatedAnnealing}. Calculates the temperature for a step of the search.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public interface CoolingSchedule {
+
+    /**
+     * Calculates the temperature of a step
+     *
+     * @param initialTemperature temperature at step 0
+     * @param step               step since the start (or the last reheat) of the search
+     * @param steps              maximum amount of steps of the search
+     * @return temperature of the step (&gt; 0)
+     */
+    double temperature(double initialTemperature, int step, int steps);
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.sa;
+
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Geometric cooling: the temperature is multiplied by alpha every step.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ExponentialCoolingSchedule implements CoolingSchedule, Configurable {
+
+    /**
+     * Factor the temperature is multiplied with per step (0 &lt; alpha &lt; 1)
+     */
+    private double alpha = 0.99;
+
+    @Override
+    public double temperature(double initialTemperature, int step, int steps) {
+        return initialTemperature * Math.pow(alpha, step);
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param alpha factor the temperature is multiplied with per step
+     */
+    public void setAlpha(double alpha) {
+        if (alpha <= 0 || alpha >= 1) {
+            throw new IllegalArgumentException("alpha must be between 0 and 1");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("alpha", new Descriptor<>(alpha));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "alpha":
+                    setAlpha((Double) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
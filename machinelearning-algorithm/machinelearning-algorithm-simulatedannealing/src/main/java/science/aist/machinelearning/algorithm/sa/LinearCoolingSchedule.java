@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.sa;
+
+/**
+ * Linear cooling: the temperature decreases by the same amount every step. It stops one decrement above 0 (at
+ * initialTemperature / steps), as the temperature must stay positive.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class LinearCoolingSchedule implements CoolingSchedule {
+
+    @Override
+    public double temperature(double initialTemperature, int step, int steps) {
+        return initialTemperature * Math.max(1.0 / steps, 1 - step / (double) steps);
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.sa;
+
+/**
+ * Logarithmic cooling T0 / (1 + ln(1 + step)). Cools very slowly, which is the classical schedule that converges to the
+ * global optimum given infinite time. In practice useful for rugged landscapes with few steps.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class LogarithmicCoolingSchedule implements CoolingSchedule {
+
+    @Override
+    public double temperature(double initialTemperature, int step, int steps) {
+        return initialTemperature / (1 + Math.log1p(step));
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.sa;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.mutation.Mutator;
+import science.aist.machinelearning.core.AbstractAlgorithm;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel tempering (replica exchange). Runs several annealing chains (replicas) at fixed temperatures on separate
+ * threads. The temperatures form a geometric ladder from minimumTemperature to maximumTemperature: hot replicas roam
+ * the landscape, cold replicas refine.
+ * <p>
+ * Every swapInterval steps the replicas pause and neighbouring temperatures try to exchange their solutions. A swap of
+ * the replicas i (colder) and j is accepted with min(1, exp((E_i - E_j) * (1 / T_i - 1 / T_j))), so good solutions
+ * found by hot replicas sink down the ladder. Even and odd pairs are tried alternately.
+ * <p>
+ * The mutator and evaluator are shared between the threads and must be thread safe.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ParallelTempering<ST, PT> extends AbstractAlgorithm<ST, PT> {
+
+    /**
+     * Logger
+     */
+    private static final Logger logger = Logger.getLogger(ParallelTempering.class);
+
+    private final Random r = new Random();
+
+    private Mutator<ST, PT> mutator;
+
+    /**
+     * Steps every replica does
+     */
+    private Integer maximumGenerations;
+
+    /**
+     * Amount of replicas, each runs on its own thread
+     */
+    private Integer replicas = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Temperature of the coldest replica
+     */
+    private Double minimumTemperature = 0.01;
+
+    /**
+     * Temperature of the hottest replica
+     */
+    private Double maximumTemperature = 1.0;
+
+    /**
+     * Steps between two swap attempts
+     */
+    private Integer swapInterval = 10;
+
+    /**
+     * Temperature of every replica of the last run, from cold to hot
+     */
+    private double[] temperatures = new double[0];
+
+    /**
+     * Accepted swaps between replica i and i + 1 in the last run
+     */
+    private int[] acceptedSwaps = new int[0];
+
+    /**
+     * Attempted swaps between replica i and i + 1 in the last run
+     */
+    private int[] attemptedSwaps = new int[0];
+
+    private void analyticsStep(Solution<ST, PT> bestSolution, List<Annealer<ST, PT>> chains) {
+        if (getAnalytics() != null) {
+            List<String> values = new ArrayList<>();
+            values.add(String.valueOf(bestSolution.getQuality()));
+            values.add(String.valueOf(chains.get(0).getCurrent().getQuality()));
+            getAnalytics().logAlgorithmStep(values);
+        }
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().size() == 0) {
+            return null;
+        }
+
+        return solve(problem, getSolutionCreator().createSolution(problem));
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem, Solution<ST, PT> givenSolution) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().size() == 0 || givenSolution == null) {
+            return null;
+        }
+
+        temperatures = ladder();
+        acceptedSwaps = new int[replicas];
+        attemptedSwaps = new int[replicas];
+
+        // every replica starts from the given solution, the hot ones will leave it quickly
+        List<Annealer<ST, PT>> chains = new ArrayList<>(replicas);
+        Annealer<ST, PT> first = new Annealer<>(mutator, getEvaluator(), givenSolution, new Random(r.nextLong()));
+        chains.add(first);
+        for (int i = 1; i < replicas; i++) {
+            chains.add(new Annealer<>(mutator, getEvaluator(), first.getCurrent(), new Random(r.nextLong())));
+        }
+        Solution<ST, PT> best = first.getBest();
+
+        ExecutorService executor = Executors.newFixedThreadPool(replicas, runnable -> {
+            Thread thread = new Thread(runnable, "parallel-tempering");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            int epoch = 0;
+            for (int done = 0; done < maximumGenerations; done += swapInterval) {
+                int steps = Math.min(swapInterval, maximumGenerations - done);
+                List<Callable<Void>> tasks = new ArrayList<>(replicas);
+                for (int i = 0; i < replicas; i++) {
+                    Annealer<ST, PT> chain = chains.get(i);
+                    double temperature = temperatures[i];
+                    tasks.add(() -> {
+                        for (int s = 0; s < steps; s++) {
+                            chain.step(temperature);
+                        }
+                        return null;
+                    });
+                }
+                for (Future<Void> result : executor.invokeAll(tasks)) {
+                    result.get();
+                }
+
+                swap(chains, epoch++ % 2);
+                for (Annealer<ST, PT> chain : chains) {
+                    if (chain.getBest().getQuality() < best.getQuality()) {
+                        best = chain.getBest();
+                    }
+                }
+                analyticsStep(best, chains);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for the replicas", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replica failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return best;
+    }
+
+    /**
+     * Tries to swap the solutions of neighbouring replicas
+     *
+     * @param chains replicas from cold to hot
+     * @param offset 0 for the pairs (0, 1), (2, 3), ... and 1 for (1, 2), (3, 4), ...
+     */
+    private void swap(List<Annealer<ST, PT>> chains, int offset) {
+        for (int i = offset; i + 1 < chains.size(); i += 2) {
+            Annealer<ST, PT> cold = chains.get(i);
+            Annealer<ST, PT> hot = chains.get(i + 1);
+            attemptedSwaps[i]++;
+            double exponent = (cold.getCurrent().getQuality() - hot.getCurrent().getQuality()) * (1 / temperatures[i] - 1 / temperatures[i + 1]);
+            if (exponent >= 0 || r.nextDouble() < Math.exp(exponent)) {
+                Solution<ST, PT> coldSolution = cold.getCurrent();
+                cold.setCurrent(hot.getCurrent());
+                hot.setCurrent(coldSolution);
+                acceptedSwaps[i]++;
+            }
+        }
+    }
+
+    /**
+     * @return geometric temperature ladder from the minimum to the maximum temperature
+     */
+    private double[] ladder() {
+        double[] ladder = new double[replicas];
+        double ratio = replicas > 1 ? Math.pow(maximumTemperature / minimumTemperature, 1.0 / (replicas - 1)) : 1;
+        for (int i = 0; i < replicas; i++) {
+            ladder[i] = minimumTemperature * Math.pow(ratio, i);
+        }
+        return ladder;
+    }
+
+    @Override
+    protected Map<String, Descriptor> getSpecificOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("mutator", new Descriptor<>(mutator));
+        options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
+        options.put("replicas", new Descriptor<>(replicas));
+        options.put("minimumTemperature", new Descriptor<>(minimumTemperature));
+        options.put("maximumTemperature", new Descriptor<>(maximumTemperature));
+        options.put("swapInterval", new Descriptor<>(swapInterval));
+        return options;
+    }
+
+    @Override
+    protected boolean setSpecificOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "mutator":
+                    setMutator((Mutator<ST, PT>) descriptor.getValue());
+                    break;
+                case "maximumGenerations":
+                    setMaximumGenerations((Integer) descriptor.getValue());
+                    break;
+                case "replicas":
+                    setReplicas((Integer) descriptor.getValue());
+                    break;
+                case "minimumTemperature":
+                    setMinimumTemperature((Double) descriptor.getValue());
+                    break;
+                case "maximumTemperature":
+                    setMaximumTemperature((Double) descriptor.getValue());
+                    break;
+                case "swapInterval":
+                    setSwapInterval((Integer) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return temperature of every replica of the last run, from cold to hot
+     */
+    public double[] getTemperatures() {
+        return temperatures;
+    }
+
+    /**
+     * Returns how often neighbouring replicas exchanged their solutions. Rates close to 0 mean the ladder is too
+     * coarse (more replicas or a smaller temperature range are needed).
+     *
+     * @return fraction of accepted swaps between replica i and i + 1 of the last run
+     */
+    public double[] getSwapAcceptanceRates() {
+        double[] rates = new double[Math.max(0, temperatures.length - 1)];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = attemptedSwaps[i] > 0 ? acceptedSwaps[i] / (double) attemptedSwaps[i] : 0;
+        }
+        return rates;
+    }
+
+    public Mutator<ST, PT> getMutator() {
+        return mutator;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param mutator creates the neighbours, must be thread safe
+     */
+    @Required
+    public void setMutator(Mutator<ST, PT> mutator) {
+        this.mutator = mutator;
+    }
+
+    public Integer getMaximumGenerations() {
+        return maximumGenerations;
+    }
+
+    public void setMaximumGenerations(Integer maximumGenerations) {
+        this.maximumGenerations = maximumGenerations;
+    }
+
+    public Integer getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param replicas amount of replicas (and threads)
+     */
+    public void setReplicas(Integer replicas) {
+        if (replicas <= 0) {
+            throw new IllegalArgumentException("at least one replica is required");
+        }
+        this.replicas = replicas;
+    }
+
+    public Double getMinimumTemperature() {
+        return minimumTemperature;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param minimumTemperature temperature of the coldest replica
+     */
+    public void setMinimumTemperature(Double minimumTemperature) {
+        if (minimumTemperature <= 0) {
+            throw new IllegalArgumentException("minimum temperature must be > 0");
+        }
+        this.minimumTemperature = minimumTemperature;
+    }
+
+    public Double getMaximumTemperature() {
+        return maximumTemperature;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param maximumTemperature temperature of the hottest replica
+     */
+    public void setMaximumTemperature(Double maximumTemperature) {
+        this.maximumTemperature = maximumTemperature;
+    }
+
+    public Integer getSwapInterval() {
+        return swapInterval;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param swapInterval steps every replica does between two swap attempts
+     */
+    public void setSwapInterval(Integer swapInterval) {
+        if (swapInterval <= 0) {
+            throw new IllegalArgumentException("swap interval must be > 0");
+        }
+        this.swapInterval = swapInterval;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.sa;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.mutation.MoveMutator;
+import science.aist.machinelearning.algorithm.mutation.Mutator;
+import science.aist.machinelearning.core.AbstractAlgorithm;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.*;
+
+/**
+ * Simulated annealing. Every step creates one neighbour with the mutator and accepts it with the Metropolis criterion
+ * at the temperature given by the {@link CoolingSchedule}.
+ * <p>
+ * Moves of a {@link MoveMutator} are evaluated in place and reverted if they are rejected, so rejected moves don't copy
+ * the solution.
+ * <p>
+ * If reheating is enabled, the search reheats after stagnationLimit steps without improving the best solution: the
+ * schedule starts over at initialTemperature * reheatFactor.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class SimulatedAnnealing<ST, PT> extends AbstractAlgorithm<ST, PT> {
+
+    private final Random r = new Random();
+
+    private Mutator<ST, PT> mutator;
+
+    private Integer maximumGenerations;
+
+    /**
+     * Temperature at the start of the search
+     */
+    private Double initialTemperature = 1.0;
+
+    private CoolingSchedule coolingSchedule = new ExponentialCoolingSchedule();
+
+    /**
+     * If the search reheats when it stagnates
+     */
+    private Boolean reheating = false;
+
+    /**
+     * Steps without improvement of the best solution after which the search reheats
+     */
+    private Integer stagnationLimit = 100;
+
+    /**
+     * Fraction of the initial temperature the schedule starts over with when reheating
+     */
+    private Double reheatFactor = 0.5;
+
+    /**
+     * Amount of reheats in the last run
+     */
+    private int reheats;
+
+    /**
+     * Fraction of accepted moves in the last run
+     */
+    private double acceptanceRate;
+
+    private void analyticsStep(Solution<ST, PT> bestSolution, Solution<ST, PT> currentSolution, double temperature) {
+        if (getAnalytics() != null) {
+            List<String> values = new ArrayList<>();
+            values.add(String.valueOf(bestSolution.getQuality()));
+            values.add(String.valueOf(currentSolution.getQuality()));
+            values.add(String.valueOf(temperature));
+            getAnalytics().logAlgorithmStep(values);
+        }
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().size() == 0) {
+            return null;
+        }
+
+        return solve(problem, getSolutionCreator().createSolution(problem));
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem, Solution<ST, PT> givenSolution) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().size() == 0 || givenSolution == null) {
+            return null;
+        }
+
+        Annealer<ST, PT> annealer = new Annealer<>(mutator, getEvaluator(), givenSolution, r);
+        reheats = 0;
+
+        double startTemperature = initialTemperature;
+        int scheduleStep = 0;
+        int stagnation = 0;
+        for (int i = 0; i < maximumGenerations; i++) {
+            double temperature = coolingSchedule.temperature(startTemperature, scheduleStep++, maximumGenerations);
+            double bestQuality = annealer.getBest().getQuality();
+            annealer.step(temperature);
+
+            if (annealer.getBest().getQuality() < bestQuality) {
+                stagnation = 0;
+            } else if (reheating && ++stagnation >= stagnationLimit) {
+                startTemperature = initialTemperature * reheatFactor;
+                scheduleStep = 0;
+                stagnation = 0;
+                reheats++;
+            }
+            analyticsStep(annealer.getBest(), annealer.getCurrent(), temperature);
+        }
+        acceptanceRate = maximumGenerations > 0 ? annealer.getAccepted() / (double) maximumGenerations : 0;
+
+        return annealer.getBest();
+    }
+
+    @Override
+    protected Map<String, Descriptor> getSpecificOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("mutator", new Descriptor<>(mutator));
+        options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
+        options.put("initialTemperature", new Descriptor<>(initialTemperature));
+        options.put("coolingSchedule", new Descriptor<>(coolingSchedule));
+        options.put("reheating", new Descriptor<>(reheating));
+        // the reheat settings are only relevant (and only offered to experiments) if the search reheats
+        if (reheating) {
+            options.put("stagnationLimit", new Descriptor<>(stagnationLimit));
+            options.put("reheatFactor", new Descriptor<>(reheatFactor));
+        }
+        return options;
+    }
+
+    @Override
+    protected boolean setSpecificOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "mutator":
+                    setMutator((Mutator<ST, PT>) descriptor.getValue());
+                    break;
+                case "maximumGenerations":
+                    setMaximumGenerations((Integer) descriptor.getValue());
+                    break;
+                case "initialTemperature":
+                    setInitialTemperature((Double) descriptor.getValue());
+                    break;
+                case "coolingSchedule":
+                    setCoolingSchedule((CoolingSchedule) descriptor.getValue());
+                    break;
+                case "reheating":
+                    setReheating((Boolean) descriptor.getValue());
+                    break;
+                case "stagnationLimit":
+                    setStagnationLimit((Integer) descriptor.getValue());
+                    break;
+                case "reheatFactor":
+                    setReheatFactor((Double) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    public Mutator<ST, PT> getMutator() {
+        return mutator;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param mutator creates the neighbours
+     */
+    @Required
+    public void setMutator(Mutator<ST, PT> mutator) {
+        this.mutator = mutator;
+    }
+
+    public Integer getMaximumGenerations() {
+        return maximumGenerations;
+    }
+
+    public void setMaximumGenerations(Integer maximumGenerations) {
+        this.maximumGenerations = maximumGenerations;
+    }
+
+    public Double getInitialTemperature() {
+        return initialTemperature;
+    }
+
+    /**
+     * Setter for configuration. Should be in the order of magnitude of the quality differences between neighbours.
+     *
+     * @param initialTemperature temperature at the start of the search
+     */
+    public void setInitialTemperature(Double initialTemperature) {
+        if (initialTemperature <= 0) {
+            throw new IllegalArgumentException("initial temperature must be > 0");
+        }
+        this.initialTemperature = initialTemperature;
+    }
+
+    public CoolingSchedule getCoolingSchedule() {
+        return coolingSchedule;
+    }
+
+    public void setCoolingSchedule(CoolingSchedule coolingSchedule) {
+        this.coolingSchedule = coolingSchedule;
+    }
+
+    public Boolean getReheating() {
+        return reheating;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param reheating if the search reheats after stagnationLimit steps without improvement
+     */
+    public void setReheating(Boolean reheating) {
+        this.reheating = reheating;
+    }
+
+    public Integer getStagnationLimit() {
+        return stagnationLimit;
+    }
+
+    /**
+     * Setter for configuration. Only used if reheating is enabled.
+     *
+     * @param stagnationLimit steps without improvement after which the search reheats
+     */
+    public void setStagnationLimit(Integer stagnationLimit) {
+        if (stagnationLimit <= 0) {
+            throw new IllegalArgumentException("stagnation limit must be > 0");
+        }
+        this.stagnationLimit = stagnationLimit;
+    }
+
+    public Double getReheatFactor() {
+        return reheatFactor;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param reheatFactor fraction of the initial temperature the schedule starts over with when reheating
+     */
+    public void setReheatFactor(Double reheatFactor) {
+        this.reheatFactor = reheatFactor;
+    }
+
+    /**
+     * @return amount of reheats in the last run
+     */
+    public int getReheats() {
+        return reheats;
+    }
+
+    /**
+     * @return fraction of accepted moves in the last run
+     */
+    public double getAcceptanceRate() {
+        return acceptanceRate;
+    }
+}
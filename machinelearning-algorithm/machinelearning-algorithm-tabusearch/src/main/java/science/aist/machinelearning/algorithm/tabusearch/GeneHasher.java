@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.tabusearch;
+
+import java.util.Arrays;
+
+/**
+ * Hashes the value of a solution gene, so the {@link TabuSearch} can remember "gene i has value x" as tabu attribute.
+ * Equal values must produce equal hashes, otherwise a move can never become tabu.
+ *
+ * @param <ST> Solution Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface GeneHasher<ST> {
+
+    /**
+     * Default hasher that relies on equals/hashCode of the gene. Arrays (including primitive arrays) are hashed by
+     * content.
+     *
+     * @param <ST> Solution Type
+     * @return hasher based on the hashCode of the gene
+     */
+    static <ST> GeneHasher<ST> byHashCode() {
+        // wrapping the gene lets deepHashCode dispatch to the matching Arrays.hashCode for primitive arrays too
+        return gene -> Arrays.deepHashCode(new Object[]{gene});
+    }
+
+    /**
+     * Hashes the value of a gene
+     *
+     * @param gene value of the solution gene
+     * @return hash of the value
+     */
+    long hash(ST gene);
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.tabusearch;
+
+import java.util.Arrays;
+
+/**
+ * Short term memory of a {@link TabuSearch}. Instead of whole solutions it remembers attributes of moves (e.g. "gene 3
+ * gets value X") as 64 bit hashes.
+ * <p>
+ * The attributes are kept in a ring buffer of tabuTenure entries, so adding an attribute evicts the oldest one in O(1).
+ * Membership is answered by an open addressing hash set (linear probing) that counts how often each attribute is in the
+ * ring buffer, so a lookup costs O(1) independent of the tenure. Nothing is allocated after construction.
+ * <p>
+ * Hash collisions only make additional moves tabu, they never make a move non-tabu. The memory is not thread safe.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class TabuMemory {
+
+    /**
+     * Marks an empty slot of the set. Attributes with this value are remapped
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * Attributes in insertion order
+     */
+    private final long[] ring;
+    /**
+     * Keys of the open addressing set
+     */
+    private final long[] keys;
+    /**
+     * How often the key in the same slot is contained in the ring
+     */
+    private final int[] counts;
+    /**
+     * keys.length - 1, the table size is a power of two
+     */
+    private final int mask;
+    /**
+     * Position in the ring where the next attribute is written
+     */
+    private int next;
+    /**
+     * Amount of attributes in the ring
+     */
+    private int size;
+
+    /**
+     * Creates an empty memory
+     *
+     * @param tabuTenure amount of attributes that are remembered
+     */
+    public TabuMemory(int tabuTenure) {
+        if (tabuTenure <= 0) {
+            throw new IllegalArgumentException("tabu tenure must be > 0");
+        }
+        ring = new long[tabuTenure];
+        // load factor of at most 0.5 keeps the probe sequences short
+        int capacity = Integer.highestOneBit(tabuTenure * 2 - 1) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds an attribute. If the memory is full the oldest attribute is forgotten.
+     *
+     * @param attribute hash of the attribute
+     */
+    public void add(long attribute) {
+        attribute = remap(attribute);
+        if (size == ring.length) {
+            remove(ring[next]);
+        } else {
+            size++;
+        }
+        ring[next] = attribute;
+        next = next + 1 == ring.length ? 0 : next + 1;
+
+        int slot = slot(attribute);
+        while (keys[slot] != EMPTY && keys[slot] != attribute) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = attribute;
+        counts[slot]++;
+    }
+
+    /**
+     * Checks if the attribute is tabu
+     *
+     * @param attribute hash of the attribute
+     * @return true if the attribute is in the memory
+     */
+    public boolean contains(long attribute) {
+        attribute = remap(attribute);
+        int slot = slot(attribute);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == attribute) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Forgets all attributes
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(counts, 0);
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * @return amount of attributes in the memory (including duplicates)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return maximum amount of attributes in the memory
+     */
+    public int getTabuTenure() {
+        return ring.length;
+    }
+
+    private void remove(long attribute) {
+        int slot = slot(attribute);
+        while (keys[slot] != attribute) {
+            slot = (slot + 1) & mask;
+        }
+        if (--counts[slot] > 0) {
+            return;
+        }
+
+        // backward shift deletion, so no tombstones are needed
+        int hole = slot;
+        int current = (hole + 1) & mask;
+        while (keys[current] != EMPTY) {
+            int home = slot(keys[current]);
+            // move the key into the hole if the hole lies on its probe sequence (between home and current)
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                keys[hole] = keys[current];
+                counts[hole] = counts[current];
+                hole = current;
+            }
+            current = (current + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        counts[hole] = 0;
+    }
+
+    private int slot(long attribute) {
+        return (int) (mix(attribute) & mask);
+    }
+
+    private static long remap(long attribute) {
+        return attribute == EMPTY ? 0x9E3779B97F4A7C15L : attribute;
+    }
+
+    /**
+     * Finalizer of splitmix64, spreads the bits of a hash over the whole long
+     *
+     * @param value to be mixed
+     * @return mixed value
+     */
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
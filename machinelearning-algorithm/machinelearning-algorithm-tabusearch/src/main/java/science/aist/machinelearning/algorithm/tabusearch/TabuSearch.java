@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.tabusearch;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.algorithm.mutation.Move;
+import science.aist.machinelearning.algorithm.mutation.MoveMutator;
+import science.aist.machinelearning.core.AbstractAlgorithm;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.analytics.Analytics;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Tabu search with attribute based short term memory.
+ * <p>
+ * Every iteration samples neighbourhoodSize moves of the current solution with a {@link MoveMutator} and evaluates the
+ * neighbours they lead to concurrently. The search always moves to the best neighbour that is not tabu, even if it is
+ * worse than the current solution. A neighbour is tabu if one of its new genes (index + hash of the value, see {@link
+ * GeneHasher}) is in the {@link TabuMemory}. With aspiration a tabu neighbour is still accepted if it is better than the
+ * best solution found so far.
+ * <p>
+ * After a move the REVERSE attributes (the genes that were replaced) become tabu for tabuTenure attributes, so the
+ * search can't immediately return to where it came from.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class TabuSearch<ST, PT> extends AbstractAlgorithm<ST, PT> {
+
+    /**
+     * Creates the neighbours, must be a move mutator so the replaced genes are known
+     */
+    private MoveMutator<ST, PT> mutator;
+
+    private Integer maximumGenerations;
+
+    /**
+     * Amount of neighbours sampled (and evaluated in parallel) per iteration
+     */
+    private Integer neighbourhoodSize = 20;
+
+    /**
+     * Amount of attributes that are remembered as tabu
+     */
+    private Integer tabuTenure = 10;
+
+    /**
+     * If tabu neighbours are accepted when they improve the best solution found so far
+     */
+    private Boolean aspiration = true;
+
+    /**
+     * Hashes the gene values for the tabu attributes
+     */
+    private GeneHasher<ST> geneHasher = GeneHasher.byHashCode();
+
+    /**
+     * Amount of tabu neighbours accepted due to the aspiration criterion in the last run
+     */
+    private int aspirations;
+
+    /**
+     * Iterations in the last run in which every neighbour was tabu
+     */
+    private int blockedIterations;
+
+    private void analyticsStep(Solution<ST, PT> bestSolution, Solution<ST, PT> currentSolution) {
+        if (getAnalytics() != null) {
+            List<String> values = new ArrayList<>();
+            values.add(String.valueOf(bestSolution.getQuality()));
+            values.add(String.valueOf(currentSolution.getQuality()));
+            getAnalytics().logAlgorithmStep(values);
+        }
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().size() == 0) {
+            return null;
+        }
+
+        return solve(problem, getSolutionCreator().createSolution(problem));
+    }
+
+    @Override
+    public Solution<ST, PT> solve(Problem<PT> problem, Solution<ST, PT> givenSolution) {
+        if (problem == null || problem.getProblemGenes() == null || problem.getProblemGenes().size() == 0 || givenSolution == null) {
+            return null;
+        }
+
+        Solution<ST, PT> current = givenSolution;
+        if (current.getCachets() == null || current.getCachets().isEmpty()) {
+            // the copy shares the cachet list with the given solution
+            current = new Solution<>(givenSolution);
+            current.setCachets(new ArrayList<>());
+            getEvaluator().evaluateQuality(current);
+        }
+        Solution<ST, PT> best = current;
+
+        TabuMemory memory = new TabuMemory(tabuTenure);
+        aspirations = 0;
+        blockedIterations = 0;
+
+        for (int i = 0; i < maximumGenerations; i++) {
+            final Solution<ST, PT> from = current;
+            List<Neighbour> neighbours = mutator.moves(from, neighbourhoodSize).parallelStream()
+                    .map(move -> neighbour(from, move))
+                    .sorted(Comparator.comparingDouble(n -> n.solution.getQuality()))
+                    .collect(Collectors.toList());
+
+            Neighbour chosen = null;
+            for (Neighbour neighbour : neighbours) {
+                if (!isTabu(neighbour, memory)) {
+                    chosen = neighbour;
+                    break;
+                }
+                // the neighbours are sorted, so only the first one can satisfy the aspiration criterion
+                if (aspiration && neighbour.solution.getQuality() < best.getQuality()) {
+                    chosen = neighbour;
+                    aspirations++;
+                    break;
+                }
+            }
+
+            if (chosen == null) {
+                blockedIterations++;
+            } else {
+                current = chosen.solution;
+                for (long attribute : chosen.reverseAttributes) {
+                    memory.add(attribute);
+                }
+                if (current.getQuality() < best.getQuality()) {
+                    best = current;
+                }
+            }
+            analyticsStep(best, current);
+        }
+
+        return best;
+    }
+
+    /**
+     * Creates and evaluates the neighbour a move leads to (without changing the solution) and derives its attributes
+     *
+     * @param solution the move was created for
+     * @param move     leading to the neighbour
+     * @return neighbour with attributes
+     */
+    private Neighbour neighbour(Solution<ST, PT> solution, Move<ST, PT> move) {
+        Solution<ST, PT> candidate = move.toSolution(solution);
+        getEvaluator().evaluateQuality(candidate);
+
+        Neighbour neighbour = new Neighbour(candidate, move.size());
+        for (int i = 0; i < move.size(); i++) {
+            int index = move.getIndex(i);
+            neighbour.attributes[i] = attribute(index, move.getGene(i));
+            neighbour.reverseAttributes[i] = attribute(index, solution.getSolutionGenes().get(index));
+        }
+        return neighbour;
+    }
+
+    private boolean isTabu(Neighbour neighbour, TabuMemory memory) {
+        for (long attribute : neighbour.attributes) {
+            if (memory.contains(attribute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combines the index and the value of a gene into one attribute hash
+     *
+     * @param index of the gene in the solution
+     * @param gene  the gene
+     * @return attribute hash
+     */
+    private long attribute(int index, SolutionGene<ST, PT> gene) {
+        return TabuMemory.mix(geneHasher.hash(gene.getGene()) * 31 + index);
+    }
+
+    /**
+     * Evaluated neighbour together with the attributes of the move that created it
+     */
+    private class Neighbour {
+
+        private final Solution<ST, PT> solution;
+
+        /**
+         * Attributes of the genes the move introduced
+         */
+        private final long[] attributes;
+
+        /**
+         * Attributes of the genes the move replaced
+         */
+        private final long[] reverseAttributes;
+
+        private Neighbour(Solution<ST, PT> solution, int moveSize) {
+            this.solution = solution;
+            this.attributes = new long[moveSize];
+            this.reverseAttributes = new long[moveSize];
+        }
+    }
+
+    @Override
+    public Analytics getAnalytics() {
+        return analytics;
+    }
+
+    @Override
+    protected Map<String, Descriptor> getSpecificOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("mutator", new Descriptor<>(mutator));
+        options.put("maximumGenerations", new Descriptor<>(maximumGenerations));
+        options.put("neighbourhoodSize", new Descriptor<>(neighbourhoodSize));
+        options.put("tabuTenure", new Descriptor<>(tabuTenure));
+        options.put("aspiration", new Descriptor<>(aspiration));
+        options.put("geneHasher", new Descriptor<>(geneHasher));
+        return options;
+    }
+
+    @Override
+    protected boolean setSpecificOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "mutator":
+                    setMutator((MoveMutator<ST, PT>) descriptor.getValue());
+                    break;
+                case "maximumGenerations":
+                    setMaximumGenerations((Integer) descriptor.getValue());
+                    break;
+                case "neighbourhoodSize":
+                    setNeighbourhoodSize((Integer) descriptor.getValue());
+                    break;
+                case "tabuTenure":
+                    setTabuTenure((Integer) descriptor.getValue());
+                    break;
+                case "aspiration":
+                    setAspiration((Boolean) descriptor.getValue());
+                    break;
+                case "geneHasher":
+                    setGeneHasher((GeneHasher<ST>) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    public MoveMutator<ST, PT> getMutator() {
+        return mutator;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param mutator creates the neighbours
+     */
+    @Required
+    public void setMutator(MoveMutator<ST, PT> mutator) {
+        this.mutator = mutator;
+    }
+
+    public Integer getMaximumGenerations() {
+        return maximumGenerations;
+    }
+
+    public void setMaximumGenerations(Integer maximumGenerations) {
+        this.maximumGenerations = maximumGenerations;
+    }
+
+    public Integer getNeighbourhoodSize() {
+        return neighbourhoodSize;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param neighbourhoodSize amount of neighbours sampled per iteration
+     */
+    public void setNeighbourhoodSize(Integer neighbourhoodSize) {
+        if (neighbourhoodSize <= 0) {
+            throw new IllegalArgumentException("neighbourhood size must be > 0");
+        }
+        this.neighbourhoodSize = neighbourhoodSize;
+    }
+
+    public Integer getTabuTenure() {
+        return tabuTenure;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param tabuTenure amount of attributes that are remembered as tabu
+     */
+    public void setTabuTenure(Integer tabuTenure) {
+        if (tabuTenure <= 0) {
+            throw new IllegalArgumentException("tabu tenure must be > 0");
+        }
+        this.tabuTenure = tabuTenure;
+    }
+
+    public Boolean getAspiration() {
+        return aspiration;
+    }
+
+    /**
+     * Setter for configuration
+     *
+     * @param aspiration if tabu neighbours are accepted when they improve the best solution
+     */
+    public void setAspiration(Boolean aspiration) {
+        this.aspiration = aspiration;
+    }
+
+    public GeneHasher<ST> getGeneHasher() {
+        return geneHasher;
+    }
+
+    /**
+     * Setter for configuration. Required if the genes don't implement equals/hashCode by value.
+     *
+     * @param geneHasher hashes the gene values for the tabu attributes
+     */
+    public void setGeneHasher(GeneHasher<ST> geneHasher) {
+        this.geneHasher = geneHasher;
+    }
+
+    /**
+     * @return amount of tabu neighbours accepted due to the aspiration criterion in the last run
+     */
+    public int getAspirations() {
+        return aspirations;
+    }
+
+    /**
+     * @return iterations of the last run in which every neighbour was tabu
+     */
+    public int getBlockedIterations() {
+        return blockedIterations;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import science.aist.machinelearning.algorithm.ga.crossover.*;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the list based crossovers (one solution gene per variable) with the array based permutation and real vector
+ * crossovers (one solution gene holding a primitive array) for the same genome length.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrossoverBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int length;
+
+    private Solution<Integer, Integer> listA;
+    private Solution<Integer, Integer> listB;
+    private Solution<int[], Integer> permutationA;
+    private Solution<int[], Integer> permutationB;
+    private Solution<double[], Integer> vectorA;
+    private Solution<double[], Integer> vectorB;
+
+    private final OnePointCrossover<Integer, Integer> onePoint = new OnePointCrossover<>();
+    private final UniformCrossover<Integer, Integer> uniform = new UniformCrossover<>();
+    private final PartiallyMappedCrossover<Integer> partiallyMapped = new PartiallyMappedCrossover<>();
+    private final OrderCrossover<Integer> order = new OrderCrossover<>();
+    private final CycleCrossover<Integer> cycle = new CycleCrossover<>();
+    private final EdgeRecombinationCrossover<Integer> edgeRecombination = new EdgeRecombinationCrossover<>();
+    private final SimulatedBinaryCrossover<Integer> simulatedBinary = new SimulatedBinaryCrossover<>();
+    private final BlendCrossover<Integer> blend = new BlendCrossover<>();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        listA = listSolution(permutation(random));
+        listB = listSolution(permutation(random));
+        permutationA = arraySolution(permutation(random));
+        permutationB = arraySolution(permutation(random));
+        vectorA = arraySolution(random.doubles(length).toArray());
+        vectorB = arraySolution(random.doubles(length).toArray());
+    }
+
+    @Benchmark
+    public Solution<Integer, Integer> onePointList() {
+        return onePoint.breedTwo(listA, listB);
+    }
+
+    @Benchmark
+    public Solution<Integer, Integer> uniformList() {
+        return uniform.breedTwo(listA, listB);
+    }
+
+    @Benchmark
+    public Solution<int[], Integer> partiallyMappedArray() {
+        return partiallyMapped.breedTwo(permutationA, permutationB);
+    }
+
+    @Benchmark
+    public Solution<int[], Integer> orderArray() {
+        return order.breedTwo(permutationA, permutationB);
+    }
+
+    @Benchmark
+    public Solution<int[], Integer> cycleArray() {
+        return cycle.breedTwo(permutationA, permutationB);
+    }
+
+    @Benchmark
+    public Solution<int[], Integer> edgeRecombinationArray() {
+        return edgeRecombination.breedTwo(permutationA, permutationB);
+    }
+
+    @Benchmark
+    public Solution<double[], Integer> simulatedBinaryArray() {
+        return simulatedBinary.breedTwo(vectorA, vectorB);
+    }
+
+    @Benchmark
+    public Solution<double[], Integer> blendArray() {
+        return blend.breedTwo(vectorA, vectorB);
+    }
+
+    private int[] permutation(Random random) {
+        List<Integer> values = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, random);
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Solution<Integer, Integer> listSolution(int[] values) {
+        Solution<Integer, Integer> solution = new Solution<>();
+        for (int value : values) {
+            solution.addGene(new SolutionGene<>(value));
+        }
+        return solution;
+    }
+
+    private static <T> Solution<T, Integer> arraySolution(T values) {
+        Solution<T, Integer> solution = new Solution<>();
+        solution.addGene(new SolutionGene<>(values));
+        return solution;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import science.aist.machinelearning.algorithm.cmaes.CovarianceMatrixAdaptionEvolutionStrategy;
+import science.aist.machinelearning.algorithm.cmaes.EigenDecomposition;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JAMA eigendecomposition on double[][] with the row-major {@link EigenDecomposition}, sequential and
+ * with the multi-threaded kernels, at CMA-ES dimensions. Every invocation decomposes a fresh copy of the same random
+ * covariance matrix, the O(n^2) copy is negligible against the O(n^3) decomposition.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EigenDecompositionBenchmark {
+
+    @Param({"100", "500", "2000"})
+    private int dimension;
+
+    private double[][] covariance;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        covariance = new double[dimension][dimension];
+        for (int i = 0; i < dimension; i++) {
+            for (int j = 0; j <= i; j++) {
+                covariance[i][j] = covariance[j][i] = random.nextDouble() + (i == j ? dimension : 0);
+            }
+        }
+    }
+
+    @Benchmark
+    public double[][] jama() {
+        double[][] vectors = new double[dimension][];
+        for (int i = 0; i < dimension; i++) {
+            vectors[i] = covariance[i].clone();
+        }
+        double[] values = new double[dimension];
+        double[] subdiagonal = new double[dimension];
+        CovarianceMatrixAdaptionEvolutionStrategy.matrixToTridiagonalReduction(dimension, vectors, values, subdiagonal);
+        CovarianceMatrixAdaptionEvolutionStrategy.computeEigenvaluesOfTridiagonal(dimension, values, subdiagonal, vectors);
+        return vectors;
+    }
+
+    @Benchmark
+    public double[] rowMajor() {
+        return decompose(false);
+    }
+
+    @Benchmark
+    public double[] rowMajorParallel() {
+        return decompose(true);
+    }
+
+    private double[] decompose(boolean parallel) {
+        double[] vectors = new double[dimension * dimension];
+        for (int i = 0; i < dimension; i++) {
+            System.arraycopy(covariance[i], 0, vectors, i * dimension, dimension);
+        }
+        EigenDecomposition.decompose(dimension, vectors, new double[dimension], parallel);
+        return vectors;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.core.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads a single gene to / from a binary format, e.g. of the {@link SolutionCodec} or of population
+ * snapshots. Codecs for common gene types are available in {@link GeneCodecs}.
+ *
+ * @param <T> type of the gene
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public interface GeneCodec<T> {
+
+    /**
+     * Writes the gene
+     *
+     * @param gene to be written
+     * @param out  to be written to
+     * @throws IOException if writing fails
+     */
+    void write(T gene, DataOutput out) throws IOException;
+
+    /**
+     * Reads a gene that was written with {@link #write(Object, DataOutput)}
+     *
+     * @param in to be read from
+     * @return the gene
+     * @throws IOException if reading fails
+     */
+    T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.core.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codecs for the gene types that are commonly used in this framework
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public final class GeneCodecs {
+
+    private GeneCodecs() {
+    }
+
+    /**
+     * @return codec for double genes
+     */
+    public static GeneCodec<Double> doubles() {
+        return new GeneCodec<Double>() {
+            @Override
+            public void write(Double gene, DataOutput out) throws IOException {
+                out.writeDouble(gene);
+            }
+
+            @Override
+            public Double read(DataInput in) throws IOException {
+                return in.readDouble();
+            }
+        };
+    }
+
+    /**
+     * @return codec for integer genes
+     */
+    public static GeneCodec<Integer> integers() {
+        return new GeneCodec<Integer>() {
+            @Override
+            public void write(Integer gene, DataOutput out) throws IOException {
+                out.writeInt(gene);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+    }
+
+    /**
+     * @return codec for string genes
+     */
+    public static GeneCodec<String> strings() {
+        return new GeneCodec<String>() {
+            @Override
+            public void write(String gene, DataOutput out) throws IOException {
+                out.writeUTF(gene);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                return in.readUTF();
+            }
+        };
+    }
+
+    /**
+     * @return codec for double array genes
+     */
+    public static GeneCodec<double[]> doubleArrays() {
+        return new GeneCodec<double[]>() {
+            @Override
+            public void write(double[] gene, DataOutput out) throws IOException {
+                out.writeInt(gene.length);
+                for (double v : gene) {
+                    out.writeDouble(v);
+                }
+            }
+
+            @Override
+            public double[] read(DataInput in) throws IOException {
+                double[] gene = new double[in.readInt()];
+                for (int i = 0; i < gene.length; i++) {
+                    gene[i] = in.readDouble();
+                }
+                return gene;
+            }
+        };
+    }
+
+    /**
+     * Creates a codec for list genes (e.g. permutations)
+     *
+     * @param elementCodec codec for the elements of the list
+     * @param <T>          type of the elements
+     * @return codec for lists
+     */
+    public static <T> GeneCodec<List<T>> lists(GeneCodec<T> elementCodec) {
+        return new GeneCodec<List<T>>() {
+            @Override
+            public void write(List<T> gene, DataOutput out) throws IOException {
+                out.writeInt(gene.size());
+                for (T element : gene) {
+                    elementCodec.write(element, out);
+                }
+            }
+
+            @Override
+            public List<T> read(DataInput in) throws IOException {
+                int size = in.readInt();
+                List<T> gene = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    gene.add(elementCodec.read(in));
+                }
+                return gene;
+            }
+        };
+    }
+}
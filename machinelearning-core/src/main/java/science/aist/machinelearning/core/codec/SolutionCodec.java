@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.core.codec;
+
+import org.springframework.beans.factory.annotation.Required;
+import science.aist.machinelearning.core.Configurable;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.options.Descriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format for the genes of solutions, e.g. to send them to another process:
+ * <ul>
+ * <li>solution genes via a pluggable {@link GeneCodec}</li>
+ * <li>problem genes as index into the problem that is being solved (they are shared by all solutions), or via an
+ * optional problem gene codec for problem genes that are not part of the problem</li>
+ * </ul>
+ * Quality and cachets are not written. Counts and indices are written as variable length ints.
+ *
+ * @param <ST> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class SolutionCodec<ST, PT> implements Configurable {
+
+    /**
+     * Codec for the solution genes
+     */
+    private GeneCodec<ST> geneCodec;
+    /**
+     * Optional codec for problem genes that are not contained in the problem
+     */
+    private GeneCodec<PT> problemGeneCodec;
+
+    /**
+     * Encodes the genes of the solutions
+     *
+     * @param solutions to be encoded
+     * @param problem   the solutions belong to
+     * @return binary solutions
+     * @throws IOException if a gene can't be written
+     */
+    public byte[] encode(List<Solution<ST, PT>> solutions, Problem<PT> problem) throws IOException {
+        Map<ProblemGene<PT>, Integer> problemGeneIndices = problemGeneIndices(problem);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeVarInt(out, solutions.size());
+        for (Solution<ST, PT> solution : solutions) {
+            writeGenes(out, solution, problemGeneIndices);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes solutions
+     *
+     * @param data    binary solutions created by {@link #encode(List, Problem)}
+     * @param problem the solutions belong to. Problem genes are restored by their index in it.
+     * @return the (not evaluated) solutions
+     * @throws IOException if the data is corrupt
+     */
+    public List<Solution<ST, PT>> decode(byte[] data, Problem<PT> problem) throws IOException {
+        List<ProblemGene<PT>> problemGenes = problemGenes(problem);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int size = readVarInt(in);
+        List<Solution<ST, PT>> solutions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Solution<ST, PT> solution = new Solution<>();
+            readGenes(in, solution, problemGenes);
+            solutions.add(solution);
+        }
+        return solutions;
+    }
+
+    /**
+     * @param problem to be indexed, may be null
+     * @return index of every problem gene in the problem, by identity
+     */
+    public static <PT> Map<ProblemGene<PT>, Integer> problemGeneIndices(Problem<PT> problem) {
+        Map<ProblemGene<PT>, Integer> problemGeneIndices = new IdentityHashMap<>();
+        if (problem != null && problem.getProblemGenes() != null) {
+            for (int i = 0; i < problem.getProblemGenes().size(); i++) {
+                problemGeneIndices.put(problem.getProblemGenes().get(i), i);
+            }
+        }
+        return problemGeneIndices;
+    }
+
+    /**
+     * @param problem may be null
+     * @return problem genes of the problem, or an empty list
+     */
+    public static <PT> List<ProblemGene<PT>> problemGenes(Problem<PT> problem) {
+        return problem != null && problem.getProblemGenes() != null ? problem.getProblemGenes() : new ArrayList<>();
+    }
+
+    /**
+     * Writes the solution genes and their problem genes of a solution
+     *
+     * @param out                to be written to
+     * @param solution           to be written
+     * @param problemGeneIndices created by {@link #problemGeneIndices(Problem)}
+     * @throws IOException if a gene can't be written
+     */
+    public void writeGenes(DataOutput out, Solution<ST, PT> solution, Map<ProblemGene<PT>, Integer> problemGeneIndices) throws IOException {
+        List<SolutionGene<ST, PT>> genes = solution.getSolutionGenes() != null ? solution.getSolutionGenes() : new ArrayList<>();
+        writeVarInt(out, genes.size());
+        for (SolutionGene<ST, PT> gene : genes) {
+            geneCodec.write(gene.getGene(), out);
+            List<ProblemGene<PT>> problemGenes = gene.getProblemGenes() != null ? gene.getProblemGenes() : new ArrayList<>();
+            writeVarInt(out, problemGenes.size());
+            for (ProblemGene<PT> problemGene : problemGenes) {
+                Integer index = problemGeneIndices.get(problemGene);
+                if (index != null) {
+                    writeVarInt(out, index + 1);
+                } else if (problemGeneCodec != null) {
+                    writeVarInt(out, 0);
+                    problemGeneCodec.write(problemGene.getGene(), out);
+                } else {
+                    throw new IllegalArgumentException("Problem gene is not part of the problem and no problemGeneCodec is set");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the genes written with {@link #writeGenes(DataOutput, Solution, Map)} and adds them to the solution
+     *
+     * @param in           to be read from
+     * @param solution     the genes are added to
+     * @param problemGenes created by {@link #problemGenes(Problem)}
+     * @throws IOException if the data is corrupt
+     */
+    public void readGenes(DataInput in, Solution<ST, PT> solution, List<ProblemGene<PT>> problemGenes) throws IOException {
+        int geneCount = readVarInt(in);
+        for (int i = 0; i < geneCount; i++) {
+            SolutionGene<ST, PT> gene = new SolutionGene<>(geneCodec.read(in));
+            int problemGeneCount = readVarInt(in);
+            for (int j = 0; j < problemGeneCount; j++) {
+                int index = readVarInt(in) - 1;
+                if (index >= 0) {
+                    if (index >= problemGenes.size()) {
+                        throw new IOException("Data references problem gene " + index + " that is not part of the problem");
+                    }
+                    gene.addProblemGene(problemGenes.get(index));
+                } else if (problemGeneCodec != null) {
+                    gene.addProblemGene(new ProblemGene<>(problemGeneCodec.read(in)));
+                } else {
+                    throw new IOException("Data contains problem genes but no problemGeneCodec is set");
+                }
+            }
+            solution.addGene(gene);
+        }
+    }
+
+    /**
+     * Writes a non-negative int with 7 bits per byte, so small values (counts, indices) only need a single byte
+     *
+     * @param out   to be written to
+     * @param value to be written
+     * @throws IOException if writing fails
+     */
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an int written with {@link #writeVarInt(DataOutput, int)}
+     *
+     * @param in to be read from
+     * @return the value
+     * @throws IOException if the data is corrupt
+     */
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Data is corrupt: malformed varint");
+    }
+
+    public GeneCodec<ST> getGeneCodec() {
+        return geneCodec;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param geneCodec codec for the solution genes
+     */
+    @Required
+    public void setGeneCodec(GeneCodec<ST> geneCodec) {
+        this.geneCodec = geneCodec;
+    }
+
+    public GeneCodec<PT> getProblemGeneCodec() {
+        return problemGeneCodec;
+    }
+
+    /**
+     * Setter for dependency injection
+     *
+     * @param problemGeneCodec if not set, all problem genes must be part of the problem
+     */
+    public void setProblemGeneCodec(GeneCodec<PT> problemGeneCodec) {
+        this.problemGeneCodec = problemGeneCodec;
+    }
+
+    @Override
+    public Map<String, Descriptor> getOptions() {
+        Map<String, Descriptor> options = new HashMap<>();
+        options.put("geneCodec", new Descriptor<>(geneCodec));
+        options.put("problemGeneCodec", new Descriptor<>(problemGeneCodec));
+        return options;
+    }
+
+    @Override
+    public boolean setOption(String name, Descriptor descriptor) {
+        try {
+            switch (name) {
+                case "geneCodec":
+                    setGeneCodec((GeneCodec<ST>) descriptor.getValue());
+                    break;
+                case "problemGeneCodec":
+                    setProblemGeneCodec((GeneCodec<PT>) descriptor.getValue());
+                    break;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        return true;
+    }
+}
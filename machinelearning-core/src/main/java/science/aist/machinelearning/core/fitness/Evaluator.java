@@ -11,6 +11,7 @@ package science.aist.machinelearning.core.fitness;
 
 import science.aist.machinelearning.core.Solution;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,6 +31,16 @@ public interface Evaluator<ST, PT> {
      */
     double evaluateQuality(Solution solution);
 
+    /**
+     * Evaluates the quality of several solutions. Algorithms that create many independent solutions at once (e.g. a
+     * generation) should prefer this, as evaluators can evaluate the batch in parallel or remotely.
+     *
+     * @param solutions to be evaluated, their quality is set after the call
+     */
+    default void evaluateQualities(List<? extends Solution> solutions) {
+        solutions.forEach(this::evaluateQuality);
+    }
+
     /**
      * Returns the dictionary of cachets used as part of this evaluation function
      *
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.core.surrogate;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Helper for measuring how well a {@link SurrogateModel} orders solutions compared to the real evaluator. For
+ * pre-screening only the ORDER of predictions matters, so the Spearman rank correlation is the metric of choice.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public final class RankCorrelation {
+
+    private RankCorrelation() {
+    }
+
+    /**
+     * Calculates the Spearman rank correlation of two samples. Ties receive their average rank.
+     *
+     * @param a first sample
+     * @param b second sample (same length as a)
+     * @return correlation between -1 and 1, or NaN if it is undefined (less than two values or a constant sample)
+     */
+    public static double spearman(double[] a, double[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Samples must have the same length");
+        }
+        if (a.length < 2) {
+            return Double.NaN;
+        }
+        return pearson(rank(a), rank(b));
+    }
+
+    /**
+     * Assigns ranks (starting at 1) to the values. Equal values receive the average of their ranks.
+     *
+     * @param values to be ranked
+     * @return ranks in order of the given values
+     */
+    static double[] rank(double[] values) {
+        Integer[] order = IntStream.range(0, values.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(i -> values[i]));
+
+        double[] ranks = new double[values.length];
+        int i = 0;
+        while (i < order.length) {
+            int j = i;
+            while (j + 1 < order.length && values[order[j + 1]] == values[order[i]]) {
+                j++;
+            }
+            double rank = (i + j) / 2.0 + 1;
+            for (int k = i; k <= j; k++) {
+                ranks[order[k]] = rank;
+            }
+            i = j + 1;
+        }
+        return ranks;
+    }
+
+    private static double pearson(double[] a, double[] b) {
+        double meanA = Arrays.stream(a).average().orElse(0);
+        double meanB = Arrays.stream(b).average().orElse(0);
+        double covariance = 0;
+        double varianceA = 0;
+        double varianceB = 0;
+        for (int i = 0; i < a.length; i++) {
+            double da = a[i] - meanA;
+            double db = b[i] - meanB;
+            covariance += da * db;
+            varianceA += da * da;
+            varianceB += db * db;
+        }
+        if (varianceA == 0 || varianceB == 0) {
+            return Double.NaN;
+        }
+        return covariance / Math.sqrt(varianceA * varianceB);
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.core.surrogate;
+
+import science.aist.machinelearning.core.Solution;
+
+/**
+ * Maps the genome of a solution to a fixed size feature vector that a {@link SurrogateModel} can learn from. All
+ * vectors returned for one problem MUST have the same length.
+ *
+ * @param <GT> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public interface SolutionToVector<GT, PT> {
+
+    /**
+     * Maps the given solution to a feature vector
+     *
+     * @param solution the solution to be mapped
+     * @return the vector
+     */
+    double[] mapSolutionToVector(Solution<GT, PT> solution);
+}
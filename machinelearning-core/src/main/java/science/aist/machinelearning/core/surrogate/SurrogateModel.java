@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.core.surrogate;
+
+import science.aist.machinelearning.core.Solution;
+
+/**
+ * A surrogate model is a cheap approximation of an expensive {@link science.aist.machinelearning.core.fitness.Evaluator}.
+ * It is trained online on (genome, quality) pairs of solutions that were evaluated for real, and used to pre-screen
+ * offspring so only the most promising ones are handed to the real evaluator.
+ *
+ * @param <GT> Solution Type
+ * @param <PT> Problem Type
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public interface SurrogateModel<GT, PT> {
+
+    /**
+     * Adds an evaluated solution to the training archive of the model. The model will NOT be retrained until {@link
+     * #train()} is called.
+     *
+     * @param solution solution that was evaluated with the real evaluator
+     */
+    void addSample(Solution<GT, PT> solution);
+
+    /**
+     * (Re-)trains the model on all samples currently in the archive
+     */
+    void train();
+
+    /**
+     * Checks if the model was trained and can be used for predictions
+     *
+     * @return true if {@link #predictQuality(Solution)} returns meaningful values
+     */
+    boolean isTrained();
+
+    /**
+     * Predicts the quality the real evaluator would assign to the solution. The closer to 0 the better.
+     *
+     * @param solution to be predicted (does not need to be evaluated)
+     * @return predicted quality
+     */
+    double predictQuality(Solution<GT, PT> solution);
+
+    /**
+     * Removes all samples and forgets the trained model, so the surrogate can be used for an unrelated run
+     */
+    void reset();
+
+    /**
+     * Returns the number of samples currently in the training archive
+     *
+     * @return amount of samples
+     */
+    int getSampleCount();
+}
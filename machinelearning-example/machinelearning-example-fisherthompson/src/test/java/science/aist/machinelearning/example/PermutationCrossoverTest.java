@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.ga.GeneticAlgorithm;
+import science.aist.machinelearning.algorithm.ga.crossover.*;
+import science.aist.machinelearning.algorithm.ga.selector.TournamentSelector;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.mapping.OneToOneSolutionCreator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests that the permutation crossovers keep job orders valid (also within a genetic algorithm on the Fisher-Thompson
+ * 6x6 instance), and the real valued crossovers stay within their bounds
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class PermutationCrossoverTest {
+
+    private final Random random = new Random(3);
+
+    /**
+     * Fisher and Thompson 6x6 instance (see {@link FisherThompsonTest})
+     */
+    private final int[][] ft06 = {
+            {3, 6, 1, 7, 6, 3},
+            {10, 8, 5, 4, 10, 10},
+            {9, 1, 5, 4, 7, 8},
+            {5, 5, 5, 3, 8, 9},
+            {3, 3, 9, 1, 5, 4},
+            {10, 3, 1, 3, 4, 9},
+    };
+
+    @Test
+    public void testPartiallyMappedCrossover() {
+        assertValidPermutations(new PartiallyMappedCrossover<>());
+    }
+
+    @Test
+    public void testOrderCrossover() {
+        assertValidPermutations(new OrderCrossover<>());
+    }
+
+    @Test
+    public void testCycleCrossover() {
+        CycleCrossover<Integer> crossover = new CycleCrossover<>();
+        assertValidPermutations(crossover);
+
+        // every value keeps the position it has in one of the parents
+        for (int run = 0; run < 100; run++) {
+            int[] a = permutation(30);
+            int[] b = permutation(30);
+            int[] child = crossover.breedTwo(solution(a), solution(b)).getSolutionGenes().get(0).getGene();
+            for (int i = 0; i < child.length; i++) {
+                Assert.assertTrue(child[i] == a[i] || child[i] == b[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testEdgeRecombinationCrossover() {
+        EdgeRecombinationCrossover<Integer> crossover = new EdgeRecombinationCrossover<>();
+        assertValidPermutations(crossover);
+
+        // identical parents only have their own edges, so the child must be the same (cyclic) tour
+        int[] a = permutation(20);
+        int[] position = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            position[a[i]] = i;
+        }
+        int[] child = crossover.breedTwo(solution(a), solution(a.clone())).getSolutionGenes().get(0).getGene();
+        for (int i = 1; i < child.length; i++) {
+            int distance = Math.abs(position[child[i]] - position[child[i - 1]]);
+            Assert.assertTrue(distance == 1 || distance == a.length - 1, "edge " + child[i - 1] + "-" + child[i] + " is not in the parents");
+        }
+    }
+
+    @Test
+    public void testFisherThompsonGeneticAlgorithm() {
+        assertValidJobOrders(new PartiallyMappedCrossover<>());
+        assertValidJobOrders(new OrderCrossover<>());
+        assertValidJobOrders(new CycleCrossover<>());
+        assertValidJobOrders(new EdgeRecombinationCrossover<>());
+    }
+
+    @Test
+    public void testSimulatedBinaryCrossover() {
+        SimulatedBinaryCrossover<Integer> crossover = new SimulatedBinaryCrossover<>();
+        crossover.setLowerBound(-1.0);
+        crossover.setUpperBound(1.0);
+        assertWithinBounds(crossover);
+    }
+
+    @Test
+    public void testBlendCrossover() {
+        BlendCrossover<Integer> crossover = new BlendCrossover<>();
+        crossover.setLowerBound(-1.0);
+        crossover.setUpperBound(1.0);
+        assertWithinBounds(crossover);
+    }
+
+    @Test
+    public void testSeedRepeatsChildren() {
+        int[] a = permutation(40);
+        int[] b = permutation(40);
+        OrderCrossover<Integer> first = new OrderCrossover<>();
+        first.setSeed(7);
+        OrderCrossover<Integer> second = new OrderCrossover<>();
+        second.setSeed(7);
+
+        for (int run = 0; run < 20; run++) {
+            Assert.assertEquals(first.breedTwo(solution(a), solution(b)).getSolutionGenes().get(0).getGene(),
+                    second.breedTwo(solution(a), solution(b)).getSolutionGenes().get(0).getGene());
+        }
+    }
+
+    private void assertValidPermutations(AbstractPermutationCrossover<Integer> crossover) {
+        for (int n = 1; n < 60; n++) {
+            int[] a = permutation(n);
+            int[] b = permutation(n);
+            Solution<int[], Integer> child = crossover.breedTwo(solution(a), solution(b));
+
+            int[] gene = child.getSolutionGenes().get(0).getGene();
+            Assert.assertNotSame(gene, a);
+            Assert.assertNotSame(gene, b);
+            boolean[] seen = new boolean[n];
+            for (int value : gene) {
+                Assert.assertFalse(seen[value], "duplicate value " + value);
+                seen[value] = true;
+            }
+        }
+    }
+
+    private void assertValidJobOrders(AbstractPermutationCrossover<Integer> permutationCrossover) {
+        // given
+        FisherThompsonCachet cachet = new FisherThompsonCachet();
+        cachet.setTimes(ft06);
+        Map<CachetEvaluator<List<Integer>, Integer>, Double> cachets = new HashMap<>();
+        cachets.put(cachet, 1.0);
+        GenericEvaluatorImpl<List<Integer>, Integer> evaluator = new GenericEvaluatorImpl<>();
+        evaluator.setCachetEvaluators(cachets);
+
+        FisherThompsonGeneCreator geneCreator = new FisherThompsonGeneCreator();
+        geneCreator.setN(ft06[0].length);
+        OneToOneSolutionCreator<List<Integer>, Integer> solutionCreator = new OneToOneSolutionCreator<>();
+        solutionCreator.setGeneCreator(geneCreator);
+
+        FisherThompsonMutator mutator = new FisherThompsonMutator();
+        mutator.setEvaluator(evaluator);
+
+        ListPermutationCrossover<Integer> crossover = new ListPermutationCrossover<>();
+        crossover.setPermutationCrossover(permutationCrossover);
+        List<Solution<List<Integer>, Integer>> offspring = new ArrayList<>();
+
+        GeneticAlgorithm<List<Integer>, Integer> algorithm = new GeneticAlgorithm<>();
+        algorithm.setEvaluator(evaluator);
+        algorithm.setSolutionCreator(solutionCreator);
+        algorithm.setCrossover((population, selector) -> {
+            Solution<List<Integer>, Integer> child = crossover.breed(population, selector);
+            offspring.add(child);
+            return child;
+        });
+        algorithm.setSelector(new TournamentSelector<>());
+        algorithm.setGenMutator(mutator);
+        algorithm.setPopulationSize(30);
+        algorithm.setMaximumGenerations(10);
+        algorithm.setElites(1);
+        // every child is bred by the crossover
+        algorithm.setMutationProbability(0);
+
+        Problem<Integer> problem = new Problem<>();
+        for (int i = 0; i < ft06.length; i++) {
+            problem.getProblemGenes().add(new ProblemGene<>(i));
+        }
+
+        // when
+        Solution<List<Integer>, Integer> best = algorithm.solve(problem);
+
+        // then
+        Assert.assertNotNull(best);
+        Assert.assertTrue(best.getQuality() > 0);
+        Assert.assertEquals(offspring.size(), 9 * 29);
+        for (Solution<List<Integer>, Integer> child : offspring) {
+            Assert.assertEquals(child.getSolutionGenes().size(), ft06.length);
+            for (SolutionGene<List<Integer>, Integer> gene : child.getSolutionGenes()) {
+                Assert.assertEquals(gene.getGene().size(), ft06[0].length);
+                boolean[] seen = new boolean[ft06[0].length];
+                for (int machine : gene.getGene()) {
+                    Assert.assertFalse(seen[machine], permutationCrossover.getClass().getSimpleName() + " duplicated machine " + machine);
+                    seen[machine] = true;
+                }
+            }
+        }
+    }
+
+    private void assertWithinBounds(AbstractRealVectorCrossover<Integer> crossover) {
+        for (int run = 0; run < 100; run++) {
+            double[] a = new double[10];
+            double[] b = new double[10];
+            for (int i = 0; i < a.length; i++) {
+                a[i] = random.nextDouble() * 2 - 1;
+                b[i] = random.nextDouble() * 2 - 1;
+            }
+            Solution<double[], Integer> solutionA = new Solution<>();
+            solutionA.addGene(new SolutionGene<>(a));
+            Solution<double[], Integer> solutionB = new Solution<>();
+            solutionB.addGene(new SolutionGene<>(b));
+
+            double[] child = crossover.breedTwo(solutionA, solutionB).getSolutionGenes().get(0).getGene();
+
+            Assert.assertEquals(child.length, a.length);
+            for (double v : child) {
+                Assert.assertTrue(v >= -1.0 && v <= 1.0, "out of bounds " + v);
+            }
+        }
+    }
+
+    private int[] permutation(int n) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, random);
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Solution<int[], Integer> solution(int[] permutation) {
+        Solution<int[], Integer> solution = new Solution<>();
+        solution.addGene(new SolutionGene<>(permutation));
+        return solution;
+    }
+}
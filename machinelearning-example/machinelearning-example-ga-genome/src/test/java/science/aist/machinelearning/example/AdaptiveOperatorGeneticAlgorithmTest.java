@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.ga.GeneticAlgorithm;
+import science.aist.machinelearning.algorithm.ga.crossover.UniformCrossover;
+import science.aist.machinelearning.algorithm.ga.operator.AdaptivePursuit;
+import science.aist.machinelearning.algorithm.ga.operator.OperatorSelection;
+import science.aist.machinelearning.algorithm.ga.operator.ProbabilityMatching;
+import science.aist.machinelearning.algorithm.ga.operator.UpperConfidenceBoundSelection;
+import science.aist.machinelearning.algorithm.ga.selector.TournamentSelector;
+import science.aist.machinelearning.algorithm.ga.surrogate.LinearSurrogateModel;
+import science.aist.machinelearning.algorithm.mutation.Mutator;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.core.mapping.OneToOneSolutionCreator;
+import science.aist.machinelearning.core.mapping.SolutionCreator;
+import science.aist.machinelearning.problem.genome.Element;
+import science.aist.machinelearning.problem.genome.fitness.ElementEqualityCachet;
+import science.aist.machinelearning.problem.genome.mapping.RandomGeneCreator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the adaptive operator selection of the {@link GeneticAlgorithm}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class AdaptiveOperatorGeneticAlgorithmTest {
+
+    private final GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+
+    private final ElementEqualityCachet elementEqualityCachet = new ElementEqualityCachet();
+
+    private final SolutionCreator<Element[], Element[]> solutionCreator = new OneToOneSolutionCreator<>();
+
+    private final RandomGeneMutator mutator = new RandomGeneMutator();
+
+    /**
+     * Mutator that never changes anything, and thus never improves a solution
+     */
+    private final Mutator<Element[], Element[]> identityMutator = Solution::new;
+
+    private Problem<Element[]> problem;
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(elementEqualityCachet, 1.0);
+        evaluator.setCachetEvaluators(cachets);
+        elementEqualityCachet.setTargetSequence("GTACCCGTACCCGTACCCTT");
+
+        solutionCreator.setGeneCreator(new RandomGeneCreator());
+
+        Element[] problemVal = new Element[20];
+        for (int i = 0; i < 20; i++) {
+            problemVal[i] = new Element("ACGT".charAt(i / 5));
+        }
+        List<ProblemGene<Element[]>> problems = new ArrayList<>();
+        problems.add(new ProblemGene<>(problemVal));
+        problem = new Problem<>(problems);
+    }
+
+    private GeneticAlgorithm<Element[], Element[]> createAlgorithm(OperatorSelection operatorSelection) {
+        TournamentSelector<Element[], Element[]> selector = new TournamentSelector<>();
+        selector.setTournamentSize(4);
+
+        GeneticAlgorithm<Element[], Element[]> algorithm = new GeneticAlgorithm<>();
+        algorithm.setElites(1);
+        // few generations, once the optimum is found no operator can be credited anymore
+        algorithm.setMaximumGenerations(8);
+        algorithm.setPopulationSize(50);
+        algorithm.setEvaluator(evaluator);
+        algorithm.setSolutionCreator(solutionCreator);
+        algorithm.setCrossover(new UniformCrossover<>());
+        algorithm.setGenMutator(mutator);
+        algorithm.setAdditionalMutators(Collections.singletonList(identityMutator));
+        algorithm.setSelector(selector);
+        algorithm.setOperatorSelection(operatorSelection);
+        return algorithm;
+    }
+
+    private LinearSurrogateModel<Element[], Element[]> surrogate() {
+        LinearSurrogateModel<Element[], Element[]> surrogate = new LinearSurrogateModel<>();
+        surrogate.setSolutionToVector(solution -> {
+            Element[] elements = solution.getSolutionGenes().get(0).getGene();
+            double[] vector = new double[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                vector[i] = elements[i].getValue();
+            }
+            return vector;
+        });
+        return surrogate;
+    }
+
+    private void assertUnproductiveOperatorSuppressed(OperatorSelection operatorSelection) {
+        // given
+        GeneticAlgorithm<Element[], Element[]> algorithm = createAlgorithm(operatorSelection);
+
+        // when
+        Solution<Element[], Element[]> s = algorithm.solve(problem);
+
+        // then
+        Assert.assertNotNull(s);
+        double[] probabilities = operatorSelection.getProbabilities();
+        // crossover, mutator, identity mutator
+        Assert.assertEquals(probabilities.length, 3);
+        Assert.assertEquals(probabilities[0] + probabilities[1] + probabilities[2], 1.0, 1e-9);
+        Assert.assertTrue(probabilities[2] < probabilities[0] || probabilities[2] < probabilities[1],
+                "identity mutator was not suppressed " + probabilities[0] + " " + probabilities[1] + " " + probabilities[2]);
+    }
+
+    @Test
+    public void testProbabilityMatching() {
+        assertUnproductiveOperatorSuppressed(new ProbabilityMatching());
+    }
+
+    @Test
+    public void testAdaptivePursuit() {
+        assertUnproductiveOperatorSuppressed(new AdaptivePursuit());
+    }
+
+    @Test
+    public void testUpperConfidenceBound() {
+        assertUnproductiveOperatorSuppressed(new UpperConfidenceBoundSelection());
+    }
+
+    @Test
+    public void testEveryChildIsCredited() {
+        // given an operator that returns the unchanged parent INSTANCE, so the same instance is bred several times
+        int[] rewards = {0};
+        ProbabilityMatching counting = new ProbabilityMatching() {
+            @Override
+            public void reward(int operator, double reward) {
+                rewards[0]++;
+                super.reward(operator, reward);
+            }
+        };
+        GeneticAlgorithm<Element[], Element[]> algorithm = createAlgorithm(counting);
+        algorithm.setAdditionalMutators(Collections.singletonList(solution -> solution));
+        // the surrogate breeds many candidates before the selected ones are evaluated
+        algorithm.setSurrogateModel(surrogate());
+        algorithm.setSurrogateOffspringFactor(4.0);
+
+        // when
+        algorithm.solve(problem);
+
+        // then every evaluated child (all but the elite in every generation after the initial one) credited its operator
+        Assert.assertEquals(rewards[0], 7 * 49);
+    }
+
+    @Test
+    public void testSurrogateExploresWithUpperConfidenceBound() {
+        // given a deterministic operator selection and a surrogate that pre-screens every generation after the first
+        List<Integer> credited = new ArrayList<>();
+        UpperConfidenceBoundSelection recording = new UpperConfidenceBoundSelection() {
+            @Override
+            public void reward(int operator, double reward) {
+                credited.add(operator);
+                super.reward(operator, reward);
+            }
+        };
+        GeneticAlgorithm<Element[], Element[]> algorithm = createAlgorithm(recording);
+        algorithm.setSurrogateModel(surrogate());
+        algorithm.setSurrogateOffspringFactor(4.0);
+
+        // when
+        algorithm.solve(problem);
+
+        // then the children of the last (pre-screened) generation were not all bred by the same operator
+        Assert.assertTrue(algorithm.getSurrogateModel().isTrained());
+        Assert.assertEquals(credited.size(), 7 * 49);
+        Assert.assertTrue(credited.subList(6 * 49, 7 * 49).stream().distinct().count() > 1);
+    }
+
+    @Test
+    public void testPursuitConvergesToBestOperator() {
+        // given
+        AdaptivePursuit pursuit = new AdaptivePursuit();
+        pursuit.initialize(3);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            pursuit.reward(0, 0.0);
+            pursuit.reward(1, 0.5);
+            pursuit.reward(2, 0.1);
+        }
+
+        // then
+        double[] probabilities = pursuit.getProbabilities();
+        Assert.assertEquals(probabilities[1], 1 - 2 * pursuit.getMinimumProbability(), 1e-6);
+        Assert.assertEquals(probabilities[0], pursuit.getMinimumProbability(), 1e-6);
+        Assert.assertEquals(probabilities[2], pursuit.getMinimumProbability(), 1e-6);
+    }
+}
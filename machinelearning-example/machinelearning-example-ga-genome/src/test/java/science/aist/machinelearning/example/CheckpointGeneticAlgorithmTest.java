@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.ga.GeneticAlgorithm;
+import science.aist.machinelearning.algorithm.ga.checkpoint.PopulationCheckpointer;
+import science.aist.machinelearning.algorithm.ga.checkpoint.PopulationSnapshot;
+import science.aist.machinelearning.algorithm.ga.checkpoint.PopulationSnapshotCodec;
+import science.aist.machinelearning.algorithm.ga.crossover.UniformCrossover;
+import science.aist.machinelearning.algorithm.ga.selector.TournamentSelector;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.codec.GeneCodec;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.core.mapping.OneToOneSolutionCreator;
+import science.aist.machinelearning.core.mapping.SolutionCreator;
+import science.aist.machinelearning.problem.genome.Element;
+import science.aist.machinelearning.problem.genome.fitness.ElementEqualityCachet;
+import science.aist.machinelearning.problem.genome.mapping.RandomGeneCreator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the checkpointing of the {@link GeneticAlgorithm}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class CheckpointGeneticAlgorithmTest {
+
+    private final GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+
+    private final ElementEqualityCachet elementEqualityCachet = new ElementEqualityCachet();
+
+    private final SolutionCreator<Element[], Element[]> solutionCreator = new OneToOneSolutionCreator<>();
+
+    private final RandomGeneMutator mutator = new RandomGeneMutator();
+
+    private final PopulationSnapshotCodec<Element[], Element[]> codec = new PopulationSnapshotCodec<>();
+
+    private Problem<Element[]> problem;
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(elementEqualityCachet, 1.0);
+        evaluator.setCachetEvaluators(cachets);
+        elementEqualityCachet.setTargetSequence("GTACCCGTACCCGTACCCTTGTACCCGTACCCGTACCCTT");
+
+        solutionCreator.setGeneCreator(new RandomGeneCreator());
+
+        codec.setGeneCodec(new GeneCodec<Element[]>() {
+            @Override
+            public void write(Element[] gene, DataOutput out) throws IOException {
+                out.writeShort(gene.length);
+                for (Element element : gene) {
+                    out.writeByte(element.getValue());
+                }
+            }
+
+            @Override
+            public Element[] read(DataInput in) throws IOException {
+                Element[] gene = new Element[in.readShort()];
+                for (int i = 0; i < gene.length; i++) {
+                    gene[i] = new Element((char) in.readByte());
+                }
+                return gene;
+            }
+        });
+
+        Element[] problemVal = new Element[40];
+        for (int i = 0; i < 40; i++) {
+            problemVal[i] = new Element("ACGT".charAt(i / 10));
+        }
+        List<ProblemGene<Element[]>> problems = new ArrayList<>();
+        problems.add(new ProblemGene<>(problemVal));
+        problem = new Problem<>(problems);
+    }
+
+    private GeneticAlgorithm<Element[], Element[]> createAlgorithm(int maximumGenerations) {
+        TournamentSelector<Element[], Element[]> selector = new TournamentSelector<>();
+        selector.setTournamentSize(4);
+
+        GeneticAlgorithm<Element[], Element[]> algorithm = new GeneticAlgorithm<>();
+        algorithm.setElites(1);
+        algorithm.setMaximumGenerations(maximumGenerations);
+        algorithm.setMutationProbability(0.1);
+        algorithm.setPopulationSize(30);
+        algorithm.setEvaluator(evaluator);
+        algorithm.setSolutionCreator(solutionCreator);
+        algorithm.setCrossover(new UniformCrossover<>());
+        algorithm.setGenMutator(mutator);
+        algorithm.setSelector(selector);
+        return algorithm;
+    }
+
+    private String sequence(Solution<Element[], Element[]> solution) {
+        StringBuilder sequence = new StringBuilder();
+        for (Element element : solution.getSolutionGenes().get(0).getGene()) {
+            sequence.append(element.getValue());
+        }
+        return sequence.toString();
+    }
+
+    @Test
+    public void testEncodeDecode() throws IOException {
+        // given
+        GeneticAlgorithm<Element[], Element[]> algorithm = createAlgorithm(5);
+        algorithm.solve(problem);
+        PopulationSnapshot<Element[], Element[]> snapshot = algorithm.createSnapshot();
+
+        // when
+        PopulationSnapshot<Element[], Element[]> decoded = codec.decode(codec.encode(snapshot, problem), problem);
+
+        // then
+        Assert.assertEquals(decoded.getGeneration(), 5);
+        Assert.assertEquals(decoded.getPopulation().size(), 30);
+        Assert.assertEquals(decoded.getBestSolution().getQuality(), snapshot.getBestSolution().getQuality());
+        for (int i = 0; i < 30; i++) {
+            Solution<Element[], Element[]> original = snapshot.getPopulation().get(i);
+            Solution<Element[], Element[]> copy = decoded.getPopulation().get(i);
+            Assert.assertEquals(copy.getQuality(), original.getQuality());
+            Assert.assertEquals(copy.getCachets().size(), original.getCachets().size());
+            Assert.assertEquals(copy.getCachets().get(0).getName(), original.getCachets().get(0).getName());
+            Assert.assertEquals(sequence(copy), sequence(original));
+            // problem genes are restored by reference
+            Assert.assertSame(copy.getSolutionGenes().get(0).getProblemGenes().get(0), problem.getProblemGenes().get(0));
+        }
+    }
+
+    @Test
+    public void testCompressionAndChecksum() throws IOException {
+        // given
+        GeneticAlgorithm<Element[], Element[]> algorithm = createAlgorithm(2);
+        algorithm.solve(problem);
+        PopulationSnapshot<Element[], Element[]> snapshot = algorithm.createSnapshot();
+
+        // when
+        codec.setCompress(false);
+        byte[] uncompressed = codec.encode(snapshot, problem);
+        codec.setCompress(true);
+        byte[] compressed = codec.encode(snapshot, problem);
+
+        // then
+        Assert.assertTrue(compressed.length < uncompressed.length);
+        Assert.assertEquals(codec.decode(uncompressed, problem).getPopulation().size(), 30);
+        compressed[compressed.length / 2] ^= 0x10;
+        try {
+            codec.decode(compressed, problem);
+            Assert.fail("corrupt snapshot was not detected");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("checksum"));
+        }
+    }
+
+    @Test
+    public void testCheckpointAndRestore() throws IOException {
+        // given
+        Path file = Files.createTempFile("population", ".snapshot");
+        GeneticAlgorithm<Element[], Element[]> algorithm = createAlgorithm(20);
+        try (PopulationCheckpointer<Element[], Element[]> checkpointer = new PopulationCheckpointer<>(codec, file)) {
+            algorithm.setCheckpointer(checkpointer);
+            algorithm.setCheckpointInterval(5);
+
+            // when
+            Solution<Element[], Element[]> best = algorithm.solve(problem);
+            checkpointer.flush();
+            PopulationSnapshot<Element[], Element[]> snapshot = checkpointer.load(problem);
+
+            // then
+            Assert.assertEquals(snapshot.getGeneration(), 20);
+            Assert.assertEquals(snapshot.getBestSolution().getQuality(), best.getQuality());
+
+            // continue the run in a fork
+            GeneticAlgorithm<Element[], Element[]> fork = createAlgorithm(30);
+            fork.restore(snapshot);
+            Solution<Element[], Element[]> forkBest = fork.solve(problem);
+            Assert.assertTrue(forkBest.getQuality() <= best.getQuality());
+            Assert.assertEquals(forkBest.getQuality(), evaluator.evaluateQuality(forkBest));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
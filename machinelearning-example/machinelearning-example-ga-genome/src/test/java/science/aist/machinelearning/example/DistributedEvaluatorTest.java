@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.distributed.DistributedEvaluator;
+import science.aist.machinelearning.algorithm.distributed.EvaluationWorker;
+import science.aist.machinelearning.algorithm.ga.GeneticAlgorithm;
+import science.aist.machinelearning.algorithm.ga.crossover.UniformCrossover;
+import science.aist.machinelearning.algorithm.ga.selector.TournamentSelector;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.core.Algorithm;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.experiment.ConfigurableChoice;
+import science.aist.machinelearning.core.experiment.Experiment;
+import science.aist.machinelearning.core.experiment.ExperimentResult;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.core.mapping.OneToOneSolutionCreator;
+import science.aist.machinelearning.core.mapping.SolutionCreator;
+import science.aist.machinelearning.problem.genome.Element;
+import science.aist.machinelearning.problem.genome.mapping.RandomGeneCreator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tests the {@link DistributedEvaluator} with local worker processes
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class DistributedEvaluatorTest {
+
+    private final Problem<Element[]> problem = GenomeEvaluationWorkerFactory.problem();
+
+    private final GenericEvaluatorImpl<Element[], Element[]> localEvaluator = GenomeEvaluationWorkerFactory.evaluator();
+
+    private final SolutionCreator<Element[], Element[]> solutionCreator = new OneToOneSolutionCreator<>();
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+        solutionCreator.setGeneCreator(new RandomGeneCreator());
+    }
+
+    private DistributedEvaluator<Element[], Element[]> createEvaluator() {
+        DistributedEvaluator<Element[], Element[]> evaluator = new DistributedEvaluator<>();
+        evaluator.setEvaluator(localEvaluator);
+        evaluator.setProblem(problem);
+        evaluator.setCodec(GenomeEvaluationWorkerFactory.codec());
+        evaluator.setWorkerFactory(GenomeEvaluationWorkerFactory.class);
+        evaluator.setLocalWorkers(2);
+        evaluator.setBatchSize(5);
+        return evaluator;
+    }
+
+    private GeneticAlgorithm<Element[], Element[]> createAlgorithm(DistributedEvaluator<Element[], Element[]> evaluator) {
+        RandomGeneMutator mutator = new RandomGeneMutator();
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+        TournamentSelector<Element[], Element[]> selector = new TournamentSelector<>();
+        selector.setTournamentSize(4);
+
+        GeneticAlgorithm<Element[], Element[]> algorithm = new GeneticAlgorithm<>();
+        algorithm.setElites(1);
+        algorithm.setMaximumGenerations(10);
+        algorithm.setMutationProbability(0.1);
+        algorithm.setPopulationSize(40);
+        algorithm.setEvaluator(evaluator);
+        algorithm.setSolutionCreator(solutionCreator);
+        algorithm.setCrossover(new UniformCrossover<>());
+        algorithm.setGenMutator(mutator);
+        algorithm.setSelector(selector);
+        return algorithm;
+    }
+
+    @Test
+    public void testEvaluateBatch() {
+        // given
+        List<Solution<Element[], Element[]>> solutions = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            solutions.add(solutionCreator.createSolution(problem));
+        }
+
+        try (DistributedEvaluator<Element[], Element[]> evaluator = createEvaluator()) {
+            // when
+            evaluator.evaluateQualities(solutions);
+
+            // then
+            for (Solution<Element[], Element[]> solution : solutions) {
+                double remoteQuality = solution.getQuality();
+                Assert.assertEquals(solution.getCachets().size(), 1);
+                Assert.assertEquals(solution.getCachets().get(0).getName(), "ElementEqualityCachet");
+                Assert.assertEquals(localEvaluator.evaluateQuality(solution), remoteQuality);
+            }
+            Assert.assertEquals(evaluator.evaluationIdentity(), localEvaluator.evaluationIdentity());
+        }
+    }
+
+    @Test
+    public void testGeneticAlgorithm() {
+        try (DistributedEvaluator<Element[], Element[]> evaluator = createEvaluator()) {
+            // given
+            GeneticAlgorithm<Element[], Element[]> algorithm = createAlgorithm(evaluator);
+
+            // when
+            Solution<Element[], Element[]> best = algorithm.solve(problem);
+
+            // then
+            Assert.assertNotNull(best);
+            double remoteQuality = best.getQuality();
+            Assert.assertEquals(localEvaluator.evaluateQuality(best), remoteQuality);
+            Assert.assertTrue(algorithm.getPopulation().stream().allMatch(x -> !x.getCachets().isEmpty()));
+        }
+    }
+
+    @Test
+    public void testExperiment() {
+        try (DistributedEvaluator<Element[], Element[]> evaluator = createEvaluator()) {
+            // given
+            ConfigurableChoice<Algorithm<Element[], Element[]>> configurationChoices = Experiment.createConfigurationChoices("ga", createAlgorithm(evaluator), false, false);
+            Experiment<Element[], Element[]> experiment = new Experiment();
+            experiment.addAlgorithm(configurationChoices);
+            experiment.setRepeats(2);
+            experiment.addProblem(Experiment.createProblemChoices("problem", problem.getProblemGenes().get(0).getGene()));
+
+            // when
+            ExperimentResult<Element[], Element[]> experimentResult = experiment.conductExperiment();
+
+            // then
+            Assert.assertEquals(experimentResult.getResults().size(), 1);
+            Assert.assertTrue(experimentResult.getResults().values().stream().allMatch(x -> x.size() == 2));
+        }
+    }
+
+    @Test
+    public void testWorkerDeath() throws IOException {
+        // given
+        Path crashMarker = Files.createTempFile("worker", ".crash");
+        List<Solution<Element[], Element[]>> solutions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            solutions.add(solutionCreator.createSolution(problem));
+        }
+
+        try (DistributedEvaluator<Element[], Element[]> evaluator = createEvaluator()) {
+            evaluator.setWorkerJvmArguments(Collections.singletonList("-DcrashMarker=" + crashMarker.toAbsolutePath()));
+
+            // when
+            evaluator.evaluateQualities(solutions);
+
+            // then
+            Assert.assertFalse(Files.exists(crashMarker));
+            Assert.assertEquals(evaluator.getWorkerRestarts(), 1);
+            for (Solution<Element[], Element[]> solution : solutions) {
+                double remoteQuality = solution.getQuality();
+                Assert.assertEquals(localEvaluator.evaluateQuality(solution), remoteQuality);
+            }
+        } finally {
+            Files.deleteIfExists(crashMarker);
+        }
+    }
+
+    @Test
+    public void testFailedBatchIsResubmitted() throws IOException {
+        // given
+        Path failMarker = Files.createTempFile("worker", ".fail");
+        List<Solution<Element[], Element[]>> solutions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            solutions.add(solutionCreator.createSolution(problem));
+        }
+
+        try (DistributedEvaluator<Element[], Element[]> evaluator = createEvaluator()) {
+            evaluator.setWorkerJvmArguments(Collections.singletonList("-DfailMarker=" + failMarker.toAbsolutePath()));
+
+            // when
+            evaluator.evaluateQualities(solutions);
+
+            // then the single error reply did not fail the evaluation
+            Assert.assertFalse(Files.exists(failMarker));
+            Assert.assertEquals(evaluator.getWorkerRestarts(), 0);
+            for (Solution<Element[], Element[]> solution : solutions) {
+                double remoteQuality = solution.getQuality();
+                Assert.assertEquals(localEvaluator.evaluateQuality(solution), remoteQuality);
+            }
+        } finally {
+            Files.deleteIfExists(failMarker);
+        }
+    }
+
+    @Test
+    public void testAllRemoteWorkersDie() throws Exception {
+        // given
+        List<Solution<Element[], Element[]>> solutions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            solutions.add(solutionCreator.createSolution(problem));
+        }
+        List<Process> workers = new ArrayList<>();
+
+        try (DistributedEvaluator<Element[], Element[]> evaluator = createEvaluator()) {
+            evaluator.setLocalWorkers(0);
+            evaluator.start();
+            for (int i = 0; i < 2; i++) {
+                workers.add(new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                        "-DevaluationDelay=100", "-cp", System.getProperty("java.class.path"), EvaluationWorker.class.getName(),
+                        "127.0.0.1", String.valueOf(evaluator.getLocalPort()), GenomeEvaluationWorkerFactory.class.getName())
+                        .inheritIO().start());
+            }
+            CompletableFuture<Void> evaluation = CompletableFuture.runAsync(() -> evaluator.evaluateQualities(solutions));
+            while (evaluator.getConnectedWorkers() < 2) {
+                Thread.sleep(50);
+            }
+
+            // when
+            Thread.sleep(300);
+            workers.forEach(Process::destroyForcibly);
+
+            // then
+            try {
+                evaluation.get(30, TimeUnit.SECONDS);
+                Assert.fail("Evaluation succeeded although all workers were killed");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            } catch (TimeoutException e) {
+                Assert.fail("Evaluation still waits for workers that are gone");
+            }
+        } finally {
+            workers.forEach(Process::destroyForcibly);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.example;
+
+import science.aist.machinelearning.algorithm.distributed.EvaluationWorkerFactory;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.codec.GeneCodec;
+import science.aist.machinelearning.core.codec.SolutionCodec;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.Evaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.problem.genome.Element;
+import science.aist.machinelearning.problem.genome.fitness.ElementEqualityCachet;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sets up the worker processes of the {@link DistributedEvaluatorTest}. If the system property "crashMarker" points to
+ * an existing file, the first worker that evaluates a solution deletes it and crashes. If the system property
+ * "failMarker" points to an existing file, the first worker that evaluates a solution deletes it and fails to evaluate
+ * the batch. The system property "evaluationDelay" slows down every evaluation by the given milliseconds.
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class GenomeEvaluationWorkerFactory implements EvaluationWorkerFactory<Element[], Element[]> {
+
+    public static final String TARGET = "GTACCCGTACCCGTACCCTT";
+
+    /**
+     * @return the problem that is solved in the test
+     */
+    public static Problem<Element[]> problem() {
+        Element[] problemVal = new Element[TARGET.length()];
+        for (int i = 0; i < problemVal.length; i++) {
+            problemVal[i] = new Element("ACGT".charAt(i / 5));
+        }
+        List<ProblemGene<Element[]>> problems = new ArrayList<>();
+        problems.add(new ProblemGene<>(problemVal));
+        return new Problem<>(problems);
+    }
+
+    /**
+     * @return codec for the genome solutions
+     */
+    public static SolutionCodec<Element[], Element[]> codec() {
+        SolutionCodec<Element[], Element[]> codec = new SolutionCodec<>();
+        GeneCodec<Element[]> elementCodec = new GeneCodec<Element[]>() {
+            @Override
+            public void write(Element[] gene, DataOutput out) throws IOException {
+                out.writeShort(gene.length);
+                for (Element element : gene) {
+                    out.writeByte(element.getValue());
+                }
+            }
+
+            @Override
+            public Element[] read(DataInput in) throws IOException {
+                Element[] gene = new Element[in.readShort()];
+                for (int i = 0; i < gene.length; i++) {
+                    gene[i] = new Element((char) in.readByte());
+                }
+                return gene;
+            }
+        };
+        codec.setGeneCodec(elementCodec);
+        // problems created by an experiment are not the problem of the evaluator, so their genes are sent as well
+        codec.setProblemGeneCodec(elementCodec);
+        return codec;
+    }
+
+    /**
+     * @return the evaluator that is used locally and in the workers
+     */
+    public static GenericEvaluatorImpl<Element[], Element[]> evaluator() {
+        ElementEqualityCachet cachet = new ElementEqualityCachet();
+        cachet.setTargetSequence(TARGET);
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(cachet, 1.0);
+        GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+        evaluator.setCachetEvaluators(cachets);
+        return evaluator;
+    }
+
+    @Override
+    public Evaluator<Element[], Element[]> createEvaluator() {
+        String crashMarker = System.getProperty("crashMarker");
+        String failMarker = System.getProperty("failMarker");
+        long evaluationDelay = Long.getLong("evaluationDelay", 0);
+        if (crashMarker == null && failMarker == null && evaluationDelay == 0) {
+            return evaluator();
+        }
+        GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<Element[], Element[]>() {
+            @Override
+            public double evaluateQuality(Solution solution) {
+                try {
+                    if (crashMarker != null && Files.deleteIfExists(Paths.get(crashMarker))) {
+                        // simulates a crashing native simulator
+                        Runtime.getRuntime().halt(13);
+                    }
+                    if (failMarker != null && Files.deleteIfExists(Paths.get(failMarker))) {
+                        // simulates a simulator that fails on a single input
+                        throw new IllegalStateException("Simulated evaluation failure");
+                    }
+                    Thread.sleep(evaluationDelay);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.evaluateQuality(solution);
+            }
+        };
+        evaluator.setCachetEvaluators(evaluator().returnCachetDictionary());
+        return evaluator;
+    }
+
+    @Override
+    public Problem<Element[]> createProblem() {
+        return problem();
+    }
+
+    @Override
+    public SolutionCodec<Element[], Element[]> createCodec() {
+        return codec();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.ga.crossover.UniformCrossover;
+import science.aist.machinelearning.algorithm.ga.multiobjective.CrowdingDistance;
+import science.aist.machinelearning.algorithm.ga.multiobjective.MultiObjectiveGeneticAlgorithm;
+import science.aist.machinelearning.algorithm.ga.multiobjective.NonDominatedSorting;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.Cachet;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.core.mapping.OneToOneSolutionCreator;
+import science.aist.machinelearning.problem.genome.Element;
+import science.aist.machinelearning.problem.genome.fitness.PreferACachet;
+import science.aist.machinelearning.problem.genome.fitness.PreferTCachet;
+import science.aist.machinelearning.problem.genome.mapping.RandomGeneCreator;
+
+import java.util.*;
+
+/**
+ * Tests the {@link MultiObjectiveGeneticAlgorithm} and its non-dominated sorting
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class MultiObjectiveGeneticAlgorithmTest {
+
+    @Test
+    public void testSortTwoObjectives() {
+        assertSortMatchesBruteForce(2);
+    }
+
+    @Test
+    public void testSortThreeObjectives() {
+        assertSortMatchesBruteForce(3);
+    }
+
+    @Test
+    public void testSortLargePopulation() {
+        // given
+        int n = 20000;
+        Random random = new Random(7);
+        double[] objectives = new double[n * 2];
+        for (int i = 0; i < objectives.length; i++) {
+            objectives[i] = random.nextDouble();
+        }
+
+        // when
+        long start = System.nanoTime();
+        int[] ranks = NonDominatedSorting.sort(objectives, n, 2);
+        long duration = System.nanoTime() - start;
+
+        // then
+        for (int p = 0; p < 200; p++) {
+            for (int q = 0; q < n; q++) {
+                if (NonDominatedSorting.dominates(objectives, 2, q, p)) {
+                    Assert.assertTrue(ranks[q] < ranks[p]);
+                }
+            }
+        }
+        // O(N log N), the naive O(N^2) sort needs seconds
+        Assert.assertTrue(duration < 1_000_000_000L, "sorting took " + duration + "ns");
+    }
+
+    @Test
+    public void testCrowdingDistance() {
+        // given
+        double[] objectives = {0, 4, 1, 3, 3, 1, 4, 0};
+        int[] members = {3, 1, 0, 2};
+        double[] distance = new double[4];
+
+        // when
+        CrowdingDistance.compute(objectives, 2, members, 4, distance);
+
+        // then
+        Assert.assertEquals(distance[0], Double.POSITIVE_INFINITY);
+        Assert.assertEquals(distance[3], Double.POSITIVE_INFINITY);
+        Assert.assertEquals(distance[1], 1.5, 1e-9);
+        Assert.assertEquals(distance[2], 1.5, 1e-9);
+    }
+
+    @Test
+    public void testConflictingObjectives() {
+        // given
+        LoggingConf.setLoggingToRootLevel();
+        GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(new PreferACachet(), 1.0);
+        cachets.put(new PreferTCachet(), 1.0);
+        evaluator.setCachetEvaluators(cachets);
+
+        RandomGeneMutator mutator = new RandomGeneMutator();
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+        OneToOneSolutionCreator<Element[], Element[]> solutionCreator = new OneToOneSolutionCreator<>();
+        solutionCreator.setGeneCreator(new RandomGeneCreator());
+
+        MultiObjectiveGeneticAlgorithm<Element[], Element[]> algorithm = new MultiObjectiveGeneticAlgorithm<>();
+        algorithm.setEvaluator(evaluator);
+        algorithm.setSolutionCreator(solutionCreator);
+        algorithm.setCrossover(new UniformCrossover<>());
+        algorithm.setMutator(mutator);
+        algorithm.setMutationProbability(0.3);
+        algorithm.setPopulationSize(60);
+        algorithm.setMaximumGenerations(40);
+
+        Element[] problemVal = new Element[10];
+        for (int i = 0; i < problemVal.length; i++) {
+            problemVal[i] = new Element(i % 2 == 0 ? 'A' : 'T');
+        }
+        List<ProblemGene<Element[]>> problems = new ArrayList<>();
+        problems.add(new ProblemGene<>(problemVal));
+
+        // when
+        Solution<Element[], Element[]> best = algorithm.solve(new Problem<>(problems));
+        List<Solution<Element[], Element[]>> front = algorithm.getParetoFront();
+
+        // then
+        Assert.assertNotNull(best);
+        Assert.assertFalse(front.isEmpty());
+        Set<Double> tradeOffs = new HashSet<>();
+        for (Solution<Element[], Element[]> a : front) {
+            for (Solution<Element[], Element[]> b : front) {
+                Assert.assertFalse(dominates(a, b));
+            }
+            tradeOffs.add(objective(a, "PreferACachet"));
+        }
+        // the front spans several trade-offs between "all A" and "all T"
+        Assert.assertTrue(tradeOffs.size() > 3, "front only covers " + tradeOffs);
+    }
+
+    private static boolean dominates(Solution<?, ?> a, Solution<?, ?> b) {
+        double a1 = objective(a, "PreferACachet");
+        double a2 = objective(a, "PreferTCachet");
+        double b1 = objective(b, "PreferACachet");
+        double b2 = objective(b, "PreferTCachet");
+        return a1 <= b1 && a2 <= b2 && (a1 < b1 || a2 < b2);
+    }
+
+    private static double objective(Solution<?, ?> solution, String name) {
+        return solution.getCachets().stream().filter(c -> c.getName().equals(name)).mapToDouble(Cachet::getQuality).findFirst().orElseThrow(IllegalStateException::new);
+    }
+
+    private static void assertSortMatchesBruteForce(int m) {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            // given: few distinct values so ties and duplicates are common
+            int n = 1 + random.nextInt(300);
+            double[] objectives = new double[n * m];
+            for (int i = 0; i < objectives.length; i++) {
+                objectives[i] = random.nextInt(10);
+            }
+
+            // when
+            int[] ranks = NonDominatedSorting.sort(objectives, n, m);
+
+            // then
+            Assert.assertEquals(ranks, bruteForce(objectives, n, m));
+        }
+    }
+
+    private static int[] bruteForce(double[] objectives, int n, int m) {
+        int[] ranks = new int[n];
+        Arrays.fill(ranks, -1);
+        int assigned = 0;
+        for (int front = 0; assigned < n; front++) {
+            List<Integer> current = new ArrayList<>();
+            for (int p = 0; p < n; p++) {
+                if (ranks[p] >= 0) {
+                    continue;
+                }
+                boolean dominated = false;
+                for (int q = 0; q < n && !dominated; q++) {
+                    dominated = ranks[q] < 0 && NonDominatedSorting.dominates(objectives, m, q, p);
+                }
+                if (!dominated) {
+                    current.add(p);
+                }
+            }
+            for (int p : current) {
+                ranks[p] = front;
+            }
+            assigned += current.size();
+        }
+        return ranks;
+    }
+}
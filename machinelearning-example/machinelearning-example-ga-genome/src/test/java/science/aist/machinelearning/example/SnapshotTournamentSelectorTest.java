@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.ga.selector.SnapshotTournamentSelector;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.problem.genome.Element;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Tests the {@link SnapshotTournamentSelector}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class SnapshotTournamentSelectorTest {
+
+    @Test
+    public void testSelectWithoutReplacement() {
+        // given a tournament that includes all but one solution, the worst can never win
+        SnapshotTournamentSelector<Element[], Element[]> selector = new SnapshotTournamentSelector<>();
+        selector.setTournamentSize(2);
+        double[] qualities = {3.0, 1.0};
+
+        // when
+        int[] winners = selector.selectMany(qualities, 1000, new Random(42));
+
+        // then
+        Assert.assertEquals(winners.length, 1000);
+        Assert.assertTrue(Arrays.stream(winners).allMatch(i -> i == 1));
+    }
+
+    @Test
+    public void testTournamentLargerThanPopulation() {
+        // given
+        SnapshotTournamentSelector<Element[], Element[]> selector = new SnapshotTournamentSelector<>();
+        selector.setTournamentSize(10);
+        double[] qualities = {5.0, 4.0, 0.5, 2.0};
+
+        // when
+        int winner = selector.selectIndex(qualities, new Random(42));
+
+        // then
+        Assert.assertEquals(winner, 2);
+    }
+
+    @Test
+    public void testSelectManyInParallel() {
+        // given
+        SnapshotTournamentSelector<Element[], Element[]> selector = new SnapshotTournamentSelector<>();
+        selector.setTournamentSize(99);
+        double[] qualities = IntStream.range(0, 100).mapToDouble(i -> i).toArray();
+
+        // when every thread reuses its own buffer
+        int[] winners = IntStream.range(0, 64).parallel()
+                .flatMap(i -> Arrays.stream(selector.selectMany(qualities, 100)))
+                .toArray();
+
+        // then the buffers stay consistent and the worst solution never wins
+        Assert.assertEquals(winners.length, 6400);
+        Assert.assertTrue(Arrays.stream(winners).allMatch(i -> i >= 0 && i < 99));
+        Assert.assertTrue(Arrays.stream(winners).anyMatch(i -> i == 0));
+    }
+
+    @Test
+    public void testSelectFromLinkedList() {
+        // given
+        SnapshotTournamentSelector<Element[], Element[]> selector = new SnapshotTournamentSelector<>();
+        selector.setTournamentSize(3);
+        List<Solution<Element[], Element[]>> population = new LinkedList<>();
+        for (int i = 0; i < 3; i++) {
+            Solution<Element[], Element[]> solution = new Solution<>();
+            solution.setQuality(3.0 - i);
+            population.add(solution);
+        }
+
+        // when
+        Solution<Element[], Element[]> selected = selector.select(population);
+
+        // then
+        Assert.assertSame(selected, population.get(2));
+        Assert.assertEquals(SnapshotTournamentSelector.snapshot(population), new double[]{3.0, 2.0, 1.0});
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.ga.GeneticAlgorithm;
+import science.aist.machinelearning.algorithm.ga.crossover.UniformCrossover;
+import science.aist.machinelearning.algorithm.ga.selector.TournamentSelector;
+import science.aist.machinelearning.algorithm.ga.surrogate.LinearSurrogateModel;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.core.mapping.OneToOneSolutionCreator;
+import science.aist.machinelearning.core.mapping.SolutionCreator;
+import science.aist.machinelearning.problem.genome.Element;
+import science.aist.machinelearning.problem.genome.fitness.ElementEqualityCachet;
+import science.aist.machinelearning.problem.genome.mapping.RandomGeneCreator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the surrogate assisted mode of the {@link GeneticAlgorithm}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class SurrogateGeneticAlgorithmTest {
+
+    private static final String LETTERS = "ACGT";
+
+    private final GeneticAlgorithm<Element[], Element[]> algorithm = new GeneticAlgorithm<>();
+
+    private final GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+
+    private final ElementEqualityCachet elementEqualityCachet = new ElementEqualityCachet();
+
+    private final SolutionCreator<Element[], Element[]> solutionCreator = new OneToOneSolutionCreator<>();
+
+    private final LinearSurrogateModel<Element[], Element[]> surrogate = new LinearSurrogateModel<>();
+
+    private final RandomGeneMutator mutator = new RandomGeneMutator();
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+
+        TournamentSelector<Element[], Element[]> selector = new TournamentSelector<>();
+        selector.setTournamentSize(4);
+
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(elementEqualityCachet, 1.0);
+        evaluator.setCachetEvaluators(cachets);
+        elementEqualityCachet.setTargetSequence("GTACCCGTACCCGTACCCTT");
+
+        solutionCreator.setGeneCreator(new RandomGeneCreator());
+
+        // one-hot encoding of every position of the genome
+        surrogate.setSolutionToVector(solution -> {
+            Element[] elements = solution.getSolutionGenes().get(0).getGene();
+            double[] vector = new double[elements.length * LETTERS.length()];
+            for (int i = 0; i < elements.length; i++) {
+                vector[i * LETTERS.length() + LETTERS.indexOf(elements[i].getValue())] = 1;
+            }
+            return vector;
+        });
+
+        algorithm.setElites(1);
+        algorithm.setMaximumGenerations(30);
+        algorithm.setMutationProbability(0.1);
+        algorithm.setPopulationSize(50);
+        algorithm.setEvaluator(evaluator);
+        algorithm.setSolutionCreator(solutionCreator);
+        algorithm.setCrossover(new UniformCrossover<>());
+        algorithm.setGenMutator(mutator);
+        algorithm.setSelector(selector);
+        algorithm.setSurrogateModel(surrogate);
+        algorithm.setSurrogateOffspringFactor(4.0);
+    }
+
+    @Test
+    public void testSurrogate() {
+        // given
+        Element[] problemVal = new Element[20];
+        for (int i = 0; i < 20; i++) {
+            problemVal[i] = new Element(LETTERS.charAt(i / 5));
+        }
+        elementEqualityCachet.setTargetSequence("GTACCCGTACCCGTACCCTT");
+
+        List<ProblemGene<Element[]>> problems = new ArrayList<>();
+        problems.add(new ProblemGene<>(problemVal));
+        Problem<Element[]> problem = new Problem<>(problems);
+
+        // when
+        Solution<Element[], Element[]> s = algorithm.solve(problem);
+
+        // then
+        Assert.assertNotNull(s);
+        Assert.assertEquals(s.getQuality(), evaluator.evaluateQuality(s));
+        Assert.assertTrue(surrogate.isTrained());
+        List<Double> correlations = algorithm.getSurrogateRankCorrelations();
+        Assert.assertEquals(correlations.size(), 29);
+        // the quality is linear in the one-hot encoding, so the surrogate must rank (nearly) perfectly
+        double average = correlations.stream().filter(c -> !c.isNaN()).mapToDouble(Double::doubleValue).average().orElse(0);
+        Assert.assertTrue(average > 0.5, "rank correlation was " + average);
+    }
+
+    @Test
+    public void testSurrogateSavesEvaluations() {
+        // given the same genetic algorithm once with and once without the surrogate
+        long withSurrogate = 0;
+        long plain = 0;
+
+        // when both search the target sequence (a few runs, so a lucky plain run doesn't decide the test)
+        for (int run = 0; run < 3; run++) {
+            withSurrogate += evaluationsUntilSolved(true);
+            plain += evaluationsUntilSolved(false);
+        }
+
+        // then the surrogate needs less real evaluations
+        Assert.assertTrue(withSurrogate < plain, withSurrogate + " evaluations with surrogate vs " + plain + " without");
+    }
+
+    /**
+     * Runs a genetic algorithm on the target sequence
+     *
+     * @param useSurrogate if the surrogate pre-screens the offspring
+     * @return real evaluations until the target sequence was found (all evaluations if it was not found)
+     */
+    private long evaluationsUntilSolved(boolean useSurrogate) {
+        ElementEqualityCachet target = new ElementEqualityCachet();
+        target.setTargetSequence("GTACCCGTACCCGTACCCTT");
+        long[] evaluations = {0, -1};
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(new CachetEvaluator<Element[], Element[]>() {
+            @Override
+            public double evaluateQuality(Solution<Element[], Element[]> solution) {
+                double quality = target.evaluateQuality(solution);
+                evaluations[0]++;
+                if (quality == 0 && evaluations[1] < 0) {
+                    evaluations[1] = evaluations[0];
+                }
+                return quality;
+            }
+
+            @Override
+            public String getName() {
+                return target.getName();
+            }
+        }, 1.0);
+        GenericEvaluatorImpl<Element[], Element[]> countingEvaluator = new GenericEvaluatorImpl<>();
+        countingEvaluator.setCachetEvaluators(cachets);
+
+        TournamentSelector<Element[], Element[]> selector = new TournamentSelector<>();
+        selector.setTournamentSize(4);
+        GeneticAlgorithm<Element[], Element[]> ga = new GeneticAlgorithm<>();
+        ga.setElites(1);
+        ga.setMaximumGenerations(60);
+        ga.setMutationProbability(0.1);
+        ga.setPopulationSize(50);
+        ga.setEvaluator(countingEvaluator);
+        ga.setSolutionCreator(solutionCreator);
+        ga.setCrossover(new UniformCrossover<>());
+        // the mutator evaluates with its own (uncounted) evaluator, the genetic algorithm evaluates every child anyway
+        ga.setGenMutator(mutator);
+        ga.setSelector(selector);
+        if (useSurrogate) {
+            LinearSurrogateModel<Element[], Element[]> model = new LinearSurrogateModel<>();
+            model.setSolutionToVector(surrogate.getSolutionToVector());
+            ga.setSurrogateModel(model);
+            ga.setSurrogateOffspringFactor(4.0);
+        }
+
+        ga.solve(problem());
+        return evaluations[1] < 0 ? evaluations[0] : evaluations[1];
+    }
+
+    private static Problem<Element[]> problem() {
+        Element[] problemVal = new Element[20];
+        for (int i = 0; i < 20; i++) {
+            problemVal[i] = new Element(LETTERS.charAt(i / 5));
+        }
+        List<ProblemGene<Element[]>> problems = new ArrayList<>();
+        problems.add(new ProblemGene<>(problemVal));
+        return new Problem<>(problems);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.localsearch.LocalSearch;
+import science.aist.machinelearning.algorithm.mutation.Move;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.algorithm.mutation.UndoLog;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.fitness.Cachet;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.problem.genome.Element;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the in place move / undo protocol and the batch neighbour generation of the {@link RandomGeneMutator} and the
+ * {@link LocalSearch} using it
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class MoveMutatorTest {
+
+    private static final String LETTERS = "ACGT";
+
+    private final GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+
+    private final RandomGeneMutator mutator = new RandomGeneMutator();
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+
+        // one cachet per gene would be expensive, so the genome is many small genes scored by a single cachet
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(new CachetEvaluator<Element[], Element[]>() {
+            @Override
+            public double evaluateQuality(Solution<Element[], Element[]> solution) {
+                double quality = 0;
+                for (SolutionGene<Element[], Element[]> gene : solution.getSolutionGenes()) {
+                    for (Element element : gene.getGene()) {
+                        if (element.getValue() != 'A') {
+                            quality++;
+                        }
+                    }
+                }
+                solution.getCachets().add(new Cachet(quality, getName()));
+                return quality;
+            }
+
+            @Override
+            public String getName() {
+                return "AllGenesPreferA";
+            }
+        }, 1.0);
+        evaluator.setCachetEvaluators(cachets);
+
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(3);
+    }
+
+    @Test
+    public void testUndoRestoresSolution() {
+        // given
+        Solution<Element[], Element[]> solution = genome(50);
+        evaluator.evaluateQuality(solution);
+        List<SolutionGene<Element[], Element[]>> genesBefore = new ArrayList<>(solution.getSolutionGenes());
+        List<Cachet> cachetsBefore = solution.getCachets();
+        double qualityBefore = solution.getQuality();
+        UndoLog<Element[], Element[]> undo = new UndoLog<>();
+
+        for (int i = 0; i < 20; i++) {
+            // when
+            mutator.applyMove(solution, undo);
+            evaluator.evaluateQuality(solution);
+            Assert.assertEquals(undo.size(), 3);
+            undo.revert(solution);
+
+            // then
+            Assert.assertEquals(solution.getQuality(), qualityBefore);
+            Assert.assertSame(solution.getCachets(), cachetsBefore);
+            Assert.assertEquals(cachetsBefore.size(), 1);
+            for (int g = 0; g < genesBefore.size(); g++) {
+                Assert.assertSame(solution.getSolutionGenes().get(g), genesBefore.get(g));
+            }
+        }
+    }
+
+    @Test
+    public void testCommitKeepsMove() {
+        // given
+        Solution<Element[], Element[]> solution = genome(10);
+        evaluator.evaluateQuality(solution);
+        List<Cachet> cachetsBefore = solution.getCachets();
+        UndoLog<Element[], Element[]> undo = new UndoLog<>();
+
+        // when
+        mutator.applyMove(solution, undo);
+        evaluator.evaluateQuality(solution);
+        undo.commit();
+
+        // then
+        Assert.assertNotSame(solution.getCachets(), cachetsBefore);
+        Assert.assertEquals(solution.getQuality(), evaluator.evaluateQuality(new Solution<>(solution)));
+        Assert.assertEquals(undo.size(), 0);
+    }
+
+    @Test
+    public void testLocalSearchInPlace() {
+        // given
+        LocalSearch<Element[], Element[]> localSearch = new LocalSearch<>();
+        localSearch.setEvaluator(evaluator);
+        localSearch.setMutator(mutator);
+        localSearch.setMaximumGenerations(2000);
+
+        Solution<Element[], Element[]> given = genome(200);
+        evaluator.evaluateQuality(given);
+        double givenQuality = given.getQuality();
+        List<SolutionGene<Element[], Element[]>> givenGenes = new ArrayList<>(given.getSolutionGenes());
+
+        // when
+        Solution<Element[], Element[]> result = localSearch.solve(problem(), given);
+
+        // then
+        Assert.assertNotSame(result, given);
+        Assert.assertTrue(result.getQuality() < givenQuality);
+        Assert.assertEquals(result.getQuality(), evaluator.evaluateQuality(new Solution<>(result)));
+        // the given solution is untouched
+        Assert.assertEquals(given.getQuality(), givenQuality);
+        Assert.assertEquals(given.getSolutionGenes(), givenGenes);
+    }
+
+    @Test
+    public void testLocalSearchUsesMutatorEvaluator() {
+        // given: the local search has a different evaluator than the mutator
+        int[] localSearchEvaluations = {0};
+        GenericEvaluatorImpl<Element[], Element[]> otherEvaluator = new GenericEvaluatorImpl<Element[], Element[]>() {
+            @Override
+            public double evaluateQuality(Solution solution) {
+                localSearchEvaluations[0]++;
+                return super.evaluateQuality(solution);
+            }
+        };
+        otherEvaluator.setCachetEvaluators(evaluator.returnCachetDictionary());
+        LocalSearch<Element[], Element[]> localSearch = new LocalSearch<>();
+        localSearch.setEvaluator(otherEvaluator);
+        localSearch.setMutator(mutator);
+        localSearch.setMaximumGenerations(100);
+
+        Solution<Element[], Element[]> given = genome(50);
+        evaluator.evaluateQuality(given);
+
+        // when
+        localSearch.solve(problem(), given);
+
+        // then: moves are scored like mutate() scores them
+        Assert.assertEquals(localSearchEvaluations[0], 0);
+    }
+
+    @Test
+    public void testMovesLeaveSolutionUntouched() {
+        // given
+        Solution<Element[], Element[]> solution = genome(20);
+        evaluator.evaluateQuality(solution);
+        List<SolutionGene<Element[], Element[]>> genesBefore = new ArrayList<>(solution.getSolutionGenes());
+        List<Cachet> cachetsBefore = solution.getCachets();
+
+        // when
+        List<Move<Element[], Element[]>> moves = mutator.moves(solution, 10);
+
+        // then
+        Assert.assertEquals(moves.size(), 10);
+        Assert.assertSame(solution.getCachets(), cachetsBefore);
+        Assert.assertEquals(solution.getSolutionGenes(), genesBefore);
+        for (Move<Element[], Element[]> move : moves) {
+            Assert.assertEquals(move.size(), 3);
+            Solution<Element[], Element[]> neighbour = move.toSolution(solution);
+            Assert.assertNotSame(neighbour.getCachets(), cachetsBefore);
+            for (int i = 0; i < move.size(); i++) {
+                Assert.assertSame(neighbour.getSolutionGenes().get(move.getIndex(i)), move.getGene(i));
+                Assert.assertNotSame(move.getGene(i), genesBefore.get(move.getIndex(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testNeighboursAreEvaluatedAsBatch() {
+        // given
+        List<Integer> batchSizes = new ArrayList<>();
+        GenericEvaluatorImpl<Element[], Element[]> batchEvaluator = new GenericEvaluatorImpl<Element[], Element[]>() {
+            @Override
+            public void evaluateQualities(List<? extends Solution> solutions) {
+                batchSizes.add(solutions.size());
+                super.evaluateQualities(solutions);
+            }
+        };
+        batchEvaluator.setCachetEvaluators(evaluator.returnCachetDictionary());
+        // neighbours are scored by the evaluator of the mutator
+        RandomGeneMutator batchMutator = new RandomGeneMutator();
+        batchMutator.setEvaluator(batchEvaluator);
+        batchMutator.setMutationsPerSolution(3);
+
+        LocalSearch<Element[], Element[]> localSearch = new LocalSearch<>();
+        localSearch.setEvaluator(batchEvaluator);
+        localSearch.setMutator(batchMutator);
+        localSearch.setMaximumGenerations(50);
+        localSearch.setNeighbourhoodSize(8);
+        localSearch.setBatchEvaluation(true);
+
+        Solution<Element[], Element[]> given = genome(50);
+        batchEvaluator.evaluateQuality(given);
+
+        // when
+        Solution<Element[], Element[]> result = localSearch.solve(problem(), given);
+
+        // then
+        Assert.assertEquals(batchSizes.size(), 50);
+        Assert.assertTrue(batchSizes.stream().allMatch(x -> x == 8));
+        Assert.assertTrue(result.getQuality() < given.getQuality());
+        Assert.assertEquals(result.getQuality(), evaluator.evaluateQuality(new Solution<>(result)));
+    }
+
+    private static Problem<Element[]> problem() {
+        Element[] letters = new Element[LETTERS.length()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = new Element(LETTERS.charAt(i));
+        }
+        List<ProblemGene<Element[]>> genes = new ArrayList<>();
+        genes.add(new ProblemGene<>(letters));
+        return new Problem<>(genes);
+    }
+
+    private static Solution<Element[], Element[]> genome(int genes) {
+        Problem<Element[]> problem = problem();
+        Solution<Element[], Element[]> solution = new Solution<>();
+        for (int i = 0; i < genes; i++) {
+            Element[] elements = new Element[8];
+            for (int e = 0; e < elements.length; e++) {
+                elements[e] = new Element(LETTERS.charAt((i + e) % LETTERS.length()));
+            }
+            solution.addGene(new SolutionGene<>(elements, problem.getProblemGenes()));
+        }
+        return solution;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.localsearch.LocalSearch;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.core.mapping.OneToOneSolutionCreator;
+import science.aist.machinelearning.problem.genome.Element;
+import science.aist.machinelearning.problem.genome.fitness.ElementEqualityCachet;
+import science.aist.machinelearning.problem.genome.mapping.RandomGeneCreator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the parallel best improvement neighbourhood mode of the {@link LocalSearch}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class NeighbourhoodLocalSearchTest {
+
+    private static final String TARGET = "GTACCCGTACCCGTACCCTTGTACCCGTACCCGTACCCTT";
+
+    private final GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+
+    private final OneToOneSolutionCreator<Element[], Element[]> solutionCreator = new OneToOneSolutionCreator<>();
+
+    private final RandomGeneMutator mutator = new RandomGeneMutator();
+
+    private Problem<Element[]> problem;
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+
+        ElementEqualityCachet cachet = new ElementEqualityCachet();
+        cachet.setTargetSequence(TARGET);
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(cachet, 1.0);
+        evaluator.setCachetEvaluators(cachets);
+
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+        solutionCreator.setGeneCreator(new RandomGeneCreator());
+
+        Element[] problemVal = new Element[TARGET.length()];
+        for (int i = 0; i < problemVal.length; i++) {
+            problemVal[i] = new Element("ACGT".charAt(i % 4));
+        }
+        List<ProblemGene<Element[]>> problems = new ArrayList<>();
+        problems.add(new ProblemGene<>(problemVal));
+        problem = new Problem<>(problems);
+    }
+
+    private LocalSearch<Element[], Element[]> localSearch() {
+        LocalSearch<Element[], Element[]> localSearch = new LocalSearch<>();
+        localSearch.setEvaluator(evaluator);
+        localSearch.setSolutionCreator(solutionCreator);
+        localSearch.setMutator(mutator);
+        localSearch.setMaximumGenerations(100);
+        return localSearch;
+    }
+
+    @Test
+    public void testBestImprovement() {
+        // given
+        LocalSearch<Element[], Element[]> localSearch = localSearch();
+        localSearch.setNeighbourhoodSize(16);
+        Solution<Element[], Element[]> start = solutionCreator.createSolution(problem);
+        evaluator.evaluateQuality(start);
+
+        // when
+        Solution<Element[], Element[]> result = localSearch.solve(problem, start);
+
+        // then
+        Assert.assertTrue(result.getQuality() < start.getQuality());
+        Assert.assertEquals(result.getQuality(), evaluator.evaluateQuality(new Solution<>(result)));
+        Assert.assertEquals(localSearch.getCurrentNeighbourhoodSize(), 16);
+    }
+
+    @Test
+    public void testMutatorEvaluatorScoresNeighbours() {
+        // given a local search without an evaluator of its own
+        LocalSearch<Element[], Element[]> localSearch = localSearch();
+        localSearch.setEvaluator(null);
+        localSearch.setNeighbourhoodSize(16);
+        Solution<Element[], Element[]> start = solutionCreator.createSolution(problem);
+        evaluator.evaluateQuality(start);
+
+        // when
+        Solution<Element[], Element[]> result = localSearch.solve(problem, start);
+
+        // then the neighbourhoods were explored and scored by the evaluator of the mutator
+        Assert.assertEquals(localSearch.getCurrentNeighbourhoodSize(), 16);
+        Assert.assertTrue(result.getQuality() < start.getQuality());
+        Assert.assertEquals(result.getQuality(), evaluator.evaluateQuality(new Solution<>(result)));
+    }
+
+    @Test
+    public void testBestImprovementBeatsRandomWalk() {
+        // given
+        double walk = 0;
+        double neighbourhood = 0;
+        for (int run = 0; run < 5; run++) {
+            Solution<Element[], Element[]> start = solutionCreator.createSolution(problem);
+            evaluator.evaluateQuality(start);
+            LocalSearch<Element[], Element[]> single = localSearch();
+            LocalSearch<Element[], Element[]> parallel = localSearch();
+            parallel.setNeighbourhoodSize(8);
+
+            // when
+            walk += single.solve(problem, start).getQuality();
+            neighbourhood += parallel.solve(problem, start).getQuality();
+        }
+
+        // then: with the same amount of steps, 8 neighbours per step find more improvements
+        Assert.assertTrue(neighbourhood < walk, neighbourhood + " vs " + walk);
+    }
+
+    @Test
+    public void testAdaptiveNeighbourhoodGrows() {
+        // given: the optimum can't be improved, so every step fails
+        LocalSearch<Element[], Element[]> localSearch = localSearch();
+        localSearch.setAdaptiveNeighbourhood(true);
+        localSearch.setMaximumNeighbourhoodSize(32);
+        localSearch.setMaximumGenerations(10);
+        Solution<Element[], Element[]> optimum = solutionCreator.createSolution(problem);
+        Element[] elements = optimum.getSolutionGenes().get(0).getGene();
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = new Element(TARGET.charAt(i));
+        }
+        evaluator.evaluateQuality(optimum);
+
+        // when
+        Solution<Element[], Element[]> result = localSearch.solve(problem, optimum);
+
+        // then
+        Assert.assertEquals(result.getQuality(), 0.0);
+        Assert.assertEquals(localSearch.getCurrentNeighbourhoodSize(), 32);
+        Assert.assertTrue(localSearch.getOptions().containsKey("maximumNeighbourhoodSize"));
+    }
+
+    @Test
+    public void testNeighbourhoodOptionsOnlyWhenEnabled() {
+        // given
+        LocalSearch<Element[], Element[]> localSearch = localSearch();
+
+        // when
+        boolean hiddenByDefault = !localSearch.getOptions().containsKey("neighbourhoodSize")
+                && !localSearch.getOptions().containsKey("adaptiveNeighbourhood")
+                && !localSearch.getOptions().containsKey("batchEvaluation");
+        localSearch.setNeighbourhoodSize(4);
+
+        // then: experiments must not move a plain local search to concurrent evaluation
+        Assert.assertTrue(hiddenByDefault);
+        Assert.assertTrue(localSearch.getOptions().containsKey("neighbourhoodSize"));
+        Assert.assertTrue(localSearch.getOptions().containsKey("batchEvaluation"));
+        Assert.assertFalse(localSearch.getOptions().containsKey("maximumNeighbourhoodSize"));
+    }
+}
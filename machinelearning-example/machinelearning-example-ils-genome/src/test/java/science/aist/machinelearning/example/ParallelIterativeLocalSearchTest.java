@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.ils.ParallelIterativeLocalSearchAlgorithm;
+import science.aist.machinelearning.core.Algorithm;
+import science.aist.machinelearning.algorithm.localsearch.LocalSearch;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.core.mapping.OneToOneSolutionCreator;
+import science.aist.machinelearning.problem.genome.Element;
+import science.aist.machinelearning.problem.genome.fitness.ElementEqualityCachet;
+import science.aist.machinelearning.problem.genome.mapping.RandomGeneCreator;
+
+import java.util.*;
+
+/**
+ * Tests the {@link ParallelIterativeLocalSearchAlgorithm}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class ParallelIterativeLocalSearchTest {
+
+    private static final String TARGET = "GTACCCGTACCCGTACCCTTGTACCCGTACCCGTACCCTT";
+
+    private final ParallelIterativeLocalSearchAlgorithm<Element[], Element[]> algorithm = new ParallelIterativeLocalSearchAlgorithm<>();
+
+    private final LocalSearch<Element[], Element[]> localSearch = new LocalSearch<>();
+
+    private final GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+
+    private final OneToOneSolutionCreator<Element[], Element[]> solutionCreator = new OneToOneSolutionCreator<>();
+
+    private Problem<Element[]> problem;
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+
+        ElementEqualityCachet cachet = new ElementEqualityCachet();
+        cachet.setTargetSequence(TARGET);
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(cachet, 1.0);
+        evaluator.setCachetEvaluators(cachets);
+
+        RandomGeneMutator mutator = new RandomGeneMutator();
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+        solutionCreator.setGeneCreator(new RandomGeneCreator());
+
+        localSearch.setEvaluator(evaluator);
+        localSearch.setSolutionCreator(solutionCreator);
+        localSearch.setMutator(mutator);
+        localSearch.setMaximumGenerations(20);
+
+        algorithm.setEvaluator(evaluator);
+        algorithm.setSolutionCreator(solutionCreator);
+        algorithm.setMutator(mutator);
+        algorithm.setSearchAlgorithm(localSearch);
+        algorithm.setMaximumGenerations(10);
+        algorithm.setTrajectories(4);
+
+        Element[] problemVal = new Element[TARGET.length()];
+        for (int i = 0; i < problemVal.length; i++) {
+            problemVal[i] = new Element("ACGT".charAt(i % 4));
+        }
+        List<ProblemGene<Element[]>> problems = new ArrayList<>();
+        problems.add(new ProblemGene<>(problemVal));
+        problem = new Problem<>(problems);
+    }
+
+    @Test
+    public void testTrajectories() {
+        // given
+        Solution<Element[], Element[]> start = solutionCreator.createSolution(problem);
+        evaluator.evaluateQuality(start);
+
+        // when
+        Solution<Element[], Element[]> result = algorithm.solve(problem, start);
+
+        // then
+        Assert.assertNotNull(result);
+        Assert.assertEquals(result.getQuality(), evaluator.evaluateQuality(new Solution<>(result)));
+        Assert.assertTrue(result.getQuality() < start.getQuality());
+        Assert.assertEquals(algorithm.getTrajectoryQualities().size(), 4);
+        // the global best is the best of all trajectories
+        double best = algorithm.getTrajectoryQualities().stream().mapToDouble(Double::doubleValue).min().orElse(-1);
+        Assert.assertEquals(result.getQuality(), best);
+    }
+
+    @Test
+    public void testRestartFromElites() {
+        // given
+        algorithm.setStagnationLimit(1);
+
+        // when
+        Solution<Element[], Element[]> result = algorithm.solve(problem);
+
+        // then
+        Assert.assertNotNull(result);
+        Assert.assertTrue(algorithm.getRestarts() > 0);
+        Assert.assertTrue(algorithm.getOptions().containsKey("eliteSize"));
+        algorithm.setStagnationLimit(0);
+    }
+
+    @Test
+    public void testTrajectoriesUseOwnCopies() {
+        // given
+        List<Map<Object, Object>> trajectoryCopies = Collections.synchronizedList(new ArrayList<>());
+        ParallelIterativeLocalSearchAlgorithm<Element[], Element[]> copying = new ParallelIterativeLocalSearchAlgorithm<Element[], Element[]>() {
+            @Override
+            protected Algorithm<Element[], Element[]> copySearchAlgorithm(Map<Object, Object> copies) {
+                trajectoryCopies.add(copies);
+                return super.copySearchAlgorithm(copies);
+            }
+        };
+        copying.setOptions(algorithm.getOptions());
+
+        // when
+        Solution<Element[], Element[]> result = copying.solve(problem);
+
+        // then
+        Assert.assertNotNull(result);
+        Assert.assertEquals(trajectoryCopies.size(), 4);
+        Set<Object> searches = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> evaluators = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map<Object, Object> copies : trajectoryCopies) {
+            LocalSearch<Element[], Element[]> search = (LocalSearch<Element[], Element[]>) copies.get(localSearch);
+            Assert.assertNotSame(search, localSearch);
+            // the evaluator of the search and of the trajectory is the same copy, as in the originals
+            Assert.assertNotSame(copies.get(evaluator), evaluator);
+            Assert.assertSame(search.getEvaluator(), copies.get(evaluator));
+            // the kick mutator is the mutator of the search, so both use the same copy
+            RandomGeneMutator mutator = (RandomGeneMutator) search.getMutator();
+            Assert.assertNotSame(mutator, localSearch.getMutator());
+            Assert.assertSame(mutator, copies.get(algorithm.getMutator()));
+            Assert.assertSame(mutator.getEvaluator(), copies.get(evaluator));
+            searches.add(search);
+            evaluators.add(copies.get(evaluator));
+        }
+        Assert.assertEquals(searches.size(), 4);
+        Assert.assertEquals(evaluators.size(), 4);
+    }
+}
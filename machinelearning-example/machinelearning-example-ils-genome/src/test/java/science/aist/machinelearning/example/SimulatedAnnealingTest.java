@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.algorithm.sa.ExponentialCoolingSchedule;
+import science.aist.machinelearning.algorithm.sa.LinearCoolingSchedule;
+import science.aist.machinelearning.algorithm.sa.LogarithmicCoolingSchedule;
+import science.aist.machinelearning.algorithm.sa.ParallelTempering;
+import science.aist.machinelearning.algorithm.sa.SimulatedAnnealing;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.fitness.Cachet;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.problem.genome.Element;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the {@link SimulatedAnnealing} and the {@link ParallelTempering}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class SimulatedAnnealingTest {
+
+    private static final String LETTERS = "ACGT";
+
+    private final GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+
+    private final RandomGeneMutator mutator = new RandomGeneMutator();
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(new CachetEvaluator<Element[], Element[]>() {
+            @Override
+            public double evaluateQuality(Solution<Element[], Element[]> solution) {
+                double quality = 0;
+                for (SolutionGene<Element[], Element[]> gene : solution.getSolutionGenes()) {
+                    for (Element element : gene.getGene()) {
+                        if (element.getValue() != 'A') {
+                            quality++;
+                        }
+                    }
+                }
+                solution.getCachets().add(new Cachet(quality, getName()));
+                return quality;
+            }
+
+            @Override
+            public String getName() {
+                return "AllGenesPreferA";
+            }
+        }, 1.0);
+        evaluator.setCachetEvaluators(cachets);
+
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+    }
+
+    @Test
+    public void testAnnealingImproves() {
+        // given
+        SimulatedAnnealing<Element[], Element[]> annealing = annealing();
+        Solution<Element[], Element[]> given = genome(50);
+        evaluator.evaluateQuality(given);
+        double givenQuality = given.getQuality();
+        List<SolutionGene<Element[], Element[]>> givenGenes = new ArrayList<>(given.getSolutionGenes());
+
+        // when
+        Solution<Element[], Element[]> result = annealing.solve(problem(), given);
+
+        // then
+        Assert.assertTrue(result.getQuality() < givenQuality);
+        Assert.assertEquals(result.getQuality(), evaluator.evaluateQuality(new Solution<>(result)));
+        Assert.assertTrue(annealing.getAcceptanceRate() > 0);
+        // the given solution is untouched
+        Assert.assertEquals(given.getQuality(), givenQuality);
+        Assert.assertEquals(given.getSolutionGenes(), givenGenes);
+    }
+
+    @Test
+    public void testCoolingSchedules() {
+        // given
+        ExponentialCoolingSchedule exponential = new ExponentialCoolingSchedule();
+        exponential.setAlpha(0.5);
+
+        // then
+        Assert.assertEquals(exponential.temperature(2, 0, 10), 2.0);
+        Assert.assertEquals(exponential.temperature(2, 3, 10), 0.25);
+        Assert.assertEquals(new LinearCoolingSchedule().temperature(2, 5, 10), 1.0);
+        // linear cooling never reaches 0, the temperature must stay positive
+        Assert.assertEquals(new LinearCoolingSchedule().temperature(2, 9, 10), 0.2, 1e-12);
+        Assert.assertEquals(new LinearCoolingSchedule().temperature(2, 10, 10), 0.2, 1e-12);
+        Assert.assertEquals(new LinearCoolingSchedule().temperature(2, 50, 10), 0.2, 1e-12);
+        Assert.assertEquals(new LogarithmicCoolingSchedule().temperature(2, 0, 10), 2.0);
+        Assert.assertTrue(new LogarithmicCoolingSchedule().temperature(2, 100, 10) < 0.5);
+    }
+
+    @Test
+    public void testReheat() {
+        // given
+        SimulatedAnnealing<Element[], Element[]> annealing = annealing();
+        annealing.setCoolingSchedule(new LinearCoolingSchedule());
+        annealing.setReheating(true);
+        annealing.setStagnationLimit(50);
+        Solution<Element[], Element[]> given = genome(5);
+        evaluator.evaluateQuality(given);
+
+        // when
+        Solution<Element[], Element[]> result = annealing.solve(problem(), given);
+
+        // then the optimum is found quickly, after that every 50 steps are a stagnation
+        Assert.assertTrue(annealing.getReheats() > 0);
+        Assert.assertTrue(annealing.getOptions().containsKey("stagnationLimit"));
+        Assert.assertTrue(annealing.getOptions().containsKey("reheatFactor"));
+        Assert.assertTrue(result.getQuality() <= given.getQuality());
+    }
+
+    @Test
+    public void testReheatOptionsOnlyWhenEnabled() {
+        // given
+        SimulatedAnnealing<Element[], Element[]> annealing = annealing();
+
+        // then
+        Assert.assertTrue(annealing.getOptions().containsKey("reheating"));
+        Assert.assertFalse(annealing.getOptions().containsKey("stagnationLimit"));
+        Assert.assertFalse(annealing.getOptions().containsKey("reheatFactor"));
+    }
+
+    @Test
+    public void testParallelTempering() {
+        // given
+        ParallelTempering<Element[], Element[]> tempering = new ParallelTempering<>();
+        tempering.setEvaluator(evaluator);
+        tempering.setMutator(mutator);
+        tempering.setMaximumGenerations(1000);
+        tempering.setReplicas(4);
+        tempering.setMinimumTemperature(0.1);
+        tempering.setMaximumTemperature(10.0);
+        tempering.setSwapInterval(5);
+        Solution<Element[], Element[]> given = genome(50);
+        evaluator.evaluateQuality(given);
+        double givenQuality = given.getQuality();
+
+        // when
+        Solution<Element[], Element[]> result = tempering.solve(problem(), given);
+
+        // then
+        Assert.assertTrue(result.getQuality() < givenQuality);
+        Assert.assertEquals(result.getQuality(), evaluator.evaluateQuality(new Solution<>(result)));
+        Assert.assertEquals(given.getQuality(), givenQuality);
+        Assert.assertEquals(tempering.getTemperatures()[0], 0.1, 1e-9);
+        Assert.assertEquals(tempering.getTemperatures()[3], 10.0, 1e-9);
+        double[] rates = tempering.getSwapAcceptanceRates();
+        Assert.assertEquals(rates.length, 3);
+        Assert.assertTrue(Arrays.stream(rates).sum() > 0, "no swaps were accepted");
+    }
+
+    private SimulatedAnnealing<Element[], Element[]> annealing() {
+        SimulatedAnnealing<Element[], Element[]> annealing = new SimulatedAnnealing<>();
+        annealing.setEvaluator(evaluator);
+        annealing.setMutator(mutator);
+        annealing.setMaximumGenerations(2000);
+        annealing.setInitialTemperature(2.0);
+        return annealing;
+    }
+
+    private static Problem<Element[]> problem() {
+        Element[] letters = new Element[LETTERS.length()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = new Element(LETTERS.charAt(i));
+        }
+        List<ProblemGene<Element[]>> genes = new ArrayList<>();
+        genes.add(new ProblemGene<>(letters));
+        return new Problem<>(genes);
+    }
+
+    private static Solution<Element[], Element[]> genome(int genes) {
+        Problem<Element[]> problem = problem();
+        Solution<Element[], Element[]> solution = new Solution<>();
+        for (int i = 0; i < genes; i++) {
+            Element[] elements = new Element[4];
+            for (int e = 0; e < elements.length; e++) {
+                elements[e] = new Element(LETTERS.charAt((i + e) % LETTERS.length()));
+            }
+            solution.addGene(new SolutionGene<>(elements, problem.getProblemGenes()));
+        }
+        return solution;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.example;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.algorithm.mutation.MoveMutator;
+import science.aist.machinelearning.algorithm.mutation.RandomGeneMutator;
+import science.aist.machinelearning.algorithm.mutation.UndoLog;
+import science.aist.machinelearning.algorithm.tabusearch.GeneHasher;
+import science.aist.machinelearning.algorithm.tabusearch.TabuMemory;
+import science.aist.machinelearning.algorithm.tabusearch.TabuSearch;
+import science.aist.machinelearning.core.Problem;
+import science.aist.machinelearning.core.ProblemGene;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.fitness.Cachet;
+import science.aist.machinelearning.core.fitness.CachetEvaluator;
+import science.aist.machinelearning.core.fitness.GenericEvaluatorImpl;
+import science.aist.machinelearning.core.logging.LoggingConf;
+import science.aist.machinelearning.problem.genome.Element;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the {@link TabuSearch} and its {@link TabuMemory}
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class TabuSearchTest {
+
+    private static final String LETTERS = "ACGT";
+
+    private final GenericEvaluatorImpl<Element[], Element[]> evaluator = new GenericEvaluatorImpl<>();
+
+    private final RandomGeneMutator mutator = new RandomGeneMutator();
+
+    @BeforeClass
+    public void setUp() {
+        LoggingConf.setLoggingToRootLevel();
+
+        Map<CachetEvaluator<Element[], Element[]>, Double> cachets = new HashMap<>();
+        cachets.put(new CachetEvaluator<Element[], Element[]>() {
+            @Override
+            public double evaluateQuality(Solution<Element[], Element[]> solution) {
+                double quality = 0;
+                for (SolutionGene<Element[], Element[]> gene : solution.getSolutionGenes()) {
+                    for (Element element : gene.getGene()) {
+                        if (element.getValue() != 'A') {
+                            quality++;
+                        }
+                    }
+                }
+                solution.getCachets().add(new Cachet(quality, getName()));
+                return quality;
+            }
+
+            @Override
+            public String getName() {
+                return "AllGenesPreferA";
+            }
+        }, 1.0);
+        evaluator.setCachetEvaluators(cachets);
+
+        mutator.setEvaluator(evaluator);
+        mutator.setMutationsPerSolution(1);
+    }
+
+    @Test
+    public void testMemoryEvictsOldestAttribute() {
+        // given
+        TabuMemory memory = new TabuMemory(3);
+
+        // when
+        memory.add(1);
+        memory.add(2);
+        memory.add(0);
+        memory.add(4);
+
+        // then
+        Assert.assertEquals(memory.size(), 3);
+        Assert.assertFalse(memory.contains(1));
+        Assert.assertTrue(memory.contains(2));
+        Assert.assertTrue(memory.contains(0));
+        Assert.assertTrue(memory.contains(4));
+        Assert.assertFalse(memory.contains(3));
+    }
+
+    @Test
+    public void testMemoryCountsDuplicates() {
+        // given
+        TabuMemory memory = new TabuMemory(3);
+        memory.add(7);
+        memory.add(7);
+        memory.add(8);
+
+        // when
+        memory.add(9);
+
+        // then - one of the two 7s is still in the ring
+        Assert.assertTrue(memory.contains(7));
+        memory.add(10);
+        Assert.assertFalse(memory.contains(7));
+        Assert.assertTrue(memory.contains(8));
+    }
+
+    @Test
+    public void testMemoryManyAttributes() {
+        // given
+        TabuMemory memory = new TabuMemory(64);
+
+        // when
+        for (long i = 0; i < 10_000; i++) {
+            memory.add(i * 0x10000L);
+        }
+
+        // then exactly the last 64 attributes remain, even though all of them share the lower bits
+        for (long i = 0; i < 10_000; i++) {
+            Assert.assertEquals(memory.contains(i * 0x10000L), i >= 10_000 - 64, "attribute " + i);
+        }
+    }
+
+    @Test
+    public void testSearchImproves() {
+        // given
+        TabuSearch<Element[], Element[]> search = search();
+        Solution<Element[], Element[]> given = genome(50);
+        evaluator.evaluateQuality(given);
+        double givenQuality = given.getQuality();
+        List<SolutionGene<Element[], Element[]>> givenGenes = new ArrayList<>(given.getSolutionGenes());
+
+        // when
+        Solution<Element[], Element[]> result = search.solve(problem(), given);
+
+        // then
+        Assert.assertTrue(result.getQuality() < givenQuality);
+        Assert.assertEquals(result.getQuality(), evaluator.evaluateQuality(new Solution<>(result)));
+        // the given solution is untouched
+        Assert.assertEquals(given.getQuality(), givenQuality);
+        Assert.assertEquals(given.getSolutionGenes(), givenGenes);
+    }
+
+    @Test
+    public void testAspiration() {
+        // given - every move replaces the only gene with one more 'A', and all values of the gene share one attribute.
+        // So after the first move every neighbour is tabu, but each one is better than the best solution so far
+        TabuSearch<Element[], Element[]> search = search();
+        search.setMutator(new OneMoreAMutator());
+        search.setNeighbourhoodSize(1);
+        search.setMaximumGenerations(3);
+        search.setGeneHasher(gene -> 0);
+        Solution<Element[], Element[]> given = genome(1);
+        evaluator.evaluateQuality(given);
+
+        // when
+        Solution<Element[], Element[]> result = search.solve(problem(), given);
+
+        // then
+        Assert.assertEquals(search.getAspirations(), 2);
+        Assert.assertEquals(search.getBlockedIterations(), 0);
+        Assert.assertEquals(result.getQuality(), 0.0);
+    }
+
+    @Test
+    public void testNoAspirationBlocks() {
+        // given - same scenario without aspiration
+        TabuSearch<Element[], Element[]> search = search();
+        search.setMutator(new OneMoreAMutator());
+        search.setNeighbourhoodSize(1);
+        search.setMaximumGenerations(3);
+        search.setGeneHasher(gene -> 0);
+        search.setAspiration(false);
+        Solution<Element[], Element[]> given = genome(1);
+        evaluator.evaluateQuality(given);
+
+        // when
+        Solution<Element[], Element[]> result = search.solve(problem(), given);
+
+        // then
+        Assert.assertEquals(search.getAspirations(), 0);
+        Assert.assertEquals(search.getBlockedIterations(), 2);
+        Assert.assertEquals(result.getQuality(), 2.0);
+    }
+
+    @Test
+    public void testHashPrimitiveArrayByContent() {
+        // given
+        GeneHasher<int[]> hasher = GeneHasher.byHashCode();
+
+        // then
+        Assert.assertEquals(hasher.hash(new int[]{1, 2, 3}), hasher.hash(new int[]{1, 2, 3}));
+        Assert.assertNotEquals(hasher.hash(new int[]{1, 2, 3}), hasher.hash(new int[]{3, 2, 1}));
+        Assert.assertEquals(GeneHasher.<Element[]>byHashCode().hash(null), GeneHasher.<Element[]>byHashCode().hash(null));
+    }
+
+    private TabuSearch<Element[], Element[]> search() {
+        TabuSearch<Element[], Element[]> search = new TabuSearch<>();
+        search.setEvaluator(evaluator);
+        search.setMutator(mutator);
+        search.setMaximumGenerations(300);
+        search.setNeighbourhoodSize(16);
+        search.setTabuTenure(10);
+        // elements have no value equality, so the gene is hashed by its letters
+        search.setGeneHasher(gene -> {
+            long hash = 0;
+            for (Element element : gene) {
+                hash = hash * 31 + element.getValue();
+            }
+            return hash;
+        });
+        return search;
+    }
+
+    /**
+     * Deterministic move: replaces the first gene with a copy in which the first letter that is not an 'A' is an 'A'
+     */
+    private static class OneMoreAMutator implements MoveMutator<Element[], Element[]> {
+
+        @Override
+        public void applyMove(Solution<Element[], Element[]> solution, UndoLog<Element[], Element[]> undo) {
+            undo.begin(solution);
+            SolutionGene<Element[], Element[]> gene = solution.getSolutionGenes().get(0);
+            Element[] elements = new Element[gene.getGene().length];
+            boolean replaced = false;
+            for (int i = 0; i < elements.length; i++) {
+                char value = gene.getGene()[i].getValue();
+                if (!replaced && value != 'A') {
+                    value = 'A';
+                    replaced = true;
+                }
+                elements[i] = new Element(value);
+            }
+            undo.replaceGene(solution, 0, new SolutionGene<>(elements, gene.getProblemGenes()));
+        }
+
+        @Override
+        public Solution<Element[], Element[]> mutate(Solution<Element[], Element[]> solution) {
+            Solution<Element[], Element[]> mutation = new Solution<>(solution);
+            applyMove(mutation, new UndoLog<>());
+            return mutation;
+        }
+    }
+
+    private static Problem<Element[]> problem() {
+        Element[] letters = new Element[LETTERS.length()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = new Element(LETTERS.charAt(i));
+        }
+        List<ProblemGene<Element[]>> genes = new ArrayList<>();
+        genes.add(new ProblemGene<>(letters));
+        return new Problem<>(genes);
+    }
+
+    private static Solution<Element[], Element[]> genome(int genes) {
+        Problem<Element[]> problem = problem();
+        Solution<Element[], Element[]> solution = new Solution<>();
+        for (int i = 0; i < genes; i++) {
+            Element[] elements = new Element[4];
+            for (int e = 0; e < elements.length; e++) {
+                elements[e] = new Element(LETTERS.charAt((i + e) % LETTERS.length()));
+            }
+            solution.addGene(new SolutionGene<>(elements, problem.getProblemGenes()));
+        }
+        return solution;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2021 the original author or authors.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package science.aist.machinelearning.algorithm.nn;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import science.aist.machinelearning.core.Solution;
+import science.aist.machinelearning.core.SolutionGene;
+import science.aist.machinelearning.core.surrogate.RankCorrelation;
+
+import java.util.Random;
+
+/**
+ * Tests the {@link NeuralNetworkSurrogateModel} on a quality that is linear in the genes
+ *
+ * @author Oliver Krauss
+ * @since 1.0
+ */
+public class NeuralNetworkSurrogateModelTest {
+
+    @Test
+    public void testRanksSolutions() {
+        // given
+        Random random = new Random(1L);
+        NeuralNetworkSurrogateModel<Double, Double> surrogate = surrogate();
+        for (int i = 0; i < 200; i++) {
+            surrogate.addSample(sample(random.nextDouble(), random.nextDouble()));
+        }
+
+        // when
+        surrogate.train();
+
+        // then the surrogate orders unseen solutions like the real quality
+        Assert.assertTrue(surrogate.isTrained());
+        double[] predicted = new double[50];
+        double[] real = new double[50];
+        for (int i = 0; i < 50; i++) {
+            Solution<Double, Double> solution = sample(random.nextDouble(), random.nextDouble());
+            predicted[i] = surrogate.predictQuality(solution);
+            real[i] = solution.getQuality();
+        }
+        double correlation = RankCorrelation.spearman(predicted, real);
+        Assert.assertTrue(correlation > 0.8, "rank correlation was " + correlation);
+    }
+
+    @Test
+    public void testArchiveIsBounded() {
+        // given
+        NeuralNetworkSurrogateModel<Double, Double> surrogate = surrogate();
+        surrogate.setArchiveSize(10);
+
+        // when
+        for (int i = 0; i < 25; i++) {
+            surrogate.addSample(sample(i / 25.0, 0));
+        }
+
+        // then
+        Assert.assertEquals(surrogate.getSampleCount(), 10);
+    }
+
+    @Test
+    public void testReset() {
+        // given
+        NeuralNetworkSurrogateModel<Double, Double> surrogate = surrogate();
+        for (int i = 0; i < 20; i++) {
+            surrogate.addSample(sample(i / 20.0, 1 - i / 20.0));
+        }
+        surrogate.train();
+        NeuralNetwork<Double, Double> trained = surrogate.getNetwork();
+
+        // when
+        surrogate.reset();
+
+        // then
+        Assert.assertEquals(surrogate.getSampleCount(), 0);
+        Assert.assertFalse(surrogate.isTrained());
+        Assert.assertNotSame(surrogate.getNetwork(), trained);
+    }
+
+    private static NeuralNetworkSurrogateModel<Double, Double> surrogate() {
+        return new NeuralNetworkSurrogateModel<>(new int[]{8}, solution -> new double[]{
+                solution.getSolutionGenes().get(0).getGene(),
+                solution.getSolutionGenes().get(1).getGene()
+        }, network -> network.setEpochs(20).setBuilderConsumer(builder -> builder.seed(12345)));
+    }
+
+    /**
+     * @return solution with two genes and the quality 3x + y
+     */
+    private static Solution<Double, Double> sample(double x, double y) {
+        Solution<Double, Double> solution = new Solution<>();
+        solution.addGene(new SolutionGene<>(x));
+        solution.addGene(new SolutionGene<>(y));
+        solution.setQuality(3 * x + y);
+        return solution;
+    }
+}